@@ -0,0 +1,76 @@
+package net.coderodde.circuits.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import net.coderodde.circuits.Circuit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks building circuits through the {@code connect} API,
+ * locking them and copying them. Run with {@code -prof gc} to see the
+ * allocation rate as well.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+    
+    @Param({ "ripple-64", "cla-32", "multiplier-16", "random-10000" })
+    public String workload;
+    
+    private Netlist netlist;
+    private Circuit circuit;
+    
+    /**
+     * Holds a fresh, unlocked circuit for each invocation of
+     * {@link ConstructionBenchmark#lock(FreshCircuit)}.
+     */
+    @State(Scope.Thread)
+    public static class FreshCircuit {
+        
+        private Circuit circuit;
+        
+        @Setup(Level.Invocation)
+        public void setUp(ConstructionBenchmark benchmark) {
+            circuit = benchmark.netlist.toCircuit("circuit");
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        netlist = Workloads.create(workload);
+        circuit = netlist.toCircuit("circuit");
+    }
+    
+    @Benchmark
+    public Circuit construct() {
+        return netlist.toCircuit("circuit");
+    }
+    
+    @Benchmark
+    public Circuit lock(FreshCircuit freshCircuit) {
+        freshCircuit.circuit.lock();
+        return freshCircuit.circuit;
+    }
+    
+    @Benchmark
+    public Circuit copy() {
+        return new Circuit(circuit, "copy");
+    }
+}
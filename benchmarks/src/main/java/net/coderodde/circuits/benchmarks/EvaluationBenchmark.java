@@ -0,0 +1,148 @@
+package net.coderodde.circuits.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.circuits.Circuit;
+import net.coderodde.circuits.CircuitEvaluator;
+import net.coderodde.circuits.IncrementalSimulator;
+import net.coderodde.circuits.LaneEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks evaluating circuits. All the scores are in input
+ * vectors per second, so the scalar and the bit-parallel evaluators may be
+ * compared directly. Run with {@code -prof gc} to see the allocation rate as
+ * well.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+    
+    /**
+     * The number of precomputed input vectors. Must be a power of two.
+     */
+    private static final int NUMBER_OF_VECTORS = 1024;
+    
+    @Param({ "ripple-64", "cla-32", "multiplier-16", "random-10000" })
+    public String workload;
+    
+    private Circuit unlockedCircuit;
+    private Circuit lockedCircuit;
+    private CircuitEvaluator evaluator;
+    private LaneEvaluator laneEvaluator;
+    private IncrementalSimulator simulator;
+    private boolean[][] inputVectors;
+    private boolean[] outputBits;
+    private long[][] inputLanes;
+    private long[] outputLanes;
+    private int[] flippedInputPins;
+    private boolean[] simulatorInputBits;
+    private Random random;
+    private int vector;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Netlist netlist = Workloads.create(workload);
+        unlockedCircuit = netlist.toCircuit("unlocked");
+        lockedCircuit = netlist.toCircuit("locked");
+        lockedCircuit.lock();
+        evaluator = lockedCircuit.newEvaluator();
+        laneEvaluator = lockedCircuit.generateLaneEvaluator();
+        simulator = lockedCircuit.newIncrementalSimulator();
+        
+        random = new Random(13L);
+        int numberOfInputs = netlist.getNumberOfInputs();
+        inputVectors = new boolean[NUMBER_OF_VECTORS][numberOfInputs];
+        inputLanes = new long[NUMBER_OF_VECTORS / Long.SIZE][numberOfInputs];
+        flippedInputPins = new int[NUMBER_OF_VECTORS];
+        
+        for (int i = 0; i < NUMBER_OF_VECTORS; ++i) {
+            for (int j = 0; j < numberOfInputs; ++j) {
+                inputVectors[i][j] = random.nextBoolean();
+                
+                if (inputVectors[i][j]) {
+                    inputLanes[i / Long.SIZE][j] |= 1L << i;
+                }
+            }
+            
+            flippedInputPins[i] = random.nextInt(numberOfInputs);
+        }
+        
+        simulatorInputBits = new boolean[numberOfInputs];
+        outputBits = new boolean[netlist.getNumberOfOutputs()];
+        outputLanes = new long[netlist.getNumberOfOutputs()];
+    }
+    
+    @Benchmark
+    public boolean[] unlockedDoCycle() {
+        unlockedCircuit.doCycle(nextInputVector(), outputBits);
+        return outputBits;
+    }
+    
+    @Benchmark
+    public boolean[] lockedDoCycle() {
+        lockedCircuit.doCycle(nextInputVector(), outputBits);
+        return outputBits;
+    }
+    
+    @Benchmark
+    public boolean[] evaluator() {
+        evaluator.doCycle(nextInputVector(), outputBits);
+        return outputBits;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(Long.SIZE)
+    public long[] evaluateBatch() {
+        evaluator.evaluateBatch(nextInputLanes(), outputLanes);
+        return outputLanes;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(Long.SIZE)
+    public long[] generatedLaneEvaluator() {
+        laneEvaluator.evaluate(nextInputLanes(), outputLanes);
+        return outputLanes;
+    }
+    
+    /**
+     * Flips a single input pin per cycle, which is the best case of the
+     * incremental simulator.
+     */
+    @Benchmark
+    public boolean[] incrementalSingleFlip() {
+        int inputPin = flippedInputPins[vector++ & (NUMBER_OF_VECTORS - 1)];
+        simulatorInputBits[inputPin] = !simulatorInputBits[inputPin];
+        simulator.setInputBit(inputPin, simulatorInputBits[inputPin]);
+        simulator.doCycle();
+        simulator.getOutputBits(outputBits);
+        return outputBits;
+    }
+    
+    private boolean[] nextInputVector() {
+        return inputVectors[vector++ & (NUMBER_OF_VECTORS - 1)];
+    }
+    
+    private long[] nextInputLanes() {
+        return inputLanes[vector++ & (inputLanes.length - 1)];
+    }
+}
@@ -0,0 +1,142 @@
+package net.coderodde.circuits.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.coderodde.circuits.Circuit;
+
+/**
+ * This class describes a combinational netlist independently of the
+ * {@link Circuit} API, so that the very same workload may be turned into a
+ * fresh circuit as many times as a benchmark needs. Signals are referred to by
+ * integer handles: the handles {@code 0, ..., numberOfInputs - 1} denote the
+ * input pins, and each gate added gets the next handle.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class Netlist {
+    
+    private static final byte NOT = 0;
+    private static final byte AND = 1;
+    private static final byte OR  = 2;
+    
+    private final int numberOfInputs;
+    private final List<Byte> opcodes = new ArrayList<>();
+    private final List<Integer> operands1 = new ArrayList<>();
+    private final List<Integer> operands2 = new ArrayList<>();
+    private final List<Integer> outputs = new ArrayList<>();
+    
+    public Netlist(int numberOfInputs) {
+        this.numberOfInputs = numberOfInputs;
+    }
+    
+    public int getNumberOfInputs() {
+        return numberOfInputs;
+    }
+    
+    public int getNumberOfOutputs() {
+        return outputs.size();
+    }
+    
+    public int getNumberOfGates() {
+        return opcodes.size();
+    }
+    
+    public int getNumberOfSignals() {
+        return numberOfInputs + opcodes.size();
+    }
+    
+    public int not(int signal) {
+        return addGate(NOT, signal, -1);
+    }
+    
+    public int and(int signal1, int signal2) {
+        return addGate(AND, signal1, signal2);
+    }
+    
+    public int or(int signal1, int signal2) {
+        return addGate(OR, signal1, signal2);
+    }
+    
+    public int xor(int signal1, int signal2) {
+        return and(or(signal1, signal2), not(and(signal1, signal2)));
+    }
+    
+    public void addOutput(int signal) {
+        outputs.add(signal);
+    }
+    
+    /**
+     * Builds a new, unlocked circuit out of this netlist.
+     *
+     * @param name the name of the circuit.
+     * @return a new circuit.
+     */
+    public Circuit toCircuit(String name) {
+        Circuit circuit = new Circuit(name, numberOfInputs, outputs.size());
+        
+        for (int gate = 0; gate < opcodes.size(); ++gate) {
+            String gateName = getName(numberOfInputs + gate);
+            
+            switch (opcodes.get(gate)) {
+                case NOT:
+                    circuit.addNotGate(gateName);
+                    circuit.connect(getName(operands1.get(gate)))
+                           .to(gateName);
+                    break;
+                
+                case AND:
+                    circuit.addAndGate(gateName);
+                    connectDoubleInputGate(circuit, gate, gateName);
+                    break;
+                
+                case OR:
+                    circuit.addOrGate(gateName);
+                    connectDoubleInputGate(circuit, gate, gateName);
+                    break;
+            }
+        }
+        
+        for (int i = 0; i < outputs.size(); ++i) {
+            circuit.connect(getName(outputs.get(i))).to("outputPin" + i);
+        }
+        
+        return circuit;
+    }
+    
+    private void connectDoubleInputGate(Circuit circuit,
+                                        int gate,
+                                        String gateName) {
+        circuit.connect(getName(operands1.get(gate))).toFirstPinOf(gateName);
+        circuit.connect(getName(operands2.get(gate))).toSecondPinOf(gateName);
+    }
+    
+    private String getName(int signal) {
+        if (signal < numberOfInputs) {
+            return "inputPin" + signal;
+        }
+        
+        return "gate" + (signal - numberOfInputs);
+    }
+    
+    private int addGate(byte opcode, int operand1, int operand2) {
+        checkSignal(operand1);
+        
+        if (operand2 != -1) {
+            checkSignal(operand2);
+        }
+        
+        opcodes.add(opcode);
+        operands1.add(operand1);
+        operands2.add(operand2);
+        return numberOfInputs + opcodes.size() - 1;
+    }
+    
+    private void checkSignal(int signal) {
+        if (signal < 0 || signal >= getNumberOfSignals()) {
+            throw new IllegalArgumentException(
+                    "Signal " + signal + " is out of range [0, " +
+                    getNumberOfSignals() + ").");
+        }
+    }
+}
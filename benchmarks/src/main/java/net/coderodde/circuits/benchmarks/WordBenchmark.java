@@ -0,0 +1,146 @@
+package net.coderodde.circuits.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.circuits.Circuit;
+import net.coderodde.circuits.CircuitEvaluator;
+import net.coderodde.circuits.word.WordCircuit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks evaluating a word-level datapath natively against
+ * evaluating its bit-blasted circuit. All the scores are in input vectors per
+ * second.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordBenchmark {
+    
+    /**
+     * The number of precomputed input vectors. Must be a power of two.
+     */
+    private static final int NUMBER_OF_VECTORS = 1024;
+    
+    @Param({ "8", "32" })
+    public int stages;
+    
+    @Param({ "16", "64" })
+    public int width;
+    
+    private WordCircuit wordCircuit;
+    private CircuitEvaluator evaluator;
+    private long[][] inputWords;
+    private long[] outputWords;
+    private boolean[][] inputVectors;
+    private long[][] inputLanes;
+    private boolean[] outputBits;
+    private long[] outputLanes;
+    private int vector;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        wordCircuit = createDatapath(stages, width);
+        Circuit circuit = wordCircuit.toCircuit("datapath");
+        circuit.lock();
+        evaluator = circuit.newEvaluator();
+        
+        Random random = new Random(13L);
+        inputWords = new long[NUMBER_OF_VECTORS][3];
+        inputVectors = new boolean[NUMBER_OF_VECTORS][2 * width + 1];
+        inputLanes = new long[NUMBER_OF_VECTORS / Long.SIZE][2 * width + 1];
+        
+        for (int i = 0; i < NUMBER_OF_VECTORS; ++i) {
+            for (int j = 0; j < 3; ++j) {
+                inputWords[i][j] = random.nextLong();
+            }
+            
+            for (int pin = 0; pin < 2 * width + 1; ++pin) {
+                long word = inputWords[i][pin / width];
+                inputVectors[i][pin] = ((word >>> (pin % width)) & 1L) != 0;
+                
+                if (inputVectors[i][pin]) {
+                    inputLanes[i / Long.SIZE][pin] |= 1L << i;
+                }
+            }
+        }
+        
+        outputWords = new long[2];
+        outputBits = new boolean[width + 1];
+        outputLanes = new long[width + 1];
+    }
+    
+    @Benchmark
+    public long[] wordCircuit() {
+        wordCircuit.evaluate(inputWords[vector++ & (NUMBER_OF_VECTORS - 1)],
+                             outputWords);
+        return outputWords;
+    }
+    
+    @Benchmark
+    public boolean[] bitBlastedEvaluator() {
+        evaluator.doCycle(inputVectors[vector++ & (NUMBER_OF_VECTORS - 1)],
+                          outputBits);
+        return outputBits;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(Long.SIZE)
+    public long[] bitBlastedBatch() {
+        evaluator.evaluateBatch(inputLanes[vector++ &
+                                           (inputLanes.length - 1)],
+                                outputLanes);
+        return outputLanes;
+    }
+    
+    /**
+     * Creates a datapath of {@code stages} stages over the input buses
+     * {@code a} and {@code b} and the single-bit input bus {@code select}.
+     * Each stage adds, subtracts, shifts and selects. The output buses are
+     * the result of the last stage and whether it is less than {@code b}.
+     */
+    static WordCircuit createDatapath(int stages, int width) {
+        WordCircuit datapath = new WordCircuit("datapath");
+        datapath.addInputBus("a", width);
+        datapath.addInputBus("b", width);
+        datapath.addInputBus("select", 1);
+        String x = "a";
+        
+        for (int stage = 0; stage < stages; ++stage) {
+            datapath.addAdder("sum" + stage, x, "b");
+            datapath.addShiftLeft("shifted" + stage, x, 1);
+            datapath.addSubtractor("difference" + stage,
+                                   "sum" + stage,
+                                   "shifted" + stage);
+            datapath.addXor("xor" + stage, "difference" + stage, "b");
+            datapath.addMultiplexer("x" + stage,
+                                    "select",
+                                    "xor" + stage,
+                                    "sum" + stage);
+            x = "x" + stage;
+        }
+        
+        datapath.addLessThanComparator("less", x, "b");
+        datapath.addOutputBus(x);
+        datapath.addOutputBus("less");
+        return datapath;
+    }
+}
@@ -0,0 +1,271 @@
+package net.coderodde.circuits.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class generates the benchmark workloads. Every generated netlist uses
+ * all of its input pins and gates, so that it can be locked.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class Workloads {
+    
+    private Workloads() {}
+    
+    /**
+     * Parses a workload specification of the form {@code kind-size}, where
+     * {@code kind} is one of {@code ripple}, {@code cla}, {@code multiplier}
+     * and {@code random}. For adders and multipliers the size is the operand
+     * width; for random DAGs it is the number of gates.
+     *
+     * @param specification the workload specification.
+     * @return the workload netlist.
+     */
+    public static Netlist create(String specification) {
+        int dash = specification.indexOf('-');
+        
+        if (dash < 0) {
+            throw new IllegalArgumentException(
+                    "Bad workload specification: " + specification);
+        }
+        
+        String kind = specification.substring(0, dash);
+        int size = Integer.parseInt(specification.substring(dash + 1));
+        
+        switch (kind) {
+            case "ripple":
+                return rippleCarryAdder(size);
+            
+            case "cla":
+                return carryLookaheadAdder(size);
+            
+            case "multiplier":
+                return arrayMultiplier(size);
+            
+            case "random":
+                return randomDag(64, size, 64, 4, 13L);
+            
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown workload kind: " + kind);
+        }
+    }
+    
+    /**
+     * Generates an {@code n}-bit ripple-carry adder. The input pins are
+     * {@code a[0..n-1], b[0..n-1], carryIn}; the output pins are
+     * {@code sum[0..n-1], carryOut}.
+     *
+     * @param n the operand width.
+     * @return the adder netlist.
+     */
+    public static Netlist rippleCarryAdder(int n) {
+        Netlist netlist = new Netlist(2 * n + 1);
+        int carry = 2 * n;
+        
+        for (int i = 0; i < n; ++i) {
+            int a = i;
+            int b = n + i;
+            int propagate = netlist.xor(a, b);
+            netlist.addOutput(netlist.xor(propagate, carry));
+            carry = netlist.or(netlist.and(a, b),
+                               netlist.and(propagate, carry));
+        }
+        
+        netlist.addOutput(carry);
+        return netlist;
+    }
+    
+    /**
+     * Generates an {@code n}-bit carry-lookahead adder, in which every carry
+     * is computed directly from the generate and propagate signals. The pins
+     * are laid out as in {@link #rippleCarryAdder(int)}.
+     *
+     * @param n the operand width.
+     * @return the adder netlist.
+     */
+    public static Netlist carryLookaheadAdder(int n) {
+        Netlist netlist = new Netlist(2 * n + 1);
+        int[] generates = new int[n];
+        int[] propagates = new int[n];
+        int carryIn = 2 * n;
+        
+        for (int i = 0; i < n; ++i) {
+            generates[i] = netlist.and(i, n + i);
+            propagates[i] = netlist.xor(i, n + i);
+        }
+        
+        int carry = carryIn;
+        
+        for (int i = 0; i < n; ++i) {
+            netlist.addOutput(netlist.xor(propagates[i], carry));
+            
+            // carry[i + 1] = g[i] | p[i] g[i - 1] | ... | p[i] ... p[0] c[0].
+            int sum = generates[i];
+            int product = propagates[i];
+            
+            for (int j = i - 1; j >= 0; --j) {
+                sum = netlist.or(sum, netlist.and(product, generates[j]));
+                product = netlist.and(product, propagates[j]);
+            }
+            
+            carry = netlist.or(sum, netlist.and(product, carryIn));
+        }
+        
+        netlist.addOutput(carry);
+        return netlist;
+    }
+    
+    /**
+     * Generates an {@code n}-by-{@code n} array multiplier. The input pins are
+     * {@code a[0..n-1], b[0..n-1]}; the output pins hold the product, least
+     * significant bit first.
+     *
+     * @param n the operand width.
+     * @return the multiplier netlist.
+     */
+    public static Netlist arrayMultiplier(int n) {
+        Netlist netlist = new Netlist(2 * n);
+        List<Integer> accumulator = new ArrayList<>();
+        
+        for (int j = 0; j < n; ++j) {
+            accumulator.add(netlist.and(j, n));
+        }
+        
+        for (int i = 1; i < n; ++i) {
+            int carry = -1;
+            
+            for (int j = 0; j < n; ++j) {
+                int position = i + j;
+                int partialProduct = netlist.and(j, n + i);
+                int sum = partialProduct;
+                
+                if (position < accumulator.size()) {
+                    int bit = accumulator.get(position);
+                    int propagate = netlist.xor(partialProduct, bit);
+                    int generate = netlist.and(partialProduct, bit);
+                    sum = propagate;
+                    
+                    if (carry != -1) {
+                        sum = netlist.xor(propagate, carry);
+                        generate = netlist.or(generate,
+                                              netlist.and(propagate, carry));
+                    }
+                    
+                    carry = generate;
+                } else if (carry != -1) {
+                    sum = netlist.xor(partialProduct, carry);
+                    carry = netlist.and(partialProduct, carry);
+                }
+                
+                if (position < accumulator.size()) {
+                    accumulator.set(position, sum);
+                } else {
+                    accumulator.add(sum);
+                }
+            }
+            
+            if (carry != -1) {
+                accumulator.add(carry);
+            }
+        }
+        
+        for (int bit : accumulator) {
+            netlist.addOutput(bit);
+        }
+        
+        return netlist;
+    }
+    
+    /**
+     * Generates a random directed acyclic graph of gates. Each operand is
+     * drawn among the signals whose fan-out is below {@code maximumFanout},
+     * favouring the yet unused ones. The unused signals left over are
+     * combined into at most {@code numberOfOutputs} output pins.
+     *
+     * @param numberOfInputs  the number of input pins.
+     * @param numberOfGates   the number of random gates.
+     * @param numberOfOutputs the maximum number of output pins.
+     * @param maximumFanout   the maximum fan-out of a signal.
+     * @param seed            the random seed.
+     * @return the random netlist.
+     */
+    public static Netlist randomDag(int numberOfInputs,
+                                    int numberOfGates,
+                                    int numberOfOutputs,
+                                    int maximumFanout,
+                                    long seed) {
+        Random random = new Random(seed);
+        Netlist netlist = new Netlist(numberOfInputs);
+        int[] fanouts = new int[numberOfInputs + numberOfGates];
+        List<Integer> unused = new ArrayList<>();
+        
+        for (int i = 0; i < numberOfInputs; ++i) {
+            unused.add(i);
+        }
+        
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            int operand1 = chooseOperand(netlist,
+                                         random,
+                                         unused,
+                                         fanouts,
+                                         maximumFanout);
+            int signal;
+            
+            if (random.nextInt(5) == 0) {
+                signal = netlist.not(operand1);
+            } else {
+                int operand2 = chooseOperand(netlist,
+                                             random,
+                                             unused,
+                                             fanouts,
+                                             maximumFanout);
+                signal = random.nextBoolean() ?
+                         netlist.and(operand1, operand2) :
+                         netlist.or(operand1, operand2);
+            }
+            
+            unused.add(signal);
+        }
+        
+        while (unused.size() > numberOfOutputs) {
+            int signal1 = unused.remove(unused.size() - 1);
+            int signal2 = unused.remove(unused.size() - 1);
+            unused.add(0, netlist.or(signal1, signal2));
+        }
+        
+        for (int signal : unused) {
+            netlist.addOutput(signal);
+        }
+        
+        return netlist;
+    }
+    
+    private static int chooseOperand(Netlist netlist,
+                                     Random random,
+                                     List<Integer> unused,
+                                     int[] fanouts,
+                                     int maximumFanout) {
+        int signal;
+        
+        if (!unused.isEmpty() && random.nextBoolean()) {
+            signal = unused.remove(random.nextInt(unused.size()));
+        } else {
+            signal = random.nextInt(netlist.getNumberOfSignals());
+            
+            for (int attempt = 0;
+                     fanouts[signal] >= maximumFanout && attempt < 8;
+                     ++attempt) {
+                signal = random.nextInt(netlist.getNumberOfSignals());
+            }
+            
+            unused.remove((Integer) signal);
+        }
+        
+        ++fanouts[signal];
+        return signal;
+    }
+}
@@ -0,0 +1,553 @@
+package net.coderodde.circuits;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class reads and writes circuits in the AIGER format of and-inverter
+ * graphs, both in the ASCII variant ({@code aag}) and in the binary variant
+ * ({@code aig}). The inputs of a file become the input pins and its outputs
+ * the output pins, in the order of the file. The latches become the
+ * registers; their names are taken from the symbol table, defaulting to
+ * {@code "latch" + index}. A latch initialized to itself, i.e., left
+ * uninitialized, starts at zero.
+ * <p>
+ * The reader builds an {@link AndInverterGraph} in a single pass over the
+ * file and compiles it straight into a locked circuit, so no circuit
+ * components are created. An ASCII file may define its {@code AND} gates in
+ * any order; they are resolved at the end of the pass without rereading the
+ * file. The writer always emits the binary variant.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class AigerFormat {
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * Marks a variable whose literal is not known yet.
+     */
+    private static final int UNRESOLVED = -1;
+    
+    /**
+     * Marks a variable being resolved, so that cycles can be detected.
+     */
+    private static final int RESOLVING = -2;
+    
+    /**
+     * The name prefix of the latches missing from the symbol table.
+     */
+    private static final String LATCH_NAME_PREFIX = "latch";
+    
+    private AigerFormat() {}
+    
+    /**
+     * Reads a circuit from an AIGER file. The circuit is named after the file
+     * without its extension.
+     *
+     * @param path the path of the file.
+     * @return the locked circuit.
+     * @throws IOException if an I/O error occurs or the file is malformed.
+     */
+    public static Circuit read(Path path) throws IOException {
+        Objects.requireNonNull(path, "The path is null.");
+        
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in, getBaseName(path));
+        }
+    }
+    
+    /**
+     * Reads a circuit in the AIGER format from a stream. The stream is not
+     * closed.
+     *
+     * @param in   the input stream.
+     * @param name the name of the circuit.
+     * @return the locked circuit.
+     * @throws IOException if an I/O error occurs or the input is malformed.
+     */
+    public static Circuit read(InputStream in, String name)
+            throws IOException {
+        Objects.requireNonNull(in, "The input stream is null.");
+        Objects.requireNonNull(name, "The circuit name is null.");
+        return new Parser(new NetlistInput(in)).parse(name);
+    }
+    
+    /**
+     * Writes a locked circuit into a binary AIGER file.
+     *
+     * @param circuit the circuit to write.
+     * @param path    the path of the file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(Circuit circuit, Path path) throws IOException {
+        Objects.requireNonNull(path, "The path is null.");
+        
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(circuit, out);
+        }
+    }
+    
+    /**
+     * Writes a locked circuit in the binary AIGER format into a stream. The
+     * compiled gates are converted into an and-inverter graph first. The
+     * stream is flushed but not closed.
+     *
+     * @param circuit the circuit to write.
+     * @param out     the output stream.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(Circuit circuit, OutputStream out)
+            throws IOException {
+        Objects.requireNonNull(circuit, "The circuit is null.");
+        Objects.requireNonNull(out, "The output stream is null.");
+        List<String> registerNames = circuit.getRegisterNames();
+        CircuitPlan plan = circuit.getPlan().flatten();
+        AndInverterGraph graph = AndInverterGraph.fromPlan(plan);
+        int numberOfInputs = plan.getNumberOfInputPins();
+        int numberOfLatches = plan.getNumberOfRegisters();
+        int numberOfOutputs = plan.getNumberOfOutputPins();
+        long[] initialRegisters = new long[(numberOfLatches + 63) >>> 6];
+        plan.getInitialRegisters(initialRegisters);
+        
+        BufferedOutputStream buffer =
+                new BufferedOutputStream(out, BUFFER_SIZE);
+        writeAscii(buffer,
+                   "aig " + (graph.getNumberOfNodes() - 1) + " " +
+                   numberOfInputs + " " + numberOfLatches + " " +
+                   numberOfOutputs + " " + graph.getNumberOfAndNodes() +
+                   "\n");
+        
+        for (int latch = 0; latch < numberOfLatches; ++latch) {
+            writeAscii(buffer,
+                       Integer.toString(
+                               graph.getOutput(numberOfOutputs + latch)));
+            
+            if ((initialRegisters[latch >>> 6] & (1L << latch)) != 0L) {
+                writeAscii(buffer, " 1");
+            }
+            
+            buffer.write('\n');
+        }
+        
+        for (int output = 0; output < numberOfOutputs; ++output) {
+            writeAscii(buffer, graph.getOutput(output) + "\n");
+        }
+        
+        // The nodes of the graph are numbered exactly as the binary format
+        // requires: the inputs, the latches and then the AND nodes in
+        // topological order.
+        for (int node = numberOfInputs + numberOfLatches + 1;
+                node < graph.getNumberOfNodes();
+                ++node) {
+            int literal = AndInverterGraph.literal(node, false);
+            int fanin0 = graph.getFanin1(node);
+            int fanin1 = graph.getFanin0(node);
+            writeVarint(buffer, literal - fanin0);
+            writeVarint(buffer, fanin0 - fanin1);
+        }
+        
+        for (int latch = 0; latch < numberOfLatches; ++latch) {
+            buffer.write('l');
+            writeAscii(buffer, latch + " ");
+            buffer.write(registerNames.get(latch)
+                                      .getBytes(StandardCharsets.UTF_8));
+            buffer.write('\n');
+        }
+        
+        buffer.flush();
+    }
+    
+    private static void writeAscii(OutputStream out, String text)
+            throws IOException {
+        for (int i = 0; i < text.length(); ++i) {
+            out.write(text.charAt(i));
+        }
+    }
+    
+    /**
+     * Writes an unsigned number in the variable-length encoding of the binary
+     * format: seven bits per byte, least significant first, with the high
+     * bit set in all bytes but the last.
+     */
+    private static void writeVarint(OutputStream out, int number)
+            throws IOException {
+        while ((number & ~0x7F) != 0) {
+            out.write((number & 0x7F) | 0x80);
+            number >>>= 7;
+        }
+        
+        out.write(number);
+    }
+    
+    private static String getBaseName(Path path) {
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+    
+    /**
+     * This class parses a single AIGER file.
+     */
+    private static final class Parser {
+        
+        private final NetlistInput input;
+        private boolean binary;
+        private int maximumVariable;
+        private int numberOfInputs;
+        private int numberOfLatches;
+        private int numberOfOutputs;
+        private int numberOfAnds;
+        private AndInverterGraph graph;
+        
+        /**
+         * The graph literal of each variable of the file.
+         */
+        private int[] literals;
+        
+        /**
+         * The fan-in literals of each {@code AND} variable of an ASCII file,
+         * or {@link #UNRESOLVED} for the other variables.
+         */
+        private int[] fanins0;
+        private int[] fanins1;
+        
+        private int[] latchNextLiterals;
+        private long[] initialRegisters;
+        private int[] outputLiterals;
+        private String[] latchNames;
+        
+        Parser(NetlistInput input) {
+            this.input = input;
+        }
+        
+        Circuit parse(String name) throws IOException {
+            parseHeader();
+            graph = new AndInverterGraph(numberOfInputs + numberOfLatches);
+            literals = new int[maximumVariable + 1];
+            Arrays.fill(literals, UNRESOLVED);
+            literals[0] = AndInverterGraph.FALSE;
+            
+            if (!binary) {
+                fanins0 = new int[maximumVariable + 1];
+                fanins1 = new int[maximumVariable + 1];
+                Arrays.fill(fanins0, UNRESOLVED);
+            }
+            
+            parseInputs();
+            parseLatches();
+            outputLiterals = new int[numberOfOutputs];
+            
+            for (int output = 0; output < numberOfOutputs; ++output) {
+                outputLiterals[output] = readLiteral();
+                input.expect('\n');
+            }
+            
+            parseAnds();
+            parseSymbols();
+            
+            for (int output = 0; output < numberOfOutputs; ++output) {
+                graph.addOutput(resolve(outputLiterals[output]));
+            }
+            
+            for (int latch = 0; latch < numberOfLatches; ++latch) {
+                graph.addOutput(resolve(latchNextLiterals[latch]));
+            }
+            
+            List<String> registerNames = new ArrayList<>(numberOfLatches);
+            Set<String> nameSet = new HashSet<>();
+            
+            for (int latch = 0; latch < numberOfLatches; ++latch) {
+                String latchName = latchNames[latch] != null ?
+                                   latchNames[latch] :
+                                   LATCH_NAME_PREFIX + latch;
+                
+                if (!nameSet.add(latchName)) {
+                    throw new IOException(
+                            "Duplicate latch name: " + latchName);
+                }
+                
+                registerNames.add(latchName);
+            }
+            
+            try {
+                return Circuit.fromPlan(name,
+                                        graph.toPlan(numberOfLatches,
+                                                     initialRegisters),
+                                        registerNames);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+        
+        private void parseHeader() throws IOException {
+            String format = input.readToken(NetlistInput.EOF);
+            
+            if ("aig".equals(format)) {
+                binary = true;
+            } else if (!"aag".equals(format)) {
+                throw input.error("Not an AIGER file.");
+            }
+            
+            maximumVariable = input.readUnsigned();
+            numberOfInputs = input.readUnsigned();
+            numberOfLatches = input.readUnsigned();
+            numberOfOutputs = input.readUnsigned();
+            numberOfAnds = input.readUnsigned();
+            input.skipBlanks();
+            
+            // The optional counts of AIGER 1.9: bad states, invariant
+            // constraints, justice properties and fairness constraints.
+            while (input.peek() != '\n' && input.peek() != NetlistInput.EOF) {
+                if (input.readUnsigned() != 0) {
+                    throw input.error(
+                            "Bad states, constraints and properties are " +
+                            "not supported.");
+                }
+                
+                input.skipBlanks();
+            }
+            
+            input.expect('\n');
+            
+            if (maximumVariable > (Integer.MAX_VALUE >>> 1) - 1) {
+                throw input.error("Too many variables.");
+            }
+            
+            long definedVariables =
+                    (long) numberOfInputs + numberOfLatches + numberOfAnds;
+            
+            if (binary ? definedVariables != maximumVariable :
+                         definedVariables > maximumVariable) {
+                throw input.error("Inconsistent header.");
+            }
+            
+            if (numberOfInputs == 0 || numberOfOutputs == 0) {
+                throw input.error(
+                        "A circuit needs at least one input and one output.");
+            }
+        }
+        
+        private void parseInputs() throws IOException {
+            for (int i = 0; i < numberOfInputs; ++i) {
+                int variable = i + 1;
+                
+                if (!binary) {
+                    variable = readDefinedVariable();
+                    input.expect('\n');
+                }
+                
+                literals[variable] = graph.getInput(i);
+            }
+        }
+        
+        private void parseLatches() throws IOException {
+            latchNextLiterals = new int[numberOfLatches];
+            initialRegisters = new long[(numberOfLatches + 63) >>> 6];
+            latchNames = new String[numberOfLatches];
+            
+            for (int latch = 0; latch < numberOfLatches; ++latch) {
+                int variable = binary ?
+                               numberOfInputs + latch + 1 :
+                               readDefinedVariable();
+                literals[variable] = graph.getInput(numberOfInputs + latch);
+                latchNextLiterals[latch] = readLiteral();
+                input.skipBlanks();
+                
+                if (input.peek() != '\n' && input.peek() != NetlistInput.EOF) {
+                    int initialValue = input.readUnsigned();
+                    
+                    if (initialValue == 1) {
+                        initialRegisters[latch >>> 6] |= 1L << latch;
+                    } else if (initialValue != 0 &&
+                               initialValue != 2 * variable) {
+                        throw input.error(
+                                "Invalid initial value: " + initialValue);
+                    }
+                }
+                
+                input.expect('\n');
+            }
+        }
+        
+        private void parseAnds() throws IOException {
+            int firstAnd = numberOfInputs + numberOfLatches + 1;
+            
+            for (int i = 0; i < numberOfAnds; ++i) {
+                if (binary) {
+                    // The fan-ins precede the gate, so it is resolved at
+                    // once.
+                    int literal = 2 * (firstAnd + i);
+                    int fanin0 = literal - readVarint();
+                    int fanin1 = fanin0 - readVarint();
+                    
+                    if (fanin0 >= literal || fanin1 < 0 || fanin1 > fanin0) {
+                        throw input.error(
+                                "Invalid AND gate " + literal + ".");
+                    }
+                    
+                    literals[firstAnd + i] =
+                            graph.and(resolve(fanin0), resolve(fanin1));
+                } else {
+                    int variable = readDefinedVariable();
+                    fanins0[variable] = readLiteral();
+                    fanins1[variable] = readLiteral();
+                    input.expect('\n');
+                }
+            }
+        }
+        
+        /**
+         * Reads the latch names from the symbol table. The input and output
+         * names are skipped, since the pins are identified by their indices.
+         */
+        private void parseSymbols() throws IOException {
+            int type = input.read();
+            
+            while (type != NetlistInput.EOF && type != 'c') {
+                if (type != 'i' && type != 'l' && type != 'o') {
+                    throw input.error("Invalid symbol table entry.");
+                }
+                
+                int index = input.readUnsigned();
+                
+                if (input.read() != ' ') {
+                    throw input.error("Invalid symbol table entry.");
+                }
+                
+                String symbol = input.readLine();
+                
+                if (type == 'l') {
+                    if (index >= numberOfLatches) {
+                        throw input.error("No such latch: " + index);
+                    }
+                    
+                    latchNames[index] = symbol;
+                }
+                
+                type = input.read();
+            }
+        }
+        
+        /**
+         * Returns the graph literal of the file literal {@code literal}. The
+         * {@code AND} gates of an ASCII file it depends on are resolved
+         * depth-first with an explicit stack.
+         */
+        private int resolve(int literal) throws IOException {
+            int variable = literal >>> 1;
+            
+            if (literals[variable] < 0) {
+                resolveVariable(variable);
+            }
+            
+            return literals[variable] ^ (literal & 1);
+        }
+        
+        private void resolveVariable(int root) throws IOException {
+            int[] stack = new int[16];
+            int size = 0;
+            stack[size++] = root;
+            
+            while (size > 0) {
+                int variable = stack[size - 1];
+                
+                if (fanins0 == null || fanins0[variable] == UNRESOLVED) {
+                    throw new IOException(
+                            "Undefined literal: " + 2 * variable);
+                }
+                
+                literals[variable] = RESOLVING;
+                int variable0 = fanins0[variable] >>> 1;
+                int variable1 = fanins1[variable] >>> 1;
+                int next = literals[variable0] < 0 ? variable0 :
+                           literals[variable1] < 0 ? variable1 : -1;
+                
+                if (next == -1) {
+                    literals[variable] =
+                            graph.and(literals[variable0] ^
+                                      (fanins0[variable] & 1),
+                                      literals[variable1] ^
+                                      (fanins1[variable] & 1));
+                    --size;
+                    continue;
+                }
+                
+                if (literals[next] == RESOLVING) {
+                    throw new IOException(
+                            "Combinational cycle through literal " +
+                            2 * next + ".");
+                }
+                
+                if (size == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * size);
+                }
+                
+                stack[size++] = next;
+            }
+        }
+        
+        private int readLiteral() throws IOException {
+            int literal = input.readUnsigned();
+            
+            if ((literal >>> 1) > maximumVariable) {
+                throw input.error("Literal " + literal + " is out of range.");
+            }
+            
+            return literal;
+        }
+        
+        /**
+         * Reads the literal defining an input, a latch or an {@code AND} gate
+         * of an ASCII file.
+         */
+        private int readDefinedVariable() throws IOException {
+            int literal = readLiteral();
+            int variable = literal >>> 1;
+            
+            if ((literal & 1) != 0 || variable == 0) {
+                throw input.error("Invalid definition: " + literal);
+            }
+            
+            if (literals[variable] != UNRESOLVED ||
+                    fanins0[variable] != UNRESOLVED) {
+                throw input.error("Variable " + variable +
+                                  " is defined twice.");
+            }
+            
+            return variable;
+        }
+        
+        private int readVarint() throws IOException {
+            int number = 0;
+            
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = input.read();
+                
+                if (b == NetlistInput.EOF) {
+                    throw input.error("Unexpected end of the file.");
+                }
+                
+                number |= (b & 0x7F) << shift;
+                
+                if ((b & 0x80) == 0) {
+                    return number;
+                }
+            }
+            
+            throw input.error("Invalid binary AND gate.");
+        }
+    }
+}
@@ -0,0 +1,619 @@
+package net.coderodde.circuits;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an and-inverter graph (AIG): a combinational circuit
+ * made of two-input {@code AND} nodes only, in which negation is a property
+ * of an edge rather than a gate. The nodes live in flat {@code int} arrays
+ * instead of one object per gate, which makes the graph roughly an order of
+ * magnitude smaller than the equivalent {@link Circuit}.
+ * <p>
+ * The node {@code 0} is the constant {@code false}, the nodes
+ * {@code 1, ..., numberOfInputs} are the input pins, and every {@code AND}
+ * node added gets the next index. Edges are referred to by <i>literals</i>:
+ * the literal {@code 2 * node} denotes the node itself and
+ * {@code 2 * node + 1} its complement. Thus {@link #FALSE} is {@code 0} and
+ * {@link #TRUE} is {@code 1}.
+ * <p>
+ * {@link #and(int, int)} hashes the nodes structurally, so that no two
+ * {@code AND} nodes have the same pair of fan-ins, and folds the trivial
+ * cases such as {@code x & !x}. Since the fan-ins of a node are added before
+ * the node itself, the node indices are in topological order.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class AndInverterGraph {
+    
+    /**
+     * The literal of the constant {@code false}.
+     */
+    public static final int FALSE = 0;
+    
+    /**
+     * The literal of the constant {@code true}.
+     */
+    public static final int TRUE = 1;
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    /**
+     * Marks an empty slot of the hash table.
+     */
+    private static final int EMPTY = 0;
+    
+    private final int numberOfInputs;
+    
+    /**
+     * {@code fanins0[node]} is the smaller fan-in literal of the
+     * {@code AND} node {@code node}.
+     */
+    private int[] fanins0;
+    
+    /**
+     * {@code fanins1[node]} is the larger fan-in literal of the {@code AND}
+     * node {@code node}.
+     */
+    private int[] fanins1;
+    
+    private int numberOfNodes;
+    
+    /**
+     * The structural hash table holding {@code AND} node indices. As node
+     * {@code 0} is the constant, {@link #EMPTY} never clashes with an
+     * {@code AND} node.
+     */
+    private int[] hashTable;
+    
+    private int[] outputs = new int[INITIAL_CAPACITY];
+    private int numberOfOutputs;
+    
+    /**
+     * Constructs an empty graph with the given number of input pins.
+     *
+     * @param numberOfInputs the number of input pins.
+     */
+    public AndInverterGraph(int numberOfInputs) {
+        if (numberOfInputs < 0) {
+            throw new IllegalArgumentException(
+                    "Negative number of inputs: " + numberOfInputs);
+        }
+        
+        this.numberOfInputs = numberOfInputs;
+        this.numberOfNodes = numberOfInputs + 1;
+        int capacity = Math.max(INITIAL_CAPACITY, 2 * numberOfNodes);
+        this.fanins0 = new int[capacity];
+        this.fanins1 = new int[capacity];
+        this.hashTable = new int[INITIAL_CAPACITY];
+    }
+    
+    /**
+     * Converts a compiled circuit plan into a graph. {@code OR} gates are
+     * expressed via De Morgan's laws, the other gate types via {@code AND} and
+     * {@code OR}, and {@code NOT} gates become complemented edges.
+     *
+     * @param plan the plan to convert.
+     * @return the graph.
+     */
+    static AndInverterGraph fromPlan(CircuitPlan plan) {
+        AndInverterGraph graph =
+                new AndInverterGraph(plan.getNumberOfInputs());
+        int[] literals = new int[plan.getNumberOfSignals()];
+        
+        for (int input = 0; input < plan.getNumberOfInputs(); ++input) {
+            literals[input] = graph.getInput(input);
+        }
+        
+        for (int gate = 0; gate < plan.getNumberOfGates(); ++gate) {
+            int operand1 = plan.getOperand1(gate);
+            int operand2 = plan.getOperand2(gate);
+            int literal;
+            
+            switch (plan.getOpcode(gate)) {
+                case CircuitPlan.NOT:
+                    literal = not(literals[operand1]);
+                    break;
+                
+                case CircuitPlan.AND:
+                    literal = graph.and(literals[operand1],
+                                        literals[operand2]);
+                    break;
+                
+                case CircuitPlan.OR:
+                    literal = graph.or(literals[operand1],
+                                       literals[operand2]);
+                    break;
+                
+                case CircuitPlan.XOR:
+                    literal = graph.xor(literals[operand1],
+                                        literals[operand2]);
+                    break;
+                
+                case CircuitPlan.XNOR:
+                    literal = not(graph.xor(literals[operand1],
+                                            literals[operand2]));
+                    break;
+                
+                case CircuitPlan.NAND:
+                    literal = not(graph.and(literals[operand1],
+                                            literals[operand2]));
+                    break;
+                
+                case CircuitPlan.NOR:
+                    literal = not(graph.or(literals[operand1],
+                                           literals[operand2]));
+                    break;
+                
+                case CircuitPlan.MUX: {
+                    int select = literals[plan.getOperand3(gate)];
+                    literal = graph.or(graph.and(not(select), 
+                                                 literals[operand1]),
+                                       graph.and(select, 
+                                                 literals[operand2]));
+                    break;
+                }
+                
+                case CircuitPlan.FALSE:
+                    literal = FALSE;
+                    break;
+                
+                case CircuitPlan.TRUE:
+                    literal = TRUE;
+                    break;
+                
+                default:
+                    throw new IllegalStateException(
+                            "Unknown opcode: " + plan.getOpcode(gate));
+            }
+            
+            literals[plan.getNumberOfInputs() + gate] = literal;
+        }
+        
+        for (int output = 0; output < plan.getNumberOfOutputs(); ++output) {
+            graph.addOutput(literals[plan.getOutputSignal(output)]);
+        }
+        
+        return graph;
+    }
+    
+    public int getNumberOfInputs() {
+        return numberOfInputs;
+    }
+    
+    public int getNumberOfOutputs() {
+        return numberOfOutputs;
+    }
+    
+    /**
+     * Returns the number of nodes including the constant node and the input
+     * pins.
+     *
+     * @return the number of nodes.
+     */
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+    
+    public int getNumberOfAndNodes() {
+        return numberOfNodes - numberOfInputs - 1;
+    }
+    
+    /**
+     * Returns the literal of the input pin {@code input}.
+     *
+     * @param input the index of the input pin.
+     * @return the literal of the input pin.
+     */
+    public int getInput(int input) {
+        if (input < 0 || input >= numberOfInputs) {
+            throw new IndexOutOfBoundsException(
+                    "Input index " + input + " is out of range [0, " +
+                    numberOfInputs + ").");
+        }
+        
+        return literal(input + 1, false);
+    }
+    
+    public int getOutput(int output) {
+        if (output < 0 || output >= numberOfOutputs) {
+            throw new IndexOutOfBoundsException(
+                    "Output index " + output + " is out of range [0, " +
+                    numberOfOutputs + ").");
+        }
+        
+        return outputs[output];
+    }
+    
+    /**
+     * Adds an output pin driven by {@code literal}.
+     *
+     * @param literal the literal driving the new output pin.
+     */
+    public void addOutput(int literal) {
+        checkLiteral(literal);
+        
+        if (numberOfOutputs == outputs.length) {
+            outputs = Arrays.copyOf(outputs, 2 * outputs.length);
+        }
+        
+        outputs[numberOfOutputs++] = literal;
+    }
+    
+    public boolean isInput(int node) {
+        return node >= 1 && node <= numberOfInputs;
+    }
+    
+    public boolean isAnd(int node) {
+        return node > numberOfInputs && node < numberOfNodes;
+    }
+    
+    /**
+     * Returns the smaller fan-in literal of the {@code AND} node
+     * {@code node}.
+     *
+     * @param node the {@code AND} node.
+     * @return the first fan-in literal.
+     */
+    public int getFanin0(int node) {
+        checkAnd(node);
+        return fanins0[node];
+    }
+    
+    /**
+     * Returns the larger fan-in literal of the {@code AND} node
+     * {@code node}.
+     *
+     * @param node the {@code AND} node.
+     * @return the second fan-in literal.
+     */
+    public int getFanin1(int node) {
+        checkAnd(node);
+        return fanins1[node];
+    }
+    
+    public static int literal(int node, boolean complemented) {
+        return (node << 1) | (complemented ? 1 : 0);
+    }
+    
+    public static int getNode(int literal) {
+        return literal >>> 1;
+    }
+    
+    public static boolean isComplemented(int literal) {
+        return (literal & 1) != 0;
+    }
+    
+    public static int not(int literal) {
+        return literal ^ 1;
+    }
+    
+    /**
+     * Returns the literal of the conjunction of two literals. An existing
+     * node is reused if possible.
+     *
+     * @param literal1 the first literal.
+     * @param literal2 the second literal.
+     * @return the conjunction literal.
+     */
+    public int and(int literal1, int literal2) {
+        checkLiteral(literal1);
+        checkLiteral(literal2);
+        
+        if (literal1 > literal2) {
+            int tmp = literal1;
+            literal1 = literal2;
+            literal2 = tmp;
+        }
+        
+        // Now literal1 <= literal2, so the constants come first.
+        if (literal1 == FALSE || literal1 == not(literal2)) {
+            return FALSE;
+        }
+        
+        if (literal1 == TRUE || literal1 == literal2) {
+            return literal2;
+        }
+        
+        int mask = hashTable.length - 1;
+        int slot = hash(literal1, literal2) & mask;
+        
+        while (hashTable[slot] != EMPTY) {
+            int node = hashTable[slot];
+            
+            if (fanins0[node] == literal1 && fanins1[node] == literal2) {
+                return literal(node, false);
+            }
+            
+            slot = (slot + 1) & mask;
+        }
+        
+        int node = addAndNode(literal1, literal2);
+        hashTable[slot] = node;
+        
+        if (2 * getNumberOfAndNodes() > hashTable.length) {
+            rehash();
+        }
+        
+        return literal(node, false);
+    }
+    
+    public int or(int literal1, int literal2) {
+        return not(and(not(literal1), not(literal2)));
+    }
+    
+    public int xor(int literal1, int literal2) {
+        return or(and(literal1, not(literal2)), and(not(literal1), literal2));
+    }
+    
+    /**
+     * Evaluates all the nodes on {@code 64 * numberOfWords} input vectors at
+     * once. The bit {@code b} of the word {@code w} of an input pin or a node
+     * holds its value on the input vector {@code 64 * w + b}. The words of
+     * the input pin {@code i} are read from
+     * {@code inputPatterns[i * numberOfWords, ...,
+     * (i + 1) * numberOfWords - 1]}, and the words of the node {@code n} are
+     * stored in the same layout in the returned array.
+     *
+     * @param inputPatterns the input vectors.
+     * @param numberOfWords the number of words per input pin.
+     * @return the values of all the nodes.
+     */
+    public long[] simulate(long[] inputPatterns, int numberOfWords) {
+        if (inputPatterns.length != numberOfInputs * numberOfWords) {
+            throw new IllegalArgumentException(
+                    "Expected " + numberOfInputs * numberOfWords +
+                    " input words, got " + inputPatterns.length + ".");
+        }
+        
+        long[] values = new long[numberOfNodes * numberOfWords];
+        
+        // The input pins are the nodes 1, ..., numberOfInputs.
+        System.arraycopy(inputPatterns,
+                         0,
+                         values,
+                         numberOfWords,
+                         inputPatterns.length);
+        
+        for (int node = numberOfInputs + 1; node < numberOfNodes; ++node) {
+            int offset0 = getNode(fanins0[node]) * numberOfWords;
+            int offset1 = getNode(fanins1[node]) * numberOfWords;
+            long mask0 = isComplemented(fanins0[node]) ? -1L : 0L;
+            long mask1 = isComplemented(fanins1[node]) ? -1L : 0L;
+            int offset = node * numberOfWords;
+            
+            for (int word = 0; word < numberOfWords; ++word) {
+                values[offset + word] = (values[offset0 + word] ^ mask0) &
+                                        (values[offset1 + word] ^ mask1);
+            }
+        }
+        
+        return values;
+    }
+    
+    /**
+     * Converts this graph into a new, unlocked circuit. Each {@code AND} node
+     * contributing to an output pin becomes the gate {@code "and" + node},
+     * and each complemented edge is realized by a single {@code NOT} gate
+     * {@code "not" + node} per node. The circuit may be locked only if each
+     * input pin contributes to some output pin.
+     *
+     * @param name the name of the circuit.
+     * @return the new circuit.
+     */
+    public Circuit toCircuit(String name) {
+        Circuit circuit = new Circuit(name, numberOfInputs, numberOfOutputs);
+        boolean[] used = new boolean[2 * numberOfNodes];
+        
+        for (int output = 0; output < numberOfOutputs; ++output) {
+            used[outputs[output]] = true;
+        }
+        
+        for (int node = numberOfNodes - 1; node > numberOfInputs; --node) {
+            if (used[literal(node, false)] || used[literal(node, true)]) {
+                used[fanins0[node]] = true;
+                used[fanins1[node]] = true;
+            }
+        }
+        
+        if (used[FALSE]) {
+            circuit.addConstantGate("false", false);
+        }
+        
+        if (used[TRUE]) {
+            circuit.addConstantGate("true", true);
+        }
+        
+        for (int node = 1; node < numberOfNodes; ++node) {
+            if (isAnd(node) &&
+                    (used[literal(node, false)] ||
+                     used[literal(node, true)])) {
+                String gateName = "and" + node;
+                circuit.addAndGate(gateName);
+                circuit.connect(getLiteralName(fanins0[node]))
+                       .toFirstPinOf(gateName);
+                circuit.connect(getLiteralName(fanins1[node]))
+                       .toSecondPinOf(gateName);
+            }
+            
+            if (used[literal(node, true)]) {
+                circuit.addNotGate("not" + node);
+                circuit.connect(getLiteralName(literal(node, false)))
+                       .to("not" + node);
+            }
+        }
+        
+        for (int output = 0; output < numberOfOutputs; ++output) {
+            circuit.connect(getLiteralName(outputs[output]))
+                   .to("outputPin" + output);
+        }
+        
+        return circuit;
+    }
+    
+    /**
+     * Compiles this graph directly into a plan without building any circuit
+     * components. The last {@code numberOfRegisters} input pins become the
+     * registers, and the last {@code numberOfRegisters} output pins their 
+     * next states. Each {@code AND} node contributing to an output becomes an
+     * {@code AND} gate, and each complemented edge a single {@code NOT} gate
+     * per node.
+     *
+     * @param numberOfRegisters the number of registers.
+     * @param initialRegisters  the packed initial states of the registers.
+     * @return the plan.
+     */
+    CircuitPlan toPlan(int numberOfRegisters, long[] initialRegisters) {
+        boolean[] used = new boolean[2 * numberOfNodes];
+        
+        for (int output = 0; output < numberOfOutputs; ++output) {
+            used[outputs[output]] = true;
+        }
+        
+        for (int node = numberOfNodes - 1; node > numberOfInputs; --node) {
+            if (used[literal(node, false)] || used[literal(node, true)]) {
+                used[fanins0[node]] = true;
+                used[fanins1[node]] = true;
+            }
+        }
+        
+        // A constant gate per used constant, an AND gate per used AND node and
+        // a NOT gate per used complemented edge.
+        int numberOfGates = (used[FALSE] ? 1 : 0) + (used[TRUE] ? 1 : 0);
+        
+        for (int node = 1; node < numberOfNodes; ++node) {
+            boolean complemented = used[literal(node, true)];
+            
+            if (isAnd(node) && (used[literal(node, false)] || complemented)) {
+                ++numberOfGates;
+            }
+            
+            if (complemented) {
+                ++numberOfGates;
+            }
+        }
+        
+        byte[] opcodes = new byte[numberOfGates];
+        int[] operands1 = new int[numberOfGates];
+        int[] operands2 = new int[numberOfGates];
+        int[] operands3 = new int[numberOfGates];
+        int[] signals = new int[2 * numberOfNodes];
+        Arrays.fill(operands2, CircuitPlan.NO_OPERAND);
+        Arrays.fill(operands3, CircuitPlan.NO_OPERAND);
+        int gate = 0;
+        
+        for (int node = 0; node < numberOfNodes; ++node) {
+            int literal = literal(node, false);
+            
+            if (node == 0) {
+                for (int constant = FALSE; constant <= TRUE; ++constant) {
+                    if (used[constant]) {
+                        opcodes[gate] = constant == FALSE ? 
+                                        CircuitPlan.FALSE : 
+                                        CircuitPlan.TRUE;
+                        operands1[gate] = CircuitPlan.NO_OPERAND;
+                        signals[constant] = numberOfInputs + gate++;
+                    }
+                }
+                
+                continue;
+            }
+            
+            if (isInput(node)) {
+                signals[literal] = node - 1;
+            } else if (used[literal] || used[not(literal)]) {
+                opcodes[gate] = CircuitPlan.AND;
+                operands1[gate] = signals[fanins0[node]];
+                operands2[gate] = signals[fanins1[node]];
+                signals[literal] = numberOfInputs + gate++;
+            }
+            
+            if (used[not(literal)]) {
+                opcodes[gate] = CircuitPlan.NOT;
+                operands1[gate] = signals[literal];
+                signals[not(literal)] = numberOfInputs + gate++;
+            }
+        }
+        
+        int[] outputSignals = new int[numberOfOutputs];
+        
+        for (int output = 0; output < numberOfOutputs; ++output) {
+            outputSignals[output] = signals[outputs[output]];
+        }
+        
+        return new CircuitPlan(numberOfInputs,
+                               numberOfRegisters,
+                               opcodes,
+                               operands1,
+                               operands2,
+                               operands3,
+                               outputSignals,
+                               initialRegisters);
+    }
+    
+    /**
+     * Returns the name of the circuit component computing {@code literal} in
+     * {@link #toCircuit(String)}.
+     */
+    private String getLiteralName(int literal) {
+        int node = getNode(literal);
+        
+        if (node == 0) {
+            return literal == FALSE ? "false" : "true";
+        }
+        
+        if (isComplemented(literal)) {
+            return "not" + node;
+        }
+        
+        return isInput(node) ? "inputPin" + (node - 1) : "and" + node;
+    }
+    
+    private int addAndNode(int literal1, int literal2) {
+        if (numberOfNodes == fanins0.length) {
+            fanins0 = Arrays.copyOf(fanins0, 2 * fanins0.length);
+            fanins1 = Arrays.copyOf(fanins1, 2 * fanins1.length);
+        }
+        
+        fanins0[numberOfNodes] = literal1;
+        fanins1[numberOfNodes] = literal2;
+        return numberOfNodes++;
+    }
+    
+    private void rehash() {
+        int[] newHashTable = new int[2 * hashTable.length];
+        int mask = newHashTable.length - 1;
+        
+        for (int node = numberOfInputs + 1; node < numberOfNodes; ++node) {
+            int slot = hash(fanins0[node], fanins1[node]) & mask;
+            
+            while (newHashTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            
+            newHashTable[slot] = node;
+        }
+        
+        hashTable = newHashTable;
+    }
+    
+    private void checkLiteral(int literal) {
+        if (literal < 0 || getNode(literal) >= numberOfNodes) {
+            throw new IllegalArgumentException(
+                    "Literal " + literal + " refers to no node.");
+        }
+    }
+    
+    private void checkAnd(int node) {
+        if (!isAnd(node)) {
+            throw new IllegalArgumentException(
+                    "Node " + node + " is not an AND node.");
+        }
+    }
+    
+    private static int hash(int literal1, int literal2) {
+        int hash = literal1 * 0x9E3779B1 + literal2;
+        hash *= 0x9E3779B1;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,753 @@
+package net.coderodde.circuits;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class reads and writes circuits in the Berkeley Logic Interchange
+ * Format (BLIF). The reader supports a single flat model made of
+ * {@code .names} covers and {@code .latch} registers; hierarchical models
+ * ({@code .subckt}) and library gates ({@code .gate}) are rejected. The
+ * signals listed by {@code .inputs} become the input pins and the signals
+ * listed by {@code .outputs} the output pins, in the order of the file. The
+ * output signal of each latch becomes a register of the same name; a latch
+ * with an initial value other than {@code 1} starts at zero.
+ * <p>
+ * The reader makes a single pass over the file, keeping the covers in flat
+ * arrays, and resolves the forward references at the end of the pass by
+ * building an {@link AndInverterGraph} depth-first. The graph is compiled
+ * straight into a locked circuit, so no circuit components are created.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class BlifFormat {
+    
+    private static final int UNRESOLVED = -1;
+    private static final int RESOLVING = -2;
+    
+    /**
+     * The kinds of the signals of a model.
+     */
+    private static final byte UNDEFINED = 0;
+    private static final byte INPUT = 1;
+    private static final byte LATCH = 2;
+    private static final byte NAMES = 3;
+    
+    private BlifFormat() {}
+    
+    /**
+     * Reads a circuit from a BLIF file. The circuit is named after the model,
+     * or after the file without its extension if the model has no name.
+     *
+     * @param path the path of the file.
+     * @return the locked circuit.
+     * @throws IOException if an I/O error occurs or the file is malformed.
+     */
+    public static Circuit read(Path path) throws IOException {
+        Objects.requireNonNull(path, "The path is null.");
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        
+        try (InputStream in = Files.newInputStream(path)) {
+            return new Parser(new NetlistInput(in))
+                    .parse(dot > 0 ? fileName.substring(0, dot) : fileName);
+        }
+    }
+    
+    /**
+     * Reads a circuit in the BLIF format from a stream. The circuit is named
+     * after the model. The stream is not closed.
+     *
+     * @param in the input stream.
+     * @return the locked circuit.
+     * @throws IOException if an I/O error occurs or the input is malformed.
+     */
+    public static Circuit read(InputStream in) throws IOException {
+        Objects.requireNonNull(in, "The input stream is null.");
+        return new Parser(new NetlistInput(in)).parse(null);
+    }
+    
+    /**
+     * Writes a locked circuit into a BLIF file.
+     *
+     * @param circuit the circuit to write.
+     * @param path    the path of the file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(Circuit circuit, Path path) throws IOException {
+        Objects.requireNonNull(path, "The path is null.");
+        
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(circuit, out);
+        }
+    }
+    
+    /**
+     * Writes a locked circuit in the BLIF format into a stream. Each compiled
+     * gate becomes a {@code .names} cover, each register a {@code .latch}.
+     * The pins keep their names {@code inputPin0}, {@code outputPin0} and so
+     * on. The stream is flushed but not closed.
+     *
+     * @param circuit the circuit to write.
+     * @param out     the output stream.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(Circuit circuit, OutputStream out)
+            throws IOException {
+        Objects.requireNonNull(circuit, "The circuit is null.");
+        Objects.requireNonNull(out, "The output stream is null.");
+        List<String> registerNames = circuit.getRegisterNames();
+        CircuitPlan plan = circuit.getPlan().flatten();
+        String[] names = new String[plan.getNumberOfSignals()];
+        int numberOfInputPins = plan.getNumberOfInputPins();
+        String gatePrefix = "n";
+        
+        while (clashes(gatePrefix, registerNames)) {
+            gatePrefix = "_" + gatePrefix;
+        }
+        
+        for (int signal = 0; signal < names.length; ++signal) {
+            if (signal < numberOfInputPins) {
+                names[signal] = "inputPin" + signal;
+            } else if (signal < plan.getNumberOfInputs()) {
+                names[signal] = registerNames.get(signal - numberOfInputPins);
+            } else {
+                names[signal] = gatePrefix + signal;
+            }
+        }
+        
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(".model " + circuit.getName() + "\n.inputs");
+        
+        for (int pin = 0; pin < numberOfInputPins; ++pin) {
+            writer.write(" " + names[pin]);
+        }
+        
+        writer.write("\n.outputs");
+        
+        for (int pin = 0; pin < plan.getNumberOfOutputPins(); ++pin) {
+            writer.write(" outputPin" + pin);
+        }
+        
+        writer.write("\n");
+        long[] initialRegisters =
+                new long[(plan.getNumberOfRegisters() + 63) >>> 6];
+        plan.getInitialRegisters(initialRegisters);
+        
+        for (int i = 0; i < plan.getNumberOfRegisters(); ++i) {
+            int nextState = plan.getOutputSignal(plan.getNumberOfOutputPins()
+                                                 + i);
+            boolean bit = (initialRegisters[i >>> 6] & (1L << i)) != 0L;
+            writer.write(".latch " + names[nextState] + " " +
+                         names[numberOfInputPins + i] + " " +
+                         (bit ? "1" : "0") + "\n");
+        }
+        
+        for (int gate = 0; gate < plan.getNumberOfGates(); ++gate) {
+            writer.write(".names");
+            
+            for (int operand : new int[]{ plan.getOperand1(gate),
+                                          plan.getOperand2(gate),
+                                          plan.getOperand3(gate) }) {
+                if (operand != CircuitPlan.NO_OPERAND) {
+                    writer.write(" " + names[operand]);
+                }
+            }
+            
+            writer.write(" " + names[plan.getNumberOfInputs() + gate] + "\n");
+            writer.write(getCover(plan.getOpcode(gate)));
+        }
+        
+        for (int pin = 0; pin < plan.getNumberOfOutputPins(); ++pin) {
+            writer.write(".names " + names[plan.getOutputSignal(pin)] +
+                         " outputPin" + pin + "\n1 1\n");
+        }
+        
+        writer.write(".end\n");
+        writer.flush();
+    }
+    
+    /**
+     * Returns the rows of the {@code .names} cover of a gate.
+     */
+    private static String getCover(byte opcode) {
+        switch (opcode) {
+            case CircuitPlan.NOT:
+                return "0 1\n";
+            
+            case CircuitPlan.AND:
+                return "11 1\n";
+            
+            case CircuitPlan.OR:
+                return "1- 1\n-1 1\n";
+            
+            case CircuitPlan.XOR:
+                return "01 1\n10 1\n";
+            
+            case CircuitPlan.XNOR:
+                return "00 1\n11 1\n";
+            
+            case CircuitPlan.NAND:
+                return "0- 1\n-0 1\n";
+            
+            case CircuitPlan.NOR:
+                return "00 1\n";
+            
+            case CircuitPlan.MUX:
+                // The operands are the first input, the second input and the
+                // select signal.
+                return "1-0 1\n-11 1\n";
+            
+            case CircuitPlan.FALSE:
+                return "";
+            
+            case CircuitPlan.TRUE:
+                return "1\n";
+            
+            default:
+                throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+    }
+    
+    /**
+     * Returns {@code true} if a gate name made of {@code prefix} and digits
+     * could be the name of a register.
+     */
+    private static boolean clashes(String prefix, List<String> names) {
+        for (String name : names) {
+            if (name.length() > prefix.length() && name.startsWith(prefix)) {
+                boolean digits = true;
+                
+                for (int i = prefix.length(); i < name.length(); ++i) {
+                    digits &= Character.isDigit(name.charAt(i));
+                }
+                
+                if (digits) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * This class parses a single BLIF model.
+     */
+    private static final class Parser {
+        
+        private final NetlistInput input;
+        
+        private final Map<String, Integer> signalIds = new HashMap<>();
+        private final List<String> signalNames = new ArrayList<>();
+        
+        /**
+         * The kind of each signal.
+         */
+        private byte[] kinds = new byte[64];
+        
+        /**
+         * The index of the input, the latch or the cover defining each
+         * signal.
+         */
+        private int[] definitions = new int[64];
+        
+        private final List<Integer> inputs = new ArrayList<>();
+        private final List<Integer> outputs = new ArrayList<>();
+        
+        /**
+         * The input signal and the output signal of each latch.
+         */
+        private final List<Integer> latchInputs = new ArrayList<>();
+        private final List<Integer> latchOutputs = new ArrayList<>();
+        private final List<Boolean> latchBits = new ArrayList<>();
+        
+        /**
+         * The fan-in signals of the cover {@code c} occupy
+         * {@code fanins[faninOffsets[c], ..., faninOffsets[c + 1] - 1]}.
+         */
+        private int[] fanins = new int[256];
+        private int[] faninOffsets = new int[64];
+        
+        /**
+         * The rows of the cover {@code c} occupy
+         * {@code rows[rowOffsets[c], ..., rowOffsets[c + 1] - 1]}. Each row
+         * holds a character per fan-in followed by the output character.
+         */
+        private byte[] rows = new byte[1024];
+        private int[] rowOffsets = new int[64];
+        private int numberOfCovers;
+        private int numberOfFanins;
+        private int numberOfRowBytes;
+        
+        private AndInverterGraph graph;
+        private int[] literals;
+        
+        Parser(NetlistInput input) {
+            this.input = input;
+        }
+        
+        Circuit parse(String defaultName) throws IOException {
+            String name = null;
+            String command;
+            
+            while ((command = readCommand()) != null) {
+                switch (command) {
+                    case ".model":
+                        if (name != null) {
+                            throw input.error(
+                                    "Multiple models are not supported.");
+                        }
+                        
+                        name = readToken();
+                        break;
+                    
+                    case ".inputs":
+                        for (String token : readTokens()) {
+                            define(getSignal(token), INPUT, inputs.size());
+                            inputs.add(getSignal(token));
+                        }
+                        
+                        break;
+                    
+                    case ".outputs":
+                        for (String token : readTokens()) {
+                            outputs.add(getSignal(token));
+                        }
+                        
+                        break;
+                    
+                    case ".names":
+                        // Consumes the rows of the cover as well.
+                        parseNames();
+                        continue;
+                    
+                    case ".latch":
+                        parseLatch();
+                        break;
+                    
+                    case ".end":
+                    case ".exdc":
+                        command = null;
+                        break;
+                    
+                    case ".subckt":
+                    case ".gate":
+                    case ".mlatch":
+                    case ".search":
+                        throw input.error(command + " is not supported.");
+                    
+                    default:
+                        if (command.charAt(0) != '.') {
+                            throw input.error("A command expected.");
+                        }
+                        
+                        // Timing and area annotations do not affect the
+                        // logic.
+                        readTokens();
+                }
+                
+                if (command == null) {
+                    break;
+                }
+                
+                endLine();
+            }
+            
+            if (name == null) {
+                name = defaultName;
+            }
+            
+            if (name == null) {
+                throw new IOException("The model has no name.");
+            }
+            
+            if (inputs.isEmpty() || outputs.isEmpty()) {
+                throw new IOException(
+                        "A circuit needs at least one input and one output.");
+            }
+            
+            return buildCircuit(name);
+        }
+        
+        /**
+         * Parses a {@code .names} command and the rows of its cover.
+         */
+        private void parseNames() throws IOException {
+            List<Integer> signals = new ArrayList<>();
+            
+            for (String token : readTokens()) {
+                signals.add(getSignal(token));
+            }
+            
+            if (signals.isEmpty()) {
+                throw input.error(".names without signals.");
+            }
+            
+            int output = signals.remove(signals.size() - 1);
+            define(output, NAMES, numberOfCovers);
+            ensureCoverCapacity(signals.size());
+            
+            for (int signal : signals) {
+                fanins[numberOfFanins++] = signal;
+            }
+            
+            int outputValue = -1;
+            endLine();
+            
+            while (startsRow()) {
+                String cube = signals.isEmpty() ? "" : readToken();
+                String value = readToken();
+                
+                if (!isValidRow(cube, value, signals.size(), outputValue)) {
+                    throw input.error("Invalid cover row.");
+                }
+                
+                outputValue = value.charAt(0);
+                
+                if (numberOfRowBytes + cube.length() + 1 > rows.length) {
+                    rows = Arrays.copyOf(rows,
+                                         2 * (numberOfRowBytes +
+                                              cube.length() + 1));
+                }
+                
+                for (int i = 0; i < cube.length(); ++i) {
+                    rows[numberOfRowBytes++] = (byte) cube.charAt(i);
+                }
+                
+                rows[numberOfRowBytes++] = (byte) outputValue;
+                endLine();
+            }
+            
+            ++numberOfCovers;
+            faninOffsets[numberOfCovers] = numberOfFanins;
+            rowOffsets[numberOfCovers] = numberOfRowBytes;
+        }
+        
+        /**
+         * Checks a row of a cover. All the rows of a cover must have the same
+         * output value.
+         */
+        private boolean isValidRow(String cube,
+                                   String value,
+                                   int numberOfFanins,
+                                   int outputValue) throws IOException {
+            if (cube == null || value == null || readToken() != null
+                    || cube.length() != numberOfFanins
+                    || value.length() != 1
+                    || (value.charAt(0) != '0' && value.charAt(0) != '1')
+                    || (outputValue != -1 && outputValue != value.charAt(0))) {
+                return false;
+            }
+            
+            for (int i = 0; i < cube.length(); ++i) {
+                char c = cube.charAt(i);
+                
+                if (c != '0' && c != '1' && c != '-') {
+                    return false;
+                }
+            }
+            
+            return true;
+        }
+        
+        /**
+         * Parses {@code .latch input output [type control] [initial]}.
+         */
+        private void parseLatch() throws IOException {
+            List<String> tokens = readTokens();
+            
+            if (tokens.size() < 2 || tokens.size() > 5) {
+                throw input.error("Invalid .latch.");
+            }
+            
+            int output = getSignal(tokens.get(1));
+            define(output, LATCH, latchInputs.size());
+            latchInputs.add(getSignal(tokens.get(0)));
+            latchOutputs.add(output);
+            latchBits.add(tokens.size() % 2 == 1 &&
+                          "1".equals(tokens.get(tokens.size() - 1)));
+        }
+        
+        private Circuit buildCircuit(String name) throws IOException {
+            int numberOfInputs = inputs.size();
+            int numberOfLatches = latchInputs.size();
+            graph = new AndInverterGraph(numberOfInputs + numberOfLatches);
+            literals = new int[signalNames.size()];
+            Arrays.fill(literals, UNRESOLVED);
+            
+            for (int i = 0; i < numberOfInputs; ++i) {
+                literals[inputs.get(i)] = graph.getInput(i);
+            }
+            
+            long[] initialRegisters = new long[(numberOfLatches + 63) >>> 6];
+            List<String> registerNames = new ArrayList<>(numberOfLatches);
+            
+            for (int i = 0; i < numberOfLatches; ++i) {
+                literals[latchOutputs.get(i)] =
+                        graph.getInput(numberOfInputs + i);
+                registerNames.add(signalNames.get(latchOutputs.get(i)));
+                
+                if (latchBits.get(i)) {
+                    initialRegisters[i >>> 6] |= 1L << i;
+                }
+            }
+            
+            for (int output : outputs) {
+                graph.addOutput(resolve(output));
+            }
+            
+            for (int latchInput : latchInputs) {
+                graph.addOutput(resolve(latchInput));
+            }
+            
+            try {
+                return Circuit.fromPlan(name,
+                                        graph.toPlan(numberOfLatches,
+                                                     initialRegisters),
+                                        registerNames);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+        
+        /**
+         * Returns the graph literal of a signal. The covers it depends on are
+         * built depth-first with an explicit stack.
+         */
+        private int resolve(int root) throws IOException {
+            int[] stack = new int[16];
+            int size = 0;
+            stack[size++] = root;
+            
+            while (size > 0) {
+                int signal = stack[size - 1];
+                
+                if (literals[signal] >= 0) {
+                    --size;
+                    continue;
+                }
+                
+                if (kinds[signal] != NAMES) {
+                    throw new IOException(
+                            "Undefined signal: " + signalNames.get(signal));
+                }
+                
+                literals[signal] = RESOLVING;
+                int cover = definitions[signal];
+                int next = -1;
+                
+                for (int i = faninOffsets[cover];
+                        i < faninOffsets[cover + 1];
+                        ++i) {
+                    if (literals[fanins[i]] == RESOLVING) {
+                        throw new IOException(
+                                "Combinational cycle through signal " +
+                                signalNames.get(fanins[i]) + ".");
+                    }
+                    
+                    if (literals[fanins[i]] == UNRESOLVED) {
+                        next = fanins[i];
+                        break;
+                    }
+                }
+                
+                if (next == -1) {
+                    literals[signal] = buildCover(cover);
+                    --size;
+                    continue;
+                }
+                
+                if (size == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * size);
+                }
+                
+                stack[size++] = next;
+            }
+            
+            return literals[root];
+        }
+        
+        /**
+         * Builds the sum of the products of a cover whose fan-ins are
+         * resolved.
+         */
+        private int buildCover(int cover) {
+            int firstFanin = faninOffsets[cover];
+            int width = faninOffsets[cover + 1] - firstFanin + 1;
+            int literal = AndInverterGraph.FALSE;
+            boolean complemented = false;
+            
+            for (int row = rowOffsets[cover];
+                    row < rowOffsets[cover + 1];
+                    row += width) {
+                int cube = AndInverterGraph.TRUE;
+                
+                for (int i = 0; i < width - 1; ++i) {
+                    int fanin = literals[fanins[firstFanin + i]];
+                    
+                    if (rows[row + i] == '1') {
+                        cube = graph.and(cube, fanin);
+                    } else if (rows[row + i] == '0') {
+                        cube = graph.and(cube, AndInverterGraph.not(fanin));
+                    }
+                }
+                
+                literal = graph.or(literal, cube);
+                complemented = rows[row + width - 1] == '0';
+            }
+            
+            // A cover listing the rows where the output is 0 defines the
+            // complement.
+            return complemented ? AndInverterGraph.not(literal) : literal;
+        }
+        
+        /**
+         * Reads the first token of the next nonempty line.
+         */
+        private String readCommand() throws IOException {
+            while (true) {
+                String token = readToken();
+                
+                if (token != null) {
+                    return token;
+                }
+                
+                if (input.peek() == NetlistInput.EOF) {
+                    return null;
+                }
+                
+                endLine();
+            }
+        }
+        
+        /**
+         * Returns {@code true} if the next nonempty line is a row of a cover.
+         */
+        private boolean startsRow() throws IOException {
+            while (true) {
+                input.skipBlanks();
+                int b = input.peek();
+                
+                if (b == '\n' || b == '#') {
+                    endLine();
+                } else {
+                    return b != '.' && b != NetlistInput.EOF;
+                }
+            }
+        }
+        
+        /**
+         * Reads the next token of the current logical line, joining the lines
+         * ending with a backslash and skipping the comments.
+         *
+         * @return the token, or {@code null} at the end of the line.
+         */
+        private String readToken() throws IOException {
+            while (true) {
+                String token = input.readToken('#');
+                
+                if (token == null) {
+                    if (input.peek() == '#') {
+                        while (input.peek() != '\n' &&
+                               input.peek() != NetlistInput.EOF) {
+                            input.read();
+                        }
+                    }
+                    
+                    return null;
+                }
+                
+                if (!token.endsWith("\\")) {
+                    return token;
+                }
+                
+                input.skipBlanks();
+                
+                if (input.peek() == '\n') {
+                    input.read();
+                }
+                
+                if (token.length() > 1) {
+                    return token.substring(0, token.length() - 1);
+                }
+            }
+        }
+        
+        private List<String> readTokens() throws IOException {
+            List<String> tokens = new ArrayList<>();
+            String token;
+            
+            while ((token = readToken()) != null) {
+                tokens.add(token);
+            }
+            
+            return tokens;
+        }
+        
+        private void endLine() throws IOException {
+            if (readToken() != null) {
+                throw input.error("The end of the line expected.");
+            }
+            
+            input.expect('\n');
+        }
+        
+        private int getSignal(String name) {
+            Integer id = signalIds.get(name);
+            
+            if (id == null) {
+                id = signalNames.size();
+                signalIds.put(name, id);
+                signalNames.add(name);
+                
+                if (id == kinds.length) {
+                    kinds = Arrays.copyOf(kinds, 2 * id);
+                    definitions = Arrays.copyOf(definitions, 2 * id);
+                }
+            }
+            
+            return id;
+        }
+        
+        private void define(int signal, byte kind, int definition)
+                throws IOException {
+            if (kinds[signal] != UNDEFINED) {
+                throw input.error("The signal " + signalNames.get(signal) +
+                                  " is defined twice.");
+            }
+            
+            kinds[signal] = kind;
+            definitions[signal] = definition;
+        }
+        
+        private void ensureCoverCapacity(int numberOfNewFanins) {
+            if (numberOfCovers + 2 > faninOffsets.length) {
+                faninOffsets = Arrays.copyOf(faninOffsets,
+                                             2 * faninOffsets.length);
+                rowOffsets = Arrays.copyOf(rowOffsets, 2 * rowOffsets.length);
+            }
+            
+            if (numberOfFanins + numberOfNewFanins > fanins.length) {
+                fanins = Arrays.copyOf(fanins,
+                                       2 * (numberOfFanins +
+                                            numberOfNewFanins));
+            }
+        }
+    }
+}
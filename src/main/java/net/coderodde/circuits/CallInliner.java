@@ -0,0 +1,217 @@
+package net.coderodde.circuits;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * This class flattens a {@link CircuitPlan} by replacing each of its
+ * {@link CircuitPlan#CALL} gates with the gates of the called plan. The
+ * arguments of the calls alias the signals they forward, and the calls of the
+ * same instance share a single copy of the called gates. The flat gates are
+ * minimized by {@link CircuitOptimizer}, so the result equals the plan the
+ * instances would have compiled into if they had been inlined.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class CallInliner {
+    
+    private final CircuitPlan plan;
+    
+    /**
+     * Maps each plan already flattened to its flat plan.
+     */
+    private final Map<CircuitPlan, CircuitPlan> flatPlans;
+    
+    /**
+     * Maps each signal of {@code plan} to its signal in the flat plan.
+     */
+    private final int[] signalMap;
+    
+    /**
+     * Maps the last argument and the called plan of each inlined call to the
+     * signal map of the inlined gates.
+     */
+    private final Map<SimpleEntry<Integer, CircuitPlan>, int[]> inlinedCalls =
+            new HashMap<>();
+    
+    private byte[] opcodes;
+    private int[] operands1;
+    private int[] operands2;
+    private int[] operands3;
+    private int numberOfGates;
+    
+    private CallInliner(CircuitPlan plan,
+                        Map<CircuitPlan, CircuitPlan> flatPlans) {
+        this.plan = plan;
+        this.flatPlans = flatPlans;
+        this.signalMap = new int[plan.getNumberOfSignals()];
+        this.opcodes = new byte[plan.getNumberOfGates()];
+        this.operands1 = new int[plan.getNumberOfGates()];
+        this.operands2 = new int[plan.getNumberOfGates()];
+        this.operands3 = new int[plan.getNumberOfGates()];
+    }
+    
+    /**
+     * Flattens a plan.
+     *
+     * @param plan the plan to flatten.
+     * @return an equivalent plan without calls.
+     */
+    static CircuitPlan inline(CircuitPlan plan) {
+        return inline(plan, new IdentityHashMap<CircuitPlan, CircuitPlan>());
+    }
+    
+    private static CircuitPlan inline(CircuitPlan plan,
+                                      Map<CircuitPlan, CircuitPlan> flatPlans) {
+        if (!plan.hasCalls()) {
+            return plan;
+        }
+        
+        CircuitPlan flatPlan = flatPlans.get(plan);
+        
+        if (flatPlan == null) {
+            flatPlan = new CallInliner(plan, flatPlans).inline();
+            flatPlans.put(plan, flatPlan);
+        }
+        
+        return flatPlan;
+    }
+    
+    private CircuitPlan inline() {
+        int numberOfInputs = plan.getNumberOfInputs();
+        
+        for (int input = 0; input < numberOfInputs; ++input) {
+            signalMap[input] = input;
+        }
+        
+        for (int gate = 0; gate < plan.getNumberOfGates(); ++gate) {
+            int signal;
+            
+            switch (plan.getOpcode(gate)) {
+                case CircuitPlan.ARG:
+                    signal = signalMap[plan.getOperand1(gate)];
+                    break;
+                
+                case CircuitPlan.CALL:
+                    signal = inlineCall(gate);
+                    break;
+                
+                default:
+                    signal = addGate(plan.getOpcode(gate),
+                                     mapOperand(signalMap,
+                                                plan.getOperand1(gate)),
+                                     mapOperand(signalMap,
+                                                plan.getOperand2(gate)),
+                                     mapOperand(signalMap,
+                                                plan.getOperand3(gate)));
+            }
+            
+            signalMap[numberOfInputs + gate] = signal;
+        }
+        
+        int[] outputSignals = new int[plan.getNumberOfOutputs()];
+        
+        for (int i = 0; i < outputSignals.length; ++i) {
+            outputSignals[i] = signalMap[plan.getOutputSignal(i)];
+        }
+        
+        CircuitOptimizer optimizer = new CircuitOptimizer(numberOfInputs,
+                                                          opcodes,
+                                                          operands1,
+                                                          operands2,
+                                                          operands3,
+                                                          null,
+                                                          numberOfGates,
+                                                          outputSignals);
+        optimizer.optimize();
+        long[] initialRegisters =
+                new long[(plan.getNumberOfRegisters() + 63) >>> 6];
+        plan.getInitialRegisters(initialRegisters);
+        return optimizer.toPlan(plan.getNumberOfRegisters(), initialRegisters);
+    }
+    
+    /**
+     * Inlines the plan called by the gate {@code gate}, unless another call
+     * with the same arguments has already inlined it.
+     *
+     * @param gate the call gate.
+     * @return the signal of the output of the call.
+     */
+    private int inlineCall(int gate) {
+        CircuitPlan callee = inline(plan.getCall(gate).getPlan(), flatPlans);
+        SimpleEntry<Integer, CircuitPlan> key =
+                new SimpleEntry<>(plan.getOperand1(gate), callee);
+        int[] calleeSignalMap = inlinedCalls.get(key);
+        
+        if (calleeSignalMap == null) {
+            calleeSignalMap = inlineGates(callee, plan.getOperand1(gate));
+            inlinedCalls.put(key, calleeSignalMap);
+        }
+        
+        return calleeSignalMap[
+                callee.getOutputSignal(plan.getCall(gate).getOutput())];
+    }
+    
+    /**
+     * Appends the gates of a flat plan, connecting its inputs to the
+     * arguments of a call.
+     *
+     * @param callee       the flat plan to append.
+     * @param lastArgument the signal of the last argument of the call.
+     * @return the map from the signals of {@code callee} to the signals of
+     *         the flat plan being built.
+     */
+    private int[] inlineGates(CircuitPlan callee, int lastArgument) {
+        int[] calleeSignalMap = new int[callee.getNumberOfSignals()];
+        int numberOfInputs = plan.getNumberOfInputs();
+        int input = callee.getNumberOfInputs();
+        
+        for (int argument = lastArgument;
+                 argument != CircuitPlan.NO_OPERAND;
+                 argument = plan.getOperand2(argument - numberOfInputs)) {
+            calleeSignalMap[--input] = signalMap[argument];
+        }
+        
+        for (int gate = 0; gate < callee.getNumberOfGates(); ++gate) {
+            calleeSignalMap[callee.getNumberOfInputs() + gate] =
+                    addGate(callee.getOpcode(gate),
+                            mapOperand(calleeSignalMap,
+                                       callee.getOperand1(gate)),
+                            mapOperand(calleeSignalMap,
+                                       callee.getOperand2(gate)),
+                            mapOperand(calleeSignalMap,
+                                       callee.getOperand3(gate)));
+        }
+        
+        return calleeSignalMap;
+    }
+    
+    private int addGate(byte opcode,
+                        int operand1,
+                        int operand2,
+                        int operand3) {
+        if (numberOfGates == opcodes.length) {
+            int capacity = 2 * opcodes.length + 1;
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            operands1 = Arrays.copyOf(operands1, capacity);
+            operands2 = Arrays.copyOf(operands2, capacity);
+            operands3 = Arrays.copyOf(operands3, capacity);
+        }
+        
+        opcodes[numberOfGates] = opcode;
+        operands1[numberOfGates] = operand1;
+        operands2[numberOfGates] = operand2;
+        operands3[numberOfGates] = operand3;
+        return plan.getNumberOfInputs() + numberOfGates++;
+    }
+    
+    private static int mapOperand(int[] signalMap, int operand) {
+        return operand == CircuitPlan.NO_OPERAND ?
+               CircuitPlan.NO_OPERAND :
+               signalMap[operand];
+    }
+}
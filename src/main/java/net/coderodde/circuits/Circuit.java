@@ -1,22 +1,38 @@
 package net.coderodde.circuits;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 import net.coderodde.circuits.components.AbstractCircuitComponent;
 import net.coderodde.circuits.components.AbstractDoubleInputPinCircuitComponent;
+import net.coderodde.circuits.components.AbstractMultipleInputPinCircuitComponent;
 import net.coderodde.circuits.components.AbstractSingleInputPinCircuitComponent;
 import net.coderodde.circuits.components.support.AndGate;
 import net.coderodde.circuits.components.support.InputGate;
 import net.coderodde.circuits.components.support.BranchWire;
+import net.coderodde.circuits.components.support.ConstantGate;
+import net.coderodde.circuits.components.support.DFlipFlop;
+import net.coderodde.circuits.components.support.MultiInputAndGate;
+import net.coderodde.circuits.components.support.MultiInputOrGate;
+import net.coderodde.circuits.components.support.MuxGate;
+import net.coderodde.circuits.components.support.NandGate;
+import net.coderodde.circuits.components.support.NorGate;
 import net.coderodde.circuits.components.support.NotGate;
 import net.coderodde.circuits.components.support.OrGate;
 import net.coderodde.circuits.components.support.OutputGate;
+import net.coderodde.circuits.components.support.XnorGate;
+import net.coderodde.circuits.components.support.XorGate;
 
 /**
  * This class serves as a circuit component containers implementing a logical
@@ -37,6 +53,11 @@ public final class Circuit extends AbstractCircuitComponent {
      */
     private static final int MINIMUM_OUTPUT_PINS = 1;
     
+    /**
+     * The minimum allowed number of input pins per multiple input gate.
+     */
+    private static final int MINIMUM_GATE_INPUT_PINS = 2;
+    
     /**
      * The input pin name prefix.
      */
@@ -47,6 +68,19 @@ public final class Circuit extends AbstractCircuitComponent {
      */
     private static final String OUTPUT_PIN_NAME_PREFIX = "outputPin";
     
+    /**
+     * Orders the components by their names.
+     */
+    private static final Comparator<AbstractCircuitComponent> 
+            NAME_COMPARATOR = new Comparator<AbstractCircuitComponent>() {
+        
+        @Override
+        public int compare(AbstractCircuitComponent component1, 
+                           AbstractCircuitComponent component2) {
+            return component1.getName().compareTo(component2.getName());
+        }
+    };
+    
     /**
      * The map mapping the name of a component to the actual component.
      */
@@ -84,6 +118,28 @@ public final class Circuit extends AbstractCircuitComponent {
      */
     private boolean locked = false;
     
+    /**
+     * The compiled evaluation plan. Built by {@link #lock()}. The plan is 
+     * immutable and shared by all the evaluators of this circuit.
+     */
+    private CircuitPlan plan;
+    
+    /**
+     * The flip-flops of this circuit and its subcircuits in the order of 
+     * their registers. Collected by {@link #lock()}.
+     */
+    private List<DFlipFlop> flipFlops;
+    
+    /**
+     * The evaluator used by the {@code doCycle} methods of this circuit.
+     */
+    private CircuitEvaluator evaluator;
+    
+    /**
+     * The generated lane evaluator. Created on first request.
+     */
+    private LaneEvaluator laneEvaluator;
+    
     /**
      * Creates a new circuit.
      * 
@@ -152,6 +208,11 @@ public final class Circuit extends AbstractCircuitComponent {
             
             AbstractCircuitComponent newComponent = copyComponent(component);
             componentMap.put(component, newComponent);
+            addComponent(newComponent);
+            
+            if (newComponent.getName() != null) {
+                this.componentMap.put(newComponent.getName(), newComponent);
+            }
         }
         
         for (AbstractCircuitComponent component : circuit.componentSet) {
@@ -188,6 +249,19 @@ public final class Circuit extends AbstractCircuitComponent {
         if (mappedComponent instanceof AbstractSingleInputPinCircuitComponent) {
             ((AbstractSingleInputPinCircuitComponent) mappedComponent)
                     .setInputComponent(mappedInputComponent);
+        } else if (mappedComponent 
+                instanceof AbstractMultipleInputPinCircuitComponent) {
+            AbstractMultipleInputPinCircuitComponent c1 = 
+                    (AbstractMultipleInputPinCircuitComponent) mappedComponent;
+            
+            AbstractMultipleInputPinCircuitComponent c2 =
+                    (AbstractMultipleInputPinCircuitComponent) component;
+            
+            for (int i = 0; i < c2.getNumberOfInputPins(); ++i) {
+                if (inputComponent == c2.getInputComponent(i)) {
+                    c1.setInputComponent(i, mappedInputComponent);
+                }
+            }
         } else {
             AbstractDoubleInputPinCircuitComponent c1 = 
                     (AbstractDoubleInputPinCircuitComponent) mappedComponent;
@@ -197,9 +271,16 @@ public final class Circuit extends AbstractCircuitComponent {
             
             if (inputComponent == c2.getInputComponent1()) {
                 c1.setInputComponent1(mappedInputComponent);
-            } else {
+            }
+            
+            if (inputComponent == c2.getInputComponent2()) {
                 c1.setInputComponent2(mappedInputComponent);
             }
+            
+            if (c2 instanceof MuxGate 
+                    && inputComponent == ((MuxGate) c2).getSelectComponent()) {
+                ((MuxGate) c1).setSelectComponent(mappedInputComponent);
+            }
         }
     }
     
@@ -231,11 +312,53 @@ public final class Circuit extends AbstractCircuitComponent {
             return new OrGate(gate.getName());
         }
         
+        if (component instanceof XorGate) {
+            return new XorGate(component.getName());
+        }
+        
+        if (component instanceof XnorGate) {
+            return new XnorGate(component.getName());
+        }
+        
+        if (component instanceof NandGate) {
+            return new NandGate(component.getName());
+        }
+        
+        if (component instanceof NorGate) {
+            return new NorGate(component.getName());
+        }
+        
+        if (component instanceof MuxGate) {
+            return new MuxGate(component.getName());
+        }
+        
+        if (component instanceof MultiInputAndGate) {
+            MultiInputAndGate gate = (MultiInputAndGate) component;
+            return new MultiInputAndGate(gate.getName(), 
+                                         gate.getNumberOfInputPins());
+        }
+        
+        if (component instanceof MultiInputOrGate) {
+            MultiInputOrGate gate = (MultiInputOrGate) component;
+            return new MultiInputOrGate(gate.getName(), 
+                                        gate.getNumberOfInputPins());
+        }
+        
         if (component instanceof BranchWire) {
             BranchWire wire = (BranchWire) component;
             return new BranchWire();
         }
         
+        if (component instanceof ConstantGate) {
+            ConstantGate gate = (ConstantGate) component;
+            return new ConstantGate(gate.getName(), gate.getBit());
+        }
+        
+        if (component instanceof DFlipFlop) {
+            DFlipFlop flipFlop = (DFlipFlop) component;
+            return new DFlipFlop(flipFlop.getName(), flipFlop.getBit());
+        }
+        
         if (component instanceof InputGate) {
             InputGate gate = (InputGate) component;
             return new InputGate(gate.getName());
@@ -259,6 +382,48 @@ public final class Circuit extends AbstractCircuitComponent {
         return componentSet.size();
     }
     
+    /**
+     * Returns the number of logical gates in this circuit and all of its 
+     * subcircuits. Branch wires, pins and flip-flops are not counted.
+     * 
+     * @return the number of gates.
+     */
+    public int getNumberOfGates() {
+        int numberOfGates = 0;
+        
+        for (AbstractCircuitComponent component : componentSet) {
+            if (component instanceof Circuit) {
+                numberOfGates += ((Circuit) component).getNumberOfGates();
+            } else if (component instanceof CircuitInstance) {
+                Circuit definition = 
+                        ((CircuitInstance) component).getDefinition();
+                numberOfGates += definition.getNumberOfGates();
+            } else if (component instanceof NotGate
+                    || component instanceof ConstantGate
+                    || component 
+                       instanceof AbstractDoubleInputPinCircuitComponent
+                    || component 
+                       instanceof AbstractMultipleInputPinCircuitComponent) {
+                ++numberOfGates;
+            }
+        }
+        
+        return numberOfGates;
+    }
+    
+    /**
+     * Returns the number of gates evaluated per cycle after this circuit was
+     * optimized by {@link #lock()}. Each circuit instance counts as a gate
+     * per input and output pin, as the gates of its definition are shared.
+     * The circuit must be locked.
+     * 
+     * @return the number of gates after the optimization.
+     */
+    public int getNumberOfCompiledGates() {
+        checkIsLocked();
+        return plan.getNumberOfGates();
+    }
+    
     /**
      * Adds a new <code>NOT</code>-gate to this circuit.
      * 
@@ -298,6 +463,126 @@ public final class Circuit extends AbstractCircuitComponent {
         componentSet.add(orGate);
     }
     
+    /**
+     * Adds a new <code>AND</code>-gate with {@code numberOfInputPins} input 
+     * pins to this circuit. The pins are connected via
+     * {@link TargetComponentSelector#toPinOf(String, int)}. The gate is 
+     * evaluated as a single component after all of its inputs have been 
+     * evaluated.
+     * 
+     * @param andGateName       the name of the gate.
+     * @param numberOfInputPins the number of input pins, at least 2.
+     */
+    public void addAndGate(String andGateName, int numberOfInputPins) {
+        addGate(new MultiInputAndGate(
+                andGateName, 
+                checkGateInputPinCount(numberOfInputPins)));
+    }
+    
+    /**
+     * Adds a new <code>OR</code>-gate with {@code numberOfInputPins} input 
+     * pins to this circuit. The pins are connected via
+     * {@link TargetComponentSelector#toPinOf(String, int)}. The gate is 
+     * evaluated as a single component after all of its inputs have been 
+     * evaluated.
+     * 
+     * @param orGateName        the name of the gate.
+     * @param numberOfInputPins the number of input pins, at least 2.
+     */
+    public void addOrGate(String orGateName, int numberOfInputPins) {
+        addGate(new MultiInputOrGate(
+                orGateName, 
+                checkGateInputPinCount(numberOfInputPins)));
+    }
+    
+    /**
+     * Adds a new <code>XOR</code>-gate to this circuit.
+     * 
+     * @param xorGateName the name of the gate.
+     */
+    public void addXorGate(String xorGateName) {
+        addGate(new XorGate(xorGateName));
+    }
+    
+    /**
+     * Adds a new <code>XNOR</code>-gate to this circuit.
+     * 
+     * @param xnorGateName the name of the gate.
+     */
+    public void addXnorGate(String xnorGateName) {
+        addGate(new XnorGate(xnorGateName));
+    }
+    
+    /**
+     * Adds a new <code>NAND</code>-gate to this circuit.
+     * 
+     * @param nandGateName the name of the gate.
+     */
+    public void addNandGate(String nandGateName) {
+        addGate(new NandGate(nandGateName));
+    }
+    
+    /**
+     * Adds a new <code>NOR</code>-gate to this circuit.
+     * 
+     * @param norGateName the name of the gate.
+     */
+    public void addNorGate(String norGateName) {
+        addGate(new NorGate(norGateName));
+    }
+    
+    /**
+     * Adds a new multiplexer to this circuit. The multiplexer outputs the 
+     * signal at its first pin if the signal at its select pin is 
+     * {@code false}, and the signal at its second pin otherwise. See 
+     * {@link TargetComponentSelector#toSelectPinOf(String)}.
+     * 
+     * @param muxGateName the name of the gate.
+     */
+    public void addMuxGate(String muxGateName) {
+        addGate(new MuxGate(muxGateName));
+    }
+    
+    /**
+     * Adds a new constant gate to this circuit. A constant gate has no inputs
+     * and always outputs {@code bit}.
+     * 
+     * @param constantGateName the name of the gate.
+     * @param bit              the output of the gate.
+     */
+    public void addConstantGate(String constantGateName, boolean bit) {
+        checkIsNotLocked();
+        checkNewGateName(constantGateName);
+        ConstantGate constantGate = new ConstantGate(constantGateName, bit);
+        componentMap.put(constantGateName, constantGate);
+        componentSet.add(constantGate);
+    }
+    
+    /**
+     * Adds a new D flip-flop storing initially {@code false} to this circuit.
+     * 
+     * @param flipFlopName the name of the flip-flop.
+     */
+    public void addDFlipFlop(String flipFlopName) {
+        addDFlipFlop(flipFlopName, DFlipFlop.DEFAULT_BIT);
+    }
+    
+    /**
+     * Adds a new D flip-flop to this circuit. The flip-flop outputs the bit
+     * it stores and latches its input on each clock cycle, so it may close a
+     * loop of gates. See {@link #clock(int)}.
+     * 
+     * @param flipFlopName the name of the flip-flop.
+     * @param bit          the initial state of the flip-flop.
+     */
+    public void addDFlipFlop(String flipFlopName, boolean bit) {
+        checkIsNotLocked();
+        checkNewGateName(flipFlopName);
+        DFlipFlop flipFlop = new DFlipFlop(flipFlopName, bit);
+        componentMap.put(flipFlopName, flipFlop);
+        componentSet.add(flipFlop);
+    }
+    
     /**
      * Adds a subcircuit to this circuit.
      * 
@@ -310,6 +595,26 @@ public final class Circuit extends AbstractCircuitComponent {
         componentSet.add(circuit);
     }
     
+    /**
+     * Adds a lightweight instance of a locked circuit to this circuit. Unlike
+     * {@link #addCircuit(Circuit)}, no gates are copied: all the instances 
+     * share {@code definition} and carry only their own pins, which are 
+     * addressed as {@code name + ".inputPin0"} and so on.
+     * 
+     * @param definition the locked combinational circuit to instantiate.
+     * @param name       the name of the instance.
+     */
+    public void addCircuitInstance(Circuit definition, String name) {
+        checkIsNotLocked();
+        Objects.requireNonNull(definition, "The definition circuit is null.");
+        definition.checkIsLocked();
+        definition.checkIsCombinational();
+        checkNewGateName(name);
+        CircuitInstance instance = new CircuitInstance(definition, name);
+        componentMap.put(name, instance);
+        componentSet.add(instance);
+    }
+    
     public int getNumberOfInputPins() {
         return numberOfInputPins;
     }
@@ -319,16 +624,115 @@ public final class Circuit extends AbstractCircuitComponent {
     }
     
     /**
-     * Performs a single cycle of this circuit.
+     * Performs a single cycle of this circuit. The flip-flops keep their 
+     * states; see {@link #clock(int)}.
      * 
      * @return dummy value.
      */
     @Override
     public boolean doCycle() {
+        if (evaluator != null) {
+            loadInputBits();
+            evaluator.doCycle();
+            storeOutputBits();
+            return false;
+        }
+        
+        long cycle = nextCycle();
+        
         for (OutputGate outputGate : outputGates) {
-            outputGate.doCycle();
+            outputGate.doCycle(cycle);
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Runs {@code cycles} clock cycles over the current input pins. Each 
+     * cycle has two phases: first the gates are evaluated over the current 
+     * states of the flip-flops, and then all the flip-flops latch their inputs
+     * at once. Afterwards, the output pins show the outputs computed from the
+     * new states of the flip-flops. Once this circuit is locked, the states 
+     * live in the signal table of the evaluator and each cycle copies the
+     * next states into it, so a single call may run millions of cycles 
+     * without allocating any memory.
+     * 
+     * @param cycles the number of clock cycles.
+     */
+    public void clock(int cycles) {
+        if (cycles < 0) {
+            throw new IllegalArgumentException(
+                    "Negative number of cycles: " + cycles);
+        }
+        
+        if (evaluator != null) {
+            loadInputBits();
+            evaluator.clock(cycles);
+            storeOutputBits();
+            
+            for (int i = 0; i < flipFlops.size(); ++i) {
+                flipFlops.get(i).setBit(evaluator.getRegisterBit(i));
+            }
+            
+            return;
+        }
+        
+        List<DFlipFlop> flipFlops = new ArrayList<>();
+        collectFlipFlops(flipFlops);
+        
+        for (int i = 0; i < cycles; ++i) {
+            long cycle = nextCycle();
+            
+            for (DFlipFlop flipFlop : flipFlops) {
+                flipFlop.getInputComponent().doCycle(cycle);
+            }
+            
+            for (DFlipFlop flipFlop : flipFlops) {
+                flipFlop.latch();
+            }
+        }
+        
+        doCycle();
+    }
+    
+    /**
+     * Returns the number of flip-flops in this circuit and its subcircuits.
+     * The circuit must be locked.
+     * 
+     * @return the number of registers.
+     */
+    public int getNumberOfRegisters() {
+        checkIsLocked();
+        return plan.getNumberOfRegisters();
+    }
+    
+    /**
+     * Returns the bit stored in a flip-flop. A dotted name addresses a 
+     * flip-flop of a subcircuit.
+     * 
+     * @param flipFlopName the name of the flip-flop.
+     * @return the state of the flip-flop.
+     */
+    public boolean getRegisterBit(String flipFlopName) {
+        Objects.requireNonNull(flipFlopName, "The flip-flop name is null.");
+        AbstractCircuitComponent component = findComponent(flipFlopName);
+        
+        if (!(component instanceof DFlipFlop)) {
+            throw new IllegalArgumentException(
+                    "The component \"" + flipFlopName + "\" is not a " +
+                    "flip-flop of the circuit \"" + getName() + "\".");
         }
         
+        return ((DFlipFlop) component).getBit();
+    }
+    
+    /**
+     * A circuit is never an input of another component.
+     * 
+     * @return dummy value.
+     */
+    @Override
+    protected boolean computeOutput() {
         return false;
     }
     
@@ -338,6 +742,131 @@ public final class Circuit extends AbstractCircuitComponent {
         return getOutputBits();
     }
     
+    /**
+     * Performs a single cycle of this circuit without allocating any memory.
+     * 
+     * @param inputBits  the input bit vector.
+     * @param outputBits the array for storing the output bit vector.
+     */
+    public void doCycle(boolean[] inputBits, boolean[] outputBits) {
+        setInputBits(inputBits);
+        doCycle();
+        getOutputBits(outputBits);
+    }
+    
+    /**
+     * Evaluates this circuit over 64 input vectors at once. Bit {@code j} of
+     * {@code inputLanes[i]} is the value of the input pin {@code i} in the 
+     * input vector {@code j}; likewise, bit {@code j} of 
+     * {@code outputLanes[i]} receives the value of the output pin {@code i} 
+     * for the input vector {@code j}. All the input vectors see the current
+     * states of the flip-flops. The circuit must be locked.
+     * 
+     * @param inputLanes  the input pin words.
+     * @param outputLanes the array for storing the output pin words.
+     */
+    public void evaluateBatch(long[] inputLanes, long[] outputLanes) {
+        checkIsLocked();
+        evaluator.evaluateBatch(inputLanes, outputLanes);
+    }
+    
+    /**
+     * Creates a new evaluator of this circuit. The structure of a locked 
+     * circuit is immutable, so any number of threads may evaluate it 
+     * concurrently, each through an evaluator of its own, without copying the
+     * circuit. The circuit must be locked before it is shared among threads.
+     * 
+     * @return a new evaluator.
+     */
+    public CircuitEvaluator newEvaluator() {
+        checkIsLocked();
+        return new CircuitEvaluator(plan);
+    }
+    
+    /**
+     * Returns a thread-safe evaluator for 64 input vectors at once, whose 
+     * {@code evaluate} method is generated bytecode specialized for this 
+     * circuit. Large circuits are split into several generated methods small
+     * enough for the JIT compiler. If this circuit is too large for a 
+     * generated class or contains circuit instances, an interpreting 
+     * evaluator is returned instead. The circuit must be locked and may not
+     * contain flip-flops.
+     * 
+     * @return a lane evaluator for this circuit.
+     */
+    public LaneEvaluator generateLaneEvaluator() {
+        checkIsLocked();
+        checkIsCombinational();
+        
+        if (laneEvaluator == null) {
+            laneEvaluator = LaneEvaluatorGenerator.generate(plan);
+            
+            if (laneEvaluator == null) {
+                laneEvaluator = new PlanLaneEvaluator(plan);
+            }
+        }
+        
+        return laneEvaluator;
+    }
+    
+    /**
+     * Creates a new event-driven simulator of this circuit. The simulator 
+     * re-evaluates only the gates affected by the input pins changed since 
+     * the previous cycle. All input pins of a new simulator are zero. The 
+     * circuit must be locked and may not contain flip-flops.
+     * 
+     * @return a new incremental simulator.
+     */
+    public IncrementalSimulator newIncrementalSimulator() {
+        checkIsLocked();
+        checkIsCombinational();
+        return new IncrementalSimulator(plan);
+    }
+    
+    /**
+     * Converts this circuit into an and-inverter graph. The graph is built 
+     * from the optimized gates, so it covers only the gates contributing to
+     * some output pin. The circuit must be locked and may not contain 
+     * flip-flops.
+     * 
+     * @return a new and-inverter graph equivalent to this circuit.
+     */
+    public AndInverterGraph toAndInverterGraph() {
+        checkIsLocked();
+        checkIsCombinational();
+        return AndInverterGraph.fromPlan(plan.flatten());
+    }
+    
+    /**
+     * Computes the full truth table of this circuit in the common fork/join 
+     * pool. See {@link #truthTable(ForkJoinPool)}.
+     * 
+     * @return the truth table.
+     */
+    public long[][] truthTable() {
+        return truthTable(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Computes the full truth table of this circuit. Bit {@code r & 63} of the
+     * word {@code table[o][r >>> 6]} is the value of the output pin {@code o} 
+     * on the input vector {@code r}, whose bit {@code i} is the value of the 
+     * input pin {@code i}. The input space is split among the threads of 
+     * {@code pool}, and each thread walks its rows in Gray-code order so that
+     * only one input pin changes between consecutive rows. The circuit must 
+     * be locked, may not contain flip-flops and may have at most 30 input 
+     * pins.
+     * 
+     * @param pool the pool to run the computation in.
+     * @return the truth table.
+     */
+    public long[][] truthTable(ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "The fork/join pool is null.");
+        checkIsLocked();
+        checkIsCombinational();
+        return TruthTableGenerator.generate(plan, pool);
+    }
+    
     /**
      * Sets the states of all the input pins. If the length of {@code bits} is 
      * smaller than the number of input pins in this circuit, the rest of input
@@ -356,15 +885,56 @@ public final class Circuit extends AbstractCircuitComponent {
     }
     
     /**
-     * Returns a bit vector representing a result of a circuit cycle.
+     * Returns a bit vector representing a result of the most recent circuit 
+     * cycle.
      * 
      * @return a bit vector.
      */
     public boolean[] getOutputBits() {
         boolean[] bits = new boolean[numberOfOutputPins];
+        getOutputBits(bits);
+        return bits;
+    }
+    
+    /**
+     * Stores the result of the most recent circuit cycle in {@code bits}.
+     * 
+     * @param bits the array for storing the output bit vector.
+     */
+    public void getOutputBits(boolean[] bits) {
+        Objects.requireNonNull(bits, "The output bit array is null.");
+        
+        if (bits.length < numberOfOutputPins) {
+            throw new IllegalArgumentException(
+                    "The output bit array is too short (" + bits.length + 
+                    "). At least " + numberOfOutputPins + " expected.");
+        }
         
-        for (int i = 0; i < bits.length; ++i) {
-            bits[i] = outputGates.get(i).doCycle();
+        for (int i = 0; i < numberOfOutputPins; ++i) {
+            bits[i] = outputGates.get(i).getBit();
+        }
+    }
+    
+    /**
+     * Returns the result of the most recent circuit cycle packed into a 
+     * {@code long}. The bit of the output pin {@code i} is stored at the bit 
+     * position {@code i}.
+     * 
+     * @return the packed output bit vector.
+     */
+    public long getOutputBitsAsLong() {
+        if (numberOfOutputPins > Long.SIZE) {
+            throw new IllegalStateException(
+                    "Too many output pins (" + numberOfOutputPins + ") to " +
+                    "pack into a long.");
+        }
+        
+        long bits = 0L;
+        
+        for (int i = 0; i < numberOfOutputPins; ++i) {
+            if (outputGates.get(i).getBit()) {
+                bits |= 1L << i;
+            }
         }
         
         return bits;
@@ -372,7 +942,17 @@ public final class Circuit extends AbstractCircuitComponent {
     
     /**
      * Attempts to produce a logical circuit with minimal possible number of 
-     * gates that is equivalent to this circuit.
+     * gates that is equivalent to this circuit. After locking, the circuit is
+     * compiled into a levelized plan that {@link #doCycle()} evaluates in a 
+     * single linear sweep. While compiling, constants are propagated, double
+     * negations and trivial gates such as {@code x & !x} are eliminated, 
+     * structurally equal gates (gates of the same type fed by the same 
+     * signals, in any order) are merged into one, and the gates not 
+     * contributing to any output pin or flip-flop are removed. The flip-flops
+     * break the cycles of the circuit; any other cycle is rejected. The 
+     * structure of the circuit
+     * itself is not changed; compare {@link #getNumberOfGates()} and 
+     * {@link #getNumberOfCompiledGates()} for the effect of the optimization.
      */
     public void lock() {
         if (locked) {
@@ -381,65 +961,160 @@ public final class Circuit extends AbstractCircuitComponent {
         
         locked = true;
         checkAllPinsAreConnected();
-        checkIsDagInForwardDirection();
-        checkIsDagInBackwardDirection();
+        List<AbstractCircuitComponent> components = indexComponents();
+        flipFlops = new ArrayList<>();
+        collectFlipFlops(flipFlops);
+        checkIsDagInForwardDirection(components.size());
+        List<AbstractCircuitComponent> order = 
+                checkIsDagInBackwardDirection(components.size());
+        plan = CircuitCompiler.compile(this, 
+                                       flipFlops,
+                                       components.size(), 
+                                       order);
+        evaluator = new CircuitEvaluator(plan);
     }
     
     /**
-     * Initiates a call for connecting some gates.
+     * Returns {@code true} if this circuit is locked.
      * 
-     * @param sourceComponentName the source component name.
-     * @return a target component selector.
+     * @return {@code true} if locked.
      */
-    public TargetComponentSelector connect(String sourceComponentName) {
-        checkIsNotLocked();
-        return new TargetComponentSelector(sourceComponentName);
-    }
-
-    @Override
-    public List<AbstractCircuitComponent> getInputComponents() {
-        return new ArrayList<>(inputGates);
+    public boolean isLocked() {
+        return locked;
     }
-
-    @Override
-    public List<AbstractCircuitComponent> getOutputComponents() {
-        return new ArrayList<>(outputGates);
+    
+    /**
+     * Saves the compiled plan of this circuit into a binary netlist file. The
+     * file holds the compiled gates, the pin map and the hierarchical names
+     * of the flip-flops with their initial states, but none of the original
+     * gates. The circuit must be locked.
+     * 
+     * @param path the path of the netlist file.
+     * @throws IOException if an I/O error occurs.
+     * @see MappedCircuit
+     */
+    public void save(Path path) throws IOException {
+        checkIsLocked();
+        Objects.requireNonNull(path, "The path is null.");
+        NetlistFormat.write(path,
+                            getName(),
+                            plan.flatten(),
+                            getRegisterNames());
     }
     
-    public final class TargetComponentSelector {
-        
+    /**
+     * Loads a circuit saved by {@link #save(Path)}. The returned circuit is 
+     * locked and holds no gates: it may be evaluated, clocked, saved and used
+     * as the definition of circuit instances, but not copied, flattened or
+     * modified. Its flip-flops are addressed by their hierarchical names.
+     * 
+     * @param path the path of the netlist file.
+     * @return the loaded circuit.
+     * @throws IOException if an I/O error occurs or the file is not a valid
+     *                     netlist file.
+     */
+    public static Circuit load(Path path) throws IOException {
+        return MappedCircuit.map(path).toCircuit();
+    }
+    
+    /**
+     * Creates a locked circuit evaluating {@code plan}. 
+     * 
+     * @param name          the name of the circuit.
+     * @param plan          the compiled plan.
+     * @param registerNames the hierarchical name of each register.
+     * @return the locked circuit.
+     * @throws IllegalArgumentException if a register name is not unique or
+     *                                  clashes with a pin name.
+     */
+    static Circuit fromPlan(String name, 
+                            CircuitPlan plan, 
+                            List<String> registerNames) {
+        Circuit circuit = new Circuit(name,
+                                      plan.getNumberOfInputPins(),
+                                      plan.getNumberOfOutputPins());
+        long[] registers = new long[(plan.getNumberOfRegisters() + 63) >>> 6];
+        plan.getInitialRegisters(registers);
+        circuit.flipFlops = new ArrayList<>(registerNames.size());
+        
+        for (int i = 0; i < registerNames.size(); ++i) {
+            DFlipFlop flipFlop = 
+                    new DFlipFlop(registerNames.get(i),
+                                  (registers[i >>> 6] & (1L << i)) != 0L);
+            
+            if (circuit.componentMap.put(registerNames.get(i), flipFlop) 
+                    != null) {
+                throw new IllegalArgumentException(
+                        "Duplicate component name: " + registerNames.get(i));
+            }
+            
+            circuit.flipFlops.add(flipFlop);
+        }
+        
+        circuit.locked = true;
+        circuit.plan = plan;
+        circuit.evaluator = new CircuitEvaluator(plan);
+        return circuit;
+    }
+    
+    /**
+     * Creates an equivalent circuit without subcircuits. All the gates of the
+     * nested subcircuits are inlined recursively and receive hierarchical 
+     * names, so that the gate {@code and1} of the subcircuit {@code xor1} 
+     * becomes {@code xor1.and1}. The pins of the subcircuits disappear, so the
+     * signals no longer pass through them on each evaluation. The gates not 
+     * contributing to any output pin of this circuit are left out. Circuit 
+     * instances are expanded as well; the gates of each instance are named 
+     * after the instance. The new circuit is not locked.
+     * 
+     * @param name the name of the flattened circuit.
+     * @return a flattened copy of this circuit.
+     */
+    public Circuit flatten(String name) {
+        return CircuitFlattener.flatten(this, name);
+    }
+    
+    /**
+     * Initiates a call for connecting some gates.
+     * 
+     * @param sourceComponentName the source component name.
+     * @return a target component selector.
+     */
+    public TargetComponentSelector connect(String sourceComponentName) {
+        checkIsNotLocked();
+        return new TargetComponentSelector(sourceComponentName);
+    }
+
+    @Override
+    public int getInputComponentCount() {
+        return inputGates.size();
+    }
+    
+    @Override
+    public AbstractCircuitComponent getInputComponentAt(int index) {
+        return inputGates.get(index);
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getInputComponents() {
+        return new ArrayList<>(inputGates);
+    }
+
+    @Override
+    public List<AbstractCircuitComponent> getOutputComponents() {
+        return new ArrayList<>(outputGates);
+    }
+    
+    public final class TargetComponentSelector {
+        
         private final AbstractCircuitComponent sourceComponent;
         
         TargetComponentSelector(String sourceComponentName) {
             Objects.requireNonNull(sourceComponentName,
                                    "The source component name is null.");
             
-            AbstractCircuitComponent sourceComponent;
-            
-            if (sourceComponentName.contains(".")) {
-                String[] nameComponents = sourceComponentName.split("\\.");
-                
-                if (nameComponents.length != 2) {
-                    throw new IllegalArgumentException(
-                            "More than one dot operators: " + 
-                                    sourceComponentName);
-                }
-                
-                Circuit subcircuit = 
-                        (Circuit) componentMap.get(nameComponents[0]);
-                
-                if (subcircuit == null) {
-                    throw new IllegalArgumentException(
-                            "Subcircuit \"" + nameComponents[0] + "\" is " +
-                            "not present in this circuit (" + getName() +
-                            ").");
-                }
-                
-                sourceComponent = 
-                        subcircuit.componentMap.get(nameComponents[1]);
-            } else {
-                sourceComponent = componentMap.get(sourceComponentName);
-            }
+            AbstractCircuitComponent sourceComponent = 
+                    findComponent(sourceComponentName);
             
             if (sourceComponent == null) {
                 throwComponentNotPresent(sourceComponentName);
@@ -461,54 +1136,8 @@ public final class Circuit extends AbstractCircuitComponent {
                         " is occupied.");
             }
             
-            if (sourceComponent.getOutputComponent() == null) {
-                ((AbstractDoubleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent1(sourceComponent);
-                
-                sourceComponent.setOutputComponent(targetComponent);
-            } else if (
-                   sourceComponent.getOutputComponent() instanceof BranchWire) {
-                ((AbstractDoubleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent1(
-                                sourceComponent.getOutputComponent());
-                ((BranchWire) sourceComponent.getOutputComponent())
-                        .connectTo(targetComponent);
-            } else {
-                // Replace an existing wire with BranchWire.
-                BranchWire branchWire = new BranchWire();
-                
-                // Introduce the new BranchWire to the circuit.
-                addComponent(branchWire);
-                
-                // Load the BranchWire outputs:
-                branchWire.connectTo(sourceComponent.getOutputComponent());
-                branchWire.connectTo(targetComponent);
-                
-                if (sourceComponent.getOutputComponent()
-                        instanceof AbstractDoubleInputPinCircuitComponent) {
-                    AbstractDoubleInputPinCircuitComponent tmpComponent =
-                            (AbstractDoubleInputPinCircuitComponent)
-                            sourceComponent.getOutputComponent();
-                    
-                    if (tmpComponent.getInputComponent2() == sourceComponent) {
-                        tmpComponent.setInputComponent1(branchWire);
-                    } else {
-                        tmpComponent.setInputComponent2(branchWire);
-                    }
-                } else {
-                    AbstractSingleInputPinCircuitComponent tmpComponent = 
-                            (AbstractSingleInputPinCircuitComponent)
-                            sourceComponent.getOutputComponent();
-                    
-                    tmpComponent.setInputComponent(branchWire);
-                }
-                
-                ((AbstractDoubleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent1(branchWire);
-                
-                sourceComponent.setOutputComponent(branchWire);
-                branchWire.setInputComponent(sourceComponent);
-            }
+            ((AbstractDoubleInputPinCircuitComponent) targetComponent)
+                    .setInputComponent1(attachTo(targetComponent));
         }
         
         public void toSecondPinOf(String targetComponentName) {
@@ -524,54 +1153,84 @@ public final class Circuit extends AbstractCircuitComponent {
                         " is occupied.");
             }
             
-            if (sourceComponent.getOutputComponent() == null) {
-                ((AbstractDoubleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent2(sourceComponent);
-                
-                sourceComponent.setOutputComponent(targetComponent);
-            } else if (
-                   sourceComponent.getOutputComponent() instanceof BranchWire) {
-                ((AbstractDoubleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent2(
-                                sourceComponent.getOutputComponent());
-                ((BranchWire) sourceComponent.getOutputComponent())
-                        .connectTo(targetComponent);
-            } else {
-                // Replace an existing wire with BranchWire.
-                BranchWire branchWire = new BranchWire();
-                
-                // Introduce the new BranchWire to the circuit.
-                addComponent(branchWire);
-                
-                // Load the BranchWire outputs:
-                branchWire.connectTo(sourceComponent.getOutputComponent());
-                branchWire.connectTo(targetComponent);
-                
-                if (sourceComponent.getOutputComponent() 
-                        instanceof AbstractDoubleInputPinCircuitComponent) {
-                    AbstractDoubleInputPinCircuitComponent tmpComponent = 
-                            (AbstractDoubleInputPinCircuitComponent)
-                            sourceComponent.getOutputComponent();
-                    
-                    if (tmpComponent.getInputComponent1() == sourceComponent) {
-                        tmpComponent.setInputComponent1(branchWire);
-                    } else {
-                        tmpComponent.setInputComponent2(branchWire);
-                    }
+            ((AbstractDoubleInputPinCircuitComponent) targetComponent)
+                    .setInputComponent2(attachTo(targetComponent));
+        }
+        
+        /**
+         * Connects the source component to the select pin of a multiplexer.
+         * 
+         * @param targetComponentName the name of the multiplexer.
+         */
+        public void toSelectPinOf(String targetComponentName) {
+            AbstractCircuitComponent targetComponent = 
+                    getTargetComponent(targetComponentName);
+            
+            if (!(targetComponent instanceof MuxGate)) {
+                throw new IllegalArgumentException(
+                        "A multiplexer is expected here.");
+            }
+            
+            if (((MuxGate) targetComponent).getSelectComponent() != null) {
+                throw new InputPinOccupiedException(
+                        "The select pin of \"" + targetComponentName + "\"" + 
+                        " is occupied.");
+            }
+            
+            ((MuxGate) targetComponent)
+                    .setSelectComponent(attachTo(targetComponent));
+        }
+        
+        /**
+         * Connects the source component to the input pin {@code pinIndex} of
+         * the target component. The pins of a multiple input gate are 
+         * numbered from zero. The only pin of a single input component is 
+         * pin 0, the first and the second pins of a double input gate are 
+         * pins 0 and 1, and the select pin of a multiplexer is pin 2.
+         * 
+         * @param targetComponentName the name of the target component.
+         * @param pinIndex            the index of the input pin.
+         */
+        public void toPinOf(String targetComponentName, int pinIndex) {
+            AbstractCircuitComponent targetComponent = 
+                    getTargetComponent(targetComponentName);
+            
+            if (!(targetComponent 
+                    instanceof AbstractMultipleInputPinCircuitComponent)) {
+                if (pinIndex == 0 && targetComponent 
+                        instanceof AbstractSingleInputPinCircuitComponent) {
+                    to(targetComponentName);
+                } else if (pinIndex == 0) {
+                    toFirstPinOf(targetComponentName);
+                } else if (pinIndex == 1) {
+                    toSecondPinOf(targetComponentName);
+                } else if (pinIndex == 2) {
+                    toSelectPinOf(targetComponentName);
                 } else {
-                    AbstractSingleInputPinCircuitComponent tmpComponent = 
-                            (AbstractSingleInputPinCircuitComponent) 
-                            sourceComponent.getOutputComponent();
-                    
-                    tmpComponent.setInputComponent(branchWire);
+                    throw new IllegalArgumentException(
+                            "The component \"" + targetComponentName + 
+                            "\" has no input pin " + pinIndex + ".");
                 }
                 
-                ((AbstractDoubleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent2(branchWire);
-                
-                sourceComponent.setOutputComponent(branchWire);
-                branchWire.setInputComponent(sourceComponent);
+                return;
+            }
+            
+            AbstractMultipleInputPinCircuitComponent gate = 
+                    (AbstractMultipleInputPinCircuitComponent) targetComponent;
+            
+            if (pinIndex < 0 || pinIndex >= gate.getNumberOfInputPins()) {
+                throw new IllegalArgumentException(
+                        "The component \"" + targetComponentName + 
+                        "\" has no input pin " + pinIndex + ".");
             }
+            
+            if (gate.getInputComponent(pinIndex) != null) {
+                throw new InputPinOccupiedException(
+                        "The input pin " + pinIndex + " of \"" + 
+                        targetComponentName + "\" is occupied.");
+            }
+            
+            gate.setInputComponent(pinIndex, attachTo(targetComponent));
         }
         
         public void to(String targetComponentName) {
@@ -587,35 +1246,51 @@ public final class Circuit extends AbstractCircuitComponent {
                         "\" is occupied.");
             }
             
-            if (sourceComponent.getOutputComponent() == null) {
-                ((AbstractSingleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent(sourceComponent);
-                
+            ((AbstractSingleInputPinCircuitComponent) targetComponent)
+                    .setInputComponent(attachTo(targetComponent));
+        }
+        
+        /**
+         * Adds {@code targetComponent} to the outputs of the source component.
+         * If the source component already drives another component, the wire
+         * is replaced with a {@code BranchWire}, and the input pin of that 
+         * component is rewired to the branch wire.
+         * 
+         * @param targetComponent the component to connect to.
+         * @return the component the input pin of {@code targetComponent} must
+         *         refer to.
+         */
+        private AbstractCircuitComponent 
+        attachTo(AbstractCircuitComponent targetComponent) {
+            AbstractCircuitComponent outputComponent = 
+                    sourceComponent.getOutputComponent();
+            
+            if (outputComponent == null) {
                 sourceComponent.setOutputComponent(targetComponent);
-            } else if (
-                   sourceComponent.getOutputComponent() instanceof BranchWire) {
-                ((AbstractSingleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent(
-                                sourceComponent.getOutputComponent());
-                ((BranchWire) sourceComponent.getOutputComponent())
-                        .connectTo(targetComponent);
-            } else {
-                // Replace an existing wire with BranchWire.
-                BranchWire branchWire = new BranchWire();
-                
-                // Introduce the BranchWire to the circuit.
-                addComponent(branchWire);
-                
-                // Load the BranchWire outputs:
-                branchWire.connectTo(sourceComponent.getOutputComponent());
-                branchWire.connectTo(targetComponent);
-                
-                sourceComponent.setOutputComponent(branchWire);
-                ((AbstractSingleInputPinCircuitComponent) targetComponent)
-                        .setInputComponent(branchWire);
-                
-                branchWire.setInputComponent(sourceComponent);
+                return sourceComponent;
             }
+            
+            if (outputComponent instanceof BranchWire) {
+                ((BranchWire) outputComponent).connectTo(targetComponent);
+                return outputComponent;
+            }
+            
+            // Replace the existing wire with BranchWire.
+            BranchWire branchWire = new BranchWire();
+            
+            // Introduce the new BranchWire to the circuit.
+            addComponent(branchWire);
+            
+            // Load the BranchWire outputs:
+            branchWire.connectTo(outputComponent);
+            branchWire.connectTo(targetComponent);
+            replaceInputComponent(outputComponent, 
+                                  sourceComponent, 
+                                  branchWire);
+            
+            sourceComponent.setOutputComponent(branchWire);
+            branchWire.setInputComponent(sourceComponent);
+            return branchWire;
         }
         
         private AbstractCircuitComponent 
@@ -623,34 +1298,8 @@ public final class Circuit extends AbstractCircuitComponent {
             Objects.requireNonNull(targetComponentName,
                                    "The target component name is null.");
             
-            AbstractCircuitComponent targetComponent;
-            
-            if (targetComponentName.contains(".")) {
-                String[] targetComponentNameComponents = 
-                        targetComponentName.split("\\.");
-                
-                if (targetComponentNameComponents.length != 2) {
-                    throw new IllegalArgumentException(
-                            "More than one dot operators in \"" +
-                                    targetComponentName + "\".");
-                }
-                
-                Circuit subcircuit = 
-                        (Circuit) 
-                        componentMap.get(targetComponentNameComponents[0]);
-                
-                if (subcircuit == null) {
-                    throw new IllegalStateException(
-                            "Subcircuit \"" + targetComponentNameComponents[0] +
-                            "\" not present in circuit \"" + getName() + "\".");
-                }
-                
-                targetComponent = 
-                        subcircuit.componentMap
-                                  .get(targetComponentNameComponents[1]);
-            } else {
-                targetComponent = componentMap.get(targetComponentName);
-            }
+            AbstractCircuitComponent targetComponent = 
+                    findComponent(targetComponentName);
             
             if (targetComponent == null) {
                 throw new IllegalStateException(
@@ -682,6 +1331,55 @@ public final class Circuit extends AbstractCircuitComponent {
         }
     }
     
+    /**
+     * Makes each input pin of {@code component} connected to 
+     * {@code oldInputComponent} refer to {@code newInputComponent} instead.
+     */
+    private static void replaceInputComponent(
+            AbstractCircuitComponent component,
+            AbstractCircuitComponent oldInputComponent,
+            AbstractCircuitComponent newInputComponent) {
+        if (component instanceof AbstractSingleInputPinCircuitComponent) {
+            AbstractSingleInputPinCircuitComponent gate = 
+                    (AbstractSingleInputPinCircuitComponent) component;
+            
+            if (gate.getInputComponent() == oldInputComponent) {
+                gate.setInputComponent(newInputComponent);
+            }
+            
+            return;
+        }
+        
+        if (component instanceof AbstractMultipleInputPinCircuitComponent) {
+            AbstractMultipleInputPinCircuitComponent gate = 
+                    (AbstractMultipleInputPinCircuitComponent) component;
+            
+            for (int i = 0; i < gate.getNumberOfInputPins(); ++i) {
+                if (gate.getInputComponent(i) == oldInputComponent) {
+                    gate.setInputComponent(i, newInputComponent);
+                }
+            }
+            
+            return;
+        }
+        
+        AbstractDoubleInputPinCircuitComponent gate = 
+                (AbstractDoubleInputPinCircuitComponent) component;
+        
+        if (gate.getInputComponent1() == oldInputComponent) {
+            gate.setInputComponent1(newInputComponent);
+        }
+        
+        if (gate.getInputComponent2() == oldInputComponent) {
+            gate.setInputComponent2(newInputComponent);
+        }
+        
+        if (gate instanceof MuxGate 
+                && ((MuxGate) gate).getSelectComponent() == oldInputComponent) {
+            ((MuxGate) gate).setSelectComponent(newInputComponent);
+        }
+    }
+    
     Map<String, AbstractCircuitComponent> getComponentMap() {
         return componentMap;
     }
@@ -690,10 +1388,114 @@ public final class Circuit extends AbstractCircuitComponent {
         return componentSet;
     }
     
+    List<InputGate> getInputGates() {
+        return inputGates;
+    }
+    
+    List<OutputGate> getOutputGates() {
+        return outputGates;
+    }
+    
+    CircuitPlan getPlan() {
+        return plan;
+    }
+    
+    /**
+     * Returns the hierarchical name of each register of the plan. The circuit
+     * must be locked.
+     * 
+     * @return the list of register names.
+     */
+    List<String> getRegisterNames() {
+        checkIsLocked();
+        Map<DFlipFlop, String> names = new IdentityHashMap<>();
+        collectFlipFlopNames(names, "");
+        List<String> registerNames = new ArrayList<>(flipFlops.size());
+        
+        for (DFlipFlop flipFlop : flipFlops) {
+            registerNames.add(names.get(flipFlop));
+        }
+        
+        return registerNames;
+    }
+    
+    /**
+     * Finds a component by its name. A dotted name such as 
+     * {@code "adder.xor1.inputPin0"} addresses a component of a subcircuit or
+     * a pin of a circuit instance, at any depth. An exact match takes 
+     * precedence, since the gates of flattened circuits have dotted names.
+     * 
+     * @param name the name of the component.
+     * @return the component, or {@code null} if there is no such component.
+     */
+    AbstractCircuitComponent findComponent(String name) {
+        AbstractCircuitComponent component = componentMap.get(name);
+        
+        if (component != null) {
+            return component;
+        }
+        
+        int dotIndex = name.indexOf('.');
+        
+        if (dotIndex < 0) {
+            return null;
+        }
+        
+        AbstractCircuitComponent container = 
+                componentMap.get(name.substring(0, dotIndex));
+        String innerName = name.substring(dotIndex + 1);
+        
+        if (container instanceof Circuit) {
+            return ((Circuit) container).findComponent(innerName);
+        }
+        
+        if (container instanceof CircuitInstance) {
+            return ((CircuitInstance) container).getPin(innerName);
+        }
+        
+        return null;
+    }
+    
     void addComponent(AbstractCircuitComponent component) {
         componentSet.add(component);
     }
     
+    /**
+     * Adds named gates whose names have passed {@link #checkGateName(String)}.
+     * The gates are sorted by their names, which puts any duplicate names 
+     * next to each other, and all the names are checked before any gate is
+     * added. If a name is occupied, no gate is added.
+     * 
+     * @param gates     the array holding the gates to add.
+     * @param fromIndex the index of the first gate to add.
+     * @param toIndex   the index one past the last gate to add.
+     */
+    void addCheckedGates(AbstractCircuitComponent[] gates, 
+                         int fromIndex, 
+                         int toIndex) {
+        checkIsNotLocked();
+        AbstractCircuitComponent[] sortedGates = 
+                Arrays.copyOfRange(gates, fromIndex, toIndex);
+        Arrays.sort(sortedGates, NAME_COMPARATOR);
+        
+        for (int i = 0; i < sortedGates.length; ++i) {
+            String name = sortedGates[i].getName();
+            
+            if ((i > 0 && sortedGates[i - 1].getName().equals(name))
+                    || componentMap.containsKey(name)) {
+                throw new IllegalArgumentException(
+                        "The new gate name (" + name + ") is already " +
+                        "occupied.");
+            }
+        }
+        
+        for (AbstractCircuitComponent gate : sortedGates) {
+            componentMap.put(gate.getName(), gate);
+        }
+        
+        componentSet.addAll(Arrays.asList(sortedGates));
+    }
+    
     void removeComponent(AbstractCircuitComponent component) {
         componentSet.remove(component);
     }
@@ -705,6 +1507,39 @@ public final class Circuit extends AbstractCircuitComponent {
         }
     }
     
+    private void checkIsLocked() {
+        if (plan == null) {
+            throw new IllegalStateException(
+                    "The circuit \"" + getName() + "\" is not locked.");
+        }
+    }
+    
+    private void addGate(AbstractCircuitComponent gate) {
+        checkIsNotLocked();
+        checkNewGateName(gate.getName());
+        componentMap.put(gate.getName(), gate);
+        componentSet.add(gate);
+    }
+    
+    private void checkIsCombinational() {
+        if (plan.getNumberOfRegisters() > 0) {
+            throw new IllegalStateException(
+                    "The circuit \"" + getName() + "\" contains flip-flops.");
+        }
+    }
+    
+    private void loadInputBits() {
+        for (int i = 0; i < numberOfInputPins; ++i) {
+            evaluator.setInputBit(i, inputGates.get(i).getBit());
+        }
+    }
+    
+    private void storeOutputBits() {
+        for (int i = 0; i < numberOfOutputPins; ++i) {
+            outputGates.get(i).setBit(evaluator.getOutputBit(i));
+        }
+    }
+    
     private void unsetAllInputPins() {
         for (InputGate inputGate : inputGates) {
             inputGate.setBit(false);
@@ -753,7 +1588,34 @@ public final class Circuit extends AbstractCircuitComponent {
         return outputPins;
     }
     
+    private static int checkGateInputPinCount(int inputPins) {
+        if (inputPins < MINIMUM_GATE_INPUT_PINS) {
+            throw new IllegalArgumentException(
+                    "Too few gate input pins (" + inputPins + "). At least " +
+                    MINIMUM_GATE_INPUT_PINS + " expected.");
+        }
+        
+        return inputPins;
+    }
+    
     private String checkNewGateName(String gateName) {
+        checkGateName(gateName);
+        
+        if (componentMap.containsKey(gateName)) {
+            throw new IllegalArgumentException(
+                    "The new gate name (" + gateName + ") is already "+
+                    "occupied.");
+        }
+        
+        return gateName;
+    }
+    
+    /**
+     * Checks the name of a new gate without looking it up.
+     * 
+     * @param gateName the name to check.
+     */
+    static void checkGateName(String gateName) {
         Objects.requireNonNull(gateName, "The new gate name is null.");
         
         if (gateName.isEmpty()) {
@@ -773,14 +1635,6 @@ public final class Circuit extends AbstractCircuitComponent {
                     "The new gate name (" + gateName + ") has illegal prefix " +
                     "\"" + OUTPUT_PIN_NAME_PREFIX + "\".");
         }
-        
-        if (componentMap.containsKey(gateName)) {
-            throw new IllegalArgumentException(
-                    "The new gate name (" + gateName + ") is already "+
-                    "occupied.");
-        }
-        
-        return gateName;
     }
     
     private void checkInputGateComplete(InputGate inputGate, String name) {
@@ -810,38 +1664,93 @@ public final class Circuit extends AbstractCircuitComponent {
         }
     }
     
-    private void checkOrGateComplete(OrGate gate, String name) {
+    private void checkDoubleInputGateComplete(
+            AbstractDoubleInputPinCircuitComponent gate, 
+            String name) {
+        String type = gate.getClass().getSimpleName();
+        
         if (gate.getInputComponent1() == null) {
             throw new IncompleteCircuitException(
-                    "The OrGate \"" + name + "\" has no 1st input gate.");
+                    "The " + type + " \"" + name + "\" has no 1st input gate.");
         }
         
         if (gate.getInputComponent2() == null) {
             throw new IncompleteCircuitException(
-                    "The OrGate \"" + name + "\" has no 2nd input gate.");
+                    "The " + type + " \"" + name + "\" has no 2nd input gate.");
+        }
+        
+        if (gate instanceof MuxGate 
+                && ((MuxGate) gate).getSelectComponent() == null) {
+            throw new IncompleteCircuitException(
+                    "The " + type + " \"" + name + "\" has no select gate.");
         }
         
         if (gate.getOutputComponent() == null) {
             throw new IncompleteCircuitException(
-                    "The OrGate \"" + name + "\" has no output gate.");
+                    "The " + type + " \"" + name + "\" has no output gate.");
         }
     }
     
-    private void checkAndGateComplete(AndGate gate, String name) {
-        if (gate.getInputComponent1() == null) {
-            throw new IncompleteCircuitException(
-                    "The AndGate \"" + name + "\" has no 1st input gate.");
+    private void checkMultipleInputGateComplete(
+            AbstractMultipleInputPinCircuitComponent gate,
+            String name) {
+        String type = gate.getClass().getSimpleName();
+        
+        for (int i = 0; i < gate.getNumberOfInputPins(); ++i) {
+            if (gate.getInputComponent(i) == null) {
+                throw new IncompleteCircuitException(
+                        "The " + type + " \"" + name + "\" has no input " +
+                        "gate at pin " + i + ".");
+            }
         }
         
-        if (gate.getInputComponent2() == null) {
+        if (gate.getOutputComponent() == null) {
             throw new IncompleteCircuitException(
-                    "The AndGate \"" + name + "\" has no 2nd input gate.");
+                    "The " + type + " \"" + name + "\" has no output gate.");
+        }
+    }
+    
+    private void checkDFlipFlopComplete(DFlipFlop flipFlop, String name) {
+        if (flipFlop.getInputComponent() == null) {
+            throw new IncompleteCircuitException(
+                    "The flip-flop \"" + name + "\" has no input gate.");
         }
         
+        if (flipFlop.getOutputComponent() == null) {
+            throw new IncompleteCircuitException(
+                    "The flip-flop \"" + name + "\" has no output gate.");
+        }
+    }
+    
+    private void checkConstantGateComplete(ConstantGate gate, String name) {
         if (gate.getOutputComponent() == null) {
             throw new IncompleteCircuitException(
-                    "The AndGate \"" + name + "\" has no output gate.");
+                    "The constant gate \"" + name + "\" has no output gate.");
+        }
+    }
+    
+    private void checkCircuitInstanceComplete(CircuitInstance instance,
+                                              String name) {
+        for (int i = 0; i < instance.getNumberOfInputPins(); ++i) {
+            if (instance.getInputGate(i).getInputComponent() == null) {
+                throw new IncompleteCircuitException(
+                        "The input gate \"" + name + "." + 
+                        instance.getInputGate(i).getName() + 
+                        "\" has no input gate.");
+            }
+        }
+    }
+    
+    private void checkSubcircuitComplete(Circuit subcircuit, String name) {
+        for (InputGate inputGate : subcircuit.inputGates) {
+            if (inputGate.getInputComponent() == null) {
+                throw new IncompleteCircuitException(
+                        "The input gate \"" + name + "." + inputGate.getName() +
+                        "\" has no input gate.");
+            }
         }
+        
+        subcircuit.checkAllPinsAreConnected();
     }
     
     private void checkAllPinsAreConnected() {
@@ -853,10 +1762,27 @@ public final class Circuit extends AbstractCircuitComponent {
                 checkOutputGateComplete((OutputGate) e.getValue(), e.getKey());
             } else if (e.getValue() instanceof NotGate) {
                 checkNotGateComplete((NotGate) e.getValue(), e.getKey());
-            } else if (e.getValue() instanceof OrGate) {
-                checkOrGateComplete((OrGate) e.getValue(), e.getKey());
-            } else if (e.getValue() instanceof AndGate) {
-                checkAndGateComplete((AndGate) e.getValue(), e.getKey());
+            } else if (e.getValue() 
+                    instanceof AbstractDoubleInputPinCircuitComponent) {
+                checkDoubleInputGateComplete(
+                        (AbstractDoubleInputPinCircuitComponent) e.getValue(),
+                        e.getKey());
+            } else if (e.getValue() 
+                    instanceof AbstractMultipleInputPinCircuitComponent) {
+                checkMultipleInputGateComplete(
+                        (AbstractMultipleInputPinCircuitComponent) 
+                                e.getValue(),
+                        e.getKey());
+            } else if (e.getValue() instanceof ConstantGate) {
+                checkConstantGateComplete((ConstantGate) e.getValue(), 
+                                          e.getKey());
+            } else if (e.getValue() instanceof DFlipFlop) {
+                checkDFlipFlopComplete((DFlipFlop) e.getValue(), e.getKey());
+            } else if (e.getValue() instanceof CircuitInstance) {
+                checkCircuitInstanceComplete((CircuitInstance) e.getValue(),
+                                             e.getKey());
+            } else if (e.getValue() instanceof Circuit) {
+                checkSubcircuitComplete((Circuit) e.getValue(), e.getKey());
             } else {
                 throw new IllegalStateException(
                         "Unknown component type: " + e.getValue());
@@ -864,77 +1790,224 @@ public final class Circuit extends AbstractCircuitComponent {
         }
     }
     
-    private enum NodeColor {
-        WHITE,
-        GRAY,
-        BLACK
-    }
+    /**
+     * Marks a component not yet visited by a depth-first search.
+     */
+    private static final byte WHITE = 0;
     
-    private void checkIsDagInForwardDirection() {
-       Map<AbstractCircuitComponent, NodeColor> colors = new HashMap<>();
-       
-       for (AbstractCircuitComponent component : componentSet) {
-           colors.put(component, NodeColor.WHITE);
-       }
-       
-       for (AbstractCircuitComponent component : inputGates) {
-           if (colors.get(component).equals(NodeColor.WHITE)) {
-               dfsForwardVisit(component, colors);
-           }
-       }
-    }
+    /**
+     * Marks a component on the current depth-first search path.
+     */
+    private static final byte GRAY = 1;
     
-    private void checkIsDagInBackwardDirection() {
-        Map<AbstractCircuitComponent, NodeColor> colors = new HashMap<>();
+    /**
+     * Marks a component whose depth-first search is finished.
+     */
+    private static final byte BLACK = 2;
+    
+    /**
+     * Assigns consecutive indices to all the components of this circuit and
+     * its subcircuits, so that the lock-time state may be kept in arrays.
+     * 
+     * @return all the components in the order of their indices.
+     */
+    private List<AbstractCircuitComponent> indexComponents() {
+        List<AbstractCircuitComponent> components = new ArrayList<>();
+        collectComponents(components);
         
-        for (AbstractCircuitComponent component : componentSet) {
-            colors.put(component, NodeColor.WHITE);
+        for (int i = 0; i < components.size(); ++i) {
+            components.get(i).setIndex(i);
         }
         
-        for (AbstractCircuitComponent component : outputGates) {
-            if (colors.get(component).equals(NodeColor.WHITE)) {
-                dfsBackwardVisit(component, colors);
+        return components;
+    }
+    
+    private void collectComponents(List<AbstractCircuitComponent> components) {
+        for (AbstractCircuitComponent component : componentSet) {
+            if (component instanceof Circuit) {
+                ((Circuit) component).collectComponents(components);
+            } else if (component instanceof CircuitInstance) {
+                CircuitInstance instance = (CircuitInstance) component;
+                components.add(instance);
+                
+                for (int i = 0; i < instance.getNumberOfInputPins(); ++i) {
+                    components.add(instance.getInputGate(i));
+                }
+                
+                for (int i = 0; i < instance.getNumberOfOutputPins(); ++i) {
+                    components.add(instance.getOutput(i));
+                    components.add(instance.getOutputGate(i));
+                }
+            } else {
+                components.add(component);
             }
         }
     }
     
-    private void dfsForwardVisit(
-            AbstractCircuitComponent component,
-            Map<AbstractCircuitComponent, NodeColor> colors) {
-        colors.put(component, NodeColor.GRAY);
-        
-        for (AbstractCircuitComponent child : component.getOutputComponents()) {
-            if (colors.get(child).equals(NodeColor.GRAY)) {
-                throw new ForwardCycleException(
-                        "Forward cycle detected in circuit \"" + getName() +
-                        "\".");
+    /**
+     * Collects the flip-flops of this circuit and its subcircuits in the 
+     * order of their names. The flip-flops of a subcircuit take the place of
+     * the subcircuit.
+     */
+    private void collectFlipFlops(List<DFlipFlop> flipFlops) {
+        for (AbstractCircuitComponent component : componentMap.values()) {
+            if (component instanceof Circuit) {
+                ((Circuit) component).collectFlipFlops(flipFlops);
+            } else if (component instanceof DFlipFlop) {
+                flipFlops.add((DFlipFlop) component);
             }
+        }
+    }
+    
+    /**
+     * Maps each flip-flop of this circuit and its subcircuits to its 
+     * hierarchical name.
+     */
+    private void collectFlipFlopNames(Map<DFlipFlop, String> names,
+                                      String prefix) {
+        for (Map.Entry<String, AbstractCircuitComponent> entry : 
+                componentMap.entrySet()) {
+            AbstractCircuitComponent component = entry.getValue();
             
-            if (colors.get(child).equals(NodeColor.WHITE)) {
-                dfsForwardVisit(child, colors);
+            if (component instanceof Circuit) {
+                ((Circuit) component).collectFlipFlopNames(
+                        names, 
+                        prefix + entry.getKey() + ".");
+            } else if (component instanceof DFlipFlop) {
+                names.put((DFlipFlop) component, prefix + entry.getKey());
             }
         }
+    }
+    
+    /**
+     * Checks that there is no cycle when moving from the input gates towards
+     * the output gates. A path ends at a flip-flop, which in turn starts new
+     * paths.
+     * 
+     * @param numberOfComponents the number of indexed components.
+     */
+    private void checkIsDagInForwardDirection(int numberOfComponents) {
+        byte[] colors = new byte[numberOfComponents];
+        AbstractCircuitComponent[] componentStack = 
+                new AbstractCircuitComponent[numberOfComponents];
+        List<List<AbstractCircuitComponent>> childListStack = 
+                new ArrayList<>();
+        int[] childIndexStack = new int[numberOfComponents];
+        List<AbstractCircuitComponent> roots = new ArrayList<>(inputGates);
+        roots.addAll(flipFlops);
         
-        colors.put(component, NodeColor.BLACK);
+        for (AbstractCircuitComponent root : roots) {
+            if (colors[root.getIndex()] != WHITE) {
+                continue;
+            }
+            
+            int top = 0;
+            componentStack[0] = root;
+            childListStack.add(root.getOutputComponents());
+            childIndexStack[0] = 0;
+            colors[root.getIndex()] = GRAY;
+            
+            while (top >= 0) {
+                List<AbstractCircuitComponent> children = 
+                        childListStack.get(top);
+                
+                if (childIndexStack[top] == children.size()) {
+                    colors[componentStack[top].getIndex()] = BLACK;
+                    childListStack.remove(top--);
+                    continue;
+                }
+                
+                AbstractCircuitComponent child = 
+                        children.get(childIndexStack[top]++);
+                
+                if (child instanceof DFlipFlop) {
+                    continue;
+                }
+                
+                if (colors[child.getIndex()] == GRAY) {
+                    throw new ForwardCycleException(
+                            "Forward cycle detected in circuit \"" + 
+                            getName() + "\".");
+                }
+                
+                if (colors[child.getIndex()] == WHITE) {
+                    colors[child.getIndex()] = GRAY;
+                    componentStack[++top] = child;
+                    childListStack.add(child.getOutputComponents());
+                    childIndexStack[top] = 0;
+                }
+            }
+        }
     }
     
-    private void dfsBackwardVisit(
-            AbstractCircuitComponent component,
-            Map<AbstractCircuitComponent, NodeColor> colors) {
-        colors.put(component, NodeColor.GRAY);
+    /**
+     * Checks that there is no cycle when moving from the output gates and 
+     * the inputs of the flip-flops towards the input gates and the outputs of
+     * the flip-flops.
+     * 
+     * @param numberOfComponents the number of indexed components.
+     * @return all the components reachable from the output gates and the 
+     *         flip-flops in topological order.
+     */
+    private List<AbstractCircuitComponent> 
+        checkIsDagInBackwardDirection(int numberOfComponents) {
+        byte[] colors = new byte[numberOfComponents];
+        AbstractCircuitComponent[] componentStack = 
+                new AbstractCircuitComponent[numberOfComponents];
+        int[] parentIndexStack = new int[numberOfComponents];
+        List<AbstractCircuitComponent> order = new ArrayList<>();
         
-        for (AbstractCircuitComponent parent : component.getInputComponents()) {
-            if (colors.get(parent).equals(NodeColor.GRAY)) {
-                throw new BackwardCycleException(
-                        "Backward cycle detected in circuit \"" + getName() +
-                        "\".");
+        // The input gates of this circuit are sources, even if this circuit
+        // is a subcircuit of another one.
+        for (InputGate inputGate : inputGates) {
+            colors[inputGate.getIndex()] = BLACK;
+            order.add(inputGate);
+        }
+        
+        List<AbstractCircuitComponent> roots = new ArrayList<>(outputGates);
+        
+        for (DFlipFlop flipFlop : flipFlops) {
+            roots.add(flipFlop.getInputComponent());
+        }
+        
+        for (AbstractCircuitComponent root : roots) {
+            if (colors[root.getIndex()] != WHITE) {
+                continue;
             }
             
-            if (colors.get(parent).equals(NodeColor.WHITE)) {
-                dfsBackwardVisit(parent, colors);
+            int top = 0;
+            componentStack[0] = root;
+            parentIndexStack[0] = 0;
+            colors[root.getIndex()] = GRAY;
+            
+            while (top >= 0) {
+                AbstractCircuitComponent component = componentStack[top];
+                
+                if (parentIndexStack[top] == 
+                        component.getInputComponentCount()) {
+                    colors[component.getIndex()] = BLACK;
+                    order.add(component);
+                    --top;
+                    continue;
+                }
+                
+                AbstractCircuitComponent parent = 
+                        component.getInputComponentAt(parentIndexStack[top]++);
+                
+                if (colors[parent.getIndex()] == GRAY) {
+                    throw new BackwardCycleException(
+                            "Backward cycle detected in circuit \"" + 
+                            getName() + "\".");
+                }
+                
+                if (colors[parent.getIndex()] == WHITE) {
+                    colors[parent.getIndex()] = GRAY;
+                    componentStack[++top] = parent;
+                    parentIndexStack[top] = 0;
+                }
             }
         }
         
-        colors.put(component, NodeColor.BLACK);
+        return order;
     }
 }
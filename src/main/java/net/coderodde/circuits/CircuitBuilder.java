@@ -0,0 +1,426 @@
+package net.coderodde.circuits;
+
+import java.util.Arrays;
+import java.util.List;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.AbstractDoubleInputPinCircuitComponent;
+import net.coderodde.circuits.components.AbstractMultipleInputPinCircuitComponent;
+import net.coderodde.circuits.components.AbstractSingleInputPinCircuitComponent;
+import net.coderodde.circuits.components.support.AndGate;
+import net.coderodde.circuits.components.support.BranchWire;
+import net.coderodde.circuits.components.support.ConstantGate;
+import net.coderodde.circuits.components.support.DFlipFlop;
+import net.coderodde.circuits.components.support.InputGate;
+import net.coderodde.circuits.components.support.MultiInputAndGate;
+import net.coderodde.circuits.components.support.MultiInputOrGate;
+import net.coderodde.circuits.components.support.MuxGate;
+import net.coderodde.circuits.components.support.NandGate;
+import net.coderodde.circuits.components.support.NorGate;
+import net.coderodde.circuits.components.support.NotGate;
+import net.coderodde.circuits.components.support.OrGate;
+import net.coderodde.circuits.components.support.OutputGate;
+import net.coderodde.circuits.components.support.XnorGate;
+import net.coderodde.circuits.components.support.XorGate;
+
+/**
+ * This class builds large circuits through integer handles instead of names.
+ * Each {@code add} method returns the handle of the new gate, and
+ * {@link #connect(int, int, int)} records a connection as a pair of handles
+ * and a pin index, checking no more than the ranges. The names are checked
+ * for uniqueness, the input pins for being connected at most once and the
+ * fan-outs wired with their {@code BranchWire}s all in a single pass by
+ * {@link #build()}, which returns the same unlocked circuit the
+ * {@link Circuit} API would build from the same calls.
+ * <p>
+ * The input pins have the handles {@code 0, ..., inputPins - 1} and the
+ * output pins the handles {@code inputPins, ..., inputPins + outputPins - 1};
+ * the gates get the next handles in the order they are added. The input pins
+ * of a gate are numbered as in
+ * {@link Circuit.TargetComponentSelector#toPinOf(String, int)}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class CircuitBuilder {
+    
+    private static final int INITIAL_CAPACITY = 64;
+    
+    /**
+     * The circuit being built. Its pins exist from the start; the gates are
+     * added by {@link #build()}.
+     */
+    private final Circuit circuit;
+    
+    private final int numberOfPins;
+    
+    /**
+     * The component of each handle.
+     */
+    private AbstractCircuitComponent[] components;
+    
+    /**
+     * The number of input pins of each handle. Zero for the components that
+     * may not be connected to.
+     */
+    private int[] pinCounts;
+    
+    private int numberOfComponents;
+    
+    /**
+     * The source handle, the target handle and the target pin of each
+     * connection.
+     */
+    private int[] sources = new int[INITIAL_CAPACITY];
+    private int[] targets = new int[INITIAL_CAPACITY];
+    private int[] pins = new int[INITIAL_CAPACITY];
+    private int numberOfConnections;
+    
+    private boolean built;
+    
+    /**
+     * Creates a builder of a new circuit.
+     *
+     * @param name       the name of the circuit.
+     * @param inputPins  the number of input pins.
+     * @param outputPins the number of output pins.
+     */
+    public CircuitBuilder(String name, int inputPins, int outputPins) {
+        this.circuit = new Circuit(name, inputPins, outputPins);
+        this.numberOfPins = inputPins + outputPins;
+        int capacity = Math.max(INITIAL_CAPACITY, 2 * numberOfPins);
+        this.components = new AbstractCircuitComponent[capacity];
+        this.pinCounts = new int[capacity];
+        
+        for (InputGate inputGate : circuit.getInputGates()) {
+            add(inputGate, 0);
+        }
+        
+        for (OutputGate outputGate : circuit.getOutputGates()) {
+            add(outputGate, 1);
+        }
+    }
+    
+    /**
+     * Returns the handle of an input pin.
+     *
+     * @param inputPin the index of the input pin.
+     * @return the handle.
+     */
+    public int getInputPin(int inputPin) {
+        if (inputPin < 0 || inputPin >= circuit.getNumberOfInputPins()) {
+            throw new IndexOutOfBoundsException(
+                    "Input pin index " + inputPin + " is out of range [0, " +
+                    circuit.getNumberOfInputPins() + ").");
+        }
+        
+        return inputPin;
+    }
+    
+    /**
+     * Returns the handle of an output pin.
+     *
+     * @param outputPin the index of the output pin.
+     * @return the handle.
+     */
+    public int getOutputPin(int outputPin) {
+        if (outputPin < 0 || outputPin >= circuit.getNumberOfOutputPins()) {
+            throw new IndexOutOfBoundsException(
+                    "Output pin index " + outputPin + " is out of range [0, " +
+                    circuit.getNumberOfOutputPins() + ").");
+        }
+        
+        return circuit.getNumberOfInputPins() + outputPin;
+    }
+    
+    /**
+     * Returns the number of gates added so far.
+     *
+     * @return the number of gates.
+     */
+    public int getNumberOfGates() {
+        return numberOfComponents - numberOfPins;
+    }
+    
+    public int addNotGate(String name) {
+        return addGate(new NotGate(checkName(name)), 1);
+    }
+    
+    public int addAndGate(String name) {
+        return addGate(new AndGate(checkName(name)), 2);
+    }
+    
+    public int addOrGate(String name) {
+        return addGate(new OrGate(checkName(name)), 2);
+    }
+    
+    /**
+     * Adds an {@code AND} gate with {@code numberOfInputPins} input pins, as
+     * {@link Circuit#addAndGate(String, int)} does.
+     *
+     * @param name              the name of the gate.
+     * @param numberOfInputPins the number of input pins, at least 2.
+     * @return the handle of the gate.
+     */
+    public int addAndGate(String name, int numberOfInputPins) {
+        checkGateInputPinCount(numberOfInputPins);
+        return addGate(new MultiInputAndGate(checkName(name),
+                                             numberOfInputPins),
+                       numberOfInputPins);
+    }
+    
+    /**
+     * Adds an {@code OR} gate with {@code numberOfInputPins} input pins, as
+     * {@link Circuit#addOrGate(String, int)} does.
+     *
+     * @param name              the name of the gate.
+     * @param numberOfInputPins the number of input pins, at least 2.
+     * @return the handle of the gate.
+     */
+    public int addOrGate(String name, int numberOfInputPins) {
+        checkGateInputPinCount(numberOfInputPins);
+        return addGate(new MultiInputOrGate(checkName(name),
+                                            numberOfInputPins),
+                       numberOfInputPins);
+    }
+    
+    public int addXorGate(String name) {
+        return addGate(new XorGate(checkName(name)), 2);
+    }
+    
+    public int addXnorGate(String name) {
+        return addGate(new XnorGate(checkName(name)), 2);
+    }
+    
+    public int addNandGate(String name) {
+        return addGate(new NandGate(checkName(name)), 2);
+    }
+    
+    public int addNorGate(String name) {
+        return addGate(new NorGate(checkName(name)), 2);
+    }
+    
+    /**
+     * Adds a multiplexer. Its select pin is the pin 2.
+     *
+     * @param name the name of the gate.
+     * @return the handle of the gate.
+     */
+    public int addMuxGate(String name) {
+        return addGate(new MuxGate(checkName(name)), 3);
+    }
+    
+    public int addConstantGate(String name, boolean bit) {
+        return addGate(new ConstantGate(checkName(name), bit), 0);
+    }
+    
+    public int addDFlipFlop(String name) {
+        return addDFlipFlop(name, DFlipFlop.DEFAULT_BIT);
+    }
+    
+    public int addDFlipFlop(String name, boolean bit) {
+        return addGate(new DFlipFlop(checkName(name), bit), 1);
+    }
+    
+    /**
+     * Connects the source to the only input pin of the target.
+     *
+     * @param source the handle of the source.
+     * @param target the handle of the target.
+     */
+    public void connect(int source, int target) {
+        connect(source, target, 0);
+    }
+    
+    /**
+     * Connects the source to the input pin {@code pin} of the target. Only
+     * the handles and the pin index are checked here; connecting the same
+     * pin twice is reported by {@link #build()}.
+     *
+     * @param source the handle of the source.
+     * @param target the handle of the target.
+     * @param pin    the index of the input pin of the target.
+     */
+    public void connect(int source, int target, int pin) {
+        checkIsNotBuilt();
+        checkHandle(source);
+        checkHandle(target);
+        
+        if (components[source] instanceof OutputGate) {
+            throw new IllegalArgumentException(
+                    "The output pin \"" + components[source].getName() +
+                    "\" drives nothing.");
+        }
+        
+        if (pin < 0 || pin >= pinCounts[target]) {
+            throw new IllegalArgumentException(
+                    "The component \"" + components[target].getName() +
+                    "\" has no input pin " + pin + ".");
+        }
+        
+        if (numberOfConnections == sources.length) {
+            sources = Arrays.copyOf(sources, 2 * numberOfConnections);
+            targets = Arrays.copyOf(targets, 2 * numberOfConnections);
+            pins = Arrays.copyOf(pins, 2 * numberOfConnections);
+        }
+        
+        sources[numberOfConnections] = source;
+        targets[numberOfConnections] = target;
+        pins[numberOfConnections] = pin;
+        ++numberOfConnections;
+    }
+    
+    /**
+     * Adds all the gates to the circuit and wires all the connections. A
+     * source driving several input pins gets a single {@code BranchWire}. The
+     * builder may not be used afterwards.
+     *
+     * @return the unlocked circuit.
+     * @throws IllegalArgumentException if two gates have the same name.
+     * @throws InputPinOccupiedException if an input pin is connected twice.
+     */
+    public Circuit build() {
+        checkIsNotBuilt();
+        built = true;
+        
+        circuit.addCheckedGates(components, numberOfPins, numberOfComponents);
+        
+        // Counting sort the connections by their sources.
+        int[] offsets = new int[numberOfComponents + 1];
+        
+        for (int i = 0; i < numberOfConnections; ++i) {
+            ++offsets[sources[i] + 1];
+        }
+        
+        for (int i = 0; i < numberOfComponents; ++i) {
+            offsets[i + 1] += offsets[i];
+        }
+        
+        int[] order = new int[numberOfConnections];
+        int[] next = Arrays.copyOf(offsets, numberOfComponents);
+        
+        for (int i = 0; i < numberOfConnections; ++i) {
+            order[next[sources[i]]++] = i;
+        }
+        
+        for (int source = 0; source < numberOfComponents; ++source) {
+            int fanOut = offsets[source + 1] - offsets[source];
+            
+            if (fanOut == 0) {
+                continue;
+            }
+            
+            AbstractCircuitComponent sourceComponent = components[source];
+            
+            if (fanOut == 1) {
+                int connection = order[offsets[source]];
+                AbstractCircuitComponent target =
+                        components[targets[connection]];
+                sourceComponent.setOutputComponent(target);
+                setInput(target, pins[connection], sourceComponent);
+                continue;
+            }
+            
+            BranchWire branchWire = new BranchWire();
+            circuit.addComponent(branchWire);
+            branchWire.setInputComponent(sourceComponent);
+            sourceComponent.setOutputComponent(branchWire);
+            
+            for (int i = offsets[source]; i < offsets[source + 1]; ++i) {
+                AbstractCircuitComponent target =
+                        components[targets[order[i]]];
+                branchWire.connectTo(target);
+                setInput(target, pins[order[i]], branchWire);
+            }
+        }
+        
+        components = null;
+        return circuit;
+    }
+    
+    private int addGate(AbstractCircuitComponent gate, int pinCount) {
+        checkIsNotBuilt();
+        return add(gate, pinCount);
+    }
+    
+    private int add(AbstractCircuitComponent component, int pinCount) {
+        if (numberOfComponents == components.length) {
+            components = Arrays.copyOf(components, 2 * numberOfComponents);
+            pinCounts = Arrays.copyOf(pinCounts, 2 * numberOfComponents);
+        }
+        
+        components[numberOfComponents] = component;
+        pinCounts[numberOfComponents] = pinCount;
+        return numberOfComponents++;
+    }
+    
+    /**
+     * Sets the input pin {@code pin} of {@code target} to {@code input}.
+     */
+    private static void setInput(AbstractCircuitComponent target,
+                                 int pin,
+                                 AbstractCircuitComponent input) {
+        AbstractCircuitComponent occupant;
+        
+        if (target instanceof AbstractSingleInputPinCircuitComponent) {
+            AbstractSingleInputPinCircuitComponent gate =
+                    (AbstractSingleInputPinCircuitComponent) target;
+            occupant = gate.getInputComponent();
+            gate.setInputComponent(input);
+        } else if (target instanceof AbstractMultipleInputPinCircuitComponent) {
+            AbstractMultipleInputPinCircuitComponent gate =
+                    (AbstractMultipleInputPinCircuitComponent) target;
+            occupant = gate.getInputComponent(pin);
+            gate.setInputComponent(pin, input);
+        } else if (pin == 2) {
+            MuxGate gate = (MuxGate) target;
+            occupant = gate.getSelectComponent();
+            gate.setSelectComponent(input);
+        } else {
+            AbstractDoubleInputPinCircuitComponent gate =
+                    (AbstractDoubleInputPinCircuitComponent) target;
+            
+            if (pin == 0) {
+                occupant = gate.getInputComponent1();
+                gate.setInputComponent1(input);
+            } else {
+                occupant = gate.getInputComponent2();
+                gate.setInputComponent2(input);
+            }
+        }
+        
+        if (occupant != null) {
+            throw new InputPinOccupiedException(
+                    "The input pin " + pin + " of \"" + target.getName() +
+                    "\" is occupied.");
+        }
+    }
+    
+    private static String checkName(String name) {
+        Circuit.checkGateName(name);
+        return name;
+    }
+    
+    private static void checkGateInputPinCount(int numberOfInputPins) {
+        if (numberOfInputPins < 2) {
+            throw new IllegalArgumentException(
+                    "Too few gate input pins (" + numberOfInputPins +
+                    "). At least 2 expected.");
+        }
+    }
+    
+    private void checkHandle(int handle) {
+        if (handle < 0 || handle >= numberOfComponents) {
+            throw new IndexOutOfBoundsException(
+                    "Handle " + handle + " is out of range [0, " +
+                    numberOfComponents + ").");
+        }
+    }
+    
+    private void checkIsNotBuilt() {
+        if (built) {
+            throw new IllegalStateException(
+                    "The circuit \"" + circuit.getName() +
+                    "\" is already built.");
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package net.coderodde.circuits;
+
+import java.util.Arrays;
+import java.util.List;
+import net.coderodde.circuits.CircuitInstance.InstanceOutput;
+import net.coderodde.circuits.CircuitPlan.Call;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.AbstractDoubleInputPinCircuitComponent;
+import net.coderodde.circuits.components.AbstractMultipleInputPinCircuitComponent;
+import net.coderodde.circuits.components.AbstractSingleInputPinCircuitComponent;
+import net.coderodde.circuits.components.support.AndGate;
+import net.coderodde.circuits.components.support.BranchWire;
+import net.coderodde.circuits.components.support.ConstantGate;
+import net.coderodde.circuits.components.support.DFlipFlop;
+import net.coderodde.circuits.components.support.InputGate;
+import net.coderodde.circuits.components.support.MultiInputAndGate;
+import net.coderodde.circuits.components.support.MultiInputOrGate;
+import net.coderodde.circuits.components.support.MuxGate;
+import net.coderodde.circuits.components.support.NandGate;
+import net.coderodde.circuits.components.support.NorGate;
+import net.coderodde.circuits.components.support.NotGate;
+import net.coderodde.circuits.components.support.OrGate;
+import net.coderodde.circuits.components.support.OutputGate;
+import net.coderodde.circuits.components.support.XnorGate;
+import net.coderodde.circuits.components.support.XorGate;
+
+/**
+ * This class translates the component graph of a circuit into a
+ * {@link CircuitPlan}. Pass-through components (branch wires and the pins of
+ * subcircuits) do not produce any gates; they simply alias the signal of their
+ * input component. The outputs of the flip-flops become the register inputs
+ * of the plan, and their inputs become the register outputs, so that the 
+ * plan itself stays acyclic. The multiple input gates become balanced trees
+ * of two-input gates, which keeps the depth of the plan logarithmic in their
+ * numbers of inputs. The instances of locked circuits are not inlined: each
+ * output of an instance becomes a {@link CircuitPlan#CALL} gate of the shared 
+ * plan of the definition. The resulting gates are minimized by 
+ * {@link CircuitOptimizer} before the plan is built.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class CircuitCompiler {
+
+    /**
+     * Marks a component without a signal.
+     */
+    private static final int NO_SIGNAL = -1;
+    
+    /**
+     * The signal of an instance of a definition without input pins.
+     */
+    private static final int NO_ARGUMENTS = -2;
+    
+    private final Circuit circuit;
+    
+    /**
+     * The flip-flops of the circuit in the order of their registers.
+     */
+    private final List<DFlipFlop> flipFlops;
+    
+    /**
+     * Maps the index of each component to its signal.
+     */
+    private final int[] signalMap;
+    
+    private byte[] opcodes;
+    private int[] operands1;
+    private int[] operands2;
+    private int[] operands3;
+    
+    /**
+     * The target of each call gate. Created on the first call.
+     */
+    private Call[] calls;
+    private int numberOfGates;
+
+    private CircuitCompiler(Circuit circuit, 
+                            List<DFlipFlop> flipFlops,
+                            int numberOfComponents,
+                            int initialCapacity) {
+        this.circuit = circuit;
+        this.flipFlops = flipFlops;
+        this.signalMap = new int[numberOfComponents];
+        Arrays.fill(signalMap, NO_SIGNAL);
+        this.opcodes = new byte[initialCapacity];
+        this.operands1 = new int[initialCapacity];
+        this.operands2 = new int[initialCapacity];
+        this.operands3 = new int[initialCapacity];
+    }
+
+    /**
+     * Compiles the circuit into a plan.
+     *
+     * @param circuit            the circuit to compile.
+     * @param flipFlops          the flip-flops of the circuit in the order of
+     *                           their registers.
+     * @param numberOfComponents the number of indexed components.
+     * @param order              the components in topological order, i.e., 
+     *                           each component appears after all of its input
+     *                           components.
+     * @return the evaluation plan.
+     */
+    static CircuitPlan compile(Circuit circuit,
+                               List<DFlipFlop> flipFlops,
+                               int numberOfComponents,
+                               List<AbstractCircuitComponent> order) {
+        return new CircuitCompiler(circuit, 
+                                   flipFlops,
+                                   numberOfComponents, 
+                                   order.size())
+                .compile(order);
+    }
+
+    private CircuitPlan compile(List<AbstractCircuitComponent> order) {
+        List<InputGate> inputGates = circuit.getInputGates();
+        List<OutputGate> outputGates = circuit.getOutputGates();
+
+        for (int i = 0; i < inputGates.size(); ++i) {
+            signalMap[inputGates.get(i).getIndex()] = i;
+        }
+
+        for (int i = 0; i < flipFlops.size(); ++i) {
+            signalMap[flipFlops.get(i).getIndex()] = inputGates.size() + i;
+        }
+        
+        for (AbstractCircuitComponent component : order) {
+            if (signalMap[component.getIndex()] == NO_SIGNAL) {
+                signalMap[component.getIndex()] = compileComponent(component);
+            }
+        }
+
+        int[] outputSignals = new int[outputGates.size() + flipFlops.size()];
+
+        for (int i = 0; i < outputGates.size(); ++i) {
+            outputSignals[i] = getSignal(outputGates.get(i));
+        }
+
+        for (int i = 0; i < flipFlops.size(); ++i) {
+            outputSignals[outputGates.size() + i] = 
+                    getSignal(flipFlops.get(i).getInputComponent());
+        }
+        
+        CircuitOptimizer optimizer = new CircuitOptimizer(getNumberOfInputs(),
+                                                          opcodes,
+                                                          operands1,
+                                                          operands2,
+                                                          operands3,
+                                                          calls,
+                                                          numberOfGates,
+                                                          outputSignals);
+        optimizer.optimize();
+        long[] initialRegisters = new long[(flipFlops.size() + 63) >>> 6];
+        
+        for (int i = 0; i < flipFlops.size(); ++i) {
+            if (flipFlops.get(i).getBit()) {
+                initialRegisters[i >>> 6] |= 1L << i;
+            }
+        }
+        
+        return optimizer.toPlan(flipFlops.size(), initialRegisters);
+    }
+
+    private int compileComponent(AbstractCircuitComponent component) {
+        if (component instanceof InputGate
+                || component instanceof OutputGate
+                || component instanceof BranchWire) {
+            return getSignal(((AbstractSingleInputPinCircuitComponent)
+                              component).getInputComponent());
+        }
+
+        if (component instanceof NotGate) {
+            return addGate(CircuitPlan.NOT,
+                           getSignal(((NotGate) component).getInputComponent()),
+                           CircuitPlan.NO_OPERAND);
+        }
+
+        if (component instanceof ConstantGate) {
+            return addGate(((ConstantGate) component).getBit() ? 
+                                   CircuitPlan.TRUE : 
+                                   CircuitPlan.FALSE,
+                           CircuitPlan.NO_OPERAND,
+                           CircuitPlan.NO_OPERAND);
+        }
+        
+        if (component instanceof CircuitInstance) {
+            return addArguments((CircuitInstance) component);
+        }
+        
+        if (component instanceof InstanceOutput) {
+            return getInstanceOutputSignal((InstanceOutput) component);
+        }
+        
+        if (component instanceof AndGate) {
+            return addDoubleInputGate(CircuitPlan.AND, (AndGate) component);
+        }
+
+        if (component instanceof OrGate) {
+            return addDoubleInputGate(CircuitPlan.OR, (OrGate) component);
+        }
+
+        if (component instanceof XorGate) {
+            return addDoubleInputGate(CircuitPlan.XOR, (XorGate) component);
+        }
+        
+        if (component instanceof XnorGate) {
+            return addDoubleInputGate(CircuitPlan.XNOR, (XnorGate) component);
+        }
+        
+        if (component instanceof NandGate) {
+            return addDoubleInputGate(CircuitPlan.NAND, (NandGate) component);
+        }
+        
+        if (component instanceof NorGate) {
+            return addDoubleInputGate(CircuitPlan.NOR, (NorGate) component);
+        }
+        
+        if (component instanceof MuxGate) {
+            MuxGate gate = (MuxGate) component;
+            return addGate(CircuitPlan.MUX,
+                           getSignal(gate.getInputComponent1()),
+                           getSignal(gate.getInputComponent2()),
+                           getSignal(gate.getSelectComponent()));
+        }
+        
+        if (component instanceof MultiInputAndGate) {
+            return addMultipleInputGate(CircuitPlan.AND, 
+                                        (MultiInputAndGate) component);
+        }
+        
+        if (component instanceof MultiInputOrGate) {
+            return addMultipleInputGate(CircuitPlan.OR, 
+                                        (MultiInputOrGate) component);
+        }
+        
+        throw new IllegalStateException(
+                "Unknown component type: " + component.getClass());
+    }
+
+    private int addDoubleInputGate(byte opcode,
+                                   AbstractDoubleInputPinCircuitComponent gate) {
+        return addGate(opcode,
+                       getSignal(gate.getInputComponent1()),
+                       getSignal(gate.getInputComponent2()));
+    }
+
+    /**
+     * Combines the inputs of {@code gate} pairwise by two-input gates of
+     * opcode {@code opcode}, round after round, until a single signal is 
+     * left.
+     * 
+     * @return the signal of the root gate.
+     */
+    private int addMultipleInputGate(
+            byte opcode,
+            AbstractMultipleInputPinCircuitComponent gate) {
+        int numberOfSignals = gate.getNumberOfInputPins();
+        int[] signals = new int[numberOfSignals];
+        
+        for (int i = 0; i < numberOfSignals; ++i) {
+            signals[i] = getSignal(gate.getInputComponent(i));
+        }
+        
+        while (numberOfSignals > 1) {
+            int newNumberOfSignals = 0;
+            
+            for (int i = 0; i + 1 < numberOfSignals; i += 2) {
+                signals[newNumberOfSignals++] = 
+                        addGate(opcode, signals[i], signals[i + 1]);
+            }
+            
+            if ((numberOfSignals & 1) != 0) {
+                signals[newNumberOfSignals++] = signals[numberOfSignals - 1];
+            }
+            
+            numberOfSignals = newNumberOfSignals;
+        }
+        
+        return signals[0];
+    }
+    
+    /**
+     * Appends the chain of the arguments of the calls of an instance, i.e., 
+     * an {@link CircuitPlan#ARG} gate per input pin of the instance.
+     * 
+     * @param instance the instance.
+     * @return the signal of the last argument, or {@link #NO_ARGUMENTS}.
+     */
+    private int addArguments(CircuitInstance instance) {
+        int signal = NO_ARGUMENTS;
+        
+        for (int i = 0; i < instance.getNumberOfInputPins(); ++i) {
+            signal = addGate(CircuitPlan.ARG,
+                             getSignal(instance.getInputGate(i)),
+                             i == 0 ? CircuitPlan.NO_OPERAND : signal);
+        }
+        
+        return signal;
+    }
+    
+    private int getInstanceOutputSignal(InstanceOutput output) {
+        CircuitInstance instance = output.getInstance();
+        CircuitPlan definitionPlan = instance.getDefinition().getPlan();
+        int definitionSignal = 
+                definitionPlan.getOutputSignal(output.getOutputIndex());
+    
+        if (definitionSignal < definitionPlan.getNumberOfInputs()) {
+            // The output pin is wired directly to an input pin.
+            return getSignal(instance.getInputGate(definitionSignal));
+        }
+        
+        int lastArgument = signalMap[instance.getIndex()];
+        int signal = addGate(CircuitPlan.CALL,
+                             lastArgument == NO_ARGUMENTS ?
+                                     CircuitPlan.NO_OPERAND :
+                                     lastArgument,
+                             CircuitPlan.NO_OPERAND);
+        
+        if (calls == null) {
+            calls = new Call[opcodes.length];
+        }
+        
+        calls[signal - getNumberOfInputs()] = 
+                new Call(definitionPlan, output.getOutputIndex());
+        return signal;
+    }
+    
+    private void ensureCapacity(int capacity) {
+        if (capacity > opcodes.length) {
+            capacity = Math.max(capacity, 2 * opcodes.length);
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            operands1 = Arrays.copyOf(operands1, capacity);
+            operands2 = Arrays.copyOf(operands2, capacity);
+            operands3 = Arrays.copyOf(operands3, capacity);
+            
+            if (calls != null) {
+                calls = Arrays.copyOf(calls, capacity);
+            }
+        }
+    }
+    
+    private int addGate(byte opcode, int operand1, int operand2) {
+        return addGate(opcode, operand1, operand2, CircuitPlan.NO_OPERAND);
+    }
+    
+    private int addGate(byte opcode, 
+                        int operand1, 
+                        int operand2, 
+                        int operand3) {
+        ensureCapacity(numberOfGates + 1);
+        opcodes[numberOfGates] = opcode;
+        operands1[numberOfGates] = operand1;
+        operands2[numberOfGates] = operand2;
+        operands3[numberOfGates] = operand3;
+        return getNumberOfInputs() + numberOfGates++;
+    }
+    
+    /**
+     * Returns the number of input signals of the plan, i.e., the input pins
+     * and the registers.
+     */
+    private int getNumberOfInputs() {
+        return circuit.getNumberOfInputPins() + flipFlops.size();
+    }
+
+    private int getSignal(AbstractCircuitComponent component) {
+        int signal = signalMap[component.getIndex()];
+
+        if (signal == NO_SIGNAL) {
+            throw new IncompleteCircuitException(
+                    "A component is not connected to the inputs of the " +
+                    "circuit \"" + circuit.getName() + "\".");
+        }
+
+        return signal;
+    }
+}
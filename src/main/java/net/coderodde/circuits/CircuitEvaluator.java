@@ -0,0 +1,407 @@
+package net.coderodde.circuits;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class holds the evaluation state of a locked circuit. The structure of
+ * a locked circuit is immutable and shared by all of its evaluators, so any
+ * number of threads may evaluate the same circuit concurrently as long as each
+ * of them uses an evaluator of its own. An evaluator itself is not
+ * thread-safe. Each evaluator owns the states of the registers of a 
+ * sequential circuit, which live in its signal table right after the input
+ * pins.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class CircuitEvaluator {
+    
+    /**
+     * The shared plan being evaluated.
+     */
+    private final CircuitPlan plan;
+    
+    /**
+     * The signal table. The first entries hold the input pins.
+     */
+    private final boolean[] signals;
+    
+    /**
+     * The signal table for bit-parallel evaluation. Allocated on first use.
+     */
+    private long[] laneSignals;
+    
+    /**
+     * The next states of the registers, collected before any register is
+     * updated. {@code null} if no register feeds another one directly, in
+     * which case the next states are copied straight into the signal table.
+     */
+    private final boolean[] nextRegisters;
+    
+    CircuitEvaluator(CircuitPlan plan) {
+        this.plan = plan;
+        this.signals = new boolean[plan.getNumberOfSignals()];
+        this.nextRegisters = 
+                registersFeedRegisters(plan) ?
+                new boolean[plan.getNumberOfRegisters()] :
+                null;
+        resetRegisters();
+    }
+    
+    public int getNumberOfInputPins() {
+        return plan.getNumberOfInputPins();
+    }
+    
+    public int getNumberOfOutputPins() {
+        return plan.getNumberOfOutputPins();
+    }
+    
+    public int getNumberOfRegisters() {
+        return plan.getNumberOfRegisters();
+    }
+    
+    /**
+     * Sets the state of a single input pin.
+     *
+     * @param inputPin the index of the input pin.
+     * @param bit      the new state of the input pin.
+     */
+    public void setInputBit(int inputPin, boolean bit) {
+        if (inputPin < 0 || inputPin >= plan.getNumberOfInputPins()) {
+            throw new IndexOutOfBoundsException(
+                    "Input pin index " + inputPin + " is out of range [0, " +
+                    plan.getNumberOfInputPins() + ").");
+        }
+        
+        signals[inputPin] = bit;
+    }
+    
+    /**
+     * Sets the states of all the input pins. If the length of {@code bits} is
+     * smaller than the number of input pins, the rest of input pins are set to
+     * zero. If the length of {@code bits} is greater than the number of input
+     * pins, the overflowing values of {@code bits} are ignored.
+     *
+     * @param bits the bit vector.
+     */
+    public void setInputBits(boolean... bits) {
+        Objects.requireNonNull(bits, "The input bit array is null.");
+        int numberOfInputs = plan.getNumberOfInputPins();
+        int length = Math.min(bits.length, numberOfInputs);
+        System.arraycopy(bits, 0, signals, 0, length);
+        
+        for (int i = length; i < numberOfInputs; ++i) {
+            signals[i] = false;
+        }
+    }
+    
+    /**
+     * Performs a single cycle. The registers keep their states.
+     */
+    public void doCycle() {
+        plan.evaluate(signals);
+    }
+    
+    /**
+     * Runs {@code cycles} clock cycles over the current input pins. In each
+     * cycle, the combinational logic is evaluated first, and only then all
+     * the registers latch their inputs at once. Afterwards, the output pins 
+     * show the outputs computed from the new register states, just as 
+     * {@link #doCycle()} would.
+     *
+     * @param cycles the number of clock cycles.
+     */
+    public void clock(int cycles) {
+        if (cycles < 0) {
+            throw new IllegalArgumentException(
+                    "Negative number of cycles: " + cycles);
+        }
+        
+        plan.evaluate(signals);
+        
+        for (int cycle = 0; cycle < cycles; ++cycle) {
+            latchRegisters();
+            plan.evaluate(signals);
+        }
+    }
+    
+    /**
+     * Returns the state of a register.
+     *
+     * @param register the index of the register.
+     * @return the state of the register.
+     */
+    public boolean getRegisterBit(int register) {
+        checkRegisterIndex(register);
+        return signals[plan.getNumberOfInputPins() + register];
+    }
+    
+    /**
+     * Sets the state of a register.
+     *
+     * @param register the index of the register.
+     * @param bit      the new state of the register.
+     */
+    public void setRegisterBit(int register, boolean bit) {
+        checkRegisterIndex(register);
+        signals[plan.getNumberOfInputPins() + register] = bit;
+    }
+    
+    /**
+     * Copies the packed states of all the registers into {@code words}. Bit
+     * {@code r & 63} of the word {@code r >>> 6} receives the state of the 
+     * register {@code r}.
+     *
+     * @param words the array of at least 
+     *              {@code (getNumberOfRegisters() + 63) / 64} words.
+     */
+    public void getRegisterBits(long[] words) {
+        Objects.requireNonNull(words, "The register word array is null.");
+        checkRegisterArrayLength(words);
+        int firstRegister = plan.getNumberOfInputPins();
+        Arrays.fill(words, 0, getNumberOfRegisterWords(), 0L);
+        
+        for (int i = 0; i < plan.getNumberOfRegisters(); ++i) {
+            if (signals[firstRegister + i]) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+    
+    /**
+     * Sets the states of all the registers from the packed {@code words} as
+     * returned by {@link #getRegisterBits(long[])}.
+     *
+     * @param words the packed register states.
+     */
+    public void setRegisterBits(long[] words) {
+        Objects.requireNonNull(words, "The register word array is null.");
+        checkRegisterArrayLength(words);
+        loadRegisters(words);
+    }
+    
+    /**
+     * Restores the initial states of all the registers.
+     */
+    public void resetRegisters() {
+        long[] words = new long[getNumberOfRegisterWords()];
+        plan.getInitialRegisters(words);
+        loadRegisters(words);
+    }
+    
+    /**
+     * Performs a single cycle over the input vector {@code bits}.
+     *
+     * @param bits the input bit vector.
+     * @return the output bit vector.
+     */
+    public boolean[] doCycle(boolean... bits) {
+        boolean[] outputBits = new boolean[plan.getNumberOfOutputPins()];
+        doCycle(bits, outputBits);
+        return outputBits;
+    }
+    
+    /**
+     * Performs a single cycle without allocating any memory.
+     *
+     * @param inputBits  the input bit vector.
+     * @param outputBits the array for storing the output bit vector.
+     */
+    public void doCycle(boolean[] inputBits, boolean[] outputBits) {
+        setInputBits(inputBits);
+        doCycle();
+        getOutputBits(outputBits);
+    }
+    
+    /**
+     * Returns the state of an output pin after the most recent cycle.
+     *
+     * @param outputPin the index of the output pin.
+     * @return the state of the output pin.
+     */
+    public boolean getOutputBit(int outputPin) {
+        if (outputPin < 0 || outputPin >= plan.getNumberOfOutputPins()) {
+            throw new IndexOutOfBoundsException(
+                    "Output pin index " + outputPin + " is out of range [0, " +
+                    plan.getNumberOfOutputPins() + ").");
+        }
+        
+        return signals[plan.getOutputSignal(outputPin)];
+    }
+    
+    /**
+     * Stores the output of the most recent cycle in {@code bits}.
+     *
+     * @param bits the array for storing the output bit vector.
+     */
+    public void getOutputBits(boolean[] bits) {
+        Objects.requireNonNull(bits, "The output bit array is null.");
+        
+        if (bits.length < plan.getNumberOfOutputPins()) {
+            throw new IllegalArgumentException(
+                    "The output bit array is too short (" + bits.length +
+                    "). At least " + plan.getNumberOfOutputPins() +
+                    " expected.");
+        }
+        
+        for (int i = 0; i < plan.getNumberOfOutputPins(); ++i) {
+            bits[i] = signals[plan.getOutputSignal(i)];
+        }
+    }
+    
+    /**
+     * Returns the output of the most recent cycle packed into a {@code long}.
+     * The bit of the output pin {@code i} is stored at the bit position
+     * {@code i}.
+     *
+     * @return the packed output bit vector.
+     */
+    public long getOutputBitsAsLong() {
+        if (plan.getNumberOfOutputPins() > Long.SIZE) {
+            throw new IllegalStateException(
+                    "Too many output pins (" + plan.getNumberOfOutputPins() +
+                    ") to pack into a long.");
+        }
+        
+        long bits = 0L;
+        
+        for (int i = 0; i < plan.getNumberOfOutputPins(); ++i) {
+            if (signals[plan.getOutputSignal(i)]) {
+                bits |= 1L << i;
+            }
+        }
+        
+        return bits;
+    }
+    
+    /**
+     * Evaluates the circuit over 64 input vectors at once. Bit {@code j} of
+     * {@code inputLanes[i]} is the value of the input pin {@code i} in the
+     * input vector {@code j}; likewise, bit {@code j} of
+     * {@code outputLanes[i]} receives the value of the output pin {@code i}
+     * for the input vector {@code j}. All the input vectors see the current
+     * states of the registers.
+     *
+     * @param inputLanes  the input pin words.
+     * @param outputLanes the array for storing the output pin words.
+     */
+    public void evaluateBatch(long[] inputLanes, long[] outputLanes) {
+        Objects.requireNonNull(inputLanes, "The input lane array is null.");
+        Objects.requireNonNull(outputLanes, "The output lane array is null.");
+        int numberOfInputPins = plan.getNumberOfInputPins();
+        checkLaneArrayLength(inputLanes, numberOfInputPins, "input");
+        checkLaneArrayLength(outputLanes, plan.getNumberOfOutputPins(), 
+                             "output");
+        
+        if (laneSignals == null) {
+            laneSignals = new long[plan.getNumberOfSignals()];
+        }
+        
+        System.arraycopy(inputLanes, 0, laneSignals, 0, numberOfInputPins);
+        
+        for (int i = 0; i < plan.getNumberOfRegisters(); ++i) {
+            laneSignals[numberOfInputPins + i] = 
+                    signals[numberOfInputPins + i] ? -1L : 0L;
+        }
+        
+        plan.evaluate(laneSignals);
+        
+        for (int i = 0; i < plan.getNumberOfOutputPins(); ++i) {
+            outputLanes[i] = laneSignals[plan.getOutputSignal(i)];
+        }
+    }
+    
+    /**
+     * Copies the next states of all the registers into the signal table. If
+     * some register feeds another one directly, all the next states are 
+     * collected before any register is updated.
+     */
+    private void latchRegisters() {
+        int firstRegister = plan.getNumberOfInputPins();
+        int firstRegisterOutput = plan.getNumberOfOutputPins();
+        int numberOfRegisters = plan.getNumberOfRegisters();
+        
+        if (nextRegisters == null) {
+            for (int i = 0; i < numberOfRegisters; ++i) {
+                signals[firstRegister + i] = 
+                        signals[plan.getOutputSignal(firstRegisterOutput + i)];
+            }
+            
+            return;
+        }
+        
+        for (int i = 0; i < numberOfRegisters; ++i) {
+            nextRegisters[i] = 
+                    signals[plan.getOutputSignal(firstRegisterOutput + i)];
+        }
+        
+        System.arraycopy(nextRegisters, 
+                         0, 
+                         signals, 
+                         firstRegister, 
+                         numberOfRegisters);
+    }
+    
+    /**
+     * Unpacks the states of the registers into the signal table.
+     */
+    private void loadRegisters(long[] words) {
+        int firstRegister = plan.getNumberOfInputPins();
+        
+        for (int i = 0; i < plan.getNumberOfRegisters(); ++i) {
+            signals[firstRegister + i] = (words[i >>> 6] & (1L << i)) != 0L;
+        }
+    }
+    
+    private int getNumberOfRegisterWords() {
+        return (plan.getNumberOfRegisters() + 63) >>> 6;
+    }
+    
+    /**
+     * Returns {@code true} if the next state of some register is the state 
+     * of a register.
+     */
+    private static boolean registersFeedRegisters(CircuitPlan plan) {
+        int firstRegisterOutput = plan.getNumberOfOutputPins();
+        
+        for (int i = 0; i < plan.getNumberOfRegisters(); ++i) {
+            int signal = plan.getOutputSignal(firstRegisterOutput + i);
+            
+            if (signal >= plan.getNumberOfInputPins()
+                    && signal < plan.getNumberOfInputs()) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    private void checkRegisterIndex(int register) {
+        if (register < 0 || register >= plan.getNumberOfRegisters()) {
+            throw new IndexOutOfBoundsException(
+                    "Register index " + register + " is out of range [0, " +
+                    plan.getNumberOfRegisters() + ").");
+        }
+    }
+    
+    private void checkRegisterArrayLength(long[] words) {
+        if (words.length < getNumberOfRegisterWords()) {
+            throw new IllegalArgumentException(
+                    "The register word array is too short (" + words.length +
+                    "). At least " + getNumberOfRegisterWords() + 
+                    " expected.");
+        }
+    }
+    
+    private static void checkLaneArrayLength(long[] lanes,
+                                             int minimumLength,
+                                             String kind) {
+        if (lanes.length < minimumLength) {
+            throw new IllegalArgumentException(
+                    "The " + kind + " lane array is too short (" +
+                    lanes.length + "). At least " + minimumLength +
+                    " expected.");
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package net.coderodde.circuits;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.coderodde.circuits.CircuitInstance.InstanceOutput;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.AbstractDoubleInputPinCircuitComponent;
+import net.coderodde.circuits.components.AbstractMultipleInputPinCircuitComponent;
+import net.coderodde.circuits.components.AbstractSingleInputPinCircuitComponent;
+import net.coderodde.circuits.components.support.AndGate;
+import net.coderodde.circuits.components.support.ConstantGate;
+import net.coderodde.circuits.components.support.DFlipFlop;
+import net.coderodde.circuits.components.support.InputGate;
+import net.coderodde.circuits.components.support.MultiInputAndGate;
+import net.coderodde.circuits.components.support.MultiInputOrGate;
+import net.coderodde.circuits.components.support.MuxGate;
+import net.coderodde.circuits.components.support.NandGate;
+import net.coderodde.circuits.components.support.NorGate;
+import net.coderodde.circuits.components.support.NotGate;
+import net.coderodde.circuits.components.support.OrGate;
+import net.coderodde.circuits.components.support.OutputGate;
+import net.coderodde.circuits.components.support.XnorGate;
+import net.coderodde.circuits.components.support.XorGate;
+
+/**
+ * This class implements {@link Circuit#flatten(String)}. The gates are
+ * discovered backwards from the output pins. Each gate is looked up within a
+ * <i>scope</i>: the circuit being flattened is the root scope, and each circuit
+ * instance opens a scope of its own over its shared definition, so that the
+ * same definition gate yields a distinct flat gate per instance.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class CircuitFlattener {
+    
+    /**
+     * Denotes the only input pin of a {@code NOT} gate or a flip-flop. The 
+     * pins are numbered as by 
+     * {@link Circuit.TargetComponentSelector#toPinOf(String, int)}.
+     */
+    private static final int ONLY_PIN = 0;
+    private static final int FIRST_PIN = 0;
+    private static final int SECOND_PIN = 1;
+    private static final int SELECT_PIN = 2;
+    
+    /**
+     * A circuit whose gates are named with a common prefix.
+     */
+    private static final class Scope {
+        
+        private final Scope parent;
+        private final CircuitInstance instance;
+        
+        /**
+         * Maps each gate of this scope (including the gates of nested
+         * subcircuits) to its hierarchical name.
+         */
+        private final Map<AbstractCircuitComponent, String> gateNames =
+                new HashMap<>();
+        
+        /**
+         * Maps each circuit instance of this scope to its hierarchical name.
+         */
+        private final Map<CircuitInstance, String> instanceNames =
+                new HashMap<>();
+        
+        /**
+         * Maps each input pin of the scope circuit to its index.
+         */
+        private final Map<InputGate, Integer> inputPinIndices =
+                new HashMap<>();
+        
+        private final Map<CircuitInstance, Scope> childScopes =
+                new HashMap<>();
+        
+        private final Set<AbstractCircuitComponent> scheduledGates =
+                new HashSet<>();
+        
+        Scope(Circuit circuit,
+              String prefix,
+              Scope parent,
+              CircuitInstance instance) {
+            this.parent = parent;
+            this.instance = instance;
+            collectNames(circuit, prefix);
+            
+            for (int i = 0; i < circuit.getInputGates().size(); ++i) {
+                inputPinIndices.put(circuit.getInputGates().get(i), i);
+            }
+        }
+        
+        Scope getChildScope(CircuitInstance childInstance) {
+            Scope scope = childScopes.get(childInstance);
+            
+            if (scope == null) {
+                scope = new Scope(childInstance.getDefinition(),
+                                  instanceNames.get(childInstance) + ".",
+                                  this,
+                                  childInstance);
+                childScopes.put(childInstance, scope);
+            }
+            
+            return scope;
+        }
+        
+        private void collectNames(Circuit circuit, String prefix) {
+            for (Map.Entry<String, AbstractCircuitComponent> e :
+                    circuit.getComponentMap().entrySet()) {
+                AbstractCircuitComponent component = e.getValue();
+                
+                if (component instanceof Circuit) {
+                    collectNames((Circuit) component, prefix + e.getKey() + ".");
+                } else if (component instanceof CircuitInstance) {
+                    instanceNames.put((CircuitInstance) component,
+                                      prefix + e.getKey());
+                } else if (!(component instanceof InputGate)
+                        && !(component instanceof OutputGate)) {
+                    gateNames.put(component, prefix + e.getKey());
+                }
+            }
+        }
+    }
+    
+    private final Circuit circuit;
+    private final Circuit flatCircuit;
+    private final Deque<Scope> scopeStack = new ArrayDeque<>();
+    private final Deque<AbstractCircuitComponent> gateStack =
+            new ArrayDeque<>();
+    
+    // The connections to make once all the gates are added.
+    private final List<String> sourceNames = new ArrayList<>();
+    private final List<String> targetNames = new ArrayList<>();
+    private final List<Integer> targetPins = new ArrayList<>();
+    
+    private CircuitFlattener(Circuit circuit, String name) {
+        this.circuit = circuit;
+        this.flatCircuit = new Circuit(name,
+                                       circuit.getNumberOfInputPins(),
+                                       circuit.getNumberOfOutputPins());
+    }
+    
+    static Circuit flatten(Circuit circuit, String name) {
+        return new CircuitFlattener(circuit, name).flatten();
+    }
+    
+    private Circuit flatten() {
+        Scope root = new Scope(circuit, "", null, null);
+        List<OutputGate> outputGates = circuit.getOutputGates();
+        String[] outputDriverNames = new String[outputGates.size()];
+        
+        for (int i = 0; i < outputDriverNames.length; ++i) {
+            outputDriverNames[i] =
+                    getDriverName(root, outputGates.get(i).getInputComponent());
+        }
+        
+        while (!gateStack.isEmpty()) {
+            addGate(scopeStack.pop(), gateStack.pop());
+        }
+        
+        for (int i = 0; i < sourceNames.size(); ++i) {
+            flatCircuit.connect(sourceNames.get(i))
+                       .toPinOf(targetNames.get(i), targetPins.get(i));
+        }
+        
+        for (int i = 0; i < outputDriverNames.length; ++i) {
+            flatCircuit.connect(outputDriverNames[i])
+                       .to(outputGates.get(i).getName());
+        }
+        
+        return flatCircuit;
+    }
+    
+    private void addGate(Scope scope, AbstractCircuitComponent gate) {
+        String name = scope.gateNames.get(gate);
+        
+        if (gate instanceof NotGate) {
+            flatCircuit.addNotGate(name);
+            addConnection(getDriverName(scope,
+                                        ((NotGate) gate).getInputComponent()),
+                          name,
+                          ONLY_PIN);
+            return;
+        }
+        
+        if (gate instanceof ConstantGate) {
+            flatCircuit.addConstantGate(name, ((ConstantGate) gate).getBit());
+            return;
+        }
+        
+        if (gate instanceof DFlipFlop) {
+            DFlipFlop flipFlop = (DFlipFlop) gate;
+            flatCircuit.addDFlipFlop(name, flipFlop.getBit());
+            addConnection(getDriverName(scope, flipFlop.getInputComponent()),
+                          name,
+                          ONLY_PIN);
+            return;
+        }
+        
+        if (gate instanceof AbstractMultipleInputPinCircuitComponent) {
+            AbstractMultipleInputPinCircuitComponent multipleInputGate =
+                    (AbstractMultipleInputPinCircuitComponent) gate;
+            int numberOfInputPins = multipleInputGate.getNumberOfInputPins();
+            
+            if (gate instanceof MultiInputAndGate) {
+                flatCircuit.addAndGate(name, numberOfInputPins);
+            } else if (gate instanceof MultiInputOrGate) {
+                flatCircuit.addOrGate(name, numberOfInputPins);
+            } else {
+                throw new IllegalStateException(
+                        "Unknown gate type: " + gate.getClass());
+            }
+            
+            for (int i = 0; i < numberOfInputPins; ++i) {
+                addConnection(
+                        getDriverName(scope, 
+                                      multipleInputGate.getInputComponent(i)),
+                        name,
+                        i);
+            }
+            
+            return;
+        }
+        
+        if (gate instanceof AndGate) {
+            flatCircuit.addAndGate(name);
+        } else if (gate instanceof OrGate) {
+            flatCircuit.addOrGate(name);
+        } else if (gate instanceof XorGate) {
+            flatCircuit.addXorGate(name);
+        } else if (gate instanceof XnorGate) {
+            flatCircuit.addXnorGate(name);
+        } else if (gate instanceof NandGate) {
+            flatCircuit.addNandGate(name);
+        } else if (gate instanceof NorGate) {
+            flatCircuit.addNorGate(name);
+        } else if (gate instanceof MuxGate) {
+            flatCircuit.addMuxGate(name);
+            addConnection(getDriverName(scope, 
+                                        ((MuxGate) gate).getSelectComponent()),
+                          name,
+                          SELECT_PIN);
+        } else {
+            throw new IllegalStateException(
+                    "Unknown gate type: " + gate.getClass());
+        }
+        
+        AbstractDoubleInputPinCircuitComponent doubleInputGate =
+                (AbstractDoubleInputPinCircuitComponent) gate;
+        
+        addConnection(getDriverName(scope,
+                                    doubleInputGate.getInputComponent1()),
+                      name,
+                      FIRST_PIN);
+        addConnection(getDriverName(scope,
+                                    doubleInputGate.getInputComponent2()),
+                      name,
+                      SECOND_PIN);
+    }
+    
+    private void addConnection(String sourceName, String targetName, int pin) {
+        sourceNames.add(sourceName);
+        targetNames.add(targetName);
+        targetPins.add(pin);
+    }
+    
+    /**
+     * Skips the pass-through components (branch wires, subcircuit pins and
+     * instance boundaries) in front of {@code component} and returns the name
+     * of the gate or the input pin driving it. A gate seen for the first time
+     * is scheduled for adding to the flat circuit.
+     */
+    private String getDriverName(Scope scope,
+                                 AbstractCircuitComponent component) {
+        while (component != null) {
+            String name = scope.gateNames.get(component);
+            
+            if (name != null) {
+                if (scope.scheduledGates.add(component)) {
+                    scopeStack.push(scope);
+                    gateStack.push(component);
+                }
+                
+                return name;
+            }
+            
+            if (component instanceof InstanceOutput) {
+                InstanceOutput output = (InstanceOutput) component;
+                CircuitInstance instance = output.getInstance();
+                scope = scope.getChildScope(instance);
+                component = instance.getDefinition()
+                                    .getOutputGates()
+                                    .get(output.getOutputIndex())
+                                    .getInputComponent();
+            } else if (scope.inputPinIndices.containsKey(component)) {
+                if (scope.parent == null) {
+                    return component.getName();
+                }
+                
+                int index = scope.inputPinIndices.get(component);
+                component = scope.instance.getInputGate(index)
+                                          .getInputComponent();
+                scope = scope.parent;
+            } else {
+                component = ((AbstractSingleInputPinCircuitComponent)
+                             component).getInputComponent();
+            }
+        }
+        
+        throw new IncompleteCircuitException(
+                "A component is not connected to the inputs of the " +
+                "circuit \"" + circuit.getName() + "\".");
+    }
+}
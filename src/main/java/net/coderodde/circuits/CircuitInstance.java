@@ -0,0 +1,227 @@
+package net.coderodde.circuits;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.support.InputGate;
+import net.coderodde.circuits.components.support.OutputGate;
+
+/**
+ * This class implements a lightweight instance of a locked circuit. Unlike a
+ * subcircuit added via {@link Circuit#addCircuit(Circuit)}, an instance does
+ * not own any gates: it refers to its shared, immutable definition and carries
+ * only its own pins, so the memory of a hierarchical design grows with the
+ * number of distinct cells rather than with the number of their instances.
+ * Both a locked enclosing circuit, through its {@link CircuitPlan#CALL} gates,
+ * and an unlocked one evaluate all the instances of a definition through the
+ * single plan of the definition and a signal table per thread.
+ * The pins are addressed just like the pins of a subcircuit, e.g.
+ * {@code "adder0.inputPin1"}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class CircuitInstance extends AbstractCircuitComponent {
+    
+    private static final String INPUT_PIN_NAME_PREFIX = "inputPin";
+    private static final String OUTPUT_PIN_NAME_PREFIX = "outputPin";
+    
+    /**
+     * The locked circuit this is an instance of.
+     */
+    private final Circuit definition;
+    
+    private final InputGate[] inputGates;
+    private final OutputGate[] outputGates;
+    
+    /**
+     * {@code outputs[i]} feeds the output pin {@code i}.
+     */
+    private final InstanceOutput[] outputs;
+    
+    /**
+     * The output bits computed when the enclosing circuit is not locked.
+     */
+    private final boolean[] outputBits;
+    
+    CircuitInstance(Circuit definition, String name) {
+        super(name);
+        this.definition = definition;
+        this.inputGates = new InputGate[definition.getNumberOfInputPins()];
+        this.outputGates = new OutputGate[definition.getNumberOfOutputPins()];
+        this.outputs = new InstanceOutput[outputGates.length];
+        this.outputBits = new boolean[outputGates.length];
+        
+        for (int i = 0; i < inputGates.length; ++i) {
+            inputGates[i] = new InputGate(INPUT_PIN_NAME_PREFIX + i);
+            inputGates[i].setOutputComponent(this);
+        }
+        
+        for (int i = 0; i < outputGates.length; ++i) {
+            outputs[i] = new InstanceOutput(this, i);
+            outputGates[i] = new OutputGate(OUTPUT_PIN_NAME_PREFIX + i);
+            outputGates[i].setInputComponent(outputs[i]);
+            outputs[i].setOutputComponent(outputGates[i]);
+        }
+    }
+    
+    public Circuit getDefinition() {
+        return definition;
+    }
+    
+    public int getNumberOfInputPins() {
+        return inputGates.length;
+    }
+    
+    public int getNumberOfOutputPins() {
+        return outputGates.length;
+    }
+    
+    InputGate getInputGate(int index) {
+        return inputGates[index];
+    }
+    
+    OutputGate getOutputGate(int index) {
+        return outputGates[index];
+    }
+    
+    InstanceOutput getOutput(int index) {
+        return outputs[index];
+    }
+    
+    /**
+     * Returns the pin with the given name, or {@code null} if there is no
+     * such pin.
+     *
+     * @param pinName the name of the pin.
+     * @return the pin or {@code null}.
+     */
+    AbstractCircuitComponent getPin(String pinName) {
+        if (pinName.startsWith(INPUT_PIN_NAME_PREFIX)) {
+            int index = parsePinIndex(pinName, INPUT_PIN_NAME_PREFIX);
+            return index >= 0 && index < inputGates.length ?
+                   inputGates[index] :
+                   null;
+        }
+        
+        if (pinName.startsWith(OUTPUT_PIN_NAME_PREFIX)) {
+            int index = parsePinIndex(pinName, OUTPUT_PIN_NAME_PREFIX);
+            return index >= 0 && index < outputGates.length ?
+                   outputGates[index] :
+                   null;
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Evaluates the definition over the current states of the input pins. The
+     * output pins read the results via {@link InstanceOutput}.
+     *
+     * @return always {@code false}.
+     */
+    @Override
+    protected boolean computeOutput() {
+        CircuitPlan plan = definition.getPlan();
+        boolean[] signals = plan.getCallSignals();
+        
+        for (int i = 0; i < inputGates.length; ++i) {
+            signals[i] = inputGates[i].getCachedOutput();
+        }
+        
+        plan.evaluate(signals);
+        
+        for (int i = 0; i < outputBits.length; ++i) {
+            outputBits[i] = signals[plan.getOutputSignal(i)];
+        }
+        
+        return false;
+    }
+    
+    @Override
+    public int getInputComponentCount() {
+        return inputGates.length;
+    }
+    
+    @Override
+    public AbstractCircuitComponent getInputComponentAt(int index) {
+        return inputGates[index];
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getInputComponents() {
+        return new ArrayList<AbstractCircuitComponent>(
+                Arrays.asList(inputGates));
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getOutputComponents() {
+        return new ArrayList<AbstractCircuitComponent>(Arrays.asList(outputs));
+    }
+    
+    private static int parsePinIndex(String pinName, String prefix) {
+        try {
+            return Integer.parseInt(pinName.substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+    
+    /**
+     * This component connects an output of the definition to the
+     * corresponding output pin of an instance.
+     */
+    static final class InstanceOutput extends AbstractCircuitComponent {
+        
+        private final CircuitInstance instance;
+        private final int index;
+        
+        InstanceOutput(CircuitInstance instance, int index) {
+            super(null);
+            this.instance = instance;
+            this.index = index;
+        }
+        
+        CircuitInstance getInstance() {
+            return instance;
+        }
+        
+        int getOutputIndex() {
+            return index;
+        }
+        
+        @Override
+        protected boolean computeOutput() {
+            return instance.outputBits[index];
+        }
+        
+        @Override
+        public int getInputComponentCount() {
+            return 1;
+        }
+        
+        @Override
+        public AbstractCircuitComponent getInputComponentAt(int index) {
+            if (index != 0) {
+                throw new IndexOutOfBoundsException(
+                        "Input component index " + index +
+                        " is out of range.");
+            }
+            
+            return instance;
+        }
+        
+        @Override
+        public List<AbstractCircuitComponent> getInputComponents() {
+            return Collections.<AbstractCircuitComponent>singletonList(
+                    instance);
+        }
+        
+        @Override
+        public List<AbstractCircuitComponent> getOutputComponents() {
+            return Collections.<AbstractCircuitComponent>singletonList(output);
+        }
+    }
+}
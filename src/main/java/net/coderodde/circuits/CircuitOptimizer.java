@@ -0,0 +1,599 @@
+package net.coderodde.circuits;
+
+import java.util.Arrays;
+import java.util.Objects;
+import net.coderodde.circuits.CircuitPlan.Call;
+
+/**
+ * This class optimizes the gate list of a circuit before it is turned into a
+ * {@link CircuitPlan}. The gates are held in topological order in flat arrays
+ * using the same signal numbering as the plan: the first
+ * {@code numberOfInputs} signals are the input pins, and the signal
+ * {@code numberOfInputs + g} is the output of the gate {@code g}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class CircuitOptimizer {
+    
+    /**
+     * Marks an empty slot of the hash table.
+     */
+    private static final int EMPTY = -1;
+    
+    /**
+     * Returned by {@link #simplifyGate(byte, int, int)} when the gate cannot
+     * be simplified.
+     */
+    private static final int KEEP = -2;
+    
+    /**
+     * Returned by {@link #simplifyGate(byte, int, int)} when the gate always
+     * outputs {@code false}.
+     */
+    private static final int CONSTANT_FALSE = -3;
+    
+    /**
+     * Returned by {@link #simplifyGate(byte, int, int)} when the gate always
+     * outputs {@code true}.
+     */
+    private static final int CONSTANT_TRUE = -4;
+    
+    /**
+     * The pseudo-opcode of the input pins.
+     */
+    private static final byte INPUT = -1;
+    
+    private final int numberOfInputs;
+    private final byte[] opcodes;
+    private final int[] operands1;
+    private final int[] operands2;
+    private final int[] operands3;
+    private final Call[] calls;
+    private final int[] outputSignals;
+    private int numberOfGates;
+    
+    /**
+     * Constructs an optimizer. The gates must be given in topological order.
+     * The arrays are modified in place.
+     *
+     * @param numberOfInputs the number of input pins.
+     * @param opcodes        the gate opcodes.
+     * @param operands1      the first operand signal of each gate.
+     * @param operands2      the second operand signal of each gate.
+     * @param operands3      the third operand signal of each gate.
+     * @param calls          the target of each call gate, or {@code null} if
+     *                       there are no calls.
+     * @param numberOfGates  the number of gates.
+     * @param outputSignals  the signal of each output pin.
+     */
+    CircuitOptimizer(int numberOfInputs,
+                     byte[] opcodes,
+                     int[] operands1,
+                     int[] operands2,
+                     int[] operands3,
+                     Call[] calls,
+                     int numberOfGates,
+                     int[] outputSignals) {
+        this.numberOfInputs = numberOfInputs;
+        this.opcodes = opcodes;
+        this.operands1 = operands1;
+        this.operands2 = operands2;
+        this.operands3 = operands3;
+        this.calls = calls;
+        this.numberOfGates = numberOfGates;
+        this.outputSignals = outputSignals;
+    }
+    
+    int getNumberOfGates() {
+        return numberOfGates;
+    }
+    
+    /**
+     * Runs all the optimization passes until none of them makes progress, and
+     * removes the gates not contributing to any output pin.
+     */
+    void optimize() {
+        int numberOfRemovedGates;
+        
+        do {
+            numberOfRemovedGates = simplify() + hashStructurally();
+        } while (numberOfRemovedGates > 0);
+        
+        removeDeadGates();
+    }
+    
+    /**
+     * Applies local simplifications to each gate: constants are folded, double
+     * negations removed, and {@code x & x}, {@code x | x}, {@code x & !x},
+     * {@code x | !x}, {@code x ^ x} and alike are reduced. The gates 
+     * equivalent to a negation, such as {@code x ^ true} or a {@code NAND} 
+     * gate with a {@code true} input, become {@code NOT} gates. The gates 
+     * rendered unused are left in place for {@link #removeDeadGates()}.
+     *
+     * @return the number of gates removed.
+     */
+    int simplify() {
+        int[] signalMap = createIdentitySignalMap();
+        int newNumberOfGates = 0;
+        
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            byte opcode = opcodes[gate];
+            int operand1 = mapOperand(signalMap, operands1[gate]);
+            int operand2 = mapOperand(signalMap, operands2[gate]);
+            int operand3 = mapOperand(signalMap, operands3[gate]);
+            int negatedSignal = 
+                    getNegatedSignal(opcode, operand1, operand2, operand3);
+            
+            if (negatedSignal != CircuitPlan.NO_OPERAND) {
+                opcode = CircuitPlan.NOT;
+                operand1 = negatedSignal;
+                operand2 = CircuitPlan.NO_OPERAND;
+                operand3 = CircuitPlan.NO_OPERAND;
+            }
+            
+            int result = simplifyGate(opcode, operand1, operand2, operand3);
+            
+            if (result >= 0) {
+                signalMap[numberOfInputs + gate] = result;
+                continue;
+            }
+            
+            if (result != KEEP) {
+                opcode = result == CONSTANT_FALSE ?
+                         CircuitPlan.FALSE :
+                         CircuitPlan.TRUE;
+                operand1 = CircuitPlan.NO_OPERAND;
+                operand2 = CircuitPlan.NO_OPERAND;
+                operand3 = CircuitPlan.NO_OPERAND;
+            }
+            
+            opcodes[newNumberOfGates] = opcode;
+            operands1[newNumberOfGates] = operand1;
+            operands2[newNumberOfGates] = operand2;
+            operands3[newNumberOfGates] = operand3;
+            moveCall(gate, newNumberOfGates);
+            signalMap[numberOfInputs + gate] = numberOfInputs +
+                                               newNumberOfGates++;
+        }
+        
+        return replaceGates(newNumberOfGates, signalMap);
+    }
+    
+    /**
+     * Removes all the gates that do not contribute to any output pin.
+     *
+     * @return the number of gates removed.
+     */
+    int removeDeadGates() {
+        boolean[] live = new boolean[numberOfInputs + numberOfGates];
+        
+        for (int outputSignal : outputSignals) {
+            live[outputSignal] = true;
+        }
+        
+        for (int gate = numberOfGates - 1; gate >= 0; --gate) {
+            if (live[numberOfInputs + gate]) {
+                if (operands1[gate] != CircuitPlan.NO_OPERAND) {
+                    live[operands1[gate]] = true;
+                }
+                
+                if (operands2[gate] != CircuitPlan.NO_OPERAND) {
+                    live[operands2[gate]] = true;
+                }
+                
+                if (operands3[gate] != CircuitPlan.NO_OPERAND) {
+                    live[operands3[gate]] = true;
+                }
+            }
+        }
+        
+        int[] signalMap = createIdentitySignalMap();
+        int newNumberOfGates = 0;
+        
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            if (!live[numberOfInputs + gate]) {
+                continue;
+            }
+            
+            opcodes[newNumberOfGates] = opcodes[gate];
+            operands1[newNumberOfGates] = mapOperand(signalMap,
+                                                     operands1[gate]);
+            operands2[newNumberOfGates] = mapOperand(signalMap,
+                                                     operands2[gate]);
+            operands3[newNumberOfGates] = mapOperand(signalMap,
+                                                     operands3[gate]);
+            moveCall(gate, newNumberOfGates);
+            signalMap[numberOfInputs + gate] = numberOfInputs +
+                                               newNumberOfGates++;
+        }
+        
+        return replaceGates(newNumberOfGates, signalMap);
+    }
+    
+    /**
+     * Merges all structurally equal gates, i.e., the gates of the same type
+     * fed by the same signals. The operands of the commutative gates are put 
+     * in a canonical order first, so that {@code a & b} and {@code b & a} are
+     * merged as well. As the gates are processed in
+     * topological order, the merges cascade: two gates become equal as soon
+     * as their operands have been merged.
+     *
+     * @return the number of gates removed.
+     */
+    int hashStructurally() {
+        int[] table = new int[getHashTableCapacity(numberOfGates)];
+        int mask = table.length - 1;
+        Arrays.fill(table, EMPTY);
+        int[] signalMap = createIdentitySignalMap();
+        int newNumberOfGates = 0;
+        
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            byte opcode = opcodes[gate];
+            int operand1 = mapOperand(signalMap, operands1[gate]);
+            int operand2 = mapOperand(signalMap, operands2[gate]);
+            int operand3 = mapOperand(signalMap, operands3[gate]);
+            Call call = calls == null ? null : calls[gate];
+            
+            if (isCommutative(opcode) && operand1 > operand2) {
+                int tmp = operand1;
+                operand1 = operand2;
+                operand2 = tmp;
+            }
+            
+            int slot = hash(opcode, operand1, operand2, operand3) & mask;
+            
+            while (table[slot] != EMPTY) {
+                int other = table[slot];
+                
+                if (opcodes[other] == opcode
+                        && operands1[other] == operand1
+                        && operands2[other] == operand2
+                        && operands3[other] == operand3
+                        && (calls == null || Objects.equals(calls[other], 
+                                                            call))) {
+                    break;
+                }
+                
+                slot = (slot + 1) & mask;
+            }
+            
+            if (table[slot] != EMPTY) {
+                signalMap[numberOfInputs + gate] = numberOfInputs + table[slot];
+                continue;
+            }
+            
+            // The gate is unique so far; compact it to the front of the
+            // arrays. Since newNumberOfGates <= gate, no unread gate is
+            // overwritten.
+            opcodes[newNumberOfGates] = opcode;
+            operands1[newNumberOfGates] = operand1;
+            operands2[newNumberOfGates] = operand2;
+            operands3[newNumberOfGates] = operand3;
+            moveCall(gate, newNumberOfGates);
+            table[slot] = newNumberOfGates;
+            signalMap[numberOfInputs + gate] = numberOfInputs +
+                                               newNumberOfGates++;
+        }
+        
+        return replaceGates(newNumberOfGates, signalMap);
+    }
+    
+    /**
+     * Builds the evaluation plan of the optimized gates.
+     *
+     * @param numberOfRegisters the number of registers among the inputs and
+     *                          the outputs.
+     * @param initialRegisters  the packed initial states of the registers.
+     * @return the evaluation plan.
+     */
+    CircuitPlan toPlan(int numberOfRegisters, long[] initialRegisters) {
+        return new CircuitPlan(numberOfInputs,
+                               numberOfRegisters,
+                               Arrays.copyOf(opcodes, numberOfGates),
+                               Arrays.copyOf(operands1, numberOfGates),
+                               Arrays.copyOf(operands2, numberOfGates),
+                               Arrays.copyOf(operands3, numberOfGates),
+                               calls == null ? 
+                                       null : 
+                                       Arrays.copyOf(calls, numberOfGates),
+                               outputSignals,
+                               initialRegisters);
+    }
+    
+    /**
+     * Simplifies a single gate whose operands are already simplified.
+     *
+     * @param opcode   the opcode of the gate.
+     * @param operand1 the first operand signal.
+     * @param operand2 the second operand signal.
+     * @param operand3 the third operand signal.
+     * @return the signal equivalent to the gate, {@link #CONSTANT_FALSE},
+     *         {@link #CONSTANT_TRUE} or {@link #KEEP}.
+     */
+    private int simplifyGate(byte opcode, 
+                             int operand1, 
+                             int operand2, 
+                             int operand3) {
+        switch (opcode) {
+            case CircuitPlan.NOT:
+                switch (getOpcodeOf(operand1)) {
+                    case CircuitPlan.FALSE:
+                        return CONSTANT_TRUE;
+                    
+                    case CircuitPlan.TRUE:
+                        return CONSTANT_FALSE;
+                    
+                    case CircuitPlan.NOT:
+                        return operands1[operand1 - numberOfInputs];
+                    
+                    default:
+                        return KEEP;
+                }
+            
+            case CircuitPlan.AND:
+                return simplifyDoubleInputGate(operand1,
+                                               operand2,
+                                               CircuitPlan.FALSE,
+                                               CircuitPlan.TRUE);
+            
+            case CircuitPlan.OR:
+                return simplifyDoubleInputGate(operand1,
+                                               operand2,
+                                               CircuitPlan.TRUE,
+                                               CircuitPlan.FALSE);
+            
+            case CircuitPlan.NAND:
+                return getOpcodeOf(operand1) == CircuitPlan.FALSE
+                        || getOpcodeOf(operand2) == CircuitPlan.FALSE
+                        || areComplementary(operand1, operand2) ?
+                       CONSTANT_TRUE :
+                       KEEP;
+            
+            case CircuitPlan.NOR:
+                return getOpcodeOf(operand1) == CircuitPlan.TRUE
+                        || getOpcodeOf(operand2) == CircuitPlan.TRUE
+                        || areComplementary(operand1, operand2) ?
+                       CONSTANT_FALSE :
+                       KEEP;
+            
+            case CircuitPlan.XOR:
+                return simplifyParityGate(operand1,
+                                          operand2,
+                                          CircuitPlan.FALSE,
+                                          CONSTANT_FALSE,
+                                          CONSTANT_TRUE);
+            
+            case CircuitPlan.XNOR:
+                return simplifyParityGate(operand1,
+                                          operand2,
+                                          CircuitPlan.TRUE,
+                                          CONSTANT_TRUE,
+                                          CONSTANT_FALSE);
+            
+            case CircuitPlan.MUX:
+                switch (getOpcodeOf(operand3)) {
+                    case CircuitPlan.FALSE:
+                        return operand1;
+                    
+                    case CircuitPlan.TRUE:
+                        return operand2;
+                }
+                
+                if (operand1 == operand2) {
+                    return operand1;
+                }
+                
+                if (getOpcodeOf(operand1) == CircuitPlan.FALSE
+                        && getOpcodeOf(operand2) == CircuitPlan.TRUE) {
+                    return operand3;
+                }
+                
+                return KEEP;
+            
+            default:
+                return KEEP;
+        }
+    }
+    
+    /**
+     * Returns the signal {@code x} if the gate is equivalent to {@code !x}, 
+     * and {@link CircuitPlan#NO_OPERAND} otherwise.
+     */
+    private int getNegatedSignal(byte opcode, 
+                                 int operand1, 
+                                 int operand2,
+                                 int operand3) {
+        switch (opcode) {
+            case CircuitPlan.NAND:
+                return getNegatedSignal(operand1, operand2, CircuitPlan.TRUE);
+            
+            case CircuitPlan.NOR:
+                return getNegatedSignal(operand1, operand2, CircuitPlan.FALSE);
+            
+            case CircuitPlan.XOR:
+                return getOpcodeOf(operand1) == CircuitPlan.TRUE ? operand2 :
+                       getOpcodeOf(operand2) == CircuitPlan.TRUE ? operand1 :
+                       CircuitPlan.NO_OPERAND;
+            
+            case CircuitPlan.XNOR:
+                return getOpcodeOf(operand1) == CircuitPlan.FALSE ? operand2 :
+                       getOpcodeOf(operand2) == CircuitPlan.FALSE ? operand1 :
+                       CircuitPlan.NO_OPERAND;
+            
+            case CircuitPlan.MUX:
+                return getOpcodeOf(operand1) == CircuitPlan.TRUE
+                        && getOpcodeOf(operand2) == CircuitPlan.FALSE ?
+                       operand3 :
+                       CircuitPlan.NO_OPERAND;
+            
+            default:
+                return CircuitPlan.NO_OPERAND;
+        }
+    }
+    
+    /**
+     * Returns the negated signal of a {@code NAND} or a {@code NOR} gate whose
+     * inputs are equal or one of which is the neutral constant.
+     */
+    private int getNegatedSignal(int operand1, 
+                                 int operand2, 
+                                 byte neutralOpcode) {
+        if (getOpcodeOf(operand1) == neutralOpcode) {
+            return operand2;
+        }
+        
+        if (getOpcodeOf(operand2) == neutralOpcode || operand1 == operand2) {
+            return operand1;
+        }
+        
+        return CircuitPlan.NO_OPERAND;
+    }
+    
+    /**
+     * Simplifies an {@code XOR} or an {@code XNOR} gate. The neutral constant
+     * is {@code false} for {@code XOR} and {@code true} for {@code XNOR}.
+     */
+    private int simplifyParityGate(int operand1,
+                                   int operand2,
+                                   byte neutralOpcode,
+                                   int equalResult,
+                                   int complementaryResult) {
+        if (getOpcodeOf(operand1) == neutralOpcode) {
+            return operand2;
+        }
+        
+        if (getOpcodeOf(operand2) == neutralOpcode) {
+            return operand1;
+        }
+        
+        if (operand1 == operand2) {
+            return equalResult;
+        }
+        
+        if (areComplementary(operand1, operand2)) {
+            return complementaryResult;
+        }
+        
+        return KEEP;
+    }
+    
+    /**
+     * Simplifies an {@code AND} or an {@code OR} gate. For {@code AND} the
+     * dominating constant is {@code false} and the neutral one is
+     * {@code true}; for {@code OR} it is the other way around.
+     */
+    private int simplifyDoubleInputGate(int operand1,
+                                        int operand2,
+                                        byte dominatingOpcode,
+                                        byte neutralOpcode) {
+        int dominatingResult = dominatingOpcode == CircuitPlan.FALSE ?
+                               CONSTANT_FALSE :
+                               CONSTANT_TRUE;
+        
+        if (getOpcodeOf(operand1) == dominatingOpcode
+                || getOpcodeOf(operand2) == dominatingOpcode
+                || areComplementary(operand1, operand2)) {
+            return dominatingResult;
+        }
+        
+        if (getOpcodeOf(operand1) == neutralOpcode) {
+            return operand2;
+        }
+        
+        if (getOpcodeOf(operand2) == neutralOpcode || operand1 == operand2) {
+            return operand1;
+        }
+        
+        return KEEP;
+    }
+    
+    private boolean areComplementary(int signal1, int signal2) {
+        return isNegationOf(signal1, signal2) || isNegationOf(signal2, signal1);
+    }
+    
+    private boolean isNegationOf(int signal1, int signal2) {
+        return getOpcodeOf(signal1) == CircuitPlan.NOT
+                && operands1[signal1 - numberOfInputs] == signal2;
+    }
+    
+    /**
+     * Returns the opcode of the gate driving {@code signal}, or
+     * {@link #INPUT} if the signal is an input pin.
+     */
+    private byte getOpcodeOf(int signal) {
+        return signal < numberOfInputs ?
+               INPUT :
+               opcodes[signal - numberOfInputs];
+    }
+    
+    private static int mapOperand(int[] signalMap, int operand) {
+        return operand == CircuitPlan.NO_OPERAND ?
+               CircuitPlan.NO_OPERAND :
+               signalMap[operand];
+    }
+    
+    /**
+     * Moves the call target of the gate {@code gate}, if any, along with the
+     * gate to the index {@code newGate}.
+     */
+    private void moveCall(int gate, int newGate) {
+        if (calls != null) {
+            calls[newGate] = calls[gate];
+        }
+    }
+    
+    private int[] createIdentitySignalMap() {
+        int[] signalMap = new int[numberOfInputs + numberOfGates];
+        
+        for (int signal = 0; signal < signalMap.length; ++signal) {
+            signalMap[signal] = signal;
+        }
+        
+        return signalMap;
+    }
+    
+    private int replaceGates(int newNumberOfGates, int[] signalMap) {
+        for (int i = 0; i < outputSignals.length; ++i) {
+            outputSignals[i] = signalMap[outputSignals[i]];
+        }
+        
+        int removed = numberOfGates - newNumberOfGates;
+        numberOfGates = newNumberOfGates;
+        return removed;
+    }
+    
+    private static int getHashTableCapacity(int numberOfGates) {
+        int capacity = 16;
+        
+        while (capacity < 2 * numberOfGates) {
+            capacity <<= 1;
+        }
+        
+        return capacity;
+    }
+    
+    private static boolean isCommutative(byte opcode) {
+        switch (opcode) {
+            case CircuitPlan.NOT:
+            case CircuitPlan.MUX:
+            case CircuitPlan.ARG:
+            case CircuitPlan.CALL:
+                return false;
+                
+            default:
+                return true;
+        }
+    }
+    
+    private static int hash(byte opcode, 
+                            int operand1, 
+                            int operand2, 
+                            int operand3) {
+        int hash = opcode;
+        hash = hash * 0x9E3779B1 + operand1;
+        hash = hash * 0x9E3779B1 + operand2;
+        hash = hash * 0x9E3779B1 + operand3;
+        return hash ^ (hash >>> 16);
+    }
+}
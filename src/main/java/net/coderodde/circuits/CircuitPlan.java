@@ -0,0 +1,842 @@
+package net.coderodde.circuits;
+
+/**
+ * This class implements an immutable, levelized evaluation plan of a locked
+ * circuit. All the signals of the circuit live in a flat table: the first
+ * {@code numberOfInputs} entries hold the input pins, and each gate of the plan
+ * owns one entry after them. Gates are sorted by their level so that a single
+ * linear sweep over the opcode array evaluates the entire circuit.
+ * <p>
+ * The plan covers only the combinational logic of a circuit. The outputs of
+ * the flip-flops are the last {@link #getNumberOfRegisters()} inputs of the
+ * plan, following the input pins, and the inputs of the flip-flops are the 
+ * last {@link #getNumberOfRegisters()} outputs, following the output pins.
+ * <p>
+ * The instances of a locked circuit are not inlined but compiled into 
+ * {@link #CALL} gates referring to the shared plan of the definition, which 
+ * each thread evaluates through a signal table of its own.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class CircuitPlan {
+
+    /**
+     * The opcode of a {@code NOT} gate.
+     */
+    static final byte NOT = 0;
+
+    /**
+     * The opcode of an {@code AND} gate.
+     */
+    static final byte AND = 1;
+
+    /**
+     * The opcode of an {@code OR} gate.
+     */
+    static final byte OR = 2;
+
+    /**
+     * The opcode of a gate always outputting {@code false}.
+     */
+    static final byte FALSE = 3;
+    
+    /**
+     * The opcode of a gate always outputting {@code true}.
+     */
+    static final byte TRUE = 4;
+    
+    /**
+     * The opcode of an {@code XOR} gate.
+     */
+    static final byte XOR = 5;
+    
+    /**
+     * The opcode of an {@code XNOR} gate.
+     */
+    static final byte XNOR = 6;
+    
+    /**
+     * The opcode of a {@code NAND} gate.
+     */
+    static final byte NAND = 7;
+    
+    /**
+     * The opcode of a {@code NOR} gate.
+     */
+    static final byte NOR = 8;
+    
+    /**
+     * The opcode of a multiplexer outputting its first operand if the third 
+     * one is {@code false}, and its second operand otherwise.
+     */
+    static final byte MUX = 9;
+    
+    /**
+     * The opcode of an argument of a call. The gate outputs its first operand.
+     * The second operand is the previous argument of the same call, or
+     * {@link #NO_OPERAND} for the first one, so that the arguments of a call
+     * form a chain ending at the {@link #CALL} gate.
+     */
+    static final byte ARG = 10;
+    
+    /**
+     * The opcode of a call of another, combinational plan. The first operand 
+     * is the last argument of the call, or {@link #NO_OPERAND} if the called
+     * plan has no inputs. The gate outputs the output of the called plan given
+     * by {@link #getCall(int)}.
+     */
+    static final byte CALL = 11;
+    
+    /**
+     * Denotes an unused operand.
+     */
+    static final int NO_OPERAND = -1;
+
+    /**
+     * The number of input signals, i.e., input pins and registers.
+     */
+    private final int numberOfInputs;
+
+    /**
+     * The number of registers.
+     */
+    private final int numberOfRegisters;
+    
+    /**
+     * The initial states of the registers, 64 per word. Bit {@code r & 63} of
+     * the word {@code r >>> 6} belongs to the register {@code r}.
+     */
+    private final long[] initialRegisters;
+    
+    /**
+     * The opcode of each gate.
+     */
+    private final byte[] opcodes;
+
+    /**
+     * The signal index of the first operand of each gate.
+     */
+    private final int[] operands1;
+
+    /**
+     * The signal index of the second operand of each gate.
+     */
+    private final int[] operands2;
+
+    /**
+     * The signal index of the third operand of each gate. Only the 
+     * multiplexers have one.
+     */
+    private final int[] operands3;
+    
+    /**
+     * The signal index of each output pin.
+     */
+    private final int[] outputSignals;
+
+    /**
+     * {@code levelOffsets[l]} is the index of the first gate at level
+     * {@code l + 1}. The last entry equals the number of gates.
+     */
+    private final int[] levelOffsets;
+
+    /**
+     * The fan-out of signal {@code s} is stored in 
+     * {@code fanouts[fanoutOffsets[s]], ..., fanouts[fanoutOffsets[s + 1] - 1]}
+     * as gate indices.
+     */
+    private final int[] fanoutOffsets;
+    
+    /**
+     * The gate indices of all the fan-outs.
+     */
+    private final int[] fanouts;
+    
+    /**
+     * The target of each {@link #CALL} gate, or {@code null} if this plan has
+     * no calls.
+     */
+    private final Call[] calls;
+    
+    /**
+     * The signal table of each thread evaluating this plan on behalf of the 
+     * plans calling it. A table always holds the outputs of all the gates 
+     * over its input signals.
+     */
+    private final ThreadLocal<boolean[]> callSignals;
+    
+    /**
+     * Same as {@link #callSignals}, but for 64 input vectors at once.
+     */
+    private final ThreadLocal<long[]> callLanes;
+    
+    /**
+     * Constructs a new plan without calls.
+     */
+    CircuitPlan(int numberOfInputs,
+                int numberOfRegisters,
+                byte[] opcodes,
+                int[] operands1,
+                int[] operands2,
+                int[] operands3,
+                int[] outputSignals,
+                long[] initialRegisters) {
+        this(numberOfInputs,
+             numberOfRegisters,
+             opcodes,
+             operands1,
+             operands2,
+             operands3,
+             null,
+             outputSignals,
+             initialRegisters);
+    }
+    
+    /**
+     * Constructs a new plan. The gates must be given in topological order,
+     * i.e., each operand of gate {@code g} must refer either to an input or to
+     * a gate preceding {@code g}. Constant gates have no operands. The 
+     * constructor sorts the gates by their level and relabels the signals 
+     * accordingly.
+     *
+     * @param numberOfInputs    the number of input signals, including the
+     *                          registers.
+     * @param numberOfRegisters the number of registers.
+     * @param opcodes           the gate opcodes.
+     * @param operands1         the first operand signal of each gate.
+     * @param operands2         the second operand signal of each gate.
+     * @param operands3         the third operand signal of each gate.
+     * @param calls             the target of each {@link #CALL} gate, or 
+     *                          {@code null} if there are no calls.
+     * @param outputSignals     the signal of each output, including the
+     *                          registers.
+     * @param initialRegisters  the packed initial states of the registers.
+     */
+    CircuitPlan(int numberOfInputs,
+                int numberOfRegisters,
+                byte[] opcodes,
+                int[] operands1,
+                int[] operands2,
+                int[] operands3,
+                Call[] calls,
+                int[] outputSignals,
+                long[] initialRegisters) {
+        int numberOfGates = opcodes.length;
+        int[] levels = new int[numberOfInputs + numberOfGates];
+        int maximumLevel = 0;
+
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            int level = 0;
+            
+            if (operands1[gate] != NO_OPERAND) {
+                level = levels[operands1[gate]];
+            }
+
+            if (operands2[gate] != NO_OPERAND) {
+                level = Math.max(level, levels[operands2[gate]]);
+            }
+
+            if (operands3[gate] != NO_OPERAND) {
+                level = Math.max(level, levels[operands3[gate]]);
+            }
+            
+            levels[numberOfInputs + gate] = ++level;
+            maximumLevel = Math.max(maximumLevel, level);
+        }
+
+        // Counting sort the gates by their levels. As the sort is stable, the
+        // topological order within each level is preserved.
+        int[] levelOffsets = new int[maximumLevel + 1];
+
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            ++levelOffsets[levels[numberOfInputs + gate]];
+        }
+
+        for (int level = 0, sum = 0; level <= maximumLevel; ++level) {
+            int count = levelOffsets[level];
+            levelOffsets[level] = sum;
+            sum += count;
+        }
+
+        int[] signalMap = new int[numberOfInputs + numberOfGates];
+
+        for (int input = 0; input < numberOfInputs; ++input) {
+            signalMap[input] = input;
+        }
+
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            int newGate = levelOffsets[levels[numberOfInputs + gate]]++;
+            signalMap[numberOfInputs + gate] = numberOfInputs + newGate;
+        }
+
+        this.numberOfInputs = numberOfInputs;
+        this.numberOfRegisters = numberOfRegisters;
+        this.initialRegisters = initialRegisters.clone();
+        this.opcodes = new byte[numberOfGates];
+        this.operands1 = new int[numberOfGates];
+        this.operands2 = new int[numberOfGates];
+        this.operands3 = new int[numberOfGates];
+        this.outputSignals = new int[outputSignals.length];
+        this.calls = calls == null ? null : new Call[numberOfGates];
+
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            int newGate = signalMap[numberOfInputs + gate] - numberOfInputs;
+            this.opcodes[newGate] = opcodes[gate];
+            this.operands1[newGate] = operands1[gate] == NO_OPERAND ?
+                                      NO_OPERAND :
+                                      signalMap[operands1[gate]];
+            this.operands2[newGate] = operands2[gate] == NO_OPERAND ?
+                                      NO_OPERAND :
+                                      signalMap[operands2[gate]];
+            this.operands3[newGate] = operands3[gate] == NO_OPERAND ?
+                                      NO_OPERAND :
+                                      signalMap[operands3[gate]];
+            
+            if (calls != null) {
+                this.calls[newGate] = calls[gate];
+            }
+        }
+
+        for (int i = 0; i < outputSignals.length; ++i) {
+            this.outputSignals[i] = signalMap[outputSignals[i]];
+        }
+
+        // After the sort, levelOffsets[l] points to the end of level l, which
+        // is the beginning of level l + 1.
+        this.levelOffsets = levelOffsets;
+        this.fanoutOffsets = new int[numberOfInputs + numberOfGates + 1];
+        
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            if (this.operands1[gate] != NO_OPERAND) {
+                ++fanoutOffsets[this.operands1[gate] + 1];
+            }
+            
+            if (this.operands2[gate] != NO_OPERAND) {
+                ++fanoutOffsets[this.operands2[gate] + 1];
+            }
+            
+            if (this.operands3[gate] != NO_OPERAND) {
+                ++fanoutOffsets[this.operands3[gate] + 1];
+            }
+        }
+        
+        for (int signal = 0; signal < numberOfInputs + numberOfGates; ++signal) {
+            fanoutOffsets[signal + 1] += fanoutOffsets[signal];
+        }
+        
+        this.fanouts = new int[fanoutOffsets[numberOfInputs + numberOfGates]];
+        int[] fanoutCounts = new int[numberOfInputs + numberOfGates];
+        
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            int operand = this.operands1[gate];
+            
+            if (operand != NO_OPERAND) {
+                fanouts[fanoutOffsets[operand] + fanoutCounts[operand]++] = 
+                        gate;
+            }
+            
+            operand = this.operands2[gate];
+            
+            if (operand != NO_OPERAND) {
+                fanouts[fanoutOffsets[operand] + fanoutCounts[operand]++] = 
+                        gate;
+            }
+            
+            operand = this.operands3[gate];
+            
+            if (operand != NO_OPERAND) {
+                fanouts[fanoutOffsets[operand] + fanoutCounts[operand]++] = 
+                        gate;
+            }
+        }
+        
+        this.callSignals = new ThreadLocal<boolean[]>() {
+            @Override
+            protected boolean[] initialValue() {
+                boolean[] signals = new boolean[getNumberOfSignals()];
+                evaluate(signals);
+                return signals;
+            }
+        };
+        
+        this.callLanes = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                long[] signals = new long[getNumberOfSignals()];
+                evaluate(signals);
+                return signals;
+            }
+        };
+    }
+
+    int getNumberOfInputs() {
+        return numberOfInputs;
+    }
+
+    int getNumberOfOutputs() {
+        return outputSignals.length;
+    }
+
+    int getNumberOfRegisters() {
+        return numberOfRegisters;
+    }
+    
+    /**
+     * Copies the packed initial states of the registers into 
+     * {@code registers}.
+     * 
+     * @param registers the array of at least 
+     *                  {@code (getNumberOfRegisters() + 63) / 64} words.
+     */
+    void getInitialRegisters(long[] registers) {
+        System.arraycopy(initialRegisters, 
+                         0, 
+                         registers, 
+                         0, 
+                         initialRegisters.length);
+    }
+    
+    int getNumberOfInputPins() {
+        return numberOfInputs - numberOfRegisters;
+    }
+    
+    int getNumberOfOutputPins() {
+        return outputSignals.length - numberOfRegisters;
+    }
+    
+    int getNumberOfGates() {
+        return opcodes.length;
+    }
+
+    int getNumberOfSignals() {
+        return numberOfInputs + opcodes.length;
+    }
+
+    /**
+     * Returns the number of gate levels in this plan.
+     *
+     * @return the depth of the circuit.
+     */
+    int getNumberOfLevels() {
+        return levelOffsets.length - 1;
+    }
+
+    /**
+     * Returns the level of the gate {@code gate}. The gates feeding only on
+     * input pins are at level 1.
+     * 
+     * @param gate the gate index.
+     * @return the level of the gate.
+     */
+    int getLevel(int gate) {
+        // Find the smallest l such that levelOffsets[l] > gate.
+        int low = 0;
+        int high = levelOffsets.length - 1;
+        
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            
+            if (levelOffsets[middle] > gate) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        
+        return low;
+    }
+    
+    /**
+     * Returns the index of the first gate at level {@code level}.
+     * 
+     * @param level the level.
+     * @return the first gate index of the level.
+     */
+    int getFirstGateOfLevel(int level) {
+        return levelOffsets[level - 1];
+    }
+    
+    int getFanoutOffset(int signal) {
+        return fanoutOffsets[signal];
+    }
+    
+    int getFanoutEnd(int signal) {
+        return fanoutOffsets[signal + 1];
+    }
+    
+    int getFanout(int index) {
+        return fanouts[index];
+    }
+    
+    /**
+     * Evaluates a single gate.
+     * 
+     * @param gate    the gate index.
+     * @param signals the signal table.
+     * @return the output of the gate.
+     */
+    boolean evaluateGate(int gate, boolean[] signals) {
+        switch (opcodes[gate]) {
+            case NOT:
+                return !signals[operands1[gate]];
+                
+            case AND:
+                return signals[operands1[gate]] & signals[operands2[gate]];
+                
+            case OR:
+                return signals[operands1[gate]] | signals[operands2[gate]];
+                
+            case XOR:
+                return signals[operands1[gate]] ^ signals[operands2[gate]];
+                
+            case XNOR:
+                return signals[operands1[gate]] == signals[operands2[gate]];
+                
+            case NAND:
+                return !(signals[operands1[gate]] & signals[operands2[gate]]);
+                
+            case NOR:
+                return !(signals[operands1[gate]] | signals[operands2[gate]]);
+                
+            case MUX:
+                return signals[operands3[gate]] ?
+                       signals[operands2[gate]] :
+                       signals[operands1[gate]];
+                
+            case FALSE:
+                return false;
+                
+            case TRUE:
+                return true;
+                
+            case ARG:
+                return signals[operands1[gate]];
+                
+            case CALL:
+                return evaluateCall(gate, signals);
+                
+            default:
+                throw new IllegalStateException(
+                        "Unknown opcode: " + opcodes[gate]);
+        }
+    }
+    
+    int getOutputSignal(int outputPin) {
+        return outputSignals[outputPin];
+    }
+
+    byte getOpcode(int gate) {
+        return opcodes[gate];
+    }
+    
+    int getOperand1(int gate) {
+        return operands1[gate];
+    }
+    
+    int getOperand2(int gate) {
+        return operands2[gate];
+    }
+    
+    int getOperand3(int gate) {
+        return operands3[gate];
+    }
+    
+    boolean hasCalls() {
+        return calls != null;
+    }
+    
+    /**
+     * Returns the target of the {@link #CALL} gate {@code gate}.
+     * 
+     * @param gate the gate index.
+     * @return the target of the call.
+     */
+    Call getCall(int gate) {
+        return calls[gate];
+    }
+    
+    /**
+     * Returns an equivalent plan in which the gates of the called plans 
+     * replace the calls, or this plan if it has no calls. The plans consumed
+     * by the and-inverter graphs and the file formats must be flat.
+     * 
+     * @return a plan without calls.
+     */
+    CircuitPlan flatten() {
+        return hasCalls() ? CallInliner.inline(this) : this;
+    }
+    
+    /**
+     * Returns the signal table through which the current thread evaluates
+     * this plan on behalf of its callers. The caller must reevaluate the table 
+     * via {@link #evaluate(boolean[])} after storing the input signals into 
+     * it.
+     * 
+     * @return the signal table of the current thread.
+     */
+    boolean[] getCallSignals() {
+        return callSignals.get();
+    }
+    
+    /**
+     * Evaluates all the gates of this plan. The input pin values must be
+     * stored in the first {@link #getNumberOfInputs()} entries of
+     * {@code signals}.
+     *
+     * @param signals the signal table.
+     */
+    void evaluate(boolean[] signals) {
+        byte[] opcodes = this.opcodes;
+        int[] operands1 = this.operands1;
+        int[] operands2 = this.operands2;
+        int[] operands3 = this.operands3;
+        int signal = numberOfInputs;
+
+        for (int gate = 0; gate < opcodes.length; ++gate, ++signal) {
+            switch (opcodes[gate]) {
+                case NOT:
+                    signals[signal] = !signals[operands1[gate]];
+                    break;
+
+                case AND:
+                    signals[signal] = signals[operands1[gate]]
+                                    & signals[operands2[gate]];
+                    break;
+
+                case OR:
+                    signals[signal] = signals[operands1[gate]]
+                                    | signals[operands2[gate]];
+                    break;
+
+                case XOR:
+                    signals[signal] = signals[operands1[gate]]
+                                    ^ signals[operands2[gate]];
+                    break;
+                
+                case XNOR:
+                    signals[signal] = signals[operands1[gate]]
+                                   == signals[operands2[gate]];
+                    break;
+                
+                case NAND:
+                    signals[signal] = !(signals[operands1[gate]]
+                                      & signals[operands2[gate]]);
+                    break;
+                
+                case NOR:
+                    signals[signal] = !(signals[operands1[gate]]
+                                      | signals[operands2[gate]]);
+                    break;
+                
+                case MUX:
+                    signals[signal] = signals[operands3[gate]] ?
+                                      signals[operands2[gate]] :
+                                      signals[operands1[gate]];
+                    break;
+                
+                case FALSE:
+                    signals[signal] = false;
+                    break;
+                
+                case TRUE:
+                    signals[signal] = true;
+                    break;
+                
+                case ARG:
+                    signals[signal] = signals[operands1[gate]];
+                    break;
+                
+                case CALL:
+                    signals[signal] = evaluateCall(gate, signals);
+                    break;
+                
+                default:
+                    throw new IllegalStateException(
+                            "Unknown opcode: " + opcodes[gate]);
+            }
+        }
+    }
+    
+    /**
+     * Evaluates all the gates of this plan over 64 input vectors at once. Bit
+     * {@code j} of each signal word belongs to the input vector {@code j}. The
+     * input pin words must be stored in the first {@link #getNumberOfInputs()}
+     * entries of {@code signals}.
+     *
+     * @param signals the signal table.
+     */
+    void evaluate(long[] signals) {
+        byte[] opcodes = this.opcodes;
+        int[] operands1 = this.operands1;
+        int[] operands2 = this.operands2;
+        int[] operands3 = this.operands3;
+        int signal = numberOfInputs;
+        
+        for (int gate = 0; gate < opcodes.length; ++gate, ++signal) {
+            switch (opcodes[gate]) {
+                case NOT:
+                    signals[signal] = ~signals[operands1[gate]];
+                    break;
+                
+                case AND:
+                    signals[signal] = signals[operands1[gate]]
+                                    & signals[operands2[gate]];
+                    break;
+                
+                case OR:
+                    signals[signal] = signals[operands1[gate]]
+                                    | signals[operands2[gate]];
+                    break;
+                
+                case XOR:
+                    signals[signal] = signals[operands1[gate]]
+                                    ^ signals[operands2[gate]];
+                    break;
+                
+                case XNOR:
+                    signals[signal] = ~(signals[operands1[gate]]
+                                      ^ signals[operands2[gate]]);
+                    break;
+                
+                case NAND:
+                    signals[signal] = ~(signals[operands1[gate]]
+                                      & signals[operands2[gate]]);
+                    break;
+                
+                case NOR:
+                    signals[signal] = ~(signals[operands1[gate]]
+                                      | signals[operands2[gate]]);
+                    break;
+                
+                case MUX: {
+                    long word1 = signals[operands1[gate]];
+                    long word2 = signals[operands2[gate]];
+                    signals[signal] = word1 ^ 
+                                      ((word1 ^ word2) & 
+                                       signals[operands3[gate]]);
+                    break;
+                }
+                
+                case FALSE:
+                    signals[signal] = 0L;
+                    break;
+                
+                case TRUE:
+                    signals[signal] = -1L;
+                    break;
+                
+                case ARG:
+                    signals[signal] = signals[operands1[gate]];
+                    break;
+                
+                case CALL:
+                    signals[signal] = evaluateCall(gate, signals);
+                    break;
+                
+                default:
+                    throw new IllegalStateException(
+                            "Unknown opcode: " + opcodes[gate]);
+            }
+        }
+    }
+    
+    /**
+     * Evaluates the {@link #CALL} gate {@code gate}. The called plan is 
+     * reevaluated only if some of its inputs differ from the previous call on 
+     * the current thread.
+     */
+    private boolean evaluateCall(int gate, boolean[] signals) {
+        Call call = calls[gate];
+        CircuitPlan callee = call.plan;
+        boolean[] calleeSignals = callee.callSignals.get();
+        boolean changed = false;
+        int input = callee.numberOfInputs;
+        
+        // Walk the chain of the arguments from the last one backwards.
+        for (int argument = operands1[gate]; 
+                 argument != NO_OPERAND; 
+                 argument = operands2[argument - numberOfInputs]) {
+            boolean bit = signals[argument];
+            
+            if (calleeSignals[--input] != bit) {
+                calleeSignals[input] = bit;
+                changed = true;
+            }
+        }
+        
+        if (changed) {
+            callee.evaluate(calleeSignals);
+        }
+        
+        return calleeSignals[callee.outputSignals[call.output]];
+    }
+    
+    /**
+     * Evaluates the {@link #CALL} gate {@code gate} over 64 input vectors at
+     * once.
+     */
+    private long evaluateCall(int gate, long[] signals) {
+        Call call = calls[gate];
+        CircuitPlan callee = call.plan;
+        long[] calleeSignals = callee.callLanes.get();
+        boolean changed = false;
+        int input = callee.numberOfInputs;
+        
+        for (int argument = operands1[gate]; 
+                 argument != NO_OPERAND; 
+                 argument = operands2[argument - numberOfInputs]) {
+            long word = signals[argument];
+            
+            if (calleeSignals[--input] != word) {
+                calleeSignals[input] = word;
+                changed = true;
+            }
+        }
+        
+        if (changed) {
+            callee.evaluate(calleeSignals);
+        }
+        
+        return calleeSignals[callee.outputSignals[call.output]];
+    }
+    
+    /**
+     * This class describes the target of a {@link #CALL} gate: an output of a
+     * called plan. Two calls are equal if they refer to the same output of
+     * the same plan.
+     */
+    static final class Call {
+        
+        private final CircuitPlan plan;
+        private final int output;
+        
+        Call(CircuitPlan plan, int output) {
+            this.plan = plan;
+            this.output = output;
+        }
+        
+        CircuitPlan getPlan() {
+            return plan;
+        }
+        
+        int getOutput() {
+            return output;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Call)) {
+                return false;
+            }
+            
+            Call other = (Call) o;
+            return plan == other.plan && output == other.output;
+        }
+        
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(plan) * 31 + output;
+        }
+    }
+}
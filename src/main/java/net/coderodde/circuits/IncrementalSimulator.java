@@ -0,0 +1,206 @@
+package net.coderodde.circuits;
+
+import java.util.Objects;
+
+/**
+ * This class implements an event-driven simulator of a locked circuit. Only
+ * the gates whose inputs changed since the previous cycle are re-evaluated:
+ * changing an input pin schedules its fan-out, and the scheduled gates are
+ * processed level by level, propagating further only from the gates whose
+ * output actually changed. When consecutive input vectors differ in a few bits
+ * only, a cycle touches a tiny fraction of the circuit.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class IncrementalSimulator {
+    
+    /**
+     * The plan being simulated.
+     */
+    private final CircuitPlan plan;
+    
+    /**
+     * The current value of each signal.
+     */
+    private final boolean[] signals;
+    
+    /**
+     * The scheduled gates of level {@code l} are stored in
+     * {@code worklist[plan.getFirstGateOfLevel(l)], ...}. As each gate is
+     * scheduled at most once, a level never overflows into the next one.
+     */
+    private final int[] worklist;
+    
+    /**
+     * The number of scheduled gates at each level.
+     */
+    private final int[] worklistSizes;
+    
+    /**
+     * Marks the scheduled gates.
+     */
+    private final boolean[] scheduled;
+    
+    /**
+     * The lowest level containing scheduled gates.
+     */
+    private int minimumScheduledLevel;
+    
+    /**
+     * The highest level containing scheduled gates.
+     */
+    private int maximumScheduledLevel;
+    
+    IncrementalSimulator(CircuitPlan plan) {
+        this.plan = plan;
+        this.signals = new boolean[plan.getNumberOfSignals()];
+        this.worklist = new int[plan.getNumberOfGates()];
+        this.worklistSizes = new int[plan.getNumberOfLevels() + 1];
+        this.scheduled = new boolean[plan.getNumberOfGates()];
+        resetScheduledLevels();
+        plan.evaluate(signals);
+    }
+    
+    /**
+     * Sets the state of a single input pin. The change becomes visible at the
+     * output pins after the next {@link #doCycle()}.
+     *
+     * @param inputPin the index of the input pin.
+     * @param bit      the new state of the input pin.
+     */
+    public void setInputBit(int inputPin, boolean bit) {
+        checkInputPinIndex(inputPin);
+        
+        if (signals[inputPin] != bit) {
+            signals[inputPin] = bit;
+            scheduleFanout(inputPin);
+        }
+    }
+    
+    /**
+     * Sets the states of all the input pins. If the length of {@code bits} is
+     * smaller than the number of input pins, the rest of input pins are set to
+     * zero. If the length of {@code bits} is greater than the number of input
+     * pins, the overflowing values of {@code bits} are ignored.
+     *
+     * @param bits the bit vector.
+     */
+    public void setInputBits(boolean... bits) {
+        Objects.requireNonNull(bits, "The input bit array is null.");
+        
+        for (int i = 0; i < plan.getNumberOfInputs(); ++i) {
+            setInputBit(i, i < bits.length && bits[i]);
+        }
+    }
+    
+    /**
+     * Propagates all the input changes since the previous cycle.
+     */
+    public void doCycle() {
+        int numberOfInputs = plan.getNumberOfInputs();
+        
+        for (int level = minimumScheduledLevel;
+                 level <= maximumScheduledLevel;
+                 ++level) {
+            int firstGate = plan.getFirstGateOfLevel(level);
+            int size = worklistSizes[level];
+            
+            for (int i = firstGate; i < firstGate + size; ++i) {
+                int gate = worklist[i];
+                scheduled[gate] = false;
+                boolean bit = plan.evaluateGate(gate, signals);
+                
+                // An argument of a call forwards even an unchanged bit, as 
+                // some earlier argument of the same call has changed.
+                if (signals[numberOfInputs + gate] != bit
+                        || plan.getOpcode(gate) == CircuitPlan.ARG) {
+                    signals[numberOfInputs + gate] = bit;
+                    scheduleFanout(numberOfInputs + gate);
+                }
+            }
+            
+            worklistSizes[level] = 0;
+        }
+        
+        resetScheduledLevels();
+    }
+    
+    /**
+     * Performs a single cycle without allocating any memory.
+     *
+     * @param inputBits  the input bit vector.
+     * @param outputBits the array for storing the output bit vector.
+     */
+    public void doCycle(boolean[] inputBits, boolean[] outputBits) {
+        setInputBits(inputBits);
+        doCycle();
+        getOutputBits(outputBits);
+    }
+    
+    /**
+     * Returns the state of an output pin after the most recent cycle.
+     *
+     * @param outputPin the index of the output pin.
+     * @return the state of the output pin.
+     */
+    public boolean getOutputBit(int outputPin) {
+        if (outputPin < 0 || outputPin >= plan.getNumberOfOutputs()) {
+            throw new IndexOutOfBoundsException(
+                    "Output pin index " + outputPin + " is out of range [0, " +
+                    plan.getNumberOfOutputs() + ").");
+        }
+        
+        return signals[plan.getOutputSignal(outputPin)];
+    }
+    
+    /**
+     * Stores the output of the most recent cycle in {@code bits}.
+     *
+     * @param bits the array for storing the output bit vector.
+     */
+    public void getOutputBits(boolean[] bits) {
+        Objects.requireNonNull(bits, "The output bit array is null.");
+        
+        if (bits.length < plan.getNumberOfOutputs()) {
+            throw new IllegalArgumentException(
+                    "The output bit array is too short (" + bits.length +
+                    "). At least " + plan.getNumberOfOutputs() +
+                    " expected.");
+        }
+        
+        for (int i = 0; i < plan.getNumberOfOutputs(); ++i) {
+            bits[i] = signals[plan.getOutputSignal(i)];
+        }
+    }
+    
+    private void scheduleFanout(int signal) {
+        for (int i = plan.getFanoutOffset(signal);
+                 i < plan.getFanoutEnd(signal);
+                 ++i) {
+            int gate = plan.getFanout(i);
+            
+            if (!scheduled[gate]) {
+                scheduled[gate] = true;
+                int level = plan.getLevel(gate);
+                worklist[plan.getFirstGateOfLevel(level) +
+                         worklistSizes[level]++] = gate;
+                minimumScheduledLevel = Math.min(minimumScheduledLevel, level);
+                maximumScheduledLevel = Math.max(maximumScheduledLevel, level);
+            }
+        }
+    }
+    
+    private void resetScheduledLevels() {
+        minimumScheduledLevel = Integer.MAX_VALUE;
+        maximumScheduledLevel = Integer.MIN_VALUE;
+    }
+    
+    private void checkInputPinIndex(int inputPin) {
+        if (inputPin < 0 || inputPin >= plan.getNumberOfInputs()) {
+            throw new IndexOutOfBoundsException(
+                    "Input pin index " + inputPin + " is out of range [0, " +
+                    plan.getNumberOfInputs() + ").");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package net.coderodde.circuits;
+
+/**
+ * Defines the API for objects evaluating a circuit over 64 input vectors at
+ * once. Bit {@code j} of {@code inputLanes[i]} is the value of the input pin 
+ * {@code i} in the input vector {@code j}; likewise, bit {@code j} of 
+ * {@code outputLanes[i]} receives the value of the output pin {@code i} for 
+ * the input vector {@code j}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public interface LaneEvaluator {
+    
+    public void evaluate(long[] inputLanes, long[] outputLanes);
+}
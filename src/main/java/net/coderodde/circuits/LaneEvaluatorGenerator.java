@@ -0,0 +1,735 @@
+package net.coderodde.circuits;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This class generates a dedicated {@link LaneEvaluator} class for a
+ * {@link CircuitPlan}. If the plan fits in a method the JIT compiler is
+ * willing to compile, the {@code evaluate} method of the generated class is
+ * straight-line bytecode holding each signal in a local variable, so that the
+ * JIT compiler may allocate the signals to registers. Otherwise, the gates are
+ * split into static methods of at most {@link #HUGE_METHOD_LIMIT} bytes each,
+ * called in sequence on a signal array of each thread; a method keeps the
+ * signals it computes itself in local variables, too. The class file is
+ * emitted by hand and loaded by a class loader of its own, so that it may be
+ * unloaded together with the evaluator.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class LaneEvaluatorGenerator {
+    
+    /**
+     * The maximum length of a method body in bytes.
+     */
+    private static final int MAXIMUM_CODE_LENGTH = 65535;
+    
+    /**
+     * The length in bytes of the longest method HotSpot compiles by default
+     * ({@code -XX:HugeMethodLimit}). Longer methods run interpreted.
+     */
+    private static final int HUGE_METHOD_LIMIT = 8000;
+    
+    /**
+     * An upper bound of the length of the code of a single gate in a split
+     * method.
+     */
+    private static final int MAXIMUM_GATE_CODE_LENGTH = 64;
+    
+    /**
+     * The maximum number of local variable slots in a method.
+     */
+    private static final int MAXIMUM_LOCALS = 65535;
+    
+    /**
+     * The maximum number of entries in a constant pool.
+     */
+    private static final int MAXIMUM_CONSTANT_POOL_COUNT = 65535;
+    
+    /**
+     * The first local variable slot used for signals in a single-method
+     * evaluator. Slots 0, 1 and 2 hold {@code this}, the input lanes and the
+     * output lanes.
+     */
+    private static final int FIRST_SIGNAL_LOCAL = 3;
+    
+    /**
+     * The first local variable slot used for signals in a split method. Slot
+     * 0 holds the signal array.
+     */
+    private static final int FIRST_SPLIT_SIGNAL_LOCAL = 1;
+    
+    /**
+     * The class file version of Java 8.
+     */
+    private static final int CLASS_FILE_MAJOR_VERSION = 52;
+    
+    private static final String CLASS_NAME_PREFIX =
+            "net/coderodde/circuits/generated/LaneEvaluator";
+    
+    private static final String INTERFACE_NAME =
+            LaneEvaluator.class.getName().replace('.', '/');
+    
+    private static final String SPLIT_INTERFACE_NAME =
+            Consumer.class.getName().replace('.', '/');
+    
+    private static final String SPLIT_METHOD_NAME_PREFIX = "evaluate";
+    
+    private static final String SPLIT_METHOD_DESCRIPTOR = "([J)V";
+    
+    // The constant pool tags.
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    
+    // The access flags.
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    
+    // The JVM instructions used.
+    private static final int ICONST_0 = 0x03;
+    private static final int LCONST_0 = 0x09;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int LLOAD = 0x16;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int LALOAD = 0x2f;
+    private static final int LSTORE = 0x37;
+    private static final int ASTORE_1 = 0x4c;
+    private static final int LASTORE = 0x50;
+    private static final int DUP2_X2 = 0x5e;
+    private static final int LAND = 0x7f;
+    private static final int LOR = 0x81;
+    private static final int LXOR = 0x83;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int CHECKCAST = 0xc0;
+    private static final int WIDE = 0xc4;
+    
+    /**
+     * Used for making the names of the generated classes unique.
+     */
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+    
+    private final CircuitPlan plan;
+    private final String className;
+    private final ConstantPool constantPool = new ConstantPool();
+    private final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+    private final DataOutputStream code = new DataOutputStream(codeBytes);
+    
+    /**
+     * The methods of the generated class.
+     */
+    private final ByteArrayOutputStream methodBytes =
+            new ByteArrayOutputStream();
+    private final DataOutputStream methods =
+            new DataOutputStream(methodBytes);
+    private int numberOfMethods;
+    
+    /**
+     * The first signal computed by the split method being emitted.
+     */
+    private int firstMethodSignal;
+    
+    private LaneEvaluatorGenerator(CircuitPlan plan) {
+        this.plan = plan;
+        this.className = CLASS_NAME_PREFIX + CLASS_COUNTER.incrementAndGet();
+    }
+    
+    /**
+     * Generates an evaluator for the plan.
+     *
+     * @param plan the plan to generate the evaluator for.
+     * @return the generated evaluator, or {@code null} if the plan contains an
+     *         unsupported opcode or is too large for a class file.
+     */
+    static LaneEvaluator generate(CircuitPlan plan) {
+        if (!isSupported(plan)) {
+            return null;
+        }
+        
+        try {
+            LaneEvaluator evaluator =
+                    new LaneEvaluatorGenerator(plan).generateSingleMethod();
+            
+            if (evaluator != null) {
+                return evaluator;
+            }
+            
+            return new LaneEvaluatorGenerator(plan).generateSplitMethods();
+        } catch (IOException ex) {
+            // Never happens as we write to memory only.
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    private static boolean isSupported(CircuitPlan plan) {
+        for (int gate = 0; gate < plan.getNumberOfGates(); ++gate) {
+            if (plan.getOpcode(gate) < CircuitPlan.NOT
+                    || plan.getOpcode(gate) > CircuitPlan.MUX) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Generates an evaluator whose {@code evaluate} method is a single
+     * compilable method.
+     *
+     * @return the evaluator, or {@code null} if the plan is too large for it.
+     */
+    private LaneEvaluator generateSingleMethod() throws IOException {
+        int maximumLocals = FIRST_SIGNAL_LOCAL + 2 * plan.getNumberOfSignals();
+        
+        if (maximumLocals > MAXIMUM_LOCALS) {
+            return null;
+        }
+        
+        int numberOfInputs = plan.getNumberOfInputs();
+        
+        for (int input = 0; input < numberOfInputs; ++input) {
+            code.writeByte(ALOAD_1);
+            emitPushInt(input);
+            code.writeByte(LALOAD);
+            emitLocalInstruction(LSTORE, FIRST_SIGNAL_LOCAL + 2 * input);
+            
+            if (codeBytes.size() > HUGE_METHOD_LIMIT) {
+                return null;
+            }
+        }
+        
+        for (int gate = 0; gate < plan.getNumberOfGates(); ++gate) {
+            emitGate(gate, FIRST_SIGNAL_LOCAL, 0);
+            emitLocalInstruction(LSTORE,
+                                 FIRST_SIGNAL_LOCAL +
+                                 2 * (numberOfInputs + gate));
+                
+            if (codeBytes.size() > HUGE_METHOD_LIMIT) {
+                return null;
+            }
+        }
+        
+        for (int output = 0; output < plan.getNumberOfOutputs(); ++output) {
+            code.writeByte(ALOAD_2);
+            emitPushInt(output);
+            emitLocalInstruction(LLOAD,
+                                 FIRST_SIGNAL_LOCAL +
+                                 2 * plan.getOutputSignal(output));
+            code.writeByte(LASTORE);
+        }
+        
+        code.writeByte(RETURN);
+        
+        if (codeBytes.size() > HUGE_METHOD_LIMIT) {
+            return null;
+        }
+        
+        emitConstructor();
+        
+        // public final void evaluate(long[] in, long[] out) { ... }
+        writeMethod(ACC_PUBLIC | ACC_FINAL,
+                    "evaluate",
+                    "([J[J)V",
+                    4,
+                    maximumLocals,
+                    codeBytes.toByteArray());
+        
+        return (LaneEvaluator) defineClass(INTERFACE_NAME);
+    }
+    
+    /**
+     * Generates an evaluator whose gates are split into several static
+     * methods, run one after another by the {@code accept} method of the
+     * generated {@code Consumer<long[]>}.
+     *
+     * @return the evaluator, or {@code null} if the plan is too large for a
+     *         class file.
+     */
+    private LaneEvaluator generateSplitMethods() throws IOException {
+        int numberOfInputs = plan.getNumberOfInputs();
+        firstMethodSignal = numberOfInputs;
+        
+        for (int gate = 0; gate < plan.getNumberOfGates(); ++gate) {
+            if (codeBytes.size() >
+                    HUGE_METHOD_LIMIT - MAXIMUM_GATE_CODE_LENGTH) {
+                endSplitMethod(numberOfInputs + gate);
+            }
+            
+            int signal = numberOfInputs + gate;
+            
+            // signals[signal] = local = value;
+            code.writeByte(ALOAD_0);
+            emitPushInt(signal);
+            emitGate(gate, FIRST_SPLIT_SIGNAL_LOCAL, firstMethodSignal);
+            code.writeByte(DUP2_X2);
+            code.writeByte(LASTORE);
+            emitLocalInstruction(LSTORE, getSplitLocal(signal));
+        }
+        
+        endSplitMethod(numberOfInputs + plan.getNumberOfGates());
+        
+        // public void accept(Object signals) {
+        //     long[] s = (long[]) signals;
+        //     evaluate0(s);
+        //     evaluate1(s);
+        //     ...
+        // }
+        code.writeByte(ALOAD_1);
+        code.writeByte(CHECKCAST);
+        code.writeShort(constantPool.getClass("[J"));
+        code.writeByte(ASTORE_1);
+        
+        for (int i = 0; i < numberOfMethods; ++i) {
+            code.writeByte(ALOAD_1);
+            code.writeByte(INVOKESTATIC);
+            code.writeShort(constantPool.getMethod(className,
+                                                   SPLIT_METHOD_NAME_PREFIX + i,
+                                                   SPLIT_METHOD_DESCRIPTOR));
+        }
+        
+        code.writeByte(RETURN);
+        
+        if (codeBytes.size() > MAXIMUM_CODE_LENGTH) {
+            return null;
+        }
+        
+        int numberOfSplitMethods = numberOfMethods;
+        emitConstructor();
+        writeMethod(ACC_PUBLIC | ACC_FINAL,
+                    "accept",
+                    "(Ljava/lang/Object;)V",
+                    1,
+                    2,
+                    codeBytes.toByteArray());
+        
+        if (constantPool.size() > MAXIMUM_CONSTANT_POOL_COUNT) {
+            return null;
+        }
+        
+        @SuppressWarnings("unchecked")
+        Consumer<long[]> splitCode =
+                (Consumer<long[]>) defineClass(SPLIT_INTERFACE_NAME);
+        return new SplitLaneEvaluator(plan, splitCode, numberOfSplitMethods);
+    }
+    
+    /**
+     * Ends the split method being emitted, if it has any code, and starts the
+     * next one at {@code nextSignal}.
+     */
+    private void endSplitMethod(int nextSignal) throws IOException {
+        if (codeBytes.size() > 0) {
+            code.writeByte(RETURN);
+            writeMethod(ACC_PRIVATE | ACC_STATIC,
+                        SPLIT_METHOD_NAME_PREFIX + numberOfMethods,
+                        SPLIT_METHOD_DESCRIPTOR,
+                        8,
+                        getSplitLocal(nextSignal),
+                        codeBytes.toByteArray());
+            codeBytes.reset();
+        }
+        
+        firstMethodSignal = nextSignal;
+    }
+    
+    private int getSplitLocal(int signal) {
+        return FIRST_SPLIT_SIGNAL_LOCAL + 2 * (signal - firstMethodSignal);
+    }
+    
+    /**
+     * Emits the code pushing the value of a gate on the stack. The signals
+     * from {@code firstLocalSignal} on are loaded from the local variables
+     * starting at {@code firstLocal}; the signals before it are loaded from
+     * the array in the local variable 0.
+     */
+    private void emitGate(int gate, int firstLocal, int firstLocalSignal)
+            throws IOException {
+        int operand1 = plan.getOperand1(gate);
+        int operand2 = plan.getOperand2(gate);
+        
+        switch (plan.getOpcode(gate)) {
+            case CircuitPlan.NOT:
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                emitNegation();
+                break;
+            
+            case CircuitPlan.AND:
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                emitLoad(operand2, firstLocal, firstLocalSignal);
+                code.writeByte(LAND);
+                break;
+            
+            case CircuitPlan.OR:
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                emitLoad(operand2, firstLocal, firstLocalSignal);
+                code.writeByte(LOR);
+                break;
+            
+            case CircuitPlan.XOR:
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                emitLoad(operand2, firstLocal, firstLocalSignal);
+                code.writeByte(LXOR);
+                break;
+            
+            case CircuitPlan.XNOR:
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                emitLoad(operand2, firstLocal, firstLocalSignal);
+                code.writeByte(LXOR);
+                emitNegation();
+                break;
+            
+            case CircuitPlan.NAND:
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                emitLoad(operand2, firstLocal, firstLocalSignal);
+                code.writeByte(LAND);
+                emitNegation();
+                break;
+            
+            case CircuitPlan.NOR:
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                emitLoad(operand2, firstLocal, firstLocalSignal);
+                code.writeByte(LOR);
+                emitNegation();
+                break;
+            
+            case CircuitPlan.MUX:
+                // a ^ ((a ^ b) & s) keeps at most two longs on the stack.
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                emitLoad(operand2, firstLocal, firstLocalSignal);
+                code.writeByte(LXOR);
+                emitLoad(plan.getOperand3(gate), firstLocal, firstLocalSignal);
+                code.writeByte(LAND);
+                emitLoad(operand1, firstLocal, firstLocalSignal);
+                code.writeByte(LXOR);
+                break;
+            
+            case CircuitPlan.FALSE:
+                code.writeByte(LCONST_0);
+                break;
+            
+            case CircuitPlan.TRUE:
+                code.writeByte(LDC2_W);
+                code.writeShort(constantPool.getLong(-1L));
+                break;
+            
+            default:
+                throw new IllegalStateException(
+                        "Unknown opcode: " + plan.getOpcode(gate));
+        }
+    }
+    
+    private void emitLoad(int signal, int firstLocal, int firstLocalSignal)
+            throws IOException {
+        if (signal >= firstLocalSignal) {
+            emitLocalInstruction(LLOAD,
+                                 firstLocal + 2 * (signal - firstLocalSignal));
+        } else {
+            code.writeByte(ALOAD_0);
+            emitPushInt(signal);
+            code.writeByte(LALOAD);
+        }
+    }
+    
+    /**
+     * Emits the code flipping all the bits of the long on top of the stack.
+     */
+    private void emitNegation() throws IOException {
+        code.writeByte(LDC2_W);
+        code.writeShort(constantPool.getLong(-1L));
+        code.writeByte(LXOR);
+    }
+    
+    private void emitPushInt(int value) throws IOException {
+        if (value <= 5) {
+            code.writeByte(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.writeByte(BIPUSH);
+            code.writeByte(value);
+        } else if (value <= Short.MAX_VALUE) {
+            code.writeByte(SIPUSH);
+            code.writeShort(value);
+        } else {
+            code.writeByte(LDC_W);
+            code.writeShort(constantPool.getInteger(value));
+        }
+    }
+    
+    private void emitLocalInstruction(int opcode, int local)
+            throws IOException {
+        if (local <= 0xff) {
+            code.writeByte(opcode);
+            code.writeByte(local);
+        } else {
+            code.writeByte(WIDE);
+            code.writeByte(opcode);
+            code.writeShort(local);
+        }
+    }
+    
+    /**
+     * Emits {@code public <init>() { super(); }} into the methods of the
+     * class.
+     */
+    private void emitConstructor() throws IOException {
+        int superInit = constantPool.getMethod("java/lang/Object",
+                                               "<init>",
+                                               "()V");
+        byte[] constructorCode = {
+            (byte) ALOAD_0,
+            (byte) INVOKESPECIAL,
+            (byte) (superInit >>> 8),
+            (byte) superInit,
+            (byte) RETURN
+        };
+        
+        writeMethod(ACC_PUBLIC, "<init>", "()V", 1, 1, constructorCode);
+    }
+    
+    private Object defineClass(String interfaceName) throws IOException {
+        byte[] classFile = emitClassFile(interfaceName);
+        
+        try {
+            return new GeneratedClassLoader(
+                           LaneEvaluator.class.getClassLoader())
+                   .define(className.replace('/', '.'), classFile)
+                   .getConstructor()
+                   .newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(
+                    "Could not instantiate the generated evaluator.", ex);
+        }
+    }
+    
+    private byte[] emitClassFile(String interfaceName) throws IOException {
+        int thisClass = constantPool.getClass(className);
+        int superClass = constantPool.getClass("java/lang/Object");
+        int interfaceClass = constantPool.getClass(interfaceName);
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        
+        out.writeInt(0xcafebabe);
+        out.writeShort(0);
+        out.writeShort(CLASS_FILE_MAJOR_VERSION);
+        constantPool.writeTo(out);
+        
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);
+        out.writeShort(interfaceClass);
+        out.writeShort(0); // No fields.
+        out.writeShort(numberOfMethods);
+        methodBytes.writeTo(out);
+        out.writeShort(0); // No class attributes.
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    private void writeMethod(int accessFlags,
+                             String name,
+                             String descriptor,
+                             int maximumStack,
+                             int maximumLocals,
+                             byte[] code) throws IOException {
+        methods.writeShort(accessFlags);
+        methods.writeShort(constantPool.getUtf8(name));
+        methods.writeShort(constantPool.getUtf8(descriptor));
+        methods.writeShort(1); // Only the Code attribute.
+        methods.writeShort(constantPool.getUtf8("Code"));
+        methods.writeInt(12 + code.length);
+        methods.writeShort(maximumStack);
+        methods.writeShort(maximumLocals);
+        methods.writeInt(code.length);
+        methods.write(code);
+        methods.writeShort(0); // No exception table.
+        methods.writeShort(0); // No code attributes.
+        ++numberOfMethods;
+    }
+    
+    /**
+     * Collects the constant pool of the generated class, adding each constant
+     * at most once.
+     */
+    private static final class ConstantPool {
+        
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> indices = new HashMap<>();
+        private int size = 1;
+        
+        /**
+         * Returns the number of entries plus one, as stored in the class
+         * file.
+         */
+        int size() {
+            return size;
+        }
+        
+        int getUtf8(String text) throws IOException {
+            Integer index = indices.get("Utf8 " + text);
+            
+            if (index != null) {
+                return index;
+            }
+            
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(text);
+            return add("Utf8 " + text, 1);
+        }
+        
+        int getClass(String name) throws IOException {
+            Integer index = indices.get("Class " + name);
+            
+            if (index != null) {
+                return index;
+            }
+            
+            int nameIndex = getUtf8(name);
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(nameIndex);
+            return add("Class " + name, 1);
+        }
+        
+        int getMethod(String owner, String name, String descriptor)
+                throws IOException {
+            String key = "Methodref " + owner + "." + name + descriptor;
+            Integer index = indices.get(key);
+            
+            if (index != null) {
+                return index;
+            }
+            
+            int ownerIndex = getClass(owner);
+            int nameIndex = getUtf8(name);
+            int descriptorIndex = getUtf8(descriptor);
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            int nameAndTypeIndex = add(key + " NameAndType", 1);
+            out.writeByte(CONSTANT_METHODREF);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndTypeIndex);
+            return add(key, 1);
+        }
+        
+        int getInteger(int value) throws IOException {
+            Integer index = indices.get("Integer " + value);
+            
+            if (index != null) {
+                return index;
+            }
+            
+            out.writeByte(CONSTANT_INTEGER);
+            out.writeInt(value);
+            return add("Integer " + value, 1);
+        }
+        
+        int getLong(long value) throws IOException {
+            Integer index = indices.get("Long " + value);
+            
+            if (index != null) {
+                return index;
+            }
+            
+            out.writeByte(CONSTANT_LONG);
+            out.writeLong(value);
+            // A long takes two entries.
+            return add("Long " + value, 2);
+        }
+        
+        void writeTo(DataOutputStream classFile) throws IOException {
+            classFile.writeShort(size);
+            bytes.writeTo(classFile);
+        }
+        
+        private int add(String key, int entries) {
+            int index = size;
+            size += entries;
+            indices.put(key, index);
+            return index;
+        }
+    }
+    
+    /**
+     * Runs the split methods of a generated class over a signal array of the
+     * calling thread.
+     */
+    static final class SplitLaneEvaluator implements LaneEvaluator {
+        
+        private final CircuitPlan plan;
+        private final Consumer<long[]> code;
+        private final int numberOfMethods;
+        private final ThreadLocal<long[]> signals;
+        
+        SplitLaneEvaluator(final CircuitPlan plan,
+                           Consumer<long[]> code,
+                           int numberOfMethods) {
+            this.plan = plan;
+            this.code = code;
+            this.numberOfMethods = numberOfMethods;
+            this.signals = new ThreadLocal<long[]>() {
+                @Override
+                protected long[] initialValue() {
+                    return new long[plan.getNumberOfSignals()];
+                }
+            };
+        }
+        
+        /**
+         * Returns the number of generated methods evaluating the gates.
+         *
+         * @return the number of methods.
+         */
+        int getNumberOfMethods() {
+            return numberOfMethods;
+        }
+        
+        @Override
+        public void evaluate(long[] inputLanes, long[] outputLanes) {
+            long[] signals = this.signals.get();
+            System.arraycopy(inputLanes,
+                             0,
+                             signals,
+                             0,
+                             plan.getNumberOfInputs());
+            code.accept(signals);
+            
+            for (int i = 0; i < plan.getNumberOfOutputs(); ++i) {
+                outputLanes[i] = signals[plan.getOutputSignal(i)];
+            }
+        }
+    }
+    
+    /**
+     * Defines exactly one generated class.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+        
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+        
+        Class<?> define(String className, byte[] classFile) {
+            return defineClass(className, classFile, 0, classFile.length);
+        }
+    }
+}
@@ -0,0 +1,644 @@
+package net.coderodde.circuits;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class evaluates a circuit saved by {@link Circuit#save(Path)} directly
+ * over the memory-mapped netlist file. Mapping a file reads no more than its
+ * header and string table up front and copies none of the gate arrays; the
+ * operating system pages them in as the evaluation touches them and shares
+ * the pages between all the processes mapping the same file. A mapped circuit
+ * owns its signal tables and register states, so it is not thread-safe; each
+ * thread should map a circuit of its own.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class MappedCircuit {
+    
+    private final String name;
+    
+    /**
+     * The hierarchical name of each register.
+     */
+    private final List<String> registerNames;
+    
+    private final int numberOfInputs;
+    private final int numberOfRegisters;
+    private final int numberOfGates;
+    private final int numberOfOutputs;
+    
+    private final long[] initialRegisters;
+    
+    /**
+     * The views of the mapped gate arrays.
+     */
+    private final ByteBuffer opcodes;
+    private final IntBuffer operands1;
+    private final IntBuffer operands2;
+    private final IntBuffer operands3;
+    private final IntBuffer outputSignals;
+    
+    /**
+     * The signal table. The first entries hold the input pins, followed by
+     * the registers.
+     */
+    private final boolean[] signals;
+    
+    /**
+     * The signal table for bit-parallel evaluation. Allocated on first use.
+     */
+    private long[] laneSignals;
+    
+    /**
+     * The states of the registers, packed 64 per word.
+     */
+    private long[] registers;
+    
+    private long[] nextRegisters;
+    
+    private MappedCircuit(ByteBuffer buffer, long fileSize) throws IOException {
+        if (fileSize < NetlistFormat.HEADER_SIZE) {
+            throw new IOException("Not a netlist file: too short.");
+        }
+        
+        if (buffer.getInt(0) != NetlistFormat.MAGIC) {
+            throw new IOException("Not a netlist file: bad magic number.");
+        }
+        
+        int version = buffer.getInt(4);
+        
+        if (version != NetlistFormat.VERSION) {
+            throw new IOException(
+                    "Unsupported netlist format version: " + version);
+        }
+        
+        this.numberOfInputs = buffer.getInt(8);
+        this.numberOfRegisters = buffer.getInt(12);
+        this.numberOfGates = buffer.getInt(16);
+        this.numberOfOutputs = buffer.getInt(20);
+        int stringTableLength = buffer.getInt(24);
+        
+        if (numberOfRegisters < 0
+                || numberOfInputs <= numberOfRegisters
+                || numberOfGates < 0
+                || numberOfInputs > Integer.MAX_VALUE - numberOfGates
+                || numberOfOutputs <= numberOfRegisters
+                || stringTableLength < 0) {
+            throw new IOException("Corrupted netlist header.");
+        }
+        
+        long[] offsets = NetlistFormat.computeOffsets(numberOfRegisters,
+                                                      numberOfGates,
+                                                      numberOfOutputs,
+                                                      stringTableLength);
+        
+        if (fileSize < offsets[NetlistFormat.END]) {
+            throw new IOException(
+                    "Truncated netlist file: " + fileSize + " bytes, " +
+                    offsets[NetlistFormat.END] + " expected.");
+        }
+        
+        List<String> strings =
+                readStrings(NetlistFormat.slice(
+                        buffer,
+                        offsets[NetlistFormat.STRING_TABLE],
+                        stringTableLength));
+        
+        if (strings.size() != numberOfRegisters + 1) {
+            throw new IOException(
+                    "Corrupted string table: " + strings.size() +
+                    " strings, " + (numberOfRegisters + 1) + " expected.");
+        }
+        
+        this.name = strings.get(0);
+        this.registerNames =
+                Collections.unmodifiableList(strings.subList(1,
+                                                             strings.size()));
+        this.initialRegisters = new long[(numberOfRegisters + 63) >>> 6];
+        NetlistFormat.slice(buffer,
+                            offsets[NetlistFormat.REGISTERS],
+                            8L * initialRegisters.length)
+                     .asLongBuffer()
+                     .get(initialRegisters);
+        
+        this.opcodes = NetlistFormat.slice(buffer,
+                                           offsets[NetlistFormat.OPCODES],
+                                           numberOfGates);
+        this.operands1 = sliceInts(buffer,
+                                   offsets[NetlistFormat.OPERANDS1],
+                                   numberOfGates);
+        this.operands2 = sliceInts(buffer,
+                                   offsets[NetlistFormat.OPERANDS2],
+                                   numberOfGates);
+        this.operands3 = sliceInts(buffer,
+                                   offsets[NetlistFormat.OPERANDS3],
+                                   numberOfGates);
+        this.outputSignals = sliceInts(buffer,
+                                       offsets[NetlistFormat.OUTPUT_SIGNALS],
+                                       numberOfOutputs);
+        checkGates();
+        
+        this.signals = new boolean[numberOfInputs + numberOfGates];
+        this.registers = new long[initialRegisters.length];
+        this.nextRegisters = new long[initialRegisters.length];
+        resetRegisters();
+    }
+    
+    /**
+     * Maps a netlist file written by {@link Circuit#save(Path)}. The file
+     * stays mapped until the returned object is garbage collected, even
+     * though its channel is closed before returning.
+     *
+     * @param path the path of the netlist file.
+     * @return the mapped circuit.
+     * @throws IOException if an I/O error occurs or the file is not a valid
+     *                     netlist file.
+     */
+    public static MappedCircuit map(Path path) throws IOException {
+        Objects.requireNonNull(path, "The path is null.");
+        
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            long size = channel.size();
+            
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("The netlist file is too large.");
+            }
+            
+            MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedCircuit(buffer, size);
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getNumberOfInputPins() {
+        return numberOfInputs - numberOfRegisters;
+    }
+    
+    public int getNumberOfOutputPins() {
+        return numberOfOutputs - numberOfRegisters;
+    }
+    
+    public int getNumberOfRegisters() {
+        return numberOfRegisters;
+    }
+    
+    public int getNumberOfGates() {
+        return numberOfGates;
+    }
+    
+    /**
+     * Returns the hierarchical name of a register, such as
+     * {@code "counter.bit0"}.
+     *
+     * @param register the index of the register.
+     * @return the name of the register.
+     */
+    public String getRegisterName(int register) {
+        checkRegisterIndex(register);
+        return registerNames.get(register);
+    }
+    
+    /**
+     * Sets the states of all the input pins. Missing bits are set to zero and
+     * overflowing bits are ignored.
+     *
+     * @param bits the bit vector.
+     */
+    public void setInputBits(boolean... bits) {
+        Objects.requireNonNull(bits, "The input bit array is null.");
+        int numberOfInputPins = getNumberOfInputPins();
+        int length = Math.min(bits.length, numberOfInputPins);
+        System.arraycopy(bits, 0, signals, 0, length);
+        
+        for (int i = length; i < numberOfInputPins; ++i) {
+            signals[i] = false;
+        }
+    }
+    
+    /**
+     * Performs a single cycle. The registers keep their states.
+     */
+    public void doCycle() {
+        evaluate(signals);
+    }
+    
+    /**
+     * Performs a single cycle without allocating any memory.
+     *
+     * @param inputBits  the input bit vector.
+     * @param outputBits the array for storing the output bit vector.
+     */
+    public void doCycle(boolean[] inputBits, boolean[] outputBits) {
+        setInputBits(inputBits);
+        doCycle();
+        getOutputBits(outputBits);
+    }
+    
+    /**
+     * Runs {@code cycles} clock cycles over the current input pins just as
+     * {@link CircuitEvaluator#clock(int)} does.
+     *
+     * @param cycles the number of clock cycles.
+     */
+    public void clock(int cycles) {
+        if (cycles < 0) {
+            throw new IllegalArgumentException(
+                    "Negative number of cycles: " + cycles);
+        }
+        
+        evaluate(signals);
+        
+        for (int cycle = 0; cycle < cycles; ++cycle) {
+            latchRegisters();
+            evaluate(signals);
+        }
+    }
+    
+    /**
+     * Stores the output of the most recent cycle in {@code bits}.
+     *
+     * @param bits the array for storing the output bit vector.
+     */
+    public void getOutputBits(boolean[] bits) {
+        Objects.requireNonNull(bits, "The output bit array is null.");
+        
+        if (bits.length < getNumberOfOutputPins()) {
+            throw new IllegalArgumentException(
+                    "The output bit array is too short (" + bits.length +
+                    "). At least " + getNumberOfOutputPins() + " expected.");
+        }
+        
+        for (int i = 0; i < getNumberOfOutputPins(); ++i) {
+            bits[i] = signals[outputSignals.get(i)];
+        }
+    }
+    
+    /**
+     * Returns the state of a register.
+     *
+     * @param register the index of the register.
+     * @return the state of the register.
+     */
+    public boolean getRegisterBit(int register) {
+        checkRegisterIndex(register);
+        return (registers[register >>> 6] & (1L << register)) != 0L;
+    }
+    
+    /**
+     * Restores the initial states of all the registers.
+     */
+    public void resetRegisters() {
+        System.arraycopy(initialRegisters,
+                         0,
+                         registers,
+                         0,
+                         registers.length);
+        loadRegisters();
+    }
+    
+    /**
+     * Evaluates the circuit over 64 input vectors at once, with the lanes
+     * laid out as in {@link CircuitEvaluator#evaluateBatch(long[], long[])}.
+     *
+     * @param inputLanes  the input pin words.
+     * @param outputLanes the array for storing the output pin words.
+     */
+    public void evaluateBatch(long[] inputLanes, long[] outputLanes) {
+        Objects.requireNonNull(inputLanes, "The input lane array is null.");
+        Objects.requireNonNull(outputLanes, "The output lane array is null.");
+        int numberOfInputPins = getNumberOfInputPins();
+        
+        if (inputLanes.length < numberOfInputPins
+                || outputLanes.length < getNumberOfOutputPins()) {
+            throw new IllegalArgumentException(
+                    "The lane arrays are too short (" + inputLanes.length +
+                    ", " + outputLanes.length + "). At least " +
+                    numberOfInputPins + " input and " +
+                    getNumberOfOutputPins() + " output lanes expected.");
+        }
+        
+        if (laneSignals == null) {
+            laneSignals = new long[signals.length];
+        }
+        
+        System.arraycopy(inputLanes, 0, laneSignals, 0, numberOfInputPins);
+        
+        for (int i = 0; i < numberOfRegisters; ++i) {
+            laneSignals[numberOfInputPins + i] =
+                    signals[numberOfInputPins + i] ? -1L : 0L;
+        }
+        
+        evaluate(laneSignals);
+        
+        for (int i = 0; i < getNumberOfOutputPins(); ++i) {
+            outputLanes[i] = laneSignals[outputSignals.get(i)];
+        }
+    }
+    
+    /**
+     * Copies the mapped netlist into a locked circuit. The returned circuit
+     * holds no gates: it may be evaluated, saved and instantiated, but not
+     * copied, flattened or modified.
+     *
+     * @return the locked circuit.
+     */
+    public Circuit toCircuit() {
+        byte[] opcodes = new byte[numberOfGates];
+        int[] operands1 = new int[numberOfGates];
+        int[] operands2 = new int[numberOfGates];
+        int[] operands3 = new int[numberOfGates];
+        int[] outputSignals = new int[numberOfOutputs];
+        this.opcodes.duplicate().get(opcodes);
+        this.operands1.duplicate().get(operands1);
+        this.operands2.duplicate().get(operands2);
+        this.operands3.duplicate().get(operands3);
+        this.outputSignals.duplicate().get(outputSignals);
+        
+        // The gates are stored in level order, so the plan keeps them as is.
+        CircuitPlan plan = new CircuitPlan(numberOfInputs,
+                                           numberOfRegisters,
+                                           opcodes,
+                                           operands1,
+                                           operands2,
+                                           operands3,
+                                           outputSignals,
+                                           initialRegisters);
+        return Circuit.fromPlan(name, plan, registerNames);
+    }
+    
+    /**
+     * Evaluates all the gates reading the opcodes and the operands straight
+     * from the mapped buffers.
+     */
+    private void evaluate(boolean[] signals) {
+        ByteBuffer opcodes = this.opcodes;
+        IntBuffer operands1 = this.operands1;
+        IntBuffer operands2 = this.operands2;
+        IntBuffer operands3 = this.operands3;
+        int signal = numberOfInputs;
+        
+        for (int gate = 0; gate < numberOfGates; ++gate, ++signal) {
+            switch (opcodes.get(gate)) {
+                case CircuitPlan.NOT:
+                    signals[signal] = !signals[operands1.get(gate)];
+                    break;
+                
+                case CircuitPlan.AND:
+                    signals[signal] = signals[operands1.get(gate)]
+                                    & signals[operands2.get(gate)];
+                    break;
+                
+                case CircuitPlan.OR:
+                    signals[signal] = signals[operands1.get(gate)]
+                                    | signals[operands2.get(gate)];
+                    break;
+                
+                case CircuitPlan.XOR:
+                    signals[signal] = signals[operands1.get(gate)]
+                                    ^ signals[operands2.get(gate)];
+                    break;
+                
+                case CircuitPlan.XNOR:
+                    signals[signal] = signals[operands1.get(gate)]
+                                   == signals[operands2.get(gate)];
+                    break;
+                
+                case CircuitPlan.NAND:
+                    signals[signal] = !(signals[operands1.get(gate)]
+                                      & signals[operands2.get(gate)]);
+                    break;
+                
+                case CircuitPlan.NOR:
+                    signals[signal] = !(signals[operands1.get(gate)]
+                                      | signals[operands2.get(gate)]);
+                    break;
+                
+                case CircuitPlan.MUX:
+                    signals[signal] = signals[operands3.get(gate)] ?
+                                      signals[operands2.get(gate)] :
+                                      signals[operands1.get(gate)];
+                    break;
+                
+                case CircuitPlan.FALSE:
+                    signals[signal] = false;
+                    break;
+                
+                default:
+                    signals[signal] = true;
+                    break;
+            }
+        }
+    }
+    
+    private void evaluate(long[] signals) {
+        ByteBuffer opcodes = this.opcodes;
+        IntBuffer operands1 = this.operands1;
+        IntBuffer operands2 = this.operands2;
+        IntBuffer operands3 = this.operands3;
+        int signal = numberOfInputs;
+        
+        for (int gate = 0; gate < numberOfGates; ++gate, ++signal) {
+            switch (opcodes.get(gate)) {
+                case CircuitPlan.NOT:
+                    signals[signal] = ~signals[operands1.get(gate)];
+                    break;
+                
+                case CircuitPlan.AND:
+                    signals[signal] = signals[operands1.get(gate)]
+                                    & signals[operands2.get(gate)];
+                    break;
+                
+                case CircuitPlan.OR:
+                    signals[signal] = signals[operands1.get(gate)]
+                                    | signals[operands2.get(gate)];
+                    break;
+                
+                case CircuitPlan.XOR:
+                    signals[signal] = signals[operands1.get(gate)]
+                                    ^ signals[operands2.get(gate)];
+                    break;
+                
+                case CircuitPlan.XNOR:
+                    signals[signal] = ~(signals[operands1.get(gate)]
+                                      ^ signals[operands2.get(gate)]);
+                    break;
+                
+                case CircuitPlan.NAND:
+                    signals[signal] = ~(signals[operands1.get(gate)]
+                                      & signals[operands2.get(gate)]);
+                    break;
+                
+                case CircuitPlan.NOR:
+                    signals[signal] = ~(signals[operands1.get(gate)]
+                                      | signals[operands2.get(gate)]);
+                    break;
+                
+                case CircuitPlan.MUX: {
+                    long word1 = signals[operands1.get(gate)];
+                    long word2 = signals[operands2.get(gate)];
+                    signals[signal] = word1 ^
+                                      ((word1 ^ word2) &
+                                       signals[operands3.get(gate)]);
+                    break;
+                }
+                
+                case CircuitPlan.FALSE:
+                    signals[signal] = 0L;
+                    break;
+                
+                default:
+                    signals[signal] = -1L;
+                    break;
+            }
+        }
+    }
+    
+    private void latchRegisters() {
+        int firstRegisterOutput = getNumberOfOutputPins();
+        long[] nextRegisters = this.nextRegisters;
+        Arrays.fill(nextRegisters, 0L);
+        
+        for (int i = 0; i < numberOfRegisters; ++i) {
+            if (signals[outputSignals.get(firstRegisterOutput + i)]) {
+                nextRegisters[i >>> 6] |= 1L << i;
+            }
+        }
+        
+        this.nextRegisters = registers;
+        this.registers = nextRegisters;
+        loadRegisters();
+    }
+    
+    private void loadRegisters() {
+        int firstRegister = getNumberOfInputPins();
+        
+        for (int i = 0; i < numberOfRegisters; ++i) {
+            signals[firstRegister + i] =
+                    (registers[i >>> 6] & (1L << i)) != 0L;
+        }
+    }
+    
+    /**
+     * Checks once that every gate has a known opcode and refers only to the
+     * inputs and the preceding gates, so that the evaluation loops need no
+     * checks of their own.
+     */
+    private void checkGates() throws IOException {
+        for (int gate = 0; gate < numberOfGates; ++gate) {
+            int arity;
+            
+            switch (opcodes.get(gate)) {
+                case CircuitPlan.FALSE:
+                case CircuitPlan.TRUE:
+                    arity = 0;
+                    break;
+                
+                case CircuitPlan.NOT:
+                    arity = 1;
+                    break;
+                
+                case CircuitPlan.MUX:
+                    arity = 3;
+                    break;
+                
+                case CircuitPlan.AND:
+                case CircuitPlan.OR:
+                case CircuitPlan.XOR:
+                case CircuitPlan.XNOR:
+                case CircuitPlan.NAND:
+                case CircuitPlan.NOR:
+                    arity = 2;
+                    break;
+                
+                default:
+                    throw new IOException(
+                            "Unknown opcode " + opcodes.get(gate) +
+                            " of gate " + gate + ".");
+            }
+            
+            checkOperand(gate, operands1.get(gate), arity >= 1);
+            checkOperand(gate, operands2.get(gate), arity >= 2);
+            checkOperand(gate, operands3.get(gate), arity >= 3);
+        }
+        
+        for (int i = 0; i < numberOfOutputs; ++i) {
+            int signal = outputSignals.get(i);
+            
+            if (signal < 0 || signal >= numberOfInputs + numberOfGates) {
+                throw new IOException(
+                        "Output " + i + " refers to a nonexistent signal " +
+                        signal + ".");
+            }
+        }
+    }
+    
+    private void checkOperand(int gate, int operand, boolean required)
+            throws IOException {
+        boolean valid = required ?
+                        operand >= 0 && operand < numberOfInputs + gate :
+                        operand == CircuitPlan.NO_OPERAND;
+        
+        if (!valid) {
+            throw new IOException(
+                    "Gate " + gate + " has an invalid operand " + operand +
+                    ".");
+        }
+    }
+    
+    private void checkRegisterIndex(int register) {
+        if (register < 0 || register >= numberOfRegisters) {
+            throw new IndexOutOfBoundsException(
+                    "Register index " + register + " is out of range [0, " +
+                    numberOfRegisters + ").");
+        }
+    }
+    
+    private static IntBuffer sliceInts(ByteBuffer buffer,
+                                       long offset,
+                                       int length) {
+        return NetlistFormat.slice(buffer, offset, 4L * length).asIntBuffer();
+    }
+    
+    private static List<String> readStrings(ByteBuffer table)
+            throws IOException {
+        List<String> strings = new ArrayList<>();
+        
+        while (table.hasRemaining()) {
+            if (table.remaining() < 4) {
+                throw new IOException("Corrupted string table.");
+            }
+            
+            int length = table.getInt();
+            
+            if (length < 0 || length > table.remaining()) {
+                throw new IOException("Corrupted string table.");
+            }
+            
+            byte[] bytes = new byte[length];
+            table.get(bytes);
+            strings.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        
+        return strings;
+    }
+}
@@ -0,0 +1,188 @@
+package net.coderodde.circuits;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * This class defines the binary netlist format of locked circuits. A file
+ * holds the compiled plan of a circuit, so that loading it rebuilds no
+ * components. All the numbers are little-endian, and each section starts at
+ * a multiple of 8 bytes, so that the sections may be viewed in place as
+ * arrays of {@code int}s and {@code long}s. The layout of version 1 is:
+ * <ol>
+ *   <li>the header of {@link #HEADER_SIZE} bytes: the magic number, the
+ *       version, the numbers of inputs, registers, gates and outputs of the
+ *       plan, the length of the string table in bytes and a reserved zero;
+ *   </li>
+ *   <li>the string table: the name of the circuit followed by the name of
+ *       each register, each as its length in bytes and its UTF-8 bytes;</li>
+ *   <li>the packed initial states of the registers as {@code long}s;</li>
+ *   <li>the first, the second and the third operand of each gate as
+ *       {@code int}s;</li>
+ *   <li>the signal of each output as {@code int}s;</li>
+ *   <li>the opcode of each gate as a byte.</li>
+ * </ol>
+ * The gates are stored in the level order of the plan.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class NetlistFormat {
+    
+    /**
+     * The magic number, "CRCN" in ASCII when read as bytes.
+     */
+    static final int MAGIC = 0x4E435243;
+    
+    static final int VERSION = 1;
+    
+    static final int HEADER_SIZE = 32;
+    
+    static final int STRING_TABLE = 0;
+    static final int REGISTERS = 1;
+    static final int OPERANDS1 = 2;
+    static final int OPERANDS2 = 3;
+    static final int OPERANDS3 = 4;
+    static final int OUTPUT_SIGNALS = 5;
+    static final int OPCODES = 6;
+    
+    /**
+     * The index of the end of the file in the array returned by
+     * {@link #computeOffsets(int, int, int, int)}.
+     */
+    static final int END = 7;
+    
+    private NetlistFormat() {}
+    
+    /**
+     * Computes the offset of each section of a netlist file.
+     *
+     * @return the offsets indexed by the section constants, followed by the
+     *         size of the file.
+     */
+    static long[] computeOffsets(int numberOfRegisters,
+                                 int numberOfGates,
+                                 int numberOfOutputs,
+                                 int stringTableLength) {
+        long[] offsets = new long[END + 1];
+        offsets[STRING_TABLE] = HEADER_SIZE;
+        offsets[REGISTERS] = align(offsets[STRING_TABLE] + stringTableLength);
+        offsets[OPERANDS1] = offsets[REGISTERS] +
+                             8L * ((numberOfRegisters + 63) >>> 6);
+        offsets[OPERANDS2] = align(offsets[OPERANDS1] + 4L * numberOfGates);
+        offsets[OPERANDS3] = align(offsets[OPERANDS2] + 4L * numberOfGates);
+        offsets[OUTPUT_SIGNALS] =
+                align(offsets[OPERANDS3] + 4L * numberOfGates);
+        offsets[OPCODES] =
+                align(offsets[OUTPUT_SIGNALS] + 4L * numberOfOutputs);
+        offsets[END] = offsets[OPCODES] + numberOfGates;
+        return offsets;
+    }
+    
+    /**
+     * Writes a plan into a netlist file.
+     *
+     * @param path          the path of the file.
+     * @param name          the name of the circuit.
+     * @param plan          the plan of the circuit.
+     * @param registerNames the name of each register of the plan.
+     * @throws IOException if an I/O error occurs.
+     */
+    static void write(Path path,
+                      String name,
+                      CircuitPlan plan,
+                      List<String> registerNames) throws IOException {
+        byte[][] strings = new byte[registerNames.size() + 1][];
+        strings[0] = name.getBytes(StandardCharsets.UTF_8);
+        int stringTableLength = 4 + strings[0].length;
+        
+        for (int i = 0; i < registerNames.size(); ++i) {
+            strings[i + 1] =
+                    registerNames.get(i).getBytes(StandardCharsets.UTF_8);
+            stringTableLength += 4 + strings[i + 1].length;
+        }
+        
+        int numberOfGates = plan.getNumberOfGates();
+        long[] offsets = computeOffsets(plan.getNumberOfRegisters(),
+                                        numberOfGates,
+                                        plan.getNumberOfOutputs(),
+                                        stringTableLength);
+        
+        if (offsets[END] > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "The circuit \"" + name + "\" is too large for a " +
+                    "netlist file.");
+        }
+        
+        try (FileChannel channel =
+                FileChannel.open(path,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING,
+                                 StandardOpenOption.READ,
+                                 StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_WRITE,
+                                0L,
+                                offsets[END]);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC)
+                  .putInt(VERSION)
+                  .putInt(plan.getNumberOfInputs())
+                  .putInt(plan.getNumberOfRegisters())
+                  .putInt(numberOfGates)
+                  .putInt(plan.getNumberOfOutputs())
+                  .putInt(stringTableLength)
+                  .putInt(0);
+            
+            for (byte[] string : strings) {
+                buffer.putInt(string.length).put(string);
+            }
+            
+            long[] registers = new long[(plan.getNumberOfRegisters() + 63)
+                                        >>> 6];
+            plan.getInitialRegisters(registers);
+            buffer.position((int) offsets[REGISTERS]);
+            buffer.asLongBuffer().put(registers);
+            
+            for (int gate = 0; gate < numberOfGates; ++gate) {
+                buffer.putInt((int) offsets[OPERANDS1] + 4 * gate,
+                              plan.getOperand1(gate));
+                buffer.putInt((int) offsets[OPERANDS2] + 4 * gate,
+                              plan.getOperand2(gate));
+                buffer.putInt((int) offsets[OPERANDS3] + 4 * gate,
+                              plan.getOperand3(gate));
+                buffer.put((int) offsets[OPCODES] + gate,
+                           plan.getOpcode(gate));
+            }
+            
+            for (int i = 0; i < plan.getNumberOfOutputs(); ++i) {
+                buffer.putInt((int) offsets[OUTPUT_SIGNALS] + 4 * i,
+                              plan.getOutputSignal(i));
+            }
+            
+            buffer.force();
+        }
+    }
+    
+    /**
+     * Returns a view of {@code length} bytes of {@code buffer} starting at
+     * {@code offset}, in little-endian order.
+     */
+    static ByteBuffer slice(ByteBuffer buffer, long offset, long length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position((int) offset);
+        duplicate.limit((int) (offset + length));
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    private static long align(long offset) {
+        return (offset + 7L) & ~7L;
+    }
+}
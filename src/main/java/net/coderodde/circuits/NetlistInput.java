@@ -0,0 +1,222 @@
+package net.coderodde.circuits;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class reads a netlist file byte by byte through a buffer of its own,
+ * so that the parsers need neither a {@code Reader} nor a {@code String} per
+ * line. It counts the lines for the error messages.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class NetlistInput {
+    
+    static final int EOF = -1;
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int lineNumber = 1;
+    
+    /**
+     * The buffer for collecting the bytes of a token.
+     */
+    private byte[] token = new byte[64];
+    
+    NetlistInput(InputStream in) {
+        this.in = in;
+    }
+    
+    int getLineNumber() {
+        return lineNumber;
+    }
+    
+    /**
+     * Returns the next byte without consuming it.
+     *
+     * @return the next byte or {@link #EOF}.
+     * @throws IOException if an I/O error occurs.
+     */
+    int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        
+        return buffer[position] & 0xFF;
+    }
+    
+    /**
+     * Consumes the next byte.
+     *
+     * @return the next byte or {@link #EOF}.
+     * @throws IOException if an I/O error occurs.
+     */
+    int read() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        
+        int b = buffer[position++] & 0xFF;
+        
+        if (b == '\n') {
+            ++lineNumber;
+        }
+        
+        return b;
+    }
+    
+    /**
+     * Skips the spaces and the tabs.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    void skipBlanks() throws IOException {
+        int b = peek();
+        
+        while (b == ' ' || b == '\t' || b == '\r') {
+            read();
+            b = peek();
+        }
+    }
+    
+    /**
+     * Skips the rest of the current line including its line break.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    void skipLine() throws IOException {
+        int b = read();
+        
+        while (b != '\n' && b != EOF) {
+            b = read();
+        }
+    }
+    
+    /**
+     * Reads an unsigned decimal number after skipping the blanks.
+     *
+     * @return the number.
+     * @throws IOException if there is no number or it does not fit in an
+     *                     {@code int}.
+     */
+    int readUnsigned() throws IOException {
+        skipBlanks();
+        int b = peek();
+        
+        if (b < '0' || b > '9') {
+            throw error("A number expected.");
+        }
+        
+        long number = 0L;
+        
+        while (b >= '0' && b <= '9') {
+            number = 10L * number + (b - '0');
+            
+            if (number > Integer.MAX_VALUE) {
+                throw error("The number is too large.");
+            }
+            
+            read();
+            b = peek();
+        }
+        
+        return (int) number;
+    }
+    
+    /**
+     * Reads the next token, i.e., the longest run of bytes other than blanks
+     * and line breaks, after skipping the blanks.
+     *
+     * @param delimiter a further byte ending the token, or {@link #EOF}.
+     * @return the token, or {@code null} if the line has no more tokens.
+     * @throws IOException if an I/O error occurs.
+     */
+    String readToken(int delimiter) throws IOException {
+        skipBlanks();
+        int length = 0;
+        int b = peek();
+        
+        while (b != EOF && b != ' ' && b != '\t' && b != '\r' && b != '\n'
+                && b != delimiter) {
+            if (length == token.length) {
+                token = Arrays.copyOf(token, 2 * length);
+            }
+            
+            token[length++] = (byte) read();
+            b = peek();
+        }
+        
+        return length == 0 ?
+               null :
+               new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Reads the rest of the current line, without the line break.
+     *
+     * @return the rest of the line.
+     * @throws IOException if an I/O error occurs.
+     */
+    String readLine() throws IOException {
+        int length = 0;
+        int b = read();
+        
+        while (b != '\n' && b != EOF) {
+            if (length == token.length) {
+                token = Arrays.copyOf(token, 2 * length);
+            }
+            
+            token[length++] = (byte) b;
+            b = read();
+        }
+        
+        return new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Consumes the byte {@code expected} after skipping the blanks. The end
+     * of the file passes for a line break.
+     *
+     * @param expected the expected byte.
+     * @throws IOException if the next byte is not {@code expected}.
+     */
+    void expect(int expected) throws IOException {
+        skipBlanks();
+        int b = read();
+        
+        if (b != expected && !(expected == '\n' && b == EOF)) {
+            throw error(expected == '\n' ?
+                        "The end of the line expected." :
+                        "'" + (char) expected + "' expected.");
+        }
+    }
+    
+    /**
+     * Creates an exception pointing at the current line.
+     *
+     * @param message the error message.
+     * @return the exception to throw.
+     */
+    IOException error(String message) {
+        return new IOException("Line " + lineNumber + ": " + message);
+    }
+    
+    private boolean fill() throws IOException {
+        int count = in.read(buffer, 0, buffer.length);
+        
+        if (count <= 0) {
+            return false;
+        }
+        
+        position = 0;
+        limit = count;
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package net.coderodde.circuits;
+
+/**
+ * This class implements a {@link LaneEvaluator} interpreting a 
+ * {@link CircuitPlan}. Each thread evaluates over a signal table of its own.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class PlanLaneEvaluator implements LaneEvaluator {
+    
+    private final CircuitPlan plan;
+    private final ThreadLocal<long[]> signals;
+    
+    PlanLaneEvaluator(final CircuitPlan plan) {
+        this.plan = plan;
+        this.signals = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                return new long[plan.getNumberOfSignals()];
+            }
+        };
+    }
+    
+    @Override
+    public void evaluate(long[] inputLanes, long[] outputLanes) {
+        long[] signals = this.signals.get();
+        System.arraycopy(inputLanes, 0, signals, 0, plan.getNumberOfInputs());
+        plan.evaluate(signals);
+        
+        for (int i = 0; i < plan.getNumberOfOutputs(); ++i) {
+            outputLanes[i] = signals[plan.getOutputSignal(i)];
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package net.coderodde.circuits;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class computes the truth table of a locked circuit in parallel. The
+ * input space is split recursively into aligned blocks of rows; each leaf block
+ * is walked in Gray-code order by an {@link IncrementalSimulator}, so that
+ * exactly one input pin flips between two consecutive rows and only the
+ * affected gates are re-evaluated. As each leaf block spans whole words of the
+ * result bitmaps, no two tasks ever write to the same word.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TruthTableGenerator extends RecursiveAction {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * The maximum number of input pins supported.
+     */
+    static final int MAXIMUM_NUMBER_OF_INPUTS = 30;
+    
+    /**
+     * The binary logarithm of the number of rows processed by a single leaf
+     * task.
+     */
+    private static final int LEAF_ROW_BITS = 14;
+    
+    private final CircuitPlan plan;
+    
+    /**
+     * {@code table[o]} is the bitmap of the output pin {@code o}.
+     */
+    private final long[][] table;
+    
+    /**
+     * The first row of the block of this task.
+     */
+    private final int firstRow;
+    
+    /**
+     * The binary logarithm of the number of rows in the block of this task.
+     */
+    private final int rowBits;
+    
+    private TruthTableGenerator(CircuitPlan plan,
+                                long[][] table,
+                                int firstRow,
+                                int rowBits) {
+        this.plan = plan;
+        this.table = table;
+        this.firstRow = firstRow;
+        this.rowBits = rowBits;
+    }
+    
+    /**
+     * Computes the truth table of the plan. Bit {@code r & 63} of the word
+     * {@code table[o][r >>> 6]} is the value of the output pin {@code o} on
+     * the row {@code r}, where the bit {@code i} of {@code r} is the value of
+     * the input pin {@code i}.
+     *
+     * @param plan the plan to tabulate.
+     * @param pool the pool to run the tasks in.
+     * @return the truth table.
+     */
+    static long[][] generate(CircuitPlan plan, ForkJoinPool pool) {
+        int numberOfInputs = plan.getNumberOfInputs();
+        
+        if (numberOfInputs > MAXIMUM_NUMBER_OF_INPUTS) {
+            throw new IllegalStateException(
+                    "Too many input pins (" + numberOfInputs + ") for a " +
+                    "truth table. At most " + MAXIMUM_NUMBER_OF_INPUTS +
+                    " supported.");
+        }
+        
+        int numberOfWords = Math.max(1, (1 << numberOfInputs) >>> 6);
+        long[][] table = new long[plan.getNumberOfOutputs()][numberOfWords];
+        pool.invoke(new TruthTableGenerator(plan, table, 0, numberOfInputs));
+        return table;
+    }
+    
+    @Override
+    protected void compute() {
+        if (rowBits <= LEAF_ROW_BITS) {
+            computeDirectly();
+            return;
+        }
+        
+        int halfRowBits = rowBits - 1;
+        invokeAll(new TruthTableGenerator(plan, table, firstRow, halfRowBits),
+                  new TruthTableGenerator(plan,
+                                          table,
+                                          firstRow | (1 << halfRowBits),
+                                          halfRowBits));
+    }
+    
+    private void computeDirectly() {
+        IncrementalSimulator simulator = new IncrementalSimulator(plan);
+        
+        for (int i = rowBits; i < plan.getNumberOfInputs(); ++i) {
+            simulator.setInputBit(i, (firstRow & (1 << i)) != 0);
+        }
+        
+        simulator.doCycle();
+        
+        int numberOfRows = 1 << rowBits;
+        int row = firstRow;
+        
+        for (int step = 1; ; ++step) {
+            record(simulator, row);
+            
+            if (step == numberOfRows) {
+                return;
+            }
+            
+            // The Gray code of 'step' differs from that of 'step - 1' at the
+            // position of the lowest set bit of 'step'.
+            int inputPin = Integer.numberOfTrailingZeros(step);
+            row ^= 1 << inputPin;
+            simulator.setInputBit(inputPin, (row & (1 << inputPin)) != 0);
+            simulator.doCycle();
+        }
+    }
+    
+    private void record(IncrementalSimulator simulator, int row) {
+        for (int i = 0; i < table.length; ++i) {
+            if (simulator.getOutputBit(i)) {
+                table[i][row >>> 6] |= 1L << row;
+            }
+        }
+    }
+}
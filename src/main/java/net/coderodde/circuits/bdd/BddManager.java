@@ -0,0 +1,710 @@
+package net.coderodde.circuits.bdd;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class implements a manager of reduced ordered binary decision diagrams
+ * (BDDs). A BDD is referred to by the integer index of its root node; the node
+ * {@link #FALSE} is the {@code 0}-terminal and {@link #TRUE} the
+ * {@code 1}-terminal. As all the nodes are unique, two functions are equal if
+ * and only if their root nodes are equal.
+ * <p>
+ * The nodes live in primitive arrays. The unique table chains the nodes of
+ * each bucket through an array of successor indices, and the computed table
+ * is a direct-mapped cache of the recent operation results. The variables are
+ * ordered by their indices: the variable {@code 0} is at the top.
+ * <p>
+ * The nodes unreachable from the nodes protected by {@link #ref(int)} may be
+ * reclaimed at the beginning of any subsequent operation, so the caller must
+ * protect each result to be kept. The operands of an operation are protected
+ * for its duration, and the nodes of the single variables are never 
+ * reclaimed.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class BddManager {
+    
+    /**
+     * The node of the constant {@code false}.
+     */
+    public static final int FALSE = 0;
+    
+    /**
+     * The node of the constant {@code true}.
+     */
+    public static final int TRUE = 1;
+    
+    private static final int DEFAULT_INITIAL_CAPACITY = 1 << 12;
+    private static final int MINIMUM_CACHE_SIZE = 1 << 10;
+    private static final int MAXIMUM_CACHE_SIZE = 1 << 22;
+    private static final int NIL = -1;
+    
+    private static final int ITE = 0;
+    private static final int RESTRICT_LOW = 1;
+    private static final int RESTRICT_HIGH = 2;
+    private static final int EXISTS = 3;
+    
+    private final int numberOfVariables;
+    
+    /**
+     * The variable of each node; {@code numberOfVariables} for the terminals
+     * and {@link #NIL} for the free nodes.
+     */
+    private int[] variables;
+    private int[] lows;
+    private int[] highs;
+    
+    /**
+     * The next node in the same unique table bucket, or in the free list.
+     */
+    private int[] nexts;
+    
+    /**
+     * The number of external references to each node.
+     */
+    private int[] refCounts;
+    
+    /**
+     * The node of each single variable, or {@link #NIL} if not created yet.
+     * These nodes are never reclaimed.
+     */
+    private final int[] variableNodes;
+    
+    private int[] buckets;
+    private int freeList;
+    private int numberOfFreeNodes;
+    
+    // The computed table.
+    private int[] cacheOperations;
+    private int[] cacheOperands1;
+    private int[] cacheOperands2;
+    private int[] cacheOperands3;
+    private int[] cacheResults;
+    
+    private int numberOfGarbageCollections;
+    
+    /**
+     * Constructs a manager over {@code numberOfVariables} variables.
+     *
+     * @param numberOfVariables the number of variables.
+     */
+    public BddManager(int numberOfVariables) {
+        this(numberOfVariables, DEFAULT_INITIAL_CAPACITY);
+    }
+    
+    /**
+     * Constructs a manager over {@code numberOfVariables} variables with room
+     * for about {@code initialCapacity} nodes.
+     *
+     * @param numberOfVariables the number of variables.
+     * @param initialCapacity   the initial capacity of the node table.
+     */
+    public BddManager(int numberOfVariables, int initialCapacity) {
+        if (numberOfVariables < 0) {
+            throw new IllegalArgumentException(
+                    "Negative number of variables: " + numberOfVariables);
+        }
+        
+        this.numberOfVariables = numberOfVariables;
+        this.variableNodes = new int[numberOfVariables];
+        Arrays.fill(variableNodes, NIL);
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 8));
+        this.variables = new int[capacity];
+        this.lows = new int[capacity];
+        this.highs = new int[capacity];
+        this.nexts = new int[capacity];
+        this.refCounts = new int[capacity];
+        this.buckets = new int[capacity];
+        Arrays.fill(buckets, NIL);
+        
+        for (int terminal = FALSE; terminal <= TRUE; ++terminal) {
+            variables[terminal] = numberOfVariables;
+            lows[terminal] = terminal;
+            highs[terminal] = terminal;
+        }
+        
+        freeList = NIL;
+        
+        for (int node = capacity - 1; node > TRUE; --node) {
+            addToFreeList(node);
+        }
+        
+        allocateCache(capacity);
+    }
+    
+    public int getNumberOfVariables() {
+        return numberOfVariables;
+    }
+    
+    /**
+     * Returns the number of nodes in use, including the terminals and the
+     * garbage not collected yet.
+     *
+     * @return the number of allocated nodes.
+     */
+    public int getNumberOfAllocatedNodes() {
+        return variables.length - numberOfFreeNodes;
+    }
+    
+    public int getNumberOfGarbageCollections() {
+        return numberOfGarbageCollections;
+    }
+    
+    /**
+     * Protects {@code node} and all the nodes below it from the garbage
+     * collection.
+     *
+     * @param node the node to protect.
+     * @return {@code node}.
+     */
+    public int ref(int node) {
+        checkNode(node);
+        ++refCounts[node];
+        return node;
+    }
+    
+    /**
+     * Withdraws one protection made by {@link #ref(int)}.
+     *
+     * @param node the node to release.
+     */
+    public void deref(int node) {
+        checkNode(node);
+        
+        if (refCounts[node] == 0) {
+            throw new IllegalStateException(
+                    "The node " + node + " is not referenced.");
+        }
+        
+        --refCounts[node];
+    }
+    
+    /**
+     * Returns the function being true if and only if the variable
+     * {@code variable} is true.
+     *
+     * @param variable the variable.
+     * @return the root node of the function.
+     */
+    public int variable(int variable) {
+        checkVariable(variable);
+        
+        if (variableNodes[variable] == NIL) {
+            beginOperation(FALSE, FALSE, FALSE);
+            variableNodes[variable] = makeNode(variable, FALSE, TRUE);
+        }
+        
+        return variableNodes[variable];
+    }
+    
+    public int getVariable(int node) {
+        checkNode(node);
+        return variables[node];
+    }
+    
+    public int getLow(int node) {
+        checkNode(node);
+        return lows[node];
+    }
+    
+    public int getHigh(int node) {
+        checkNode(node);
+        return highs[node];
+    }
+    
+    /**
+     * Computes "if {@code f} then {@code g} else {@code h}".
+     *
+     * @param f the condition.
+     * @param g the function where {@code f} holds.
+     * @param h the function where {@code f} does not hold.
+     * @return the root node of the result.
+     */
+    public int ite(int f, int g, int h) {
+        checkNode(f);
+        checkNode(g);
+        checkNode(h);
+        beginOperation(f, g, h);
+        return iteRecursive(f, g, h);
+    }
+    
+    public int not(int f) {
+        return ite(f, FALSE, TRUE);
+    }
+    
+    public int and(int f, int g) {
+        return ite(f, g, FALSE);
+    }
+    
+    public int or(int f, int g) {
+        return ite(f, TRUE, g);
+    }
+    
+    public int xor(int f, int g) {
+        checkNode(f);
+        checkNode(g);
+        beginOperation(f, g, FALSE);
+        return iteRecursive(f, iteRecursive(g, FALSE, TRUE), g);
+    }
+    
+    /**
+     * Computes the cofactor of {@code f} with {@code variable} fixed to
+     * {@code value}.
+     *
+     * @param f        the function.
+     * @param variable the variable to fix.
+     * @param value    the value of the variable.
+     * @return the root node of the cofactor.
+     */
+    public int restrict(int f, int variable, boolean value) {
+        checkNode(f);
+        checkVariable(variable);
+        beginOperation(f, FALSE, FALSE);
+        return restrictRecursive(f,
+                                 variable,
+                                 value ? RESTRICT_HIGH : RESTRICT_LOW);
+    }
+    
+    /**
+     * Quantifies {@code variable} existentially out of {@code f}, i.e.,
+     * computes the disjunction of both cofactors. Useful for the analysis of
+     * don't-care inputs: {@code f} does not depend on {@code variable} if and
+     * only if {@code exists(f, variable) == f}.
+     *
+     * @param f        the function.
+     * @param variable the variable to quantify out.
+     * @return the root node of the result.
+     */
+    public int exists(int f, int variable) {
+        checkNode(f);
+        checkVariable(variable);
+        beginOperation(f, FALSE, FALSE);
+        return existsRecursive(f, variable);
+    }
+    
+    /**
+     * Evaluates {@code f} on an assignment of all the variables.
+     *
+     * @param f          the function.
+     * @param assignment the value of each variable.
+     * @return the value of the function.
+     */
+    public boolean evaluate(int f, boolean[] assignment) {
+        checkNode(f);
+        
+        while (f > TRUE) {
+            f = assignment[variables[f]] ? highs[f] : lows[f];
+        }
+        
+        return f == TRUE;
+    }
+    
+    /**
+     * Counts the assignments of all the variables satisfying {@code f}.
+     *
+     * @param f the function.
+     * @return the number of satisfying assignments.
+     */
+    public BigInteger satCount(int f) {
+        checkNode(f);
+        Map<Integer, BigInteger> counts = new HashMap<>();
+        // The variables above the root are free; the terminals are at the
+        // level numberOfVariables.
+        return satCount(f, counts).shiftLeft(variables[f]);
+    }
+    
+    /**
+     * Returns an assignment satisfying {@code f}. The variables {@code f}
+     * does not depend on are set to {@code false}.
+     *
+     * @param f the function.
+     * @return a satisfying assignment, or {@code null} if {@code f} is
+     *         {@link #FALSE}.
+     */
+    public boolean[] anySat(int f) {
+        checkNode(f);
+        
+        if (f == FALSE) {
+            return null;
+        }
+        
+        boolean[] assignment = new boolean[numberOfVariables];
+        
+        while (f != TRUE) {
+            if (lows[f] != FALSE) {
+                f = lows[f];
+            } else {
+                assignment[variables[f]] = true;
+                f = highs[f];
+            }
+        }
+        
+        return assignment;
+    }
+    
+    /**
+     * Returns the number of nodes in the BDD rooted at {@code f}, including
+     * the terminals.
+     *
+     * @param f the root node.
+     * @return the number of nodes.
+     */
+    public int nodeCount(int f) {
+        checkNode(f);
+        boolean[] visited = new boolean[variables.length];
+        int[] stack = new int[variables.length];
+        int stackSize = 0;
+        int count = 0;
+        stack[stackSize++] = f;
+        visited[f] = true;
+        
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            ++count;
+            
+            if (node > TRUE) {
+                if (!visited[lows[node]]) {
+                    visited[lows[node]] = true;
+                    stack[stackSize++] = lows[node];
+                }
+                
+                if (!visited[highs[node]]) {
+                    visited[highs[node]] = true;
+                    stack[stackSize++] = highs[node];
+                }
+            }
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Reclaims all the nodes unreachable from the referenced nodes and clears
+     * the computed table.
+     */
+    public void collectGarbage() {
+        ++numberOfGarbageCollections;
+        boolean[] marks = new boolean[variables.length];
+        int[] stack = new int[variables.length];
+        int stackSize = 0;
+        marks[FALSE] = true;
+        marks[TRUE] = true;
+        
+        for (int node : variableNodes) {
+            if (node != NIL) {
+                marks[node] = true;
+            }
+        }
+        
+        for (int node = TRUE + 1; node < variables.length; ++node) {
+            if (refCounts[node] > 0 && !marks[node]) {
+                marks[node] = true;
+                stack[stackSize++] = node;
+            }
+            
+            while (stackSize > 0) {
+                int current = stack[--stackSize];
+                
+                if (!marks[lows[current]]) {
+                    marks[lows[current]] = true;
+                    stack[stackSize++] = lows[current];
+                }
+                
+                if (!marks[highs[current]]) {
+                    marks[highs[current]] = true;
+                    stack[stackSize++] = highs[current];
+                }
+            }
+        }
+        
+        Arrays.fill(buckets, NIL);
+        freeList = NIL;
+        numberOfFreeNodes = 0;
+        
+        for (int node = variables.length - 1; node > TRUE; --node) {
+            if (marks[node]) {
+                insertIntoBucket(node);
+            } else {
+                addToFreeList(node);
+            }
+        }
+        
+        Arrays.fill(cacheOperations, NIL);
+    }
+    
+    private int iteRecursive(int f, int g, int h) {
+        if (f == TRUE) {
+            return g;
+        }
+        
+        if (f == FALSE) {
+            return h;
+        }
+        
+        if (g == h) {
+            return g;
+        }
+        
+        if (g == TRUE && h == FALSE) {
+            return f;
+        }
+        
+        int slot = getCacheSlot(ITE, f, g, h);
+        
+        if (cacheOperations[slot] == ITE
+                && cacheOperands1[slot] == f
+                && cacheOperands2[slot] == g
+                && cacheOperands3[slot] == h) {
+            return cacheResults[slot];
+        }
+        
+        int top = Math.min(variables[f], Math.min(variables[g], variables[h]));
+        int high = iteRecursive(cofactor(f, top, true),
+                                cofactor(g, top, true),
+                                cofactor(h, top, true));
+        int low = iteRecursive(cofactor(f, top, false),
+                               cofactor(g, top, false),
+                               cofactor(h, top, false));
+        int result = makeNode(top, low, high);
+        
+        // The recursion may have reallocated the cache.
+        slot = getCacheSlot(ITE, f, g, h);
+        storeInCache(slot, ITE, f, g, h, result);
+        return result;
+    }
+    
+    private int restrictRecursive(int f, int variable, int operation) {
+        if (variables[f] > variable) {
+            return f;
+        }
+        
+        if (variables[f] == variable) {
+            return operation == RESTRICT_HIGH ? highs[f] : lows[f];
+        }
+        
+        int slot = getCacheSlot(operation, f, variable, 0);
+        
+        if (cacheOperations[slot] == operation
+                && cacheOperands1[slot] == f
+                && cacheOperands2[slot] == variable) {
+            return cacheResults[slot];
+        }
+        
+        int low = restrictRecursive(lows[f], variable, operation);
+        int high = restrictRecursive(highs[f], variable, operation);
+        int result = makeNode(variables[f], low, high);
+        slot = getCacheSlot(operation, f, variable, 0);
+        storeInCache(slot, operation, f, variable, 0, result);
+        return result;
+    }
+    
+    private int existsRecursive(int f, int variable) {
+        if (variables[f] > variable) {
+            return f;
+        }
+        
+        if (variables[f] == variable) {
+            return iteRecursive(lows[f], TRUE, highs[f]);
+        }
+        
+        int slot = getCacheSlot(EXISTS, f, variable, 0);
+        
+        if (cacheOperations[slot] == EXISTS
+                && cacheOperands1[slot] == f
+                && cacheOperands2[slot] == variable) {
+            return cacheResults[slot];
+        }
+        
+        int low = existsRecursive(lows[f], variable);
+        int high = existsRecursive(highs[f], variable);
+        int result = makeNode(variables[f], low, high);
+        slot = getCacheSlot(EXISTS, f, variable, 0);
+        storeInCache(slot, EXISTS, f, variable, 0, result);
+        return result;
+    }
+    
+    /**
+     * Counts the satisfying assignments of the variables from
+     * {@code variables[f]} on.
+     */
+    private BigInteger satCount(int f, Map<Integer, BigInteger> counts) {
+        if (f <= TRUE) {
+            return f == TRUE ? BigInteger.ONE : BigInteger.ZERO;
+        }
+        
+        BigInteger count = counts.get(f);
+        
+        if (count == null) {
+            int low = lows[f];
+            int high = highs[f];
+            count = satCount(low, counts)
+                    .shiftLeft(variables[low] - variables[f] - 1)
+                    .add(satCount(high, counts)
+                         .shiftLeft(variables[high] - variables[f] - 1));
+            counts.put(f, count);
+        }
+        
+        return count;
+    }
+    
+    private int cofactor(int f, int variable, boolean value) {
+        if (variables[f] != variable) {
+            return f;
+        }
+        
+        return value ? highs[f] : lows[f];
+    }
+    
+    /**
+     * Returns the unique node {@code (variable, low, high)}.
+     */
+    private int makeNode(int variable, int low, int high) {
+        if (low == high) {
+            return low;
+        }
+        
+        int bucket = hash(variable, low, high) & (buckets.length - 1);
+        
+        for (int node = buckets[bucket]; node != NIL; node = nexts[node]) {
+            if (variables[node] == variable
+                    && lows[node] == low
+                    && highs[node] == high) {
+                return node;
+            }
+        }
+        
+        if (freeList == NIL) {
+            grow();
+            bucket = hash(variable, low, high) & (buckets.length - 1);
+        }
+        
+        int node = freeList;
+        freeList = nexts[node];
+        --numberOfFreeNodes;
+        variables[node] = variable;
+        lows[node] = low;
+        highs[node] = high;
+        nexts[node] = buckets[bucket];
+        buckets[bucket] = node;
+        return node;
+    }
+    
+    /**
+     * Collects the garbage if the node table is nearly full. Called only
+     * at the beginning of the public operations, when all the live nodes are
+     * reachable from the referenced ones or from the operands {@code f}, 
+     * {@code g} and {@code h}, which are protected during the collection.
+     */
+    private void beginOperation(int f, int g, int h) {
+        if (numberOfFreeNodes < variables.length / 8) {
+            ++refCounts[f];
+            ++refCounts[g];
+            ++refCounts[h];
+            collectGarbage();
+            --refCounts[f];
+            --refCounts[g];
+            --refCounts[h];
+            
+            if (numberOfFreeNodes < variables.length / 2) {
+                grow();
+            }
+        }
+    }
+    
+    /**
+     * Doubles the node table and rebuilds the unique table.
+     */
+    private void grow() {
+        int oldCapacity = variables.length;
+        int capacity = 2 * oldCapacity;
+        variables = Arrays.copyOf(variables, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        nexts = Arrays.copyOf(nexts, capacity);
+        refCounts = Arrays.copyOf(refCounts, capacity);
+        buckets = new int[capacity];
+        Arrays.fill(buckets, NIL);
+        
+        for (int node = TRUE + 1; node < oldCapacity; ++node) {
+            if (variables[node] != NIL) {
+                insertIntoBucket(node);
+            }
+        }
+        
+        for (int node = capacity - 1; node >= oldCapacity; --node) {
+            addToFreeList(node);
+        }
+        
+        if (cacheOperations.length < Math.min(capacity, MAXIMUM_CACHE_SIZE)) {
+            allocateCache(capacity);
+        }
+    }
+    
+    private void insertIntoBucket(int node) {
+        int bucket = hash(variables[node], lows[node], highs[node]) &
+                     (buckets.length - 1);
+        nexts[node] = buckets[bucket];
+        buckets[bucket] = node;
+    }
+    
+    private void addToFreeList(int node) {
+        variables[node] = NIL;
+        nexts[node] = freeList;
+        freeList = node;
+        ++numberOfFreeNodes;
+    }
+    
+    private void allocateCache(int capacity) {
+        int size = Math.max(MINIMUM_CACHE_SIZE,
+                            Math.min(capacity, MAXIMUM_CACHE_SIZE));
+        cacheOperations = new int[size];
+        cacheOperands1 = new int[size];
+        cacheOperands2 = new int[size];
+        cacheOperands3 = new int[size];
+        cacheResults = new int[size];
+        Arrays.fill(cacheOperations, NIL);
+    }
+    
+    private int getCacheSlot(int operation, int f, int g, int h) {
+        return hash(operation ^ (f << 2), g, h) & (cacheOperations.length - 1);
+    }
+    
+    private void storeInCache(int slot,
+                              int operation,
+                              int f,
+                              int g,
+                              int h,
+                              int result) {
+        cacheOperations[slot] = operation;
+        cacheOperands1[slot] = f;
+        cacheOperands2[slot] = g;
+        cacheOperands3[slot] = h;
+        cacheResults[slot] = result;
+    }
+    
+    private void checkNode(int node) {
+        if (node < 0 || node >= variables.length || variables[node] == NIL) {
+            throw new IllegalArgumentException(
+                    "The node " + node + " does not exist.");
+        }
+    }
+    
+    private void checkVariable(int variable) {
+        if (variable < 0 || variable >= numberOfVariables) {
+            throw new IndexOutOfBoundsException(
+                    "Variable " + variable + " is out of range [0, " +
+                    numberOfVariables + ").");
+        }
+    }
+    
+    private static int hash(int a, int b, int c) {
+        int hash = a * 0x9E3779B1 + b;
+        hash = hash * 0x9E3779B1 + c;
+        hash *= 0x9E3779B1;
+        return hash ^ (hash >>> 15);
+    }
+}
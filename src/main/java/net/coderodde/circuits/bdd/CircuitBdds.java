@@ -0,0 +1,170 @@
+package net.coderodde.circuits.bdd;
+
+import java.util.Arrays;
+import net.coderodde.circuits.AndInverterGraph;
+import net.coderodde.circuits.Circuit;
+
+/**
+ * This class builds the BDDs of the output pins of locked circuits. Since the
+ * size of a BDD depends heavily on the variable order, the input pins are
+ * ordered as a depth-first search from the output pins first reaches them:
+ * the inputs feeding the same gates end up next to each other, which keeps
+ * the BDDs of adders, comparators and alike small.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class CircuitBdds {
+    
+    private CircuitBdds() {}
+    
+    /**
+     * Computes the variable order of the input pins of {@code circuit}.
+     *
+     * @param circuit the locked circuit.
+     * @return the BDD variable of each input pin.
+     */
+    public static int[] computeVariableOrder(Circuit circuit) {
+        return computeVariableOrder(circuit.toAndInverterGraph());
+    }
+    
+    /**
+     * Builds the BDD of each output pin of {@code circuit}. The results are
+     * protected by {@link BddManager#ref(int)}.
+     *
+     * @param manager   the BDD manager with at least as many variables as
+     *                  the circuit has input pins.
+     * @param circuit   the locked circuit.
+     * @param variables the BDD variable of each input pin, e.g. computed by
+     *                  {@link #computeVariableOrder(Circuit)}.
+     * @return the root node of the BDD of each output pin.
+     */
+    public static int[] build(BddManager manager,
+                              Circuit circuit,
+                              int[] variables) {
+        AndInverterGraph graph = circuit.toAndInverterGraph();
+        
+        if (variables.length != graph.getNumberOfInputs()) {
+            throw new IllegalArgumentException(
+                    "The number of variables (" + variables.length + ") " +
+                    "does not match the number of input pins (" +
+                    graph.getNumberOfInputs() + ").");
+        }
+        
+        // Release the BDD of a node as soon as its last fan-out is built.
+        int[] fanouts = new int[graph.getNumberOfNodes()];
+        
+        for (int node = 1; node < graph.getNumberOfNodes(); ++node) {
+            if (graph.isAnd(node)) {
+                ++fanouts[AndInverterGraph.getNode(graph.getFanin0(node))];
+                ++fanouts[AndInverterGraph.getNode(graph.getFanin1(node))];
+            }
+        }
+        
+        for (int output = 0; output < graph.getNumberOfOutputs(); ++output) {
+            ++fanouts[AndInverterGraph.getNode(graph.getOutput(output))];
+        }
+        
+        int[] bdds = new int[graph.getNumberOfNodes()];
+        bdds[0] = BddManager.FALSE;
+        
+        for (int input = 0; input < graph.getNumberOfInputs(); ++input) {
+            int node = AndInverterGraph.getNode(graph.getInput(input));
+            
+            if (fanouts[node] > 0) {
+                bdds[node] = manager.ref(manager.variable(variables[input]));
+            }
+        }
+        
+        for (int node = 1; node < graph.getNumberOfNodes(); ++node) {
+            if (!graph.isAnd(node)) {
+                continue;
+            }
+            
+            int fanin0 = graph.getFanin0(node);
+            int fanin1 = graph.getFanin1(node);
+            
+            // Each operation may collect the unreferenced nodes, so protect
+            // the operands.
+            int operand0 = manager.ref(getBdd(manager, bdds, fanin0));
+            int operand1 = manager.ref(getBdd(manager, bdds, fanin1));
+            bdds[node] = manager.ref(manager.and(operand0, operand1));
+            manager.deref(operand0);
+            manager.deref(operand1);
+            release(manager, bdds, fanouts, fanin0);
+            release(manager, bdds, fanouts, fanin1);
+        }
+        
+        int[] outputs = new int[graph.getNumberOfOutputs()];
+        
+        for (int output = 0; output < outputs.length; ++output) {
+            int literal = graph.getOutput(output);
+            outputs[output] = manager.ref(getBdd(manager, bdds, literal));
+            release(manager, bdds, fanouts, literal);
+        }
+        
+        return outputs;
+    }
+    
+    static int[] computeVariableOrder(AndInverterGraph graph) {
+        int[] variables = new int[graph.getNumberOfInputs()];
+        Arrays.fill(variables, -1);
+        boolean[] visited = new boolean[graph.getNumberOfNodes()];
+        // Each node pushes its fan-ins only once.
+        int[] stack = new int[2 * graph.getNumberOfNodes() + 1];
+        int nextVariable = 0;
+        
+        for (int output = 0; output < graph.getNumberOfOutputs(); ++output) {
+            int stackSize = 0;
+            stack[stackSize++] = AndInverterGraph.getNode(
+                    graph.getOutput(output));
+            
+            while (stackSize > 0) {
+                int node = stack[--stackSize];
+                
+                if (visited[node]) {
+                    continue;
+                }
+                
+                visited[node] = true;
+                
+                if (graph.isInput(node)) {
+                    variables[node - 1] = nextVariable++;
+                } else if (graph.isAnd(node)) {
+                    // Push the second fan-in first so that the first one is
+                    // explored first.
+                    stack[stackSize++] =
+                            AndInverterGraph.getNode(graph.getFanin1(node));
+                    stack[stackSize++] =
+                            AndInverterGraph.getNode(graph.getFanin0(node));
+                }
+            }
+        }
+        
+        for (int input = 0; input < variables.length; ++input) {
+            if (variables[input] == -1) {
+                variables[input] = nextVariable++;
+            }
+        }
+        
+        return variables;
+    }
+    
+    private static int getBdd(BddManager manager, int[] bdds, int literal) {
+        int bdd = bdds[AndInverterGraph.getNode(literal)];
+        return AndInverterGraph.isComplemented(literal) ?
+               manager.not(bdd) :
+               bdd;
+    }
+    
+    private static void release(BddManager manager,
+                                int[] bdds,
+                                int[] fanouts,
+                                int literal) {
+        int node = AndInverterGraph.getNode(literal);
+        
+        if (node != 0 && --fanouts[node] == 0) {
+            manager.deref(bdds[node]);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package net.coderodde.circuits.components;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Defines the common API for all circuit components.
@@ -10,6 +13,26 @@ import java.util.List;
  */
 public abstract class AbstractCircuitComponent {
 
+    /**
+     * Generates the cycle numbers. Each cycle number is used only once, so 
+     * that a cached output is never mistaken for the output of a later cycle.
+     */
+    private static final AtomicLong CYCLE_COUNTER = new AtomicLong();
+    
+    /**
+     * The evaluation stack of each thread, reused by all the calls to 
+     * {@link #doCycle(long)}. A nested call, made by a subcircuit computing 
+     * its output, uses the part of the stack above the entries of the outer 
+     * call.
+     */
+    private static final ThreadLocal<Deque<AbstractCircuitComponent>> STACK = 
+            new ThreadLocal<Deque<AbstractCircuitComponent>>() {
+                @Override
+                protected Deque<AbstractCircuitComponent> initialValue() {
+                    return new ArrayDeque<>();
+                }
+            };
+    
     private final String name;
     
     /**
@@ -17,6 +40,27 @@ public abstract class AbstractCircuitComponent {
      */
     protected AbstractCircuitComponent output;
     
+    /**
+     * The number of the cycle in which {@link #cachedOutput} was computed.
+     */
+    private long cycle = -1L;
+    
+    /**
+     * The number of the cycle in which the input components of this component
+     * were scheduled for evaluation.
+     */
+    private long expansionCycle = -1L;
+    
+    /**
+     * The output of this component in the cycle {@link #cycle}.
+     */
+    private boolean cachedOutput;
+    
+    /**
+     * The index of this component within the circuit being locked.
+     */
+    private int index;
+    
     public AbstractCircuitComponent(String name) {
         this.name = name;
     }
@@ -26,12 +70,125 @@ public abstract class AbstractCircuitComponent {
      * 
      * @return the output from this component.
      */
-    public abstract boolean doCycle();
+    public boolean doCycle() {
+        return doCycle(nextCycle());
+    }
+    
+    /**
+     * Simulates the cycle {@code cycle} over this component. The output is
+     * computed at most once per cycle, so that a component shared by several
+     * consumers (via a {@code BranchWire}) is not re-evaluated by each of them.
+     * The input components are evaluated in post-order using an explicit 
+     * stack, so the depth of the circuit is limited only by the heap. The 
+     * stack is kept per thread and reused, so a call allocates nothing.
+     * 
+     * @param cycle the cycle number.
+     * @return the output from this component.
+     */
+    public final boolean doCycle(long cycle) {
+        if (this.cycle == cycle) {
+            return cachedOutput;
+        }
+        
+        Deque<AbstractCircuitComponent> stack = STACK.get();
+        int bottom = stack.size();
+        stack.push(this);
+        
+        try {
+            evaluate(stack, bottom, cycle);
+        } finally {
+            // Leaves the stack as it was, even if a cycle was detected.
+            while (stack.size() > bottom) {
+                stack.pop();
+            }
+        }
+        
+        return cachedOutput;
+    }
+    
+    /**
+     * Evaluates the components on {@code stack} above its first 
+     * {@code bottom} entries in the cycle {@code cycle}.
+     */
+    private static void evaluate(Deque<AbstractCircuitComponent> stack, 
+                                 int bottom,
+                                 long cycle) {
+        while (stack.size() > bottom) {
+            AbstractCircuitComponent component = stack.peek();
+            
+            if (component.cycle == cycle) {
+                // Pushed more than once, already evaluated.
+                stack.pop();
+            } else if (component.expansionCycle == cycle) {
+                // All the input components are evaluated by now.
+                component.cachedOutput = component.computeOutput();
+                component.cycle = cycle;
+                stack.pop();
+            } else {
+                component.expansionCycle = cycle;
+                
+                for (int i = 0; i < component.getInputComponentCount(); ++i) {
+                    AbstractCircuitComponent input = 
+                            component.getInputComponentAt(i);
+                    
+                    if (input.cycle == cycle) {
+                        continue;
+                    }
+                    
+                    if (input.expansionCycle == cycle) {
+                        // 'input' is still waiting for its inputs, so it 
+                        // must be an ancestor of 'component'.
+                        throw new IllegalStateException(
+                                "The component \"" + input.getName() + 
+                                "\" depends on its own output.");
+                    }
+                    
+                    stack.push(input);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the output of this component computed in the most recent 
+     * cycle.
+     * 
+     * @return the most recent output.
+     */
+    public boolean getCachedOutput() {
+        return cachedOutput;
+    }
+    
+    /**
+     * Returns a fresh cycle number.
+     * 
+     * @return a cycle number that was not returned before.
+     */
+    public static long nextCycle() {
+        return CYCLE_COUNTER.incrementAndGet();
+    }
+    
+    /**
+     * Computes the output of this component. Called only after all the input
+     * components are evaluated in the current cycle, so their outputs are 
+     * available via {@link #getCachedOutput()}.
+     * 
+     * @return the output from this component.
+     */
+    protected abstract boolean computeOutput();
     
     public String getName() {
         return name;
     }
     
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
     public AbstractCircuitComponent getOutputComponent() {
         return output;
     }
@@ -40,6 +197,21 @@ public abstract class AbstractCircuitComponent {
         this.output = output;
     }
     
+    /**
+     * Returns the number of input components without allocating a list.
+     * 
+     * @return the number of input components.
+     */
+    public abstract int getInputComponentCount();
+    
+    /**
+     * Returns the {@code index}th input component without allocating a list.
+     * 
+     * @param index the index of the input component.
+     * @return the input component.
+     */
+    public abstract AbstractCircuitComponent getInputComponentAt(int index);
+    
     public abstract List<AbstractCircuitComponent> getInputComponents();
     public abstract List<AbstractCircuitComponent> getOutputComponents();
 }
@@ -31,4 +31,25 @@ extends AbstractCircuitComponent {
     public void setInputComponent2(AbstractCircuitComponent input2) {
         this.input2 = input2;
     }
+    
+    @Override
+    public int getInputComponentCount() {
+        return 2;
+    }
+    
+    @Override
+    public AbstractCircuitComponent getInputComponentAt(int index) {
+        switch (index) {
+            case 0:
+                return input1;
+                
+            case 1:
+                return input2;
+                
+            default:
+                throw new IndexOutOfBoundsException(
+                        "Input component index " + index + 
+                        " is out of range.");
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package net.coderodde.circuits.components;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Defines the API for all the components having a variable number of inputs.
+ * The inputs are stored in an array indexed by the input pin.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public abstract class AbstractMultipleInputPinCircuitComponent
+extends AbstractCircuitComponent {
+    
+    protected final AbstractCircuitComponent[] inputs;
+    
+    public AbstractMultipleInputPinCircuitComponent(String name,
+                                                    int numberOfInputPins) {
+        super(name);
+        this.inputs = new AbstractCircuitComponent[numberOfInputPins];
+    }
+    
+    public int getNumberOfInputPins() {
+        return inputs.length;
+    }
+    
+    public AbstractCircuitComponent getInputComponent(int pinIndex) {
+        return inputs[pinIndex];
+    }
+    
+    public void setInputComponent(int pinIndex,
+                                  AbstractCircuitComponent input) {
+        inputs[pinIndex] = input;
+    }
+    
+    @Override
+    public int getInputComponentCount() {
+        return inputs.length;
+    }
+    
+    @Override
+    public AbstractCircuitComponent getInputComponentAt(int index) {
+        if (index < 0 || index >= inputs.length) {
+            throw new IndexOutOfBoundsException(
+                    "Input component index " + index + " is out of range.");
+        }
+        
+        return inputs[index];
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getInputComponents() {
+        return new ArrayList<>(Arrays.asList(inputs));
+    }
+}
@@ -22,4 +22,19 @@ extends AbstractCircuitComponent{
     public void setInputComponent(AbstractCircuitComponent input) {
         this.input = input;
     }
+    
+    @Override
+    public int getInputComponentCount() {
+        return input == null ? 0 : 1;
+    }
+    
+    @Override
+    public AbstractCircuitComponent getInputComponentAt(int index) {
+        if (index != 0 || input == null) {
+            throw new IndexOutOfBoundsException(
+                    "Input component index " + index + " is out of range.");
+        }
+        
+        return input;
+    }
 }
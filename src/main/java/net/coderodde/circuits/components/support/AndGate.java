@@ -20,8 +20,8 @@ public final class AndGate extends AbstractDoubleInputPinCircuitComponent {
     }
     
     @Override
-    public boolean doCycle() {
-        return input1.doCycle() && input2.doCycle();
+    protected boolean computeOutput() {
+        return input1.getCachedOutput() && input2.getCachedOutput();
     }
 
     @Override
@@ -25,8 +25,8 @@ public final class BranchWire extends AbstractSingleInputPinCircuitComponent {
     }
     
     @Override
-    public boolean doCycle() {
-        return input.doCycle();
+    protected boolean computeOutput() {
+        return input.getCachedOutput();
     }
     
     public void connectTo(AbstractCircuitComponent circuitComponent) {
@@ -0,0 +1,58 @@
+package net.coderodde.circuits.components.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+
+/**
+ * This gate has no inputs and always outputs the same bit. It is used for 
+ * tying the inputs of other components to a constant.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class ConstantGate extends AbstractCircuitComponent {
+
+    private final boolean bit;
+    
+    public ConstantGate(String name, boolean bit) {
+        super(name);
+        this.bit = bit;
+    }
+    
+    public boolean getBit() {
+        return bit;
+    }
+    
+    @Override
+    protected boolean computeOutput() {
+        return bit;
+    }
+    
+    @Override
+    public int getInputComponentCount() {
+        return 0;
+    }
+    
+    @Override
+    public AbstractCircuitComponent getInputComponentAt(int index) {
+        throw new IndexOutOfBoundsException(
+                "Input component index " + index + " is out of range.");
+    }
+
+    @Override
+    public List<AbstractCircuitComponent> getInputComponents() {
+        return Collections.<AbstractCircuitComponent>emptyList();
+    }
+
+    @Override
+    public List<AbstractCircuitComponent> getOutputComponents() {
+        if (output instanceof BranchWire) {
+            return new ArrayList<>(((BranchWire) output).getOutputs());
+        }
+        
+        return Arrays.asList(output);
+    }
+}
@@ -0,0 +1,87 @@
+package net.coderodde.circuits.components.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.AbstractSingleInputPinCircuitComponent;
+
+/**
+ * This class implements a D flip-flop, i.e., a register of one bit. Within a
+ * cycle, the flip-flop outputs the bit it stores; on each clock edge it
+ * latches the bit at its input. Since the output does not depend on the input
+ * within a cycle, the flip-flops break the cycles of the circuit: a flip-flop
+ * reports no input components to the evaluation and to the cycle checks,
+ * while {@link #getInputComponents()} still lists its input.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class DFlipFlop extends AbstractSingleInputPinCircuitComponent {
+    
+    public static final boolean DEFAULT_BIT = false;
+    
+    /**
+     * The bit stored in this flip-flop.
+     */
+    private boolean bit;
+    
+    public DFlipFlop(String name, boolean bit) {
+        super(name);
+        this.bit = bit;
+    }
+    
+    public DFlipFlop(String name) {
+        this(name, DEFAULT_BIT);
+    }
+    
+    public boolean getBit() {
+        return bit;
+    }
+    
+    public void setBit(boolean bit) {
+        this.bit = bit;
+    }
+    
+    /**
+     * Latches the current output of the input component.
+     */
+    public void latch() {
+        bit = input.getCachedOutput();
+    }
+    
+    @Override
+    protected boolean computeOutput() {
+        return bit;
+    }
+    
+    @Override
+    public int getInputComponentCount() {
+        return 0;
+    }
+    
+    @Override
+    public AbstractCircuitComponent getInputComponentAt(int index) {
+        throw new IndexOutOfBoundsException(
+                "Input component index " + index + " is out of range.");
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getInputComponents() {
+        if (input == null) {
+            return Collections.<AbstractCircuitComponent>emptyList();
+        }
+        
+        return Arrays.asList(input);
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getOutputComponents() {
+        if (output instanceof BranchWire) {
+            return new ArrayList<>(((BranchWire) output).getOutputs());
+        }
+        
+        return Arrays.asList(output);
+    }
+}
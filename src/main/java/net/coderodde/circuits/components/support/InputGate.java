@@ -37,9 +37,9 @@ public final class InputGate extends AbstractSingleInputPinCircuitComponent {
     }
     
     @Override
-    public boolean doCycle() {
+    protected boolean computeOutput() {
         if (getInputComponent() != null) {
-            return getInputComponent().doCycle();
+            return getInputComponent().getCachedOutput();
         }
         
         return bit;
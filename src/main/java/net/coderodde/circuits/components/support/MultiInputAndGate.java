@@ -0,0 +1,44 @@
+package net.coderodde.circuits.components.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.AbstractMultipleInputPinCircuitComponent;
+
+/**
+ * This logical gate implements the {@code and} operation over any number of
+ * inputs, i.e., it outputs {@code true} only if all of the inputs are
+ * {@code true}. Like any other component, the gate is evaluated only after
+ * all of its inputs.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class MultiInputAndGate
+extends AbstractMultipleInputPinCircuitComponent {
+    
+    public MultiInputAndGate(String name, int numberOfInputPins) {
+        super(name, numberOfInputPins);
+    }
+    
+    @Override
+    protected boolean computeOutput() {
+        for (AbstractCircuitComponent input : inputs) {
+            if (!input.getCachedOutput()) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getOutputComponents() {
+        if (output instanceof BranchWire) {
+            return new ArrayList<>(((BranchWire) output).getOutputs());
+        }
+        
+        return Arrays.asList(output);
+    }
+}
@@ -0,0 +1,62 @@
+package net.coderodde.circuits.components.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.AbstractDoubleInputPinCircuitComponent;
+
+/**
+ * This gate implements a 2-to-1 multiplexer: it outputs its first input if
+ * the select input is {@code false}, and its second input otherwise.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class MuxGate extends AbstractDoubleInputPinCircuitComponent {
+    
+    private AbstractCircuitComponent select;
+    
+    public MuxGate(String name) {
+        super(name);
+    }
+    
+    public AbstractCircuitComponent getSelectComponent() {
+        return select;
+    }
+    
+    public void setSelectComponent(AbstractCircuitComponent select) {
+        this.select = select;
+    }
+    
+    @Override
+    protected boolean computeOutput() {
+        return select.getCachedOutput() ?
+               input2.getCachedOutput() :
+               input1.getCachedOutput();
+    }
+    
+    @Override
+    public int getInputComponentCount() {
+        return 3;
+    }
+    
+    @Override
+    public AbstractCircuitComponent getInputComponentAt(int index) {
+        return index == 2 ? select : super.getInputComponentAt(index);
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getInputComponents() {
+        return Arrays.asList(input1, input2, select);
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getOutputComponents() {
+        if (output instanceof BranchWire) {
+            return new ArrayList<>(((BranchWire) output).getOutputs());
+        }
+        
+        return Arrays.asList(output);
+    }
+}
@@ -20,8 +20,8 @@ public final class NotGate extends AbstractSingleInputPinCircuitComponent {
     }
     
     @Override
-    public boolean doCycle() {
-        return !input.doCycle();
+    protected boolean computeOutput() {
+        return !input.getCachedOutput();
     }
 
     @Override
@@ -15,13 +15,27 @@ import net.coderodde.circuits.components.AbstractSingleInputPinCircuitComponent;
  */
 public final class OutputGate extends AbstractSingleInputPinCircuitComponent {
     
+    /**
+     * The bit latched during the most recent cycle.
+     */
+    private boolean bit;
+    
     public OutputGate(String name) {
         super(name);
     }
     
+    public boolean getBit() {
+        return bit;
+    }
+    
+    public void setBit(boolean bit) {
+        this.bit = bit;
+    }
+    
     @Override
-    public boolean doCycle() {
-        return input.doCycle();
+    protected boolean computeOutput() {
+        bit = input.getCachedOutput();
+        return bit;
     }
 
     @Override
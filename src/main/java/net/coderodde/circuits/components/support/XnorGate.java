@@ -0,0 +1,40 @@
+package net.coderodde.circuits.components.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.AbstractDoubleInputPinCircuitComponent;
+
+/**
+ * This logical gate implements the {@code xnor} operation, i.e., it outputs
+ * {@code true} if both of the inputs are equal.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class XnorGate extends AbstractDoubleInputPinCircuitComponent {
+    
+    public XnorGate(String name) {
+        super(name);
+    }
+    
+    @Override
+    protected boolean computeOutput() {
+        return input1.getCachedOutput() == input2.getCachedOutput();
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getInputComponents() {
+        return Arrays.asList(input1, input2);
+    }
+    
+    @Override
+    public List<AbstractCircuitComponent> getOutputComponents() {
+        if (output instanceof BranchWire) {
+            return new ArrayList<>(((BranchWire) output).getOutputs());
+        }
+        
+        return Arrays.asList(output);
+    }
+}
@@ -0,0 +1,197 @@
+package net.coderodde.circuits.sat;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import net.coderodde.circuits.AndInverterGraph;
+import net.coderodde.circuits.Circuit;
+
+/**
+ * This class checks whether two locked circuits with the same numbers of pins
+ * compute the same function. Both circuits are converted into a single
+ * and-inverter graph, the <i>miter</i>, whose input pins are shared and which
+ * outputs {@code true} if and only if some pair of corresponding output pins
+ * differs. Structural hashing alone proves the equivalence of the unchanged
+ * parts of the two circuits; the rest of the miter is swept by a
+ * {@link SatSweeper} guided by random simulation.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class EquivalenceChecker {
+    
+    private static final long SEED = 0xC0FFEEL;
+    
+    private final AndInverterGraph miter;
+    
+    /**
+     * The literals of the miter telling whether each pair of output pins
+     * differs.
+     */
+    private final int[] differences;
+    
+    /**
+     * Constructs an equivalence checker.
+     *
+     * @param circuit1 the first locked circuit.
+     * @param circuit2 the second locked circuit.
+     */
+    public EquivalenceChecker(Circuit circuit1, Circuit circuit2) {
+        Objects.requireNonNull(circuit1, "The first circuit is null.");
+        Objects.requireNonNull(circuit2, "The second circuit is null.");
+        
+        if (circuit1.getNumberOfInputPins() !=
+                circuit2.getNumberOfInputPins()
+                || circuit1.getNumberOfOutputPins() !=
+                   circuit2.getNumberOfOutputPins()) {
+            throw new IllegalArgumentException(
+                    "The circuits \"" + circuit1.getName() + "\" and \"" +
+                    circuit2.getName() + "\" have different numbers of pins.");
+        }
+        
+        this.miter = new AndInverterGraph(circuit1.getNumberOfInputPins());
+        int[] outputs1 = copy(circuit1.toAndInverterGraph(), miter);
+        int[] outputs2 = copy(circuit2.toAndInverterGraph(), miter);
+        this.differences = new int[outputs1.length];
+        
+        for (int i = 0; i < outputs1.length; ++i) {
+            differences[i] = miter.xor(outputs1[i], outputs2[i]);
+            miter.addOutput(differences[i]);
+        }
+    }
+    
+    /**
+     * Decides whether the two circuits are equivalent.
+     *
+     * @param circuit1 the first locked circuit.
+     * @param circuit2 the second locked circuit.
+     * @return {@code true} if the circuits are equivalent.
+     */
+    public static boolean areEquivalent(Circuit circuit1, Circuit circuit2) {
+        return new EquivalenceChecker(circuit1, circuit2)
+                .findCounterexample() == null;
+    }
+    
+    /**
+     * Searches for an input vector on which the two circuits produce
+     * different outputs. The miter is first simulated on random input
+     * vectors, which finds most counterexamples cheaply. Then its internal
+     * nodes are merged by a {@link SatSweeper}; when the circuits are
+     * equivalent, the sweeping typically reduces every difference to the
+     * constant {@code false} via a series of easy solver calls. Only the
+     * differences left over are passed to the solver as a whole.
+     *
+     * @return a counterexample, or {@code null} if the circuits are
+     *         equivalent.
+     */
+    public boolean[] findCounterexample() {
+        boolean[] counterexample = simulate();
+        
+        if (counterexample != null) {
+            return counterexample;
+        }
+        
+        SatSweeper sweeper = new SatSweeper(miter);
+        AndInverterGraph sweptMiter = sweeper.sweep();
+        int[] clause = new int[differences.length];
+        int clauseSize = 0;
+        
+        for (int i = 0; i < differences.length; ++i) {
+            int difference = sweptMiter.getOutput(i);
+            
+            if (difference != AndInverterGraph.FALSE) {
+                clause[clauseSize++] = sweeper.encode(difference);
+            }
+        }
+        
+        if (clauseSize == 0) {
+            return null;
+        }
+        
+        SatSolver solver = sweeper.getSolver();
+        
+        if (!solver.addClause(Arrays.copyOf(clause, clauseSize))
+                || !solver.solve()) {
+            return null;
+        }
+        
+        return sweeper.getCounterexample();
+    }
+    
+    /**
+     * Simulates the miter on random input vectors.
+     *
+     * @return an input vector on which some difference is {@code true}, or
+     *         {@code null} if there is no such vector among the simulated.
+     */
+    private boolean[] simulate() {
+        int numberOfWords = SatSweeper.NUMBER_OF_WORDS;
+        long[] patterns =
+                SatSweeper.createRandomPatterns(miter.getNumberOfInputs(),
+                                                numberOfWords,
+                                                new Random(SEED));
+        long[] values = miter.simulate(patterns, numberOfWords);
+        
+        for (int difference : differences) {
+            int offset = AndInverterGraph.getNode(difference) * numberOfWords;
+            long mask = AndInverterGraph.isComplemented(difference) ? -1L : 0L;
+            
+            for (int word = 0; word < numberOfWords; ++word) {
+                long bits = values[offset + word] ^ mask;
+                
+                if (bits != 0L) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    boolean[] counterexample =
+                            new boolean[miter.getNumberOfInputs()];
+                    
+                    for (int i = 0; i < counterexample.length; ++i) {
+                        long inputWord = patterns[i * numberOfWords + word];
+                        counterexample[i] = ((inputWord >>> bit) & 1L) != 0;
+                    }
+                    
+                    return counterexample;
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Copies all the {@code AND} nodes of {@code source} into {@code target},
+     * which must have the same number of input pins.
+     *
+     * @return the literals of {@code target} equivalent to the outputs of
+     *         {@code source}.
+     */
+    private static int[] copy(AndInverterGraph source,
+                              AndInverterGraph target) {
+        int[] literals = new int[source.getNumberOfNodes()];
+        
+        for (int i = 0; i < source.getNumberOfInputs(); ++i) {
+            literals[AndInverterGraph.getNode(source.getInput(i))] =
+                    target.getInput(i);
+        }
+        
+        for (int node = 1; node < source.getNumberOfNodes(); ++node) {
+            if (source.isAnd(node)) {
+                literals[node] =
+                        target.and(map(literals, source.getFanin0(node)),
+                                   map(literals, source.getFanin1(node)));
+            }
+        }
+        
+        int[] outputs = new int[source.getNumberOfOutputs()];
+        
+        for (int i = 0; i < outputs.length; ++i) {
+            outputs[i] = map(literals, source.getOutput(i));
+        }
+        
+        return outputs;
+    }
+    
+    private static int map(int[] literals, int literal) {
+        return literals[AndInverterGraph.getNode(literal)] ^
+               (literal & 1);
+    }
+}
@@ -0,0 +1,893 @@
+package net.coderodde.circuits.sat;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a conflict-driven clause learning (CDCL) SAT solver.
+ * Clauses are watched via two literals each, conflicts are analyzed up to the
+ * first unique implication point, the branching variables are chosen by
+ * their VSIDS activity with phase saving, the search restarts after a Luby
+ * sequence of conflicts, and the learned clauses with the worst literal block
+ * distance are periodically discarded.
+ * <p>
+ * Variables are numbered from zero. As in {@link
+ * net.coderodde.circuits.AndInverterGraph}, the literal {@code 2 * variable}
+ * denotes the variable itself and {@code 2 * variable + 1} its negation.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class SatSolver {
+    
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+    private static final byte UNDEFINED = 0;
+    
+    /**
+     * Denotes the absence of a reason clause, i.e., a decision or a unit
+     * clause.
+     */
+    private static final int NO_REASON = -1;
+    
+    private static final double VARIABLE_ACTIVITY_DECAY = 0.95;
+    private static final double MAXIMUM_ACTIVITY = 1e100;
+    private static final int RESTART_UNIT = 100;
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private int numberOfVariables;
+    
+    /**
+     * {@code values[literal]} is the current value of the literal.
+     */
+    private byte[] values = new byte[2 * INITIAL_CAPACITY];
+    
+    /**
+     * The decision level at which each variable was assigned.
+     */
+    private int[] levels = new int[INITIAL_CAPACITY];
+    
+    /**
+     * The clause that implied each variable, or {@link #NO_REASON}.
+     */
+    private int[] reasons = new int[INITIAL_CAPACITY];
+    
+    /**
+     * The last polarity of each variable; {@code 1} stands for negative.
+     */
+    private byte[] phases = new byte[INITIAL_CAPACITY];
+    
+    private boolean[] seen = new boolean[INITIAL_CAPACITY];
+    private double[] activities = new double[INITIAL_CAPACITY];
+    private double activityIncrement = 1.0;
+    
+    /**
+     * The binary max-heap of the unassigned variables ordered by activity.
+     */
+    private int[] heap = new int[INITIAL_CAPACITY];
+    private int heapSize;
+    
+    /**
+     * The index of each variable in {@link #heap}, or {@code -1}.
+     */
+    private int[] heapIndices = new int[INITIAL_CAPACITY];
+    
+    /**
+     * The assigned literals in assignment order.
+     */
+    private int[] trail = new int[INITIAL_CAPACITY];
+    private int trailSize;
+    
+    /**
+     * The index of the next trail literal to propagate.
+     */
+    private int propagationHead;
+    
+    /**
+     * {@code trailLimits[l]} is the trail size before the decision level
+     * {@code l + 1} was entered.
+     */
+    private int[] trailLimits = new int[INITIAL_CAPACITY];
+    private int decisionLevel;
+    
+    /**
+     * All the clauses; the deleted ones are {@code null}. The first two
+     * literals of each clause are watched.
+     */
+    private int[][] clauses = new int[INITIAL_CAPACITY][];
+    
+    /**
+     * The literal block distance of each learned clause; zero for the
+     * original clauses.
+     */
+    private int[] blockDistances = new int[INITIAL_CAPACITY];
+    private int numberOfClauses;
+    private int numberOfLearnedClauses;
+    private int numberOfDeletedClauses;
+    private int maximumNumberOfLearnedClauses;
+    
+    /**
+     * {@code watches[literal]} lists the clauses watching the literal as
+     * pairs of a clause index and a blocker literal.
+     */
+    private int[][] watches = new int[2 * INITIAL_CAPACITY][];
+    private int[] watchCounts = new int[2 * INITIAL_CAPACITY];
+    
+    /**
+     * Becomes {@code false} as soon as the clauses are unsatisfiable
+     * regardless of the assumptions.
+     */
+    private boolean consistent = true;
+    
+    private boolean[] model = new boolean[0];
+    private long numberOfConflicts;
+    private long numberOfDecisions;
+    private int[] learnedClause = new int[INITIAL_CAPACITY];
+    private int[] levelStamps = new int[INITIAL_CAPACITY + 1];
+    private int levelStamp;
+    
+    /**
+     * Adds a new variable.
+     *
+     * @return the index of the new variable.
+     */
+    public int newVariable() {
+        int variable = numberOfVariables++;
+        
+        if (variable == levels.length) {
+            int capacity = 2 * levels.length;
+            values = Arrays.copyOf(values, 2 * capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            phases = Arrays.copyOf(phases, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+            activities = Arrays.copyOf(activities, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+            heapIndices = Arrays.copyOf(heapIndices, capacity);
+            trail = Arrays.copyOf(trail, capacity);
+            watches = Arrays.copyOf(watches, 2 * capacity);
+            watchCounts = Arrays.copyOf(watchCounts, 2 * capacity);
+            learnedClause = Arrays.copyOf(learnedClause, capacity);
+        }
+        
+        reasons[variable] = NO_REASON;
+        phases[variable] = 1;
+        heapIndices[variable] = -1;
+        insertIntoHeap(variable);
+        return variable;
+    }
+    
+    public int getNumberOfVariables() {
+        return numberOfVariables;
+    }
+    
+    /**
+     * Returns the number of the clauses added and learned so far, excluding
+     * the unit clauses and the deleted learned clauses.
+     *
+     * @return the number of clauses.
+     */
+    public int getNumberOfClauses() {
+        return numberOfClauses - numberOfDeletedClauses;
+    }
+    
+    public long getNumberOfConflicts() {
+        return numberOfConflicts;
+    }
+    
+    public long getNumberOfDecisions() {
+        return numberOfDecisions;
+    }
+    
+    /**
+     * Adds a clause, i.e., a disjunction of literals.
+     *
+     * @param literals the literals of the clause.
+     * @return {@code false} if the clauses became trivially unsatisfiable.
+     */
+    public boolean addClause(int... literals) {
+        if (!consistent) {
+            return false;
+        }
+        
+        int[] clause = literals.clone();
+        Arrays.sort(clause);
+        int size = 0;
+        
+        for (int i = 0; i < clause.length; ++i) {
+            int literal = clause[i];
+            checkLiteral(literal);
+            
+            if (values[literal] == TRUE
+                    || (i > 0 && literal == (clause[i - 1] ^ 1))) {
+                // Satisfied at the top level or a tautology.
+                return true;
+            }
+            
+            if (values[literal] == FALSE
+                    || (size > 0 && literal == clause[size - 1])) {
+                continue;
+            }
+            
+            clause[size++] = literal;
+        }
+        
+        if (size == 0) {
+            consistent = false;
+            return false;
+        }
+        
+        if (size == 1) {
+            assign(clause[0], NO_REASON);
+            consistent = propagate() == NO_REASON;
+            return consistent;
+        }
+        
+        addClauseInternal(Arrays.copyOf(clause, size), 0);
+        return true;
+    }
+    
+    /**
+     * Decides whether the clauses are satisfiable.
+     *
+     * @return {@code true} if satisfiable.
+     */
+    public boolean solve() {
+        return solve(new int[0]);
+    }
+    
+    /**
+     * Decides whether the clauses are satisfiable with all the
+     * {@code assumptions} being true. The assumptions hold only during this
+     * call.
+     *
+     * @param assumptions the literals assumed true.
+     * @return {@code true} if satisfiable under the assumptions.
+     */
+    public boolean solve(int... assumptions) {
+        return solve(Long.MAX_VALUE, assumptions) == TRUE;
+    }
+    
+    /**
+     * Same as {@link #solve(int...)}, but gives up as soon as 
+     * {@code conflictBudget} conflicts have occurred during this call.
+     *
+     * @param conflictBudget the maximum number of conflicts.
+     * @param assumptions    the literals assumed true.
+     * @return {@link Boolean#TRUE} if satisfiable under the assumptions,
+     *         {@link Boolean#FALSE} if not, or {@code null} if the budget ran
+     *         out first.
+     */
+    public Boolean solveWithinBudget(long conflictBudget, int... assumptions) {
+        byte result = solve(conflictBudget, assumptions);
+        return result == UNDEFINED ? null : Boolean.valueOf(result == TRUE);
+    }
+    
+    private byte solve(long conflictBudget, int[] assumptions) {
+        for (int assumption : assumptions) {
+            checkLiteral(assumption);
+        }
+        
+        if (!consistent) {
+            return FALSE;
+        }
+        
+        maximumNumberOfLearnedClauses =
+                Math.max(maximumNumberOfLearnedClauses,
+                         Math.max(1000, numberOfClauses / 3));
+        
+        byte result = UNDEFINED;
+        long firstConflict = numberOfConflicts;
+        
+        for (int restart = 0; result == UNDEFINED; ++restart) {
+            long remainingConflicts =
+                    conflictBudget - (numberOfConflicts - firstConflict);
+            
+            if (remainingConflicts <= 0) {
+                break;
+            }
+            
+            result = search((int) Math.min(RESTART_UNIT * luby(restart),
+                                           remainingConflicts),
+                            assumptions);
+        }
+        
+        if (result == TRUE) {
+            model = new boolean[numberOfVariables];
+            
+            for (int variable = 0; variable < numberOfVariables; ++variable) {
+                model[variable] = values[2 * variable] == TRUE;
+            }
+        }
+        
+        backtrack(0);
+        return result;
+    }
+    
+    /**
+     * Returns the value of {@code variable} in the satisfying assignment found
+     * by the last successful call to {@link #solve(int...)}.
+     *
+     * @param variable the variable.
+     * @return the value of the variable.
+     */
+    public boolean getValue(int variable) {
+        if (variable < 0 || variable >= model.length) {
+            throw new IndexOutOfBoundsException(
+                    "Variable " + variable + " has no model value.");
+        }
+        
+        return model[variable];
+    }
+    
+    /**
+     * Runs the search until a model is found, the unsatisfiability is proved
+     * or {@code conflictBudget} conflicts occur.
+     *
+     * @return {@link #TRUE}, {@link #FALSE} or {@link #UNDEFINED}.
+     */
+    private byte search(int conflictBudget, int[] assumptions) {
+        int conflicts = 0;
+        
+        while (true) {
+            int conflict = propagate();
+            
+            if (conflict != NO_REASON) {
+                ++numberOfConflicts;
+                ++conflicts;
+                
+                if (decisionLevel == 0) {
+                    consistent = false;
+                    return FALSE;
+                }
+                
+                int size = analyze(conflict);
+                backtrack(getBacktrackLevel(size));
+                
+                if (size == 1) {
+                    assign(learnedClause[0], NO_REASON);
+                } else {
+                    int[] clause = Arrays.copyOf(learnedClause, size);
+                    int clauseIndex =
+                            addClauseInternal(clause,
+                                              computeBlockDistance(clause));
+                    ++numberOfLearnedClauses;
+                    assign(clause[0], clauseIndex);
+                }
+                
+                decayActivities();
+                continue;
+            }
+            
+            if (conflicts >= conflictBudget) {
+                backtrack(0);
+                return UNDEFINED;
+            }
+            
+            if (numberOfLearnedClauses - trailSize >=
+                    maximumNumberOfLearnedClauses) {
+                reduceLearnedClauses();
+            }
+            
+            int decision = -1;
+            
+            while (decisionLevel < assumptions.length) {
+                int assumption = assumptions[decisionLevel];
+                
+                if (values[assumption] == TRUE) {
+                    // Keep the decision levels aligned with the assumptions.
+                    newDecisionLevel();
+                } else if (values[assumption] == FALSE) {
+                    backtrack(0);
+                    return FALSE;
+                } else {
+                    decision = assumption;
+                    break;
+                }
+            }
+            
+            if (decision == -1) {
+                int variable = pickBranchingVariable();
+                
+                if (variable == -1) {
+                    return TRUE;
+                }
+                
+                decision = 2 * variable + phases[variable];
+            }
+            
+            ++numberOfDecisions;
+            newDecisionLevel();
+            assign(decision, NO_REASON);
+        }
+    }
+    
+    /**
+     * Propagates all the enqueued assignments.
+     *
+     * @return the index of a conflicting clause, or {@link #NO_REASON}.
+     */
+    private int propagate() {
+        while (propagationHead < trailSize) {
+            int falseLiteral = trail[propagationHead++] ^ 1;
+            int[] watchList = watches[falseLiteral];
+            int watchCount = watchCounts[falseLiteral];
+            int i = 0;
+            int j = 0;
+            
+            while (i < watchCount) {
+                int clauseIndex = watchList[i];
+                int blocker = watchList[i + 1];
+                i += 2;
+                
+                if (values[blocker] == TRUE) {
+                    // The clause is satisfied; no need to look into it.
+                    watchList[j++] = clauseIndex;
+                    watchList[j++] = blocker;
+                    continue;
+                }
+                
+                int[] clause = clauses[clauseIndex];
+                
+                // Make sure the false literal is the second one.
+                if (clause[0] == falseLiteral) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLiteral;
+                }
+                
+                int firstLiteral = clause[0];
+                
+                if (values[firstLiteral] == TRUE) {
+                    watchList[j++] = clauseIndex;
+                    watchList[j++] = firstLiteral;
+                    continue;
+                }
+                
+                boolean foundNewWatch = false;
+                
+                for (int k = 2; k < clause.length; ++k) {
+                    if (values[clause[k]] != FALSE) {
+                        clause[1] = clause[k];
+                        clause[k] = falseLiteral;
+                        addWatch(clause[1], clauseIndex, firstLiteral);
+                        foundNewWatch = true;
+                        break;
+                    }
+                }
+                
+                if (foundNewWatch) {
+                    continue;
+                }
+                
+                watchList[j++] = clauseIndex;
+                watchList[j++] = firstLiteral;
+                
+                if (values[firstLiteral] == FALSE) {
+                    while (i < watchCount) {
+                        watchList[j++] = watchList[i++];
+                    }
+                    
+                    watchCounts[falseLiteral] = j;
+                    return clauseIndex;
+                }
+                
+                assign(firstLiteral, clauseIndex);
+            }
+            
+            watchCounts[falseLiteral] = j;
+        }
+        
+        return NO_REASON;
+    }
+    
+    /**
+     * Derives the clause learned from a conflict into {@link #learnedClause}.
+     * The first literal of the learned clause is the negation of the first
+     * unique implication point.
+     *
+     * @param conflict the index of the conflicting clause.
+     * @return the size of the learned clause.
+     */
+    private int analyze(int conflict) {
+        int size = 1;
+        int pathCount = 0;
+        int literal = -1;
+        int trailIndex = trailSize - 1;
+        int clauseIndex = conflict;
+        
+        do {
+            int[] clause = clauses[clauseIndex];
+            
+            if (blockDistances[clauseIndex] > 2) {
+                // Tighten the block distance of the clauses in use.
+                int blockDistance = computeBlockDistance(clause);
+                
+                if (blockDistance < blockDistances[clauseIndex]) {
+                    blockDistances[clauseIndex] = blockDistance;
+                }
+            }
+            
+            for (int k = literal == -1 ? 0 : 1; k < clause.length; ++k) {
+                int otherLiteral = clause[k];
+                int variable = otherLiteral >>> 1;
+                
+                if (!seen[variable] && levels[variable] > 0) {
+                    bumpActivity(variable);
+                    seen[variable] = true;
+                    
+                    if (levels[variable] >= decisionLevel) {
+                        ++pathCount;
+                    } else {
+                        learnedClause[size++] = otherLiteral;
+                    }
+                }
+            }
+            
+            while (!seen[trail[trailIndex] >>> 1]) {
+                --trailIndex;
+            }
+            
+            literal = trail[trailIndex--];
+            clauseIndex = reasons[literal >>> 1];
+            seen[literal >>> 1] = false;
+            --pathCount;
+        } while (pathCount > 0);
+        
+        learnedClause[0] = literal ^ 1;
+        
+        // Drop the literals implied by the other literals of the clause. The
+        // dropped literals are swapped past the new end of the clause, so
+        // that their seen flags get cleared below.
+        int newSize = 1;
+        
+        for (int i = 1; i < size; ++i) {
+            if (!isRedundant(learnedClause[i])) {
+                int tmp = learnedClause[newSize];
+                learnedClause[newSize++] = learnedClause[i];
+                learnedClause[i] = tmp;
+            }
+        }
+        
+        for (int i = 0; i < size; ++i) {
+            seen[learnedClause[i] >>> 1] = false;
+        }
+        
+        return newSize;
+    }
+    
+    /**
+     * Returns {@code true} if all the literals of the reason of
+     * {@code literal} are already in the learned clause or fixed at the top
+     * level.
+     */
+    private boolean isRedundant(int literal) {
+        int reason = reasons[literal >>> 1];
+        
+        if (reason == NO_REASON) {
+            return false;
+        }
+        
+        int[] clause = clauses[reason];
+        
+        for (int k = 1; k < clause.length; ++k) {
+            int variable = clause[k] >>> 1;
+            
+            if (!seen[variable] && levels[variable] > 0) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Moves the learned literal of the highest decision level to the second
+     * position, so that it gets watched, and returns its level.
+     */
+    private int getBacktrackLevel(int size) {
+        if (size == 1) {
+            return 0;
+        }
+        
+        int maximumIndex = 1;
+        
+        for (int i = 2; i < size; ++i) {
+            if (levels[learnedClause[i] >>> 1] >
+                    levels[learnedClause[maximumIndex] >>> 1]) {
+                maximumIndex = i;
+            }
+        }
+        
+        int literal = learnedClause[maximumIndex];
+        learnedClause[maximumIndex] = learnedClause[1];
+        learnedClause[1] = literal;
+        return levels[literal >>> 1];
+    }
+    
+    /**
+     * Returns the number of distinct decision levels among the literals of
+     * {@code clause}.
+     */
+    private int computeBlockDistance(int[] clause) {
+        ++levelStamp;
+        int blockDistance = 0;
+        
+        for (int literal : clause) {
+            int level = levels[literal >>> 1];
+            
+            if (levelStamps[level] != levelStamp) {
+                levelStamps[level] = levelStamp;
+                ++blockDistance;
+            }
+        }
+        
+        return blockDistance;
+    }
+    
+    /**
+     * Deletes about a half of the learned clauses, preferring the ones with
+     * the largest literal block distance. The clauses with distance at most
+     * two and the clauses currently acting as reasons are kept.
+     */
+    private void reduceLearnedClauses() {
+        int[] candidates = new int[numberOfLearnedClauses];
+        int numberOfCandidates = 0;
+        
+        for (int i = 0; i < numberOfClauses; ++i) {
+            if (clauses[i] != null
+                    && blockDistances[i] > 2
+                    && !isReason(i)) {
+                candidates[numberOfCandidates++] = i;
+            }
+        }
+        
+        // Sort by block distance in descending order, packing the distance
+        // and the clause index into a long.
+        long[] keys = new long[numberOfCandidates];
+        
+        for (int i = 0; i < numberOfCandidates; ++i) {
+            keys[i] = ((long) -blockDistances[candidates[i]] << 32)
+                    | candidates[i];
+        }
+        
+        Arrays.sort(keys);
+        
+        for (int i = 0; i < numberOfCandidates / 2; ++i) {
+            int clauseIndex = (int) keys[i];
+            clauses[clauseIndex] = null;
+            --numberOfLearnedClauses;
+            ++numberOfDeletedClauses;
+        }
+        
+        for (int literal = 0; literal < 2 * numberOfVariables; ++literal) {
+            int[] watchList = watches[literal];
+            int count = 0;
+            
+            for (int i = 0; i < watchCounts[literal]; i += 2) {
+                if (clauses[watchList[i]] != null) {
+                    watchList[count++] = watchList[i];
+                    watchList[count++] = watchList[i + 1];
+                }
+            }
+            
+            watchCounts[literal] = count;
+        }
+        
+        maximumNumberOfLearnedClauses += maximumNumberOfLearnedClauses / 10;
+    }
+    
+    private boolean isReason(int clauseIndex) {
+        int literal = clauses[clauseIndex][0];
+        return values[literal] == TRUE
+                && reasons[literal >>> 1] == clauseIndex;
+    }
+    
+    private int addClauseInternal(int[] clause, int blockDistance) {
+        if (numberOfClauses == clauses.length) {
+            clauses = Arrays.copyOf(clauses, 2 * clauses.length);
+            blockDistances = Arrays.copyOf(blockDistances, clauses.length);
+        }
+        
+        int clauseIndex = numberOfClauses++;
+        clauses[clauseIndex] = clause;
+        blockDistances[clauseIndex] = blockDistance;
+        addWatch(clause[0], clauseIndex, clause[1]);
+        addWatch(clause[1], clauseIndex, clause[0]);
+        return clauseIndex;
+    }
+    
+    /**
+     * Makes {@code literal} watch the clause {@code clauseIndex}. The blocker
+     * is another literal of the clause; while it is true, the propagation
+     * skips the clause without touching it.
+     */
+    private void addWatch(int literal, int clauseIndex, int blocker) {
+        int[] watchList = watches[literal];
+        
+        if (watchList == null) {
+            watchList = watches[literal] = new int[8];
+        } else if (watchCounts[literal] == watchList.length) {
+            watchList = watches[literal] =
+                    Arrays.copyOf(watchList, 2 * watchList.length);
+        }
+        
+        watchList[watchCounts[literal]++] = clauseIndex;
+        watchList[watchCounts[literal]++] = blocker;
+    }
+    
+    private void assign(int literal, int reason) {
+        int variable = literal >>> 1;
+        values[literal] = TRUE;
+        values[literal ^ 1] = FALSE;
+        levels[variable] = decisionLevel;
+        reasons[variable] = reason;
+        trail[trailSize++] = literal;
+    }
+    
+    private void newDecisionLevel() {
+        if (decisionLevel == trailLimits.length) {
+            trailLimits = Arrays.copyOf(trailLimits, 2 * trailLimits.length);
+            levelStamps = Arrays.copyOf(levelStamps, trailLimits.length + 1);
+        }
+        
+        trailLimits[decisionLevel++] = trailSize;
+    }
+    
+    /**
+     * Undoes all the assignments above the decision level {@code level}.
+     */
+    private void backtrack(int level) {
+        if (decisionLevel <= level) {
+            return;
+        }
+        
+        int limit = trailLimits[level];
+        
+        for (int i = trailSize - 1; i >= limit; --i) {
+            int literal = trail[i];
+            int variable = literal >>> 1;
+            values[literal] = UNDEFINED;
+            values[literal ^ 1] = UNDEFINED;
+            reasons[variable] = NO_REASON;
+            phases[variable] = (byte)(literal & 1);
+            
+            if (heapIndices[variable] == -1) {
+                insertIntoHeap(variable);
+            }
+        }
+        
+        trailSize = limit;
+        propagationHead = limit;
+        decisionLevel = level;
+    }
+    
+    private int pickBranchingVariable() {
+        while (heapSize > 0) {
+            int variable = removeMaximumFromHeap();
+            
+            if (values[2 * variable] == UNDEFINED) {
+                return variable;
+            }
+        }
+        
+        return -1;
+    }
+    
+    private void bumpActivity(int variable) {
+        activities[variable] += activityIncrement;
+        
+        if (activities[variable] > MAXIMUM_ACTIVITY) {
+            for (int i = 0; i < numberOfVariables; ++i) {
+                activities[i] /= MAXIMUM_ACTIVITY;
+            }
+            
+            activityIncrement /= MAXIMUM_ACTIVITY;
+        }
+        
+        if (heapIndices[variable] != -1) {
+            siftUp(heapIndices[variable]);
+        }
+    }
+    
+    private void decayActivities() {
+        activityIncrement /= VARIABLE_ACTIVITY_DECAY;
+    }
+    
+    private void insertIntoHeap(int variable) {
+        heap[heapSize] = variable;
+        heapIndices[variable] = heapSize;
+        siftUp(heapSize++);
+    }
+    
+    private int removeMaximumFromHeap() {
+        int variable = heap[0];
+        heapIndices[variable] = -1;
+        
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndices[heap[0]] = 0;
+            siftDown(0);
+        }
+        
+        return variable;
+    }
+    
+    private void siftUp(int index) {
+        int variable = heap[index];
+        
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+            
+            if (activities[parent] >= activities[variable]) {
+                break;
+            }
+            
+            heap[index] = parent;
+            heapIndices[parent] = index;
+            index = parentIndex;
+        }
+        
+        heap[index] = variable;
+        heapIndices[variable] = index;
+    }
+    
+    private void siftDown(int index) {
+        int variable = heap[index];
+        
+        while (true) {
+            int childIndex = 2 * index + 1;
+            
+            if (childIndex >= heapSize) {
+                break;
+            }
+            
+            if (childIndex + 1 < heapSize
+                    && activities[heap[childIndex + 1]] >
+                       activities[heap[childIndex]]) {
+                ++childIndex;
+            }
+            
+            int child = heap[childIndex];
+            
+            if (activities[child] <= activities[variable]) {
+                break;
+            }
+            
+            heap[index] = child;
+            heapIndices[child] = index;
+            index = childIndex;
+        }
+        
+        heap[index] = variable;
+        heapIndices[variable] = index;
+    }
+    
+    private void checkLiteral(int literal) {
+        if (literal < 0 || (literal >>> 1) >= numberOfVariables) {
+            throw new IllegalArgumentException(
+                    "Literal " + literal + " refers to no variable.");
+        }
+    }
+    
+    /**
+     * Returns the element {@code index} of the Luby sequence
+     * {@code 1, 1, 2, 1, 1, 2, 4, 1, ...}.
+     */
+    static int luby(int index) {
+        int size = 1;
+        int sequence = 0;
+        
+        while (size < index + 1) {
+            ++sequence;
+            size = 2 * size + 1;
+        }
+        
+        while (size - 1 != index) {
+            size = (size - 1) >>> 1;
+            --sequence;
+            index %= size;
+        }
+        
+        return 1 << sequence;
+    }
+}
@@ -0,0 +1,610 @@
+package net.coderodde.circuits.sat;
+
+import java.util.Arrays;
+import java.util.Random;
+import net.coderodde.circuits.AndInverterGraph;
+
+/**
+ * This class merges the functionally equivalent nodes of an and-inverter
+ * graph ("fraiging"). First, all the nodes are simulated bit-parallel on 256
+ * random input vectors, and the nodes with equal signatures, possibly up to
+ * complementation, are put into the same candidate class. Then the nodes are
+ * rebuilt in topological order into a new graph, and each node is checked
+ * against the preceding members of its class by a {@link SatSolver}. A proved
+ * pair is merged; a refuted pair yields an input vector. The input vectors,
+ * each with a few neighbours differing from it in one random input pin, are
+ * buffered and simulated on all the nodes 64 at a time, one per bit of a
+ * word, which splits the classes further. Until then, the pairs refuted by
+ * the buffered vectors are skipped; only the cones of the pairs checked are 
+ * simulated on them. The neighbours of a counterexample tend to refute the
+ * other wrong candidates of rarely activated nodes as well. Each pair gets a
+ * budget of solver conflicts; the pairs running out of it are left 
+ * unmerged.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class SatSweeper {
+    
+    /**
+     * The number of 64-bit words of the initial signatures.
+     */
+    static final int NUMBER_OF_WORDS = 4;
+    
+    /**
+     * The number of 64-bit words of the buffered counterexamples. The first 
+     * word holds the counterexamples themselves, and the other ones their
+     * neighbours.
+     */
+    private static final int NUMBER_OF_COUNTEREXAMPLE_WORDS = 32;
+    
+    /**
+     * The maximum number of solver conflicts spent on a candidate pair.
+     */
+    static final long CONFLICT_BUDGET = 1000;
+    
+    private static final long SEED = 0x5EEDL;
+    
+    // The results of proveEquivalent().
+    private static final int EQUIVALENT = 0;
+    private static final int REFUTED = 1;
+    private static final int UNDECIDED = 2;
+    
+    private final AndInverterGraph graph;
+    private final Random random = new Random(SEED);
+    
+    /**
+     * The literal of the swept graph equivalent to each node of the original
+     * graph.
+     */
+    private final int[] literals;
+    
+    /**
+     * The value of each node on the first random input vector. The
+     * signatures are normalized so that this value is zero, which puts
+     * complementary nodes into the same class.
+     */
+    private final boolean[] phases;
+    
+    /**
+     * The hash of the normalized signature of each node.
+     */
+    private final long[] hashes;
+    
+    /**
+     * The lowest node with the same signature hash as each node.
+     */
+    private int[] representatives;
+    
+    /**
+     * The next higher node of the same class as each node, or the number of
+     * nodes for the highest one.
+     */
+    private int[] nextMembers;
+    
+    /**
+     * {@code checkedBy[l]} is the last node checked against the literal 
+     * {@code l} of the swept graph.
+     */
+    private final int[] checkedBy;
+    
+    /**
+     * The buffered counterexamples not simulated yet, laid out as expected by
+     * {@link AndInverterGraph#simulate(long[], int)}. Bit {@code j} of the 
+     * words of the input pins belongs to the counterexample {@code j} or to 
+     * one of its neighbours. The buffers of the counterexamples are 
+     * {@code null} until the solver finds the first one.
+     */
+    private long[] counterexamples;
+    private int numberOfCounterexamples;
+    
+    /**
+     * The values of the nodes on the buffered counterexamples, valid for the
+     * nodes whose stamp equals {@link #counterexampleStamp}.
+     */
+    private long[] counterexampleValues;
+    private int[] counterexampleStamps;
+    private int counterexampleStamp;
+    
+    private final SatSolver solver = new SatSolver();
+    
+    /**
+     * The solver variable of each node of the swept graph, or {@code -1}.
+     */
+    private final int[] solverVariables;
+    
+    /**
+     * The work stack of the depth-first traversals.
+     */
+    private int[] stack = new int[16];
+    
+    private AndInverterGraph sweptGraph;
+    private int numberOfMerges;
+    private int numberOfRefutations;
+    private int numberOfUndecidedPairs;
+    
+    /**
+     * Constructs a sweeper of the given graph.
+     *
+     * @param graph the graph to sweep.
+     */
+    public SatSweeper(AndInverterGraph graph) {
+        this.graph = graph;
+        this.literals = new int[graph.getNumberOfNodes()];
+        this.phases = new boolean[graph.getNumberOfNodes()];
+        this.hashes = new long[graph.getNumberOfNodes()];
+        this.checkedBy = new int[2 * graph.getNumberOfNodes()];
+        Arrays.fill(checkedBy, -1);
+        
+        // The swept graph has at most as many nodes as the original one.
+        this.solverVariables = new int[graph.getNumberOfNodes()];
+        Arrays.fill(solverVariables, -1);
+    }
+    
+    /**
+     * Builds the swept graph, whose output pins are equivalent to those of
+     * the original graph.
+     *
+     * @return the swept graph.
+     */
+    public AndInverterGraph sweep() {
+        if (sweptGraph != null) {
+            return sweptGraph;
+        }
+        
+        sweptGraph = new AndInverterGraph(graph.getNumberOfInputs());
+        literals[0] = AndInverterGraph.FALSE;
+        
+        for (int input = 0; input < graph.getNumberOfInputs(); ++input) {
+            literals[AndInverterGraph.getNode(graph.getInput(input))] =
+                    sweptGraph.getInput(input);
+        }
+        
+        computeSignatures();
+        
+        for (int node = 1; node < graph.getNumberOfNodes(); ++node) {
+            if (graph.isAnd(node)) {
+                literals[node] = sweepNode(node);
+            }
+        }
+        
+        for (int output = 0; output < graph.getNumberOfOutputs(); ++output) {
+            sweptGraph.addOutput(mapLiteral(graph.getOutput(output)));
+        }
+        
+        return sweptGraph;
+    }
+    
+    /**
+     * Returns the number of nodes merged by the solver, not counting the ones
+     * merged by structural hashing.
+     *
+     * @return the number of merges.
+     */
+    public int getNumberOfMerges() {
+        return numberOfMerges;
+    }
+    
+    /**
+     * Returns the number of candidate pairs refuted by the solver.
+     *
+     * @return the number of refutations.
+     */
+    public int getNumberOfRefutations() {
+        return numberOfRefutations;
+    }
+    
+    /**
+     * Returns the number of candidate pairs left unmerged because the solver
+     * ran out of its conflict budget.
+     *
+     * @return the number of undecided pairs.
+     */
+    public int getNumberOfUndecidedPairs() {
+        return numberOfUndecidedPairs;
+    }
+    
+    /**
+     * Encodes the cone of a literal of the swept graph into the solver.
+     *
+     * @param literal the literal of the swept graph.
+     * @return the solver literal.
+     */
+    int encode(int literal) {
+        int root = AndInverterGraph.getNode(literal);
+        
+        if (solverVariables[root] == -1) {
+            int stackSize = 0;
+            stack[stackSize++] = root;
+            
+            while (stackSize > 0) {
+                int node = stack[stackSize - 1];
+                
+                if (solverVariables[node] != -1) {
+                    --stackSize;
+                    continue;
+                }
+                
+                if (sweptGraph.isAnd(node)) {
+                    int node0 = AndInverterGraph.getNode(
+                            sweptGraph.getFanin0(node));
+                    int node1 = AndInverterGraph.getNode(
+                            sweptGraph.getFanin1(node));
+                    
+                    if (solverVariables[node0] == -1
+                            || solverVariables[node1] == -1) {
+                        if (stackSize + 2 > stack.length) {
+                            stack = Arrays.copyOf(stack, 2 * stack.length);
+                        }
+                        
+                        if (solverVariables[node0] == -1) {
+                            stack[stackSize++] = node0;
+                        }
+                        
+                        if (solverVariables[node1] == -1) {
+                            stack[stackSize++] = node1;
+                        }
+                        
+                        continue;
+                    }
+                }
+                
+                --stackSize;
+                addNodeClauses(node);
+            }
+        }
+        
+        return 2 * solverVariables[root] + (literal & 1);
+    }
+    
+    SatSolver getSolver() {
+        return solver;
+    }
+    
+    /**
+     * Reads the input vector of the last satisfying assignment of the
+     * solver. The input pins not encoded are set to {@code false}.
+     *
+     * @return the input vector.
+     */
+    boolean[] getCounterexample() {
+        boolean[] counterexample = new boolean[graph.getNumberOfInputs()];
+        
+        for (int input = 0; input < counterexample.length; ++input) {
+            int variable = solverVariables[
+                    AndInverterGraph.getNode(sweptGraph.getInput(input))];
+            
+            if (variable != -1) {
+                counterexample[input] = solver.getValue(variable);
+            }
+        }
+        
+        return counterexample;
+    }
+    
+    /**
+     * Builds the node {@code node} into the swept graph and merges it with the
+     * first preceding member of its class equivalent to it.
+     *
+     * @return the literal of the swept graph equivalent to the node.
+     */
+    private int sweepNode(int node) {
+        int literal = sweptGraph.and(mapLiteral(graph.getFanin0(node)),
+                                     mapLiteral(graph.getFanin1(node)));
+        int member = representatives[node];
+        
+        while (member < node) {
+            int candidate = literals[member] ^
+                            (phases[node] != phases[member] ? 1 : 0);
+            
+            if (candidate == literal) {
+                // Merged by structural hashing already.
+                return literal;
+            }
+            
+            // Several members may have been merged into the same literal.
+            if (checkedBy[candidate] != node
+                    && !isRefutedByCounterexamples(node, member)) {
+                checkedBy[candidate] = node;
+                
+                switch (proveEquivalent(literal, candidate)) {
+                    case EQUIVALENT:
+                        ++numberOfMerges;
+                        return candidate;
+                    
+                    case REFUTED:
+                        ++numberOfRefutations;
+                        
+                        if (addCounterexample()) {
+                            // The classes have changed; start over.
+                            member = representatives[node];
+                            continue;
+                        }
+                        
+                        break;
+                    
+                    default:
+                        ++numberOfUndecidedPairs;
+                }
+            }
+            
+            member = nextMembers[member];
+        }
+        
+        return literal;
+    }
+    
+    /**
+     * Decides whether two literals of the swept graph are equivalent within
+     * {@link #CONFLICT_BUDGET} conflicts.
+     *
+     * @return {@link #EQUIVALENT}, {@link #REFUTED} or {@link #UNDECIDED}.
+     */
+    private int proveEquivalent(int literal1, int literal2) {
+        int solverLiteral1 = encode(literal1);
+        int solverLiteral2 = encode(literal2);
+        long firstConflict = solver.getNumberOfConflicts();
+        Boolean satisfiable = solver.solveWithinBudget(CONFLICT_BUDGET,
+                                                       solverLiteral1,
+                                                       solverLiteral2 ^ 1);
+        
+        if (Boolean.FALSE.equals(satisfiable)) {
+            long remainingConflicts = CONFLICT_BUDGET - 
+                    (solver.getNumberOfConflicts() - firstConflict);
+            satisfiable = solver.solveWithinBudget(remainingConflicts,
+                                                   solverLiteral1 ^ 1,
+                                                   solverLiteral2);
+        }
+        
+        if (satisfiable == null) {
+            return UNDECIDED;
+        }
+        
+        return satisfiable ? REFUTED : EQUIVALENT;
+    }
+    
+    private void addNodeClauses(int node) {
+        int variable = solver.newVariable();
+        solverVariables[node] = variable;
+        int output = 2 * variable;
+        
+        if (node == 0) {
+            solver.addClause(output ^ 1);
+        } else if (sweptGraph.isAnd(node)) {
+            int input1 = toSolverLiteral(sweptGraph.getFanin0(node));
+            int input2 = toSolverLiteral(sweptGraph.getFanin1(node));
+            solver.addClause(output ^ 1, input1);
+            solver.addClause(output ^ 1, input2);
+            solver.addClause(output, input1 ^ 1, input2 ^ 1);
+        }
+    }
+    
+    private int toSolverLiteral(int literal) {
+        return 2 * solverVariables[AndInverterGraph.getNode(literal)] +
+               (literal & 1);
+    }
+    
+    private int mapLiteral(int literal) {
+        return literals[AndInverterGraph.getNode(literal)] ^ (literal & 1);
+    }
+    
+    private void computeSignatures() {
+        long[] values = graph.simulate(
+                createRandomPatterns(graph.getNumberOfInputs(),
+                                     NUMBER_OF_WORDS,
+                                     random),
+                NUMBER_OF_WORDS);
+        
+        for (int node = 0; node < graph.getNumberOfNodes(); ++node) {
+            int offset = node * NUMBER_OF_WORDS;
+            phases[node] = (values[offset] & 1L) != 0;
+            long mask = phases[node] ? -1L : 0L;
+            
+            for (int word = 0; word < NUMBER_OF_WORDS; ++word) {
+                hashes[node] = mix(hashes[node], values[offset + word] ^ mask);
+            }
+        }
+        
+        computeRepresentatives();
+    }
+    
+    /**
+     * Buffers the input vector of the last satisfying assignment of the 
+     * solver together with its neighbours. A full buffer is simulated on all
+     * the nodes, which splits their classes accordingly.
+     *
+     * @return {@code true} if the classes were refined.
+     */
+    private boolean addCounterexample() {
+        boolean[] counterexample = getCounterexample();
+        int numberOfWords = NUMBER_OF_COUNTEREXAMPLE_WORDS;
+        
+        if (counterexamples == null) {
+            counterexamples = 
+                    new long[graph.getNumberOfInputs() * numberOfWords];
+            counterexampleValues = 
+                    new long[graph.getNumberOfNodes() * numberOfWords];
+            counterexampleStamps = new int[graph.getNumberOfNodes()];
+        }
+        
+        long bit = 1L << numberOfCounterexamples;
+        
+        for (int input = 0; input < counterexample.length; ++input) {
+            if (counterexample[input]) {
+                for (int word = 0; word < numberOfWords; ++word) {
+                    counterexamples[input * numberOfWords + word] |= bit;
+                }
+            }
+        }
+        
+        if (counterexample.length > 0) {
+            for (int word = 1; word < numberOfWords; ++word) {
+                int input = random.nextInt(counterexample.length);
+                counterexamples[input * numberOfWords + word] ^= bit;
+            }
+        }
+        
+        if (++numberOfCounterexamples < Long.SIZE) {
+            ++counterexampleStamp;
+            counterexampleStamps[0] = counterexampleStamp;
+            
+            // The input pins are the nodes 1, ..., getNumberOfInputs().
+            System.arraycopy(counterexamples,
+                             0,
+                             counterexampleValues,
+                             numberOfWords,
+                             counterexamples.length);
+            Arrays.fill(counterexampleStamps, 
+                        1, 
+                        counterexample.length + 1, 
+                        counterexampleStamp);
+            return false;
+        }
+        
+        long[] values = graph.simulate(counterexamples, numberOfWords);
+        
+        for (int node = 0; node < graph.getNumberOfNodes(); ++node) {
+            long mask = phases[node] ? -1L : 0L;
+            
+            for (int word = 0; word < numberOfWords; ++word) {
+                hashes[node] = mix(hashes[node],
+                                   values[node * numberOfWords + word] ^ mask);
+            }
+        }
+        
+        computeRepresentatives();
+        Arrays.fill(counterexamples, 0L);
+        numberOfCounterexamples = 0;
+        return true;
+    }
+    
+    /**
+     * Returns {@code true} if the two nodes of the original graph, normalized
+     * by their phases, differ on some buffered counterexample.
+     */
+    private boolean isRefutedByCounterexamples(int node1, int node2) {
+        if (numberOfCounterexamples == 0) {
+            return false;
+        }
+        
+        simulateCounterexamples(node1);
+        simulateCounterexamples(node2);
+        int numberOfWords = NUMBER_OF_COUNTEREXAMPLE_WORDS;
+        long mask = (1L << numberOfCounterexamples) - 1;
+        long phaseMask = phases[node1] != phases[node2] ? -1L : 0L;
+        
+        for (int word = 0; word < numberOfWords; ++word) {
+            long difference = 
+                    counterexampleValues[node1 * numberOfWords + word] ^
+                    counterexampleValues[node2 * numberOfWords + word] ^
+                    phaseMask;
+            
+            if ((difference & mask) != 0) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Simulates the cone of {@code root} on the buffered counterexamples, 
+     * reusing the values computed since the last counterexample was added.
+     */
+    private void simulateCounterexamples(int root) {
+        int numberOfWords = NUMBER_OF_COUNTEREXAMPLE_WORDS;
+        int stackSize = 0;
+        stack[stackSize++] = root;
+        
+        while (stackSize > 0) {
+            int node = stack[stackSize - 1];
+            
+            if (counterexampleStamps[node] == counterexampleStamp) {
+                --stackSize;
+                continue;
+            }
+            
+            int fanin0 = graph.getFanin0(node);
+            int fanin1 = graph.getFanin1(node);
+            int node0 = AndInverterGraph.getNode(fanin0);
+            int node1 = AndInverterGraph.getNode(fanin1);
+            
+            if (counterexampleStamps[node0] != counterexampleStamp
+                    || counterexampleStamps[node1] != counterexampleStamp) {
+                if (stackSize + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                
+                stack[stackSize++] = node0;
+                stack[stackSize++] = node1;
+                continue;
+            }
+            
+            --stackSize;
+            long mask0 = AndInverterGraph.isComplemented(fanin0) ? -1L : 0L;
+            long mask1 = AndInverterGraph.isComplemented(fanin1) ? -1L : 0L;
+            
+            for (int word = 0; word < numberOfWords; ++word) {
+                counterexampleValues[node * numberOfWords + word] =
+                        (counterexampleValues[node0 * numberOfWords + word] ^
+                         mask0) &
+                        (counterexampleValues[node1 * numberOfWords + word] ^
+                         mask1);
+            }
+            
+            counterexampleStamps[node] = counterexampleStamp;
+        }
+    }
+    
+    private void computeRepresentatives() {
+        int numberOfNodes = graph.getNumberOfNodes();
+        int capacity = Integer.highestOneBit(2 * numberOfNodes) << 1;
+        int mask = capacity - 1;
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        representatives = new int[numberOfNodes];
+        nextMembers = new int[numberOfNodes];
+        
+        // The highest member of the class of each representative so far.
+        int[] lastMembers = new int[numberOfNodes];
+        
+        for (int node = 0; node < numberOfNodes; ++node) {
+            int slot = (int)(hashes[node] ^ (hashes[node] >>> 32)) & mask;
+            
+            while (table[slot] != -1 && hashes[table[slot]] != hashes[node]) {
+                slot = (slot + 1) & mask;
+            }
+            
+            if (table[slot] == -1) {
+                table[slot] = node;
+            } else {
+                nextMembers[lastMembers[table[slot]]] = node;
+            }
+            
+            representatives[node] = table[slot];
+            lastMembers[table[slot]] = node;
+            nextMembers[node] = numberOfNodes;
+        }
+    }
+    
+    /**
+     * Creates random input words laid out as expected by
+     * {@link AndInverterGraph#simulate(long[], int)}.
+     */
+    static long[] createRandomPatterns(int numberOfInputs,
+                                       int numberOfWords,
+                                       Random random) {
+        long[] patterns = new long[numberOfInputs * numberOfWords];
+        
+        for (int i = 0; i < patterns.length; ++i) {
+            patterns[i] = random.nextLong();
+        }
+        
+        return patterns;
+    }
+    
+    private static long mix(long hash, long word) {
+        hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+}
@@ -0,0 +1,520 @@
+package net.coderodde.circuits.word;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import net.coderodde.circuits.Circuit;
+
+/**
+ * This class implements {@link WordCircuit#toCircuit(String)}. First, the
+ * bits of each bus needed by the output buses are computed backwards as a
+ * mask. Then the needed bits are built forwards into gates named after the
+ * bits, e.g. {@code "sum[3]"}. The adders and the subtractors become
+ * ripple-carry chains, where the carry out of bit {@code i} is a multiplexer
+ * choosing the carry into bit {@code i} if the operand bits propagate it, and
+ * the first operand bit otherwise.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class BitBlaster {
+    
+    private static final String FALSE_GATE_NAME = "false";
+    private static final String TRUE_GATE_NAME = "true";
+    private static final String UNUSED_GATE_NAME = "unused";
+    
+    private final WordCircuit wordCircuit;
+    
+    /**
+     * The needed bits of each bus.
+     */
+    private final long[] neededBits;
+    
+    /**
+     * The name of the gate or the input pin driving each needed bit of each
+     * bus.
+     */
+    private final String[][] bitSources;
+    
+    private Circuit circuit;
+    private boolean hasFalseGate;
+    private boolean hasTrueGate;
+    
+    BitBlaster(WordCircuit wordCircuit) {
+        this.wordCircuit = wordCircuit;
+        this.neededBits = new long[wordCircuit.getNumberOfBuses()];
+        this.bitSources = new String[wordCircuit.getNumberOfBuses()][];
+    }
+    
+    Circuit toCircuit(String circuitName) {
+        checkHasBuses();
+        int numberOfInputPins = 0;
+        int numberOfOutputPins = 0;
+        
+        for (int i = 0; i < wordCircuit.getNumberOfInputBuses(); ++i) {
+            numberOfInputPins +=
+                    wordCircuit.getWidth(wordCircuit.getInputBus(i));
+        }
+        
+        for (int i = 0; i < wordCircuit.getNumberOfOutputBuses(); ++i) {
+            numberOfOutputPins +=
+                    wordCircuit.getWidth(wordCircuit.getOutputBus(i));
+        }
+        
+        circuit = new Circuit(circuitName,
+                              numberOfInputPins,
+                              numberOfOutputPins);
+        computeNeededBits();
+        List<String> unusedInputPins = mapInputPins();
+        
+        for (int bus = 0; bus < wordCircuit.getNumberOfBuses(); ++bus) {
+            if (neededBits[bus] != 0L
+                    && wordCircuit.getOpcode(bus) != WordCircuit.INPUT) {
+                bitSources[bus] = new String[wordCircuit.getWidth(bus)];
+                buildBus(bus);
+            }
+        }
+        
+        connectOutputPins(unusedInputPins);
+        return circuit;
+    }
+    
+    /**
+     * Checks that the word circuit has some input pins to drive and some
+     * output pins to terminate the unused input pins in.
+     */
+    private void checkHasBuses() {
+        if (wordCircuit.getNumberOfInputBuses() == 0) {
+            throw new IllegalStateException(
+                    "The word circuit \"" + wordCircuit.getName() + 
+                    "\" has no input buses.");
+        }
+        
+        if (wordCircuit.getNumberOfOutputBuses() == 0) {
+            throw new IllegalStateException(
+                    "The word circuit \"" + wordCircuit.getName() + 
+                    "\" has no output buses.");
+        }
+    }
+    
+    private void computeNeededBits() {
+        for (int i = 0; i < wordCircuit.getNumberOfOutputBuses(); ++i) {
+            int bus = wordCircuit.getOutputBus(i);
+            neededBits[bus] = WordCircuit.getMask(wordCircuit.getWidth(bus));
+        }
+        
+        for (int bus = wordCircuit.getNumberOfBuses() - 1; bus >= 0; --bus) {
+            long mask = neededBits[bus];
+            
+            if (mask == 0L) {
+                continue;
+            }
+            
+            int operand1 = wordCircuit.getOperand1(bus);
+            int operand2 = wordCircuit.getOperand2(bus);
+            
+            switch (wordCircuit.getOpcode(bus)) {
+                case WordCircuit.NOT:
+                    neededBits[operand1] |= mask;
+                    break;
+                
+                case WordCircuit.AND:
+                case WordCircuit.OR:
+                case WordCircuit.XOR:
+                    neededBits[operand1] |= mask;
+                    neededBits[operand2] |= mask;
+                    break;
+                
+                case WordCircuit.MUX:
+                    neededBits[operand1] |= mask;
+                    neededBits[operand2] |= mask;
+                    neededBits[wordCircuit.getOperand3(bus)] |= 1L;
+                    break;
+                
+                case WordCircuit.ADD:
+                case WordCircuit.SUBTRACT: {
+                    // A sum bit depends on all the operand bits below it.
+                    long lowBits = -1L >>> Long.numberOfLeadingZeros(mask);
+                    neededBits[operand1] |= lowBits;
+                    neededBits[operand2] |= lowBits;
+                    break;
+                }
+                
+                case WordCircuit.EQUAL:
+                case WordCircuit.LESS_THAN: {
+                    long allBits = WordCircuit.getMask(
+                            wordCircuit.getWidth(operand1));
+                    neededBits[operand1] |= allBits;
+                    neededBits[operand2] |= allBits;
+                    break;
+                }
+                
+                case WordCircuit.SHIFT_LEFT:
+                    neededBits[operand1] |=
+                            mask >>> wordCircuit.getArgument(bus);
+                    break;
+                
+                case WordCircuit.SHIFT_RIGHT:
+                    neededBits[operand1] |=
+                            (mask << wordCircuit.getArgument(bus))
+                            & WordCircuit.getMask(wordCircuit.getWidth(bus));
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Maps the bits of the input buses to the input pins.
+     *
+     * @return the input pins not needed by any output bus.
+     */
+    private List<String> mapInputPins() {
+        List<String> unusedInputPins = new ArrayList<>();
+        int inputPin = 0;
+        
+        for (int i = 0; i < wordCircuit.getNumberOfInputBuses(); ++i) {
+            int bus = wordCircuit.getInputBus(i);
+            bitSources[bus] = new String[wordCircuit.getWidth(bus)];
+            
+            for (int bit = 0; bit < bitSources[bus].length; ++bit) {
+                String inputPinName = "inputPin" + inputPin++;
+                
+                if (isNeeded(bus, bit)) {
+                    bitSources[bus][bit] = inputPinName;
+                } else {
+                    unusedInputPins.add(inputPinName);
+                }
+            }
+        }
+        
+        return unusedInputPins;
+    }
+    
+    private void buildBus(int bus) {
+        int operand1 = wordCircuit.getOperand1(bus);
+        int operand2 = wordCircuit.getOperand2(bus);
+        int width = wordCircuit.getWidth(bus);
+        String[] bits = bitSources[bus];
+        
+        switch (wordCircuit.getOpcode(bus)) {
+            case WordCircuit.CONSTANT:
+                for (int bit = 0; bit < width; ++bit) {
+                    if (isNeeded(bus, bit)) {
+                        bits[bit] = getConstantGate(
+                                ((wordCircuit.getArgument(bus) >>> bit) & 1L)
+                                != 0L);
+                    }
+                }
+                
+                break;
+            
+            case WordCircuit.NOT:
+                for (int bit = 0; bit < width; ++bit) {
+                    if (isNeeded(bus, bit)) {
+                        bits[bit] = getBitName(bus, bit, "");
+                        circuit.addNotGate(bits[bit]);
+                        circuit.connect(bitSources[operand1][bit])
+                               .to(bits[bit]);
+                    }
+                }
+                
+                break;
+            
+            case WordCircuit.AND:
+                buildBitwiseOperation(bus, circuit::addAndGate);
+                break;
+            
+            case WordCircuit.OR:
+                buildBitwiseOperation(bus, circuit::addOrGate);
+                break;
+            
+            case WordCircuit.XOR:
+                buildBitwiseOperation(bus, circuit::addXorGate);
+                break;
+            
+            case WordCircuit.MUX:
+                buildBitwiseOperation(bus, circuit::addMuxGate);
+                String select = bitSources[wordCircuit.getOperand3(bus)][0];
+                
+                for (int bit = 0; bit < width; ++bit) {
+                    if (isNeeded(bus, bit)) {
+                        circuit.connect(select).toSelectPinOf(bits[bit]);
+                    }
+                }
+                
+                break;
+            
+            case WordCircuit.ADD:
+            case WordCircuit.SUBTRACT:
+                buildAdder(bus);
+                break;
+            
+            case WordCircuit.EQUAL:
+                buildEqualityComparator(bus);
+                break;
+            
+            case WordCircuit.LESS_THAN: {
+                // a < b if and only if a + ~b + 1 does not carry out.
+                String carry = buildCarryChain(bus, width);
+                bits[0] = getBitName(bus, 0, "");
+                circuit.addNotGate(bits[0]);
+                circuit.connect(carry).to(bits[0]);
+                break;
+            }
+            
+            case WordCircuit.SHIFT_LEFT: {
+                int distance = (int) wordCircuit.getArgument(bus);
+                
+                for (int bit = 0; bit < width; ++bit) {
+                    if (isNeeded(bus, bit)) {
+                        bits[bit] = bit < distance ?
+                                    getConstantGate(false) :
+                                    bitSources[operand1][bit - distance];
+                    }
+                }
+                
+                break;
+            }
+            
+            case WordCircuit.SHIFT_RIGHT: {
+                int distance = (int) wordCircuit.getArgument(bus);
+                
+                for (int bit = 0; bit < width; ++bit) {
+                    if (isNeeded(bus, bit)) {
+                        bits[bit] = bit + distance < width ?
+                                    bitSources[operand1][bit + distance] :
+                                    getConstantGate(false);
+                    }
+                }
+                
+                break;
+            }
+            
+            default:
+                throw new IllegalStateException(
+                        "Unknown opcode: " + wordCircuit.getOpcode(bus));
+        }
+    }
+    
+    /**
+     * Builds a two-input gate per needed bit, connecting the corresponding
+     * bits of the operands to its first and second pins.
+     */
+    private void buildBitwiseOperation(int bus, Consumer<String> gateAdder) {
+        String[] bits1 = bitSources[wordCircuit.getOperand1(bus)];
+        String[] bits2 = bitSources[wordCircuit.getOperand2(bus)];
+        String[] bits = bitSources[bus];
+        
+        for (int bit = 0; bit < bits.length; ++bit) {
+            if (isNeeded(bus, bit)) {
+                bits[bit] = getBitName(bus, bit, "");
+                gateAdder.accept(bits[bit]);
+                circuit.connect(bits1[bit]).toFirstPinOf(bits[bit]);
+                circuit.connect(bits2[bit]).toSecondPinOf(bits[bit]);
+            }
+        }
+    }
+    
+    private void buildAdder(int bus) {
+        boolean subtract = wordCircuit.getOpcode(bus) == WordCircuit.SUBTRACT;
+        String[] bits = bitSources[bus];
+        int highestBit = 63 - Long.numberOfLeadingZeros(neededBits[bus]);
+        
+        // The propagate of bit 0 of an adder is needed only by the sum bit.
+        for (int bit = subtract || isNeeded(bus, 0) ? 0 : 1;
+                bit <= highestBit;
+                ++bit) {
+            buildPropagate(bus, bit);
+        }
+        
+        buildCarries(bus, highestBit);
+        
+        for (int bit = 0; bit <= highestBit; ++bit) {
+            if (!isNeeded(bus, bit)) {
+                continue;
+            }
+            
+            String propagate = getBitName(bus, bit, ".propagate");
+            
+            if (bit > 0) {
+                bits[bit] = getBitName(bus, bit, "");
+                circuit.addXorGate(bits[bit]);
+                circuit.connect(propagate).toFirstPinOf(bits[bit]);
+                circuit.connect(getBitName(bus, bit, ".carry"))
+                       .toSecondPinOf(bits[bit]);
+            } else if (subtract) {
+                // a - b = a + ~b + 1, so the sum bit is !(a ^ ~b).
+                bits[0] = getBitName(bus, 0, "");
+                circuit.addNotGate(bits[0]);
+                circuit.connect(propagate).to(bits[0]);
+            } else {
+                bits[0] = propagate;
+            }
+        }
+    }
+    
+    /**
+     * Builds the carries into the bits {@code 1, ..., numberOfCarries} of
+     * the adder, subtractor or comparator {@code bus}, reusing the propagate
+     * gates built so far.
+     */
+    private void buildCarries(int bus, int numberOfCarries) {
+        boolean subtract = wordCircuit.getOpcode(bus) != WordCircuit.ADD;
+        String[] bits1 = bitSources[wordCircuit.getOperand1(bus)];
+        String[] bits2 = bitSources[wordCircuit.getOperand2(bus)];
+        
+        for (int bit = 0; bit < numberOfCarries; ++bit) {
+            String carry = getBitName(bus, bit + 1, ".carry");
+            String propagate = getBitName(bus, bit, ".propagate");
+            
+            if (bit > 0) {
+                circuit.addMuxGate(carry);
+                circuit.connect(bits1[bit]).toFirstPinOf(carry);
+                circuit.connect(getBitName(bus, bit, ".carry"))
+                       .toSecondPinOf(carry);
+                circuit.connect(propagate).toSelectPinOf(carry);
+            } else if (subtract) {
+                // The carry in is 1.
+                circuit.addOrGate(carry);
+                circuit.connect(bits1[0]).toFirstPinOf(carry);
+                circuit.connect(propagate).toSecondPinOf(carry);
+            } else {
+                circuit.addAndGate(carry);
+                circuit.connect(bits1[0]).toFirstPinOf(carry);
+                circuit.connect(bits2[0]).toSecondPinOf(carry);
+            }
+        }
+    }
+    
+    /**
+     * Builds the propagate gate of the bit {@code bit} of an adder, a
+     * subtractor or a comparator: {@code a ^ b} for an adder and
+     * {@code a ^ ~b} otherwise.
+     *
+     * @return the name of the propagate gate.
+     */
+    private String buildPropagate(int bus, int bit) {
+        String propagate = getBitName(bus, bit, ".propagate");
+        
+        if (wordCircuit.getOpcode(bus) == WordCircuit.ADD) {
+            circuit.addXorGate(propagate);
+        } else {
+            circuit.addXnorGate(propagate);
+        }
+        
+        circuit.connect(bitSources[wordCircuit.getOperand1(bus)][bit])
+               .toFirstPinOf(propagate);
+        circuit.connect(bitSources[wordCircuit.getOperand2(bus)][bit])
+               .toSecondPinOf(propagate);
+        return propagate;
+    }
+    
+    /**
+     * Builds the carry chain of {@code a + ~b + 1} over all the bits of the
+     * comparator {@code bus}.
+     *
+     * @return the name of the carry out of the most significant bit.
+     */
+    private String buildCarryChain(int bus, int width) {
+        int operandWidth = wordCircuit.getWidth(wordCircuit.getOperand1(bus));
+        
+        for (int bit = 0; bit < operandWidth; ++bit) {
+            buildPropagate(bus, bit);
+        }
+        
+        buildCarries(bus, operandWidth);
+        return getBitName(bus, operandWidth, ".carry");
+    }
+    
+    private void buildEqualityComparator(int bus) {
+        String[] bits1 = bitSources[wordCircuit.getOperand1(bus)];
+        String[] bits2 = bitSources[wordCircuit.getOperand2(bus)];
+        String[] bits = bitSources[bus];
+        bits[0] = getBitName(bus, 0, "");
+        
+        if (bits1.length == 1) {
+            circuit.addXnorGate(bits[0]);
+            circuit.connect(bits1[0]).toFirstPinOf(bits[0]);
+            circuit.connect(bits2[0]).toSecondPinOf(bits[0]);
+            return;
+        }
+        
+        circuit.addAndGate(bits[0], bits1.length);
+        
+        for (int bit = 0; bit < bits1.length; ++bit) {
+            String equal = getBitName(bus, bit, ".equal");
+            circuit.addXnorGate(equal);
+            circuit.connect(bits1[bit]).toFirstPinOf(equal);
+            circuit.connect(bits2[bit]).toSecondPinOf(equal);
+            circuit.connect(equal).toPinOf(bits[0], bit);
+        }
+    }
+    
+    /**
+     * Connects the bits of the output buses to the output pins. The unused
+     * input pins, which the circuit requires to drive some gate, are tied
+     * to {@code false} by an {@code AND} gate that is or'ed into the first
+     * output pin. {@link Circuit#lock()} folds both gates away.
+     */
+    private void connectOutputPins(List<String> unusedInputPins) {
+        int outputPin = 0;
+        
+        for (int i = 0; i < wordCircuit.getNumberOfOutputBuses(); ++i) {
+            int bus = wordCircuit.getOutputBus(i);
+            
+            for (String bit : bitSources[bus]) {
+                String source = bit;
+                
+                if (outputPin == 0 && !unusedInputPins.isEmpty()) {
+                    source = tieUnusedInputPins(bit, unusedInputPins);
+                }
+                
+                circuit.connect(source).to("outputPin" + outputPin++);
+            }
+        }
+    }
+    
+    private String tieUnusedInputPins(String bit,
+                                      List<String> unusedInputPins) {
+        circuit.addAndGate(UNUSED_GATE_NAME, unusedInputPins.size() + 1);
+        circuit.connect(getConstantGate(false))
+               .toPinOf(UNUSED_GATE_NAME, 0);
+        
+        for (int i = 0; i < unusedInputPins.size(); ++i) {
+            circuit.connect(unusedInputPins.get(i))
+                   .toPinOf(UNUSED_GATE_NAME, i + 1);
+        }
+        
+        String or = UNUSED_GATE_NAME + ".or";
+        circuit.addOrGate(or);
+        circuit.connect(bit).toFirstPinOf(or);
+        circuit.connect(UNUSED_GATE_NAME).toSecondPinOf(or);
+        return or;
+    }
+    
+    private String getConstantGate(boolean bit) {
+        if (bit) {
+            if (!hasTrueGate) {
+                circuit.addConstantGate(TRUE_GATE_NAME, true);
+                hasTrueGate = true;
+            }
+            
+            return TRUE_GATE_NAME;
+        }
+        
+        if (!hasFalseGate) {
+            circuit.addConstantGate(FALSE_GATE_NAME, false);
+            hasFalseGate = true;
+        }
+        
+        return FALSE_GATE_NAME;
+    }
+    
+    private boolean isNeeded(int bus, int bit) {
+        return ((neededBits[bus] >>> bit) & 1L) != 0L;
+    }
+    
+    private String getBitName(int bus, int bit, String suffix) {
+        return wordCircuit.getBusName(bus) + "[" + bit + "]" + suffix;
+    }
+}
@@ -0,0 +1,629 @@
+package net.coderodde.circuits.word;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import net.coderodde.circuits.Circuit;
+
+/**
+ * This class implements a word-level circuit. Instead of single bits, the
+ * components operate on <i>buses</i> of 1 to 64 bits, and each component is
+ * evaluated as a single operation on a {@code long}. Bit {@code i} of a bus
+ * is bit {@code i} of its word; the bits above the width of a bus are always
+ * zero.
+ * <p>
+ * Each component is added under the name of the bus it drives and may only
+ * read the buses added before it, so the components are always in
+ * topological order and the circuit never needs to be locked. A word circuit
+ * may be bit-blasted into an equivalent {@link Circuit} via
+ * {@link #toCircuit(String)}.
+ * <p>
+ * A word circuit is not thread-safe: each evaluation stores the words of the
+ * buses in an array owned by the circuit, so threads evaluating the same
+ * datapath concurrently must use a circuit each.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class WordCircuit {
+    
+    /**
+     * The maximum width of a bus.
+     */
+    public static final int MAXIMUM_WIDTH = Long.SIZE;
+    
+    static final byte INPUT = 0;
+    static final byte CONSTANT = 1;
+    static final byte NOT = 2;
+    static final byte AND = 3;
+    static final byte OR = 4;
+    static final byte XOR = 5;
+    static final byte ADD = 6;
+    static final byte SUBTRACT = 7;
+    static final byte SHIFT_LEFT = 8;
+    static final byte SHIFT_RIGHT = 9;
+    static final byte EQUAL = 10;
+    static final byte LESS_THAN = 11;
+    static final byte MUX = 12;
+    
+    /**
+     * Denotes an unused operand.
+     */
+    static final int NO_OPERAND = -1;
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private final String name;
+    
+    /**
+     * Maps the name of each bus to its index.
+     */
+    private final Map<String, Integer> busIndices = new HashMap<>();
+    private final List<String> busNames = new ArrayList<>();
+    
+    private byte[] opcodes = new byte[INITIAL_CAPACITY];
+    private int[] operands1 = new int[INITIAL_CAPACITY];
+    private int[] operands2 = new int[INITIAL_CAPACITY];
+    private int[] operands3 = new int[INITIAL_CAPACITY];
+    private int[] widths = new int[INITIAL_CAPACITY];
+    
+    /**
+     * The value of each constant bus and the distance of each shift.
+     */
+    private long[] arguments = new long[INITIAL_CAPACITY];
+    
+    /**
+     * The word of each bus in the most recent evaluation.
+     */
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int numberOfBuses;
+    
+    private int[] inputBuses = new int[INITIAL_CAPACITY];
+    private int numberOfInputBuses;
+    private int[] outputBuses = new int[INITIAL_CAPACITY];
+    private int numberOfOutputBuses;
+    
+    public WordCircuit(String name) {
+        Objects.requireNonNull(name, "The circuit name is null.");
+        
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("The circuit name is empty.");
+        }
+        
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Adds a new input bus. The input buses are numbered in the order they
+     * are added.
+     *
+     * @param busName the name of the bus.
+     * @param width   the number of bits in the bus.
+     */
+    public void addInputBus(String busName, int width) {
+        int bus = addBus(busName, INPUT, checkWidth(width));
+        
+        if (numberOfInputBuses == inputBuses.length) {
+            inputBuses = Arrays.copyOf(inputBuses, 2 * inputBuses.length);
+        }
+        
+        inputBuses[numberOfInputBuses++] = bus;
+    }
+    
+    /**
+     * Makes an existing bus the next output bus of this circuit.
+     *
+     * @param busName the name of the bus.
+     */
+    public void addOutputBus(String busName) {
+        int bus = getBus(busName);
+        
+        if (numberOfOutputBuses == outputBuses.length) {
+            outputBuses = Arrays.copyOf(outputBuses, 2 * outputBuses.length);
+        }
+        
+        outputBuses[numberOfOutputBuses++] = bus;
+    }
+    
+    /**
+     * Adds a new constant bus.
+     *
+     * @param busName the name of the bus.
+     * @param width   the number of bits in the bus.
+     * @param value   the value of the bus. The bits above {@code width} are
+     *                ignored.
+     */
+    public void addConstant(String busName, int width, long value) {
+        int bus = addBus(busName, CONSTANT, checkWidth(width));
+        arguments[bus] = value & getMask(width);
+    }
+    
+    /**
+     * Adds a bitwise negation of the bus {@code operandName}.
+     *
+     * @param busName     the name of the new bus.
+     * @param operandName the name of the operand bus.
+     */
+    public void addNot(String busName, String operandName) {
+        int operand = getBus(operandName);
+        int bus = addBus(busName, NOT, widths[operand]);
+        operands1[bus] = operand;
+    }
+    
+    /**
+     * Adds a bitwise {@code AND} of two buses of equal widths.
+     *
+     * @param busName      the name of the new bus.
+     * @param operand1Name the name of the first operand bus.
+     * @param operand2Name the name of the second operand bus.
+     */
+    public void addAnd(String busName,
+                       String operand1Name,
+                       String operand2Name) {
+        addBinaryOperation(busName, AND, operand1Name, operand2Name);
+    }
+    
+    /**
+     * Adds a bitwise {@code OR} of two buses of equal widths.
+     *
+     * @param busName      the name of the new bus.
+     * @param operand1Name the name of the first operand bus.
+     * @param operand2Name the name of the second operand bus.
+     */
+    public void addOr(String busName,
+                      String operand1Name,
+                      String operand2Name) {
+        addBinaryOperation(busName, OR, operand1Name, operand2Name);
+    }
+    
+    /**
+     * Adds a bitwise {@code XOR} of two buses of equal widths.
+     *
+     * @param busName      the name of the new bus.
+     * @param operand1Name the name of the first operand bus.
+     * @param operand2Name the name of the second operand bus.
+     */
+    public void addXor(String busName,
+                       String operand1Name,
+                       String operand2Name) {
+        addBinaryOperation(busName, XOR, operand1Name, operand2Name);
+    }
+    
+    /**
+     * Adds an adder of two buses of equal widths. The carry out of the most
+     * significant bit is dropped.
+     *
+     * @param busName      the name of the new bus.
+     * @param operand1Name the name of the first operand bus.
+     * @param operand2Name the name of the second operand bus.
+     */
+    public void addAdder(String busName,
+                         String operand1Name,
+                         String operand2Name) {
+        addBinaryOperation(busName, ADD, operand1Name, operand2Name);
+    }
+    
+    /**
+     * Adds a subtractor of two buses of equal widths. The difference wraps
+     * around modulo {@code 2^width}.
+     *
+     * @param busName      the name of the new bus.
+     * @param operand1Name the name of the minuend bus.
+     * @param operand2Name the name of the subtrahend bus.
+     */
+    public void addSubtractor(String busName,
+                              String operand1Name,
+                              String operand2Name) {
+        addBinaryOperation(busName, SUBTRACT, operand1Name, operand2Name);
+    }
+    
+    /**
+     * Adds a left shift of the bus {@code operandName} by a constant
+     * distance. The vacated bits are zero.
+     *
+     * @param busName     the name of the new bus.
+     * @param operandName the name of the operand bus.
+     * @param distance    the shift distance, less than the width.
+     */
+    public void addShiftLeft(String busName, String operandName, int distance) {
+        addShift(busName, SHIFT_LEFT, operandName, distance);
+    }
+    
+    /**
+     * Adds a logical right shift of the bus {@code operandName} by a constant
+     * distance. The vacated bits are zero.
+     *
+     * @param busName     the name of the new bus.
+     * @param operandName the name of the operand bus.
+     * @param distance    the shift distance, less than the width.
+     */
+    public void addShiftRight(String busName,
+                              String operandName,
+                              int distance) {
+        addShift(busName, SHIFT_RIGHT, operandName, distance);
+    }
+    
+    /**
+     * Adds a comparator of two buses of equal widths. The new bus has a
+     * single bit, which is set if and only if the operands are equal.
+     *
+     * @param busName      the name of the new bus.
+     * @param operand1Name the name of the first operand bus.
+     * @param operand2Name the name of the second operand bus.
+     */
+    public void addEqualityComparator(String busName,
+                                      String operand1Name,
+                                      String operand2Name) {
+        addBinaryOperation(busName, EQUAL, operand1Name, operand2Name);
+        widths[numberOfBuses - 1] = 1;
+    }
+    
+    /**
+     * Adds a comparator of two buses of equal widths. The new bus has a
+     * single bit, which is set if and only if the first operand is less than
+     * the second one as an unsigned number.
+     *
+     * @param busName      the name of the new bus.
+     * @param operand1Name the name of the first operand bus.
+     * @param operand2Name the name of the second operand bus.
+     */
+    public void addLessThanComparator(String busName,
+                                      String operand1Name,
+                                      String operand2Name) {
+        addBinaryOperation(busName, LESS_THAN, operand1Name, operand2Name);
+        widths[numberOfBuses - 1] = 1;
+    }
+    
+    /**
+     * Adds a multiplexer of two buses of equal widths. The new bus equals
+     * the first operand if the single bit of the select bus is zero, and the
+     * second operand otherwise.
+     *
+     * @param busName      the name of the new bus.
+     * @param selectName   the name of the select bus of width 1.
+     * @param operand1Name the name of the first operand bus.
+     * @param operand2Name the name of the second operand bus.
+     */
+    public void addMultiplexer(String busName,
+                               String selectName,
+                               String operand1Name,
+                               String operand2Name) {
+        int select = getBus(selectName);
+        
+        if (widths[select] != 1) {
+            throw new IllegalArgumentException(
+                    "The select bus \"" + selectName + "\" has width " +
+                    widths[select] + ". Width 1 expected.");
+        }
+        
+        addBinaryOperation(busName, MUX, operand1Name, operand2Name);
+        operands3[numberOfBuses - 1] = select;
+    }
+    
+    public int getWidth(String busName) {
+        return widths[getBus(busName)];
+    }
+    
+    public int getNumberOfInputBuses() {
+        return numberOfInputBuses;
+    }
+    
+    public int getNumberOfOutputBuses() {
+        return numberOfOutputBuses;
+    }
+    
+    /**
+     * Evaluates this circuit.
+     *
+     * @param inputWords the word of each input bus, at most 
+     *                   {@link #getNumberOfInputBuses()} words. The missing
+     *                   words are zero, and the bits above the width of a bus
+     *                   are ignored.
+     * @return the word of each output bus.
+     */
+    public long[] evaluate(long... inputWords) {
+        long[] outputWords = new long[numberOfOutputBuses];
+        evaluate(inputWords, outputWords);
+        return outputWords;
+    }
+    
+    /**
+     * Evaluates this circuit without allocating.
+     *
+     * @param inputWords  the word of each input bus, at most 
+     *                    {@link #getNumberOfInputBuses()} words. The missing
+     *                    words are zero, and the bits above the width of a 
+     *                    bus are ignored.
+     * @param outputWords the array of at least
+     *                    {@link #getNumberOfOutputBuses()} words receiving
+     *                    the word of each output bus.
+     */
+    public void evaluate(long[] inputWords, long[] outputWords) {
+        Objects.requireNonNull(inputWords, "The input word array is null.");
+        Objects.requireNonNull(outputWords, "The output word array is null.");
+        
+        if (inputWords.length > numberOfInputBuses) {
+            throw new IllegalArgumentException(
+                    "Too many input words (" + inputWords.length + "). At " +
+                    "most " + numberOfInputBuses + " expected.");
+        }
+        
+        if (outputWords.length < numberOfOutputBuses) {
+            throw new IllegalArgumentException(
+                    "The output word array is too short (" + 
+                    outputWords.length + "). At least " + 
+                    numberOfOutputBuses + " expected.");
+        }
+        
+        long[] values = this.values;
+        
+        for (int i = 0; i < numberOfInputBuses; ++i) {
+            int bus = inputBuses[i];
+            values[bus] = i < inputWords.length ?
+                          inputWords[i] & getMask(widths[bus]) :
+                          0L;
+        }
+        
+        byte[] opcodes = this.opcodes;
+        int[] operands1 = this.operands1;
+        int[] operands2 = this.operands2;
+        
+        for (int bus = 0; bus < numberOfBuses; ++bus) {
+            switch (opcodes[bus]) {
+                case INPUT:
+                    break;
+                
+                case CONSTANT:
+                    values[bus] = arguments[bus];
+                    break;
+                
+                case NOT:
+                    values[bus] = ~values[operands1[bus]]
+                                & getMask(widths[bus]);
+                    break;
+                
+                case AND:
+                    values[bus] = values[operands1[bus]]
+                                & values[operands2[bus]];
+                    break;
+                
+                case OR:
+                    values[bus] = values[operands1[bus]]
+                                | values[operands2[bus]];
+                    break;
+                
+                case XOR:
+                    values[bus] = values[operands1[bus]]
+                                ^ values[operands2[bus]];
+                    break;
+                
+                case ADD:
+                    values[bus] = (values[operands1[bus]]
+                                 + values[operands2[bus]])
+                                & getMask(widths[bus]);
+                    break;
+                
+                case SUBTRACT:
+                    values[bus] = (values[operands1[bus]]
+                                 - values[operands2[bus]])
+                                & getMask(widths[bus]);
+                    break;
+                
+                case SHIFT_LEFT:
+                    values[bus] = (values[operands1[bus]]
+                                   << arguments[bus])
+                                & getMask(widths[bus]);
+                    break;
+                
+                case SHIFT_RIGHT:
+                    values[bus] = values[operands1[bus]] >>> arguments[bus];
+                    break;
+                
+                case EQUAL:
+                    values[bus] = values[operands1[bus]] ==
+                                  values[operands2[bus]] ? 1L : 0L;
+                    break;
+                
+                case LESS_THAN:
+                    values[bus] = Long.compareUnsigned(
+                                          values[operands1[bus]],
+                                          values[operands2[bus]]) < 0 ?
+                                  1L : 0L;
+                    break;
+                
+                case MUX:
+                    values[bus] = values[operands3[bus]] != 0L ?
+                                  values[operands2[bus]] :
+                                  values[operands1[bus]];
+                    break;
+                
+                default:
+                    throw new IllegalStateException(
+                            "Unknown opcode: " + opcodes[bus]);
+            }
+        }
+        
+        for (int i = 0; i < numberOfOutputBuses; ++i) {
+            outputWords[i] = values[outputBuses[i]];
+        }
+    }
+    
+    /**
+     * Bit-blasts this circuit into an unlocked {@link Circuit}. The input
+     * pins of the new circuit are the bits of the input buses, from the
+     * least significant one, in the order of the buses; the output pins are
+     * laid out the same way. Only the bits affecting some output bus are
+     * built, so that {@link Circuit#lock()} may optimize the whole datapath
+     * at the level of gates. The input pins not affecting any output bus 
+     * are tied into the first output pin through gates that
+     * {@link Circuit#lock()} folds away.
+     *
+     * @param circuitName the name of the new circuit.
+     * @return the equivalent circuit of gates.
+     * @throws IllegalStateException if this circuit has no input bus or no 
+     *                               output bus.
+     */
+    public Circuit toCircuit(String circuitName) {
+        return new BitBlaster(this).toCircuit(circuitName);
+    }
+    
+    int getNumberOfBuses() {
+        return numberOfBuses;
+    }
+    
+    String getBusName(int bus) {
+        return busNames.get(bus);
+    }
+    
+    byte getOpcode(int bus) {
+        return opcodes[bus];
+    }
+    
+    int getOperand1(int bus) {
+        return operands1[bus];
+    }
+    
+    int getOperand2(int bus) {
+        return operands2[bus];
+    }
+    
+    int getOperand3(int bus) {
+        return operands3[bus];
+    }
+    
+    int getWidth(int bus) {
+        return widths[bus];
+    }
+    
+    long getArgument(int bus) {
+        return arguments[bus];
+    }
+    
+    int getInputBus(int index) {
+        return inputBuses[index];
+    }
+    
+    int getOutputBus(int index) {
+        return outputBuses[index];
+    }
+    
+    /**
+     * Returns the mask of the bits of a bus of width {@code width}.
+     */
+    static long getMask(int width) {
+        return -1L >>> (Long.SIZE - width);
+    }
+    
+    private void addBinaryOperation(String busName,
+                                    byte opcode,
+                                    String operand1Name,
+                                    String operand2Name) {
+        int operand1 = getBus(operand1Name);
+        int operand2 = getBus(operand2Name);
+        
+        if (widths[operand1] != widths[operand2]) {
+            throw new IllegalArgumentException(
+                    "The buses \"" + operand1Name + "\" and \"" +
+                    operand2Name + "\" have different widths (" +
+                    widths[operand1] + " and " + widths[operand2] + ").");
+        }
+        
+        int bus = addBus(busName, opcode, widths[operand1]);
+        operands1[bus] = operand1;
+        operands2[bus] = operand2;
+    }
+    
+    private void addShift(String busName,
+                          byte opcode,
+                          String operandName,
+                          int distance) {
+        int operand = getBus(operandName);
+        
+        if (distance < 0 || distance >= widths[operand]) {
+            throw new IllegalArgumentException(
+                    "The shift distance " + distance + " is out of range " +
+                    "for the bus \"" + operandName + "\" of width " +
+                    widths[operand] + ".");
+        }
+        
+        int bus = addBus(busName, opcode, widths[operand]);
+        operands1[bus] = operand;
+        arguments[bus] = distance;
+    }
+    
+    private int addBus(String busName, byte opcode, int width) {
+        checkNewBusName(busName);
+        
+        if (numberOfBuses == opcodes.length) {
+            int capacity = 2 * opcodes.length;
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            operands1 = Arrays.copyOf(operands1, capacity);
+            operands2 = Arrays.copyOf(operands2, capacity);
+            operands3 = Arrays.copyOf(operands3, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+            arguments = Arrays.copyOf(arguments, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        
+        int bus = numberOfBuses++;
+        opcodes[bus] = opcode;
+        operands1[bus] = NO_OPERAND;
+        operands2[bus] = NO_OPERAND;
+        operands3[bus] = NO_OPERAND;
+        widths[bus] = width;
+        busIndices.put(busName, bus);
+        busNames.add(busName);
+        return bus;
+    }
+    
+    private int getBus(String busName) {
+        Objects.requireNonNull(busName, "The bus name is null.");
+        Integer bus = busIndices.get(busName);
+        
+        if (bus == null) {
+            throw new IllegalStateException(
+                    "The bus \"" + busName + "\" is not present in the " +
+                    "circuit \"" + name + "\".");
+        }
+        
+        return bus;
+    }
+    
+    private void checkNewBusName(String busName) {
+        Objects.requireNonNull(busName, "The new bus name is null.");
+        
+        if (busName.isEmpty()) {
+            throw new IllegalArgumentException("The new bus name is empty.");
+        }
+        
+        // The gates of the bit-blasted circuit are named after the bits of
+        // the buses, e.g. "sum[3]".
+        if (busName.indexOf('[') >= 0) {
+            throw new IllegalArgumentException(
+                    "The new bus name (" + busName + ") contains '['.");
+        }
+        
+        if (busIndices.containsKey(busName)) {
+            throw new IllegalArgumentException(
+                    "The new bus name (" + busName + ") is already " +
+                    "occupied.");
+        }
+    }
+    
+    private static int checkWidth(int width) {
+        if (width < 1 || width > MAXIMUM_WIDTH) {
+            throw new IllegalArgumentException(
+                    "The bus width " + width + " is out of range [1, " +
+                    MAXIMUM_WIDTH + "].");
+        }
+        
+        return width;
+    }
+}
@@ -1,8 +1,30 @@
 package net.coderodde.circuits;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.coderodde.circuits.bdd.BddManager;
+import net.coderodde.circuits.components.AbstractCircuitComponent;
+import net.coderodde.circuits.components.support.AndGate;
+import net.coderodde.circuits.components.support.OrGate;
+import net.coderodde.circuits.bdd.CircuitBdds;
+import net.coderodde.circuits.sat.EquivalenceChecker;
+import net.coderodde.circuits.sat.SatSolver;
+import net.coderodde.circuits.sat.SatSweeper;
+import net.coderodde.circuits.word.WordCircuit;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class CircuitTest {
@@ -160,4 +182,1768 @@ public class CircuitTest {
             }
         }
     }
+    
+    @Test
+    public void testLockedCircuitWithSubcircuit() {
+        Circuit xor = new Circuit("xor", 2, 1);
+        
+        xor.addAndGate("and1");
+        xor.addAndGate("and2");
+        xor.addNotGate("not1");
+        xor.addNotGate("not2");
+        xor.addOrGate("or");
+        
+        xor.connect("inputPin0").to("not1");
+        xor.connect("not1").toFirstPinOf("and1");
+        xor.connect("inputPin1").toSecondPinOf("and1");
+        xor.connect("inputPin1").to("not2");
+        xor.connect("not2").toSecondPinOf("and2");
+        xor.connect("inputPin0").toFirstPinOf("and2");
+        xor.connect("and1").toFirstPinOf("or");
+        xor.connect("and2").toSecondPinOf("or");
+        xor.connect("or").to("outputPin0");
+        
+        Circuit circuit = new Circuit("c", 3, 2);
+        circuit.addCircuit(new Circuit(xor, "xor1"));
+        circuit.addCircuit(new Circuit(xor, "xor2"));
+        circuit.addAndGate("and");
+        
+        circuit.connect("inputPin0").to("xor1.inputPin0");
+        circuit.connect("inputPin1").to("xor1.inputPin1");
+        circuit.connect("xor1.outputPin0").to("xor2.inputPin0");
+        circuit.connect("inputPin2").to("xor2.inputPin1");
+        circuit.connect("xor2.outputPin0").to("outputPin0");
+        circuit.connect("inputPin0").toFirstPinOf("and");
+        circuit.connect("inputPin2").toSecondPinOf("and");
+        circuit.connect("and").to("outputPin1");
+        circuit.lock();
+        
+        for (boolean b0 : new boolean[]{ false, true }) {
+            for (boolean b1 : new boolean[]{ false, true }) {
+                for (boolean b2 : new boolean[]{ false, true }) {
+                    boolean[] expected = { b0 ^ b1 ^ b2, b0 && b2 };
+                    assertTrue(Arrays.equals(expected, 
+                                             circuit.doCycle(b0, b1, b2)));
+                }
+            }
+        }
+    }
+    
+    @Test(timeout = 10000L)
+    public void testSharedFanOutIsEvaluatedOncePerCycle() {
+        // Without memoization, each stage would double the evaluation work.
+        int stages = 64;
+        Circuit circuit = new Circuit("chain", 1, 1);
+        String previous = "inputPin0";
+        
+        for (int i = 0; i < stages; ++i) {
+            String gate = "and" + i;
+            circuit.addAndGate(gate);
+            circuit.connect(previous).toFirstPinOf(gate);
+            circuit.connect(previous).toSecondPinOf(gate);
+            previous = gate;
+        }
+        
+        circuit.connect(previous).to("outputPin0");
+        
+        assertTrue(circuit.doCycle(true)[0]);
+        assertFalse(circuit.doCycle(false)[0]);
+    }
+    
+    @Test
+    public void testOutputBitsAreLatched() {
+        Circuit circuit = new Circuit("c", 2, 2);
+        circuit.addAndGate("and");
+        circuit.addOrGate("or");
+        circuit.connect("inputPin0").toFirstPinOf("and");
+        circuit.connect("inputPin1").toSecondPinOf("and");
+        circuit.connect("inputPin0").toFirstPinOf("or");
+        circuit.connect("inputPin1").toSecondPinOf("or");
+        circuit.connect("and").to("outputPin0");
+        circuit.connect("or").to("outputPin1");
+        
+        boolean[] outputBits = new boolean[2];
+        
+        for (boolean locked : new boolean[]{ false, true }) {
+            if (locked) {
+                circuit.lock();
+            }
+            
+            circuit.doCycle(new boolean[]{ true, false }, outputBits);
+            assertTrue(Arrays.equals(new boolean[]{ false, true }, outputBits));
+            assertEquals(2L, circuit.getOutputBitsAsLong());
+            
+            // Changing the inputs must not affect the latched outputs.
+            circuit.setInputBits(true, true);
+            assertEquals(2L, circuit.getOutputBitsAsLong());
+            circuit.doCycle();
+            assertEquals(3L, circuit.getOutputBitsAsLong());
+        }
+    }
+    
+    @Test
+    public void testEvaluateBatch() {
+        Circuit circuit = new Circuit("c", 3, 2);
+        circuit.addAndGate("and");
+        circuit.addOrGate("or");
+        circuit.addNotGate("not");
+        circuit.connect("inputPin0").toFirstPinOf("and");
+        circuit.connect("inputPin1").toSecondPinOf("and");
+        circuit.connect("and").toFirstPinOf("or");
+        circuit.connect("inputPin2").to("not");
+        circuit.connect("not").toSecondPinOf("or");
+        circuit.connect("or").to("outputPin0");
+        circuit.connect("inputPin2").to("outputPin1");
+        circuit.lock();
+        
+        // Lane j holds the input vector j, for j = 0, 1, ..., 7.
+        long[] inputLanes = new long[3];
+        
+        for (int vector = 0; vector < 8; ++vector) {
+            for (int pin = 0; pin < 3; ++pin) {
+                if ((vector & (1 << pin)) != 0) {
+                    inputLanes[pin] |= 1L << vector;
+                }
+            }
+        }
+        
+        long[] outputLanes = new long[2];
+        circuit.evaluateBatch(inputLanes, outputLanes);
+        
+        for (int vector = 0; vector < 8; ++vector) {
+            boolean[] expected = circuit.doCycle((vector & 1) != 0,
+                                                 (vector & 2) != 0,
+                                                 (vector & 4) != 0);
+            
+            for (int pin = 0; pin < 2; ++pin) {
+                assertEquals(expected[pin], 
+                             (outputLanes[pin] & (1L << vector)) != 0);
+            }
+        }
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testEvaluateBatchRequiresLock() {
+        Circuit circuit = new Circuit("c", 1, 1);
+        circuit.connect("inputPin0").to("outputPin0");
+        circuit.evaluateBatch(new long[1], new long[1]);
+    }
+    
+    @Test
+    public void testGeneratedLaneEvaluator() {
+        // A chain long enough to need wide local variable instructions.
+        int stages = 300;
+        Circuit circuit = new Circuit("c", 2, 2);
+        String previous = "inputPin0";
+        
+        for (int i = 0; i < stages; ++i) {
+            String gate = (i % 3 == 0 ? "not" : i % 3 == 1 ? "and" : "or") + i;
+            
+            if (i % 3 == 0) {
+                circuit.addNotGate(gate);
+                circuit.connect(previous).to(gate);
+            } else {
+                if (i % 3 == 1) {
+                    circuit.addAndGate(gate);
+                } else {
+                    circuit.addOrGate(gate);
+                }
+                
+                circuit.connect(previous).toFirstPinOf(gate);
+                circuit.connect("inputPin1").toSecondPinOf(gate);
+            }
+            
+            previous = gate;
+        }
+        
+        circuit.connect(previous).to("outputPin0");
+        circuit.connect("inputPin1").to("outputPin1");
+        circuit.lock();
+        
+        long[] inputLanes = { 0x5L, 0x3L };
+        long[] expected = new long[2];
+        long[] actual = new long[2];
+        circuit.evaluateBatch(inputLanes, expected);
+        circuit.generateLaneEvaluator().evaluate(inputLanes, actual);
+        assertTrue(Arrays.equals(expected, actual));
+        assertEquals(0x3L, actual[1]);
+    }
+    
+    @Test
+    public void testGeneratedLaneEvaluatorOfLargeCircuit() {
+        // Too large for a single method the JIT compiler would compile.
+        int numberOfGates = 3000;
+        String[] types = { "and", "or", "xor", "nand", "nor", "xnor", "not",
+                           "mux" };
+        Circuit circuit = new Circuit("large", 16, 8);
+        Random random = new Random(13L);
+        String[] signals = new String[16 + numberOfGates];
+        
+        for (int i = 0; i < 16; ++i) {
+            signals[i] = "inputPin" + i;
+        }
+        
+        for (int i = 16; i < signals.length; ++i) {
+            String type = types[i % types.length];
+            String gate = type + i;
+            String source1 = signals[i - 1];
+            String source2 = signals[random.nextInt(i - 1)];
+            signals[i] = gate;
+            
+            switch (type) {
+                case "and":
+                    circuit.addAndGate(gate);
+                    break;
+                
+                case "or":
+                    circuit.addOrGate(gate);
+                    break;
+                
+                case "xor":
+                    circuit.addXorGate(gate);
+                    break;
+                
+                case "nand":
+                    circuit.addNandGate(gate);
+                    break;
+                
+                case "nor":
+                    circuit.addNorGate(gate);
+                    break;
+                
+                case "xnor":
+                    circuit.addXnorGate(gate);
+                    break;
+                
+                case "mux":
+                    circuit.addMuxGate(gate);
+                    break;
+                
+                default:
+                    circuit.addNotGate(gate);
+                    circuit.connect(source1).to(gate);
+                    continue;
+            }
+            
+            circuit.connect(source1).toFirstPinOf(gate);
+            circuit.connect(source2).toSecondPinOf(gate);
+            
+            if (type.equals("mux")) {
+                circuit.connect(signals[random.nextInt(i - 1)])
+                       .toSelectPinOf(gate);
+            }
+        }
+        
+        for (int i = 0; i < 8; ++i) {
+            circuit.connect(signals[signals.length - 1 - i])
+                   .to("outputPin" + i);
+        }
+        
+        circuit.lock();
+        assertTrue(circuit.getNumberOfCompiledGates() > 2000);
+        LaneEvaluator evaluator = circuit.generateLaneEvaluator();
+        assertTrue(evaluator instanceof
+                   LaneEvaluatorGenerator.SplitLaneEvaluator);
+        assertTrue(((LaneEvaluatorGenerator.SplitLaneEvaluator) evaluator)
+                   .getNumberOfMethods() > 1);
+        
+        long[] inputLanes = new long[16];
+        long[] expected = new long[8];
+        long[] actual = new long[8];
+        
+        for (int iteration = 0; iteration < 10; ++iteration) {
+            for (int i = 0; i < inputLanes.length; ++i) {
+                inputLanes[i] = random.nextLong();
+            }
+            
+            circuit.evaluateBatch(inputLanes, expected);
+            evaluator.evaluate(inputLanes, actual);
+            assertTrue(Arrays.equals(expected, actual));
+        }
+    }
+    
+    @Test
+    public void testIncrementalSimulator() {
+        Circuit circuit = new Circuit("c", 4, 2);
+        circuit.addAndGate("and1");
+        circuit.addAndGate("and2");
+        circuit.addOrGate("or");
+        circuit.addNotGate("not");
+        circuit.connect("inputPin0").toFirstPinOf("and1");
+        circuit.connect("inputPin1").toSecondPinOf("and1");
+        circuit.connect("inputPin2").toFirstPinOf("and2");
+        circuit.connect("inputPin3").toSecondPinOf("and2");
+        circuit.connect("and1").toFirstPinOf("or");
+        circuit.connect("and2").toSecondPinOf("or");
+        circuit.connect("or").to("not");
+        circuit.connect("not").to("outputPin0");
+        circuit.connect("and2").to("outputPin1");
+        circuit.lock();
+        
+        IncrementalSimulator simulator = circuit.newIncrementalSimulator();
+        boolean[] inputBits = new boolean[4];
+        boolean[] outputBits = new boolean[2];
+        
+        // Walk all the input vectors in Gray code order, so that exactly one
+        // input pin changes per cycle.
+        for (int step = 1; step <= 32; ++step) {
+            int pin = Integer.numberOfTrailingZeros(step) % 4;
+            inputBits[pin] = !inputBits[pin];
+            simulator.setInputBit(pin, inputBits[pin]);
+            simulator.doCycle();
+            simulator.getOutputBits(outputBits);
+            assertTrue(Arrays.equals(circuit.doCycle(inputBits), outputBits));
+        }
+    }
+    
+    @Test
+    public void testVeryDeepCircuit() {
+        int stages = 50_000;
+        Circuit circuit = new Circuit("deep", 2, 1);
+        String previous = "inputPin0";
+        
+        for (int i = 0; i < stages; ++i) {
+            String gate = "and" + i;
+            circuit.addAndGate(gate);
+            circuit.connect(previous).toFirstPinOf(gate);
+            circuit.connect("inputPin1").toSecondPinOf(gate);
+            previous = gate;
+        }
+        
+        circuit.connect(previous).to("outputPin0");
+        
+        assertTrue(circuit.doCycle(true, true)[0]);
+        assertFalse(circuit.doCycle(true, false)[0]);
+        
+        circuit.lock();
+        
+        assertTrue(circuit.doCycle(true, true)[0]);
+        assertFalse(circuit.doCycle(false, true)[0]);
+    }
+    
+    @Test
+    public void testConcurrentEvaluators() throws InterruptedException {
+        final Circuit circuit = new Circuit("c", 2, 2);
+        circuit.addAndGate("and");
+        circuit.addOrGate("or");
+        circuit.connect("inputPin0").toFirstPinOf("and");
+        circuit.connect("inputPin1").toSecondPinOf("and");
+        circuit.connect("inputPin0").toFirstPinOf("or");
+        circuit.connect("inputPin1").toSecondPinOf("or");
+        circuit.connect("and").to("outputPin0");
+        circuit.connect("or").to("outputPin1");
+        circuit.lock();
+        
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    CircuitEvaluator evaluator = circuit.newEvaluator();
+                    boolean[] inputBits = new boolean[2];
+                    boolean[] outputBits = new boolean[2];
+                    
+                    for (int i = 0; i < 100_000; ++i) {
+                        inputBits[0] = (i & 1) != 0;
+                        inputBits[1] = (i & 2) != 0;
+                        evaluator.doCycle(inputBits, outputBits);
+                        
+                        if (outputBits[0] != (inputBits[0] && inputBits[1]) ||
+                            outputBits[1] != (inputBits[0] || inputBits[1])) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            
+            threads[t].start();
+        }
+        
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(0, failures.get());
+    }
+    
+    @Test
+    public void testTruthTable() {
+        int n = 16;
+        Circuit circuit = new Circuit("c", n, 2);
+        circuit.addAndGate("and");
+        circuit.addNotGate("not");
+        circuit.connect("inputPin" + (n - 1)).to("not");
+        circuit.connect("not").toFirstPinOf("and");
+        circuit.addOrGate("or0");
+        circuit.connect("inputPin0").toFirstPinOf("or0");
+        circuit.connect("inputPin1").toSecondPinOf("or0");
+        
+        for (int i = 2; i < n; ++i) {
+            circuit.addOrGate("or" + (i - 1));
+            circuit.connect("or" + (i - 2)).toFirstPinOf("or" + (i - 1));
+            circuit.connect("inputPin" + i).toSecondPinOf("or" + (i - 1));
+        }
+        
+        circuit.connect("inputPin0").toSecondPinOf("and");
+        circuit.connect("or" + (n - 2)).to("outputPin0");
+        circuit.connect("and").to("outputPin1");
+        circuit.lock();
+        
+        long[][] table = circuit.truthTable();
+        
+        assertEquals(2, table.length);
+        assertEquals((1 << n) / 64, table[0].length);
+        
+        for (int row = 0; row < (1 << n); ++row) {
+            boolean or = (table[0][row >>> 6] & (1L << row)) != 0;
+            boolean and = (table[1][row >>> 6] & (1L << row)) != 0;
+            assertEquals(row != 0, or);
+            assertEquals((row & 1) != 0 && (row & (1 << (n - 1))) == 0, and);
+        }
+        
+        Circuit small = new Circuit("small", 2, 1);
+        small.addAndGate("and");
+        small.connect("inputPin0").toFirstPinOf("and");
+        small.connect("inputPin1").toSecondPinOf("and");
+        small.connect("and").to("outputPin0");
+        small.lock();
+        
+        assertEquals(8L, small.truthTable()[0][0]);
+    }
+    
+    @Test
+    public void testFanOutToFirstPinKeepsExistingConnection() {
+        Circuit circuit = new Circuit("c", 2, 2);
+        circuit.addAndGate("and");
+        circuit.addOrGate("or");
+        circuit.connect("inputPin0").toFirstPinOf("and");
+        circuit.connect("inputPin1").toSecondPinOf("and");
+        circuit.connect("inputPin0").toFirstPinOf("or");
+        circuit.connect("inputPin0").toSecondPinOf("or");
+        circuit.connect("and").to("outputPin0");
+        circuit.connect("or").to("outputPin1");
+        circuit.lock();
+        
+        assertTrue(Arrays.equals(new boolean[]{ false, true }, 
+                                 circuit.doCycle(true, false)));
+        assertTrue(Arrays.equals(new boolean[]{ false, false }, 
+                                 circuit.doCycle(false, true)));
+    }
+    
+    @Test
+    public void testStructurallyEqualGatesAreMerged() {
+        Circuit circuit = new Circuit("c", 2, 2);
+        circuit.addAndGate("and1");
+        circuit.addAndGate("and2");
+        circuit.addNotGate("not1");
+        circuit.addNotGate("not2");
+        circuit.addOrGate("or");
+        circuit.connect("inputPin0").toFirstPinOf("and1");
+        circuit.connect("inputPin1").toSecondPinOf("and1");
+        circuit.connect("inputPin1").toFirstPinOf("and2");
+        circuit.connect("inputPin0").toSecondPinOf("and2");
+        circuit.connect("and1").to("not1");
+        circuit.connect("and2").to("not2");
+        circuit.connect("not1").toFirstPinOf("or");
+        circuit.connect("not2").toSecondPinOf("or");
+        circuit.connect("or").to("outputPin0");
+        circuit.connect("and2").to("outputPin1");
+        circuit.lock();
+        
+        // and2 merges with and1, hence not2 with not1, and finally or 
+        // reduces to not1 | not1 = not1.
+        assertEquals(5, circuit.getNumberOfGates());
+        assertEquals(2, circuit.getNumberOfCompiledGates());
+        
+        for (int i = 0; i < 4; ++i) {
+            boolean bit0 = (i & 1) != 0;
+            boolean bit1 = (i & 2) != 0;
+            boolean[] outputBits = circuit.doCycle(bit0, bit1);
+            assertEquals(!(bit0 && bit1), outputBits[0]);
+            assertEquals(bit0 && bit1, outputBits[1]);
+        }
+    }
+    
+    @Test
+    public void testConstantsAndDeadGatesAreOptimizedAway() {
+        Circuit circuit = new Circuit("c", 2, 3);
+        circuit.addConstantGate("one", true);
+        circuit.addConstantGate("zero", false);
+        circuit.addAndGate("and1");
+        circuit.addAndGate("and2");
+        circuit.addOrGate("or");
+        circuit.addNotGate("not1");
+        circuit.addNotGate("not2");
+        circuit.addNotGate("not3");
+        
+        // outputPin0 = inputPin0 & 1 = inputPin0.
+        circuit.connect("inputPin0").toFirstPinOf("and1");
+        circuit.connect("one").toSecondPinOf("and1");
+        circuit.connect("and1").to("outputPin0");
+        
+        // outputPin1 = !!inputPin1 = inputPin1.
+        circuit.connect("inputPin1").to("not1");
+        circuit.connect("not1").to("not2");
+        circuit.connect("not2").to("outputPin1");
+        
+        // outputPin2 = !((inputPin1 & 0) | 0) = 1.
+        circuit.connect("inputPin1").toFirstPinOf("and2");
+        circuit.connect("zero").toSecondPinOf("and2");
+        circuit.connect("and2").toFirstPinOf("or");
+        circuit.connect("zero").toSecondPinOf("or");
+        circuit.connect("or").to("not3");
+        circuit.connect("not3").to("outputPin2");
+        circuit.lock();
+        
+        assertEquals(8, circuit.getNumberOfGates());
+        assertEquals(1, circuit.getNumberOfCompiledGates());
+        
+        for (int i = 0; i < 4; ++i) {
+            boolean bit0 = (i & 1) != 0;
+            boolean bit1 = (i & 2) != 0;
+            assertTrue(Arrays.equals(new boolean[]{ bit0, bit1, true }, 
+                                     circuit.doCycle(bit0, bit1)));
+        }
+        
+        long[] outputLanes = new long[3];
+        circuit.generateLaneEvaluator().evaluate(new long[]{ 5L, 3L }, 
+                                                 outputLanes);
+        assertTrue(Arrays.equals(new long[]{ 5L, 3L, -1L }, outputLanes));
+        
+        Circuit copy = new Circuit(circuit, "copy");
+        copy.lock();
+        assertTrue(Arrays.equals(new boolean[]{ true, false, true }, 
+                                 copy.doCycle(true, false)));
+    }
+    
+    @Test
+    public void testFlatten() {
+        Circuit xor = new Circuit("xor", 2, 1);
+        xor.addAndGate("and1");
+        xor.addAndGate("and2");
+        xor.addNotGate("not1");
+        xor.addNotGate("not2");
+        xor.addOrGate("or");
+        xor.connect("inputPin0").to("not1");
+        xor.connect("not1").toFirstPinOf("and1");
+        xor.connect("inputPin1").toSecondPinOf("and1");
+        xor.connect("inputPin1").to("not2");
+        xor.connect("not2").toSecondPinOf("and2");
+        xor.connect("inputPin0").toFirstPinOf("and2");
+        xor.connect("and1").toFirstPinOf("or");
+        xor.connect("and2").toSecondPinOf("or");
+        xor.connect("or").to("outputPin0");
+        
+        Circuit inner = new Circuit("inner", 2, 1);
+        inner.addCircuit(new Circuit(xor, "xor1"));
+        inner.connect("inputPin0").to("xor1.inputPin0");
+        inner.connect("inputPin1").to("xor1.inputPin1");
+        inner.connect("xor1.outputPin0").to("outputPin0");
+        
+        Circuit circuit = new Circuit("c", 3, 2);
+        circuit.addCircuit(inner);
+        circuit.addCircuit(new Circuit(xor, "xor2"));
+        circuit.addAndGate("and");
+        circuit.connect("inputPin0").to("inner.inputPin0");
+        circuit.connect("inputPin1").to("inner.inputPin1");
+        circuit.connect("inner.outputPin0").to("xor2.inputPin0");
+        circuit.connect("inputPin2").to("xor2.inputPin1");
+        circuit.connect("xor2.outputPin0").to("outputPin0");
+        circuit.connect("inputPin0").toFirstPinOf("and");
+        circuit.connect("inputPin2").toSecondPinOf("and");
+        circuit.connect("and").to("outputPin1");
+        
+        Circuit flat = circuit.flatten("flat");
+        
+        assertEquals(11, flat.getNumberOfGates());
+        
+        // The hierarchical names resolve without any subcircuits.
+        flat.connect("inner.xor1.and1");
+        flat.connect("xor2.or");
+        
+        for (boolean locked : new boolean[]{ false, true }) {
+            if (locked) {
+                flat.lock();
+            }
+            
+            for (int i = 0; i < 8; ++i) {
+                boolean b0 = (i & 1) != 0;
+                boolean b1 = (i & 2) != 0;
+                boolean b2 = (i & 4) != 0;
+                boolean[] expected = { b0 ^ b1 ^ b2, b0 && b2 };
+                assertTrue(Arrays.equals(expected, flat.doCycle(b0, b1, b2)));
+            }
+        }
+    }
+    
+    @Test
+    public void testCircuitInstances() {
+        Circuit xor = new Circuit("xor", 2, 1);
+        xor.addAndGate("and1");
+        xor.addAndGate("and2");
+        xor.addNotGate("not1");
+        xor.addNotGate("not2");
+        xor.addOrGate("or");
+        xor.connect("inputPin0").to("not1");
+        xor.connect("not1").toFirstPinOf("and1");
+        xor.connect("inputPin1").toSecondPinOf("and1");
+        xor.connect("inputPin1").to("not2");
+        xor.connect("not2").toSecondPinOf("and2");
+        xor.connect("inputPin0").toFirstPinOf("and2");
+        xor.connect("and1").toFirstPinOf("or");
+        xor.connect("and2").toSecondPinOf("or");
+        xor.connect("or").to("outputPin0");
+        xor.lock();
+        
+        // Computes the parity of the four input pins.
+        Circuit parity = new Circuit("parity", 4, 1);
+        parity.addCircuitInstance(xor, "x1");
+        parity.addCircuitInstance(xor, "x2");
+        parity.addCircuitInstance(xor, "x3");
+        parity.connect("inputPin0").to("x1.inputPin0");
+        parity.connect("inputPin1").to("x1.inputPin1");
+        parity.connect("inputPin2").to("x2.inputPin0");
+        parity.connect("inputPin3").to("x2.inputPin1");
+        parity.connect("x1.outputPin0").to("x3.inputPin0");
+        parity.connect("x2.outputPin0").to("x3.inputPin1");
+        parity.connect("x3.outputPin0").to("outputPin0");
+        
+        assertEquals(15, parity.getNumberOfGates());
+        
+        Circuit flat = parity.flatten("flat");
+        assertEquals(15, flat.getNumberOfGates());
+        flat.connect("x2.and1");
+        flat.lock();
+        
+        for (boolean locked : new boolean[]{ false, true }) {
+            if (locked) {
+                parity.lock();
+            }
+            
+            for (int i = 0; i < 16; ++i) {
+                boolean[] expected = { Integer.bitCount(i) % 2 == 1 };
+                boolean[] input = { 
+                    (i & 1) != 0, 
+                    (i & 2) != 0, 
+                    (i & 4) != 0, 
+                    (i & 8) != 0
+                };
+                
+                assertTrue(Arrays.equals(expected, parity.doCycle(input)));
+                assertTrue(Arrays.equals(expected, flat.doCycle(input)));
+            }
+        }
+    }
+    
+    @Test
+    public void testCircuitInstancesShareDefinitionPlan() {
+        Circuit adder = new Circuit("adder", 3, 2);
+        adder.addXorGate("xor1");
+        adder.addXorGate("xor2");
+        adder.addAndGate("and1");
+        adder.addAndGate("and2");
+        adder.addOrGate("or");
+        adder.connect("inputPin0").toFirstPinOf("xor1");
+        adder.connect("inputPin1").toSecondPinOf("xor1");
+        adder.connect("xor1").toFirstPinOf("xor2");
+        adder.connect("inputPin2").toSecondPinOf("xor2");
+        adder.connect("inputPin0").toFirstPinOf("and1");
+        adder.connect("inputPin1").toSecondPinOf("and1");
+        adder.connect("xor1").toFirstPinOf("and2");
+        adder.connect("inputPin2").toSecondPinOf("and2");
+        adder.connect("and1").toFirstPinOf("or");
+        adder.connect("and2").toSecondPinOf("or");
+        adder.connect("xor2").to("outputPin0");
+        adder.connect("or").to("outputPin1");
+        adder.lock();
+        
+        // A 4-bit ripple-carry adder: inputs a0..a3, b0..b3 and the carry.
+        Circuit ripple = new Circuit("ripple", 9, 5);
+        
+        for (int i = 0; i < 4; ++i) {
+            ripple.addCircuitInstance(adder, "fa" + i);
+            ripple.connect("inputPin" + i).to("fa" + i + ".inputPin0");
+            ripple.connect("inputPin" + (4 + i)).to("fa" + i + ".inputPin1");
+            ripple.connect(i == 0 ? "inputPin8" : "fa" + (i - 1) + 
+                                                  ".outputPin1")
+                  .to("fa" + i + ".inputPin2");
+            ripple.connect("fa" + i + ".outputPin0").to("outputPin" + i);
+        }
+        
+        ripple.connect("fa3.outputPin1").to("outputPin4");
+        Circuit flat = ripple.flatten("flat");
+        flat.lock();
+        ripple.lock();
+        
+        // Three arguments and two calls per instance, none of the adder gates.
+        assertEquals(4 * (3 + 2), ripple.getNumberOfCompiledGates());
+        assertEquals(flat.toAndInverterGraph().getNumberOfAndNodes(),
+                     ripple.toAndInverterGraph().getNumberOfAndNodes());
+        assertTrue(EquivalenceChecker.areEquivalent(ripple, flat));
+        assertTrue(Arrays.deepEquals(flat.truthTable(), ripple.truthTable()));
+        
+        IncrementalSimulator simulator = ripple.newIncrementalSimulator();
+        boolean[] input = new boolean[9];
+        boolean[] output = new boolean[5];
+        
+        for (int i = 0; i < 512; ++i) {
+            for (int j = 0; j < 9; ++j) {
+                input[j] = (i & (1 << j)) != 0;
+            }
+            
+            int sum = (i & 15) + ((i >>> 4) & 15) + (i >>> 8);
+            boolean[] expected = new boolean[5];
+            
+            for (int j = 0; j < 5; ++j) {
+                expected[j] = (sum & (1 << j)) != 0;
+            }
+            
+            assertTrue(Arrays.equals(expected, ripple.doCycle(input)));
+            simulator.doCycle(input, output);
+            assertTrue(Arrays.equals(expected, output));
+        }
+        
+        long[] inputLanes = new long[9];
+        long[] expectedLanes = new long[5];
+        long[] outputLanes = new long[5];
+        Random random = new Random(3L);
+        
+        for (int i = 0; i < inputLanes.length; ++i) {
+            inputLanes[i] = random.nextLong();
+        }
+        
+        flat.evaluateBatch(inputLanes, expectedLanes);
+        ripple.evaluateBatch(inputLanes, outputLanes);
+        assertTrue(Arrays.equals(expectedLanes, outputLanes));
+        ripple.generateLaneEvaluator().evaluate(inputLanes, outputLanes);
+        assertTrue(Arrays.equals(expectedLanes, outputLanes));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testCircuitInstanceRequiresLockedDefinition() {
+        Circuit definition = new Circuit("def", 1, 1);
+        definition.addNotGate("not");
+        definition.connect("inputPin0").to("not");
+        definition.connect("not").to("outputPin0");
+        new Circuit("c", 1, 1).addCircuitInstance(definition, "d");
+    }
+    
+    @Test
+    public void testDFlipFlops() {
+        // A shift register of three flip-flops.
+        Circuit shift = new Circuit("shift", 1, 3);
+        shift.addDFlipFlop("ff0");
+        shift.addDFlipFlop("ff1");
+        shift.addDFlipFlop("ff2");
+        shift.connect("inputPin0").to("ff0");
+        shift.connect("ff0").to("ff1");
+        shift.connect("ff1").to("ff2");
+        shift.connect("ff0").to("outputPin0");
+        shift.connect("ff1").to("outputPin1");
+        shift.connect("ff2").to("outputPin2");
+        Circuit unlockedShift = new Circuit(shift, "unlockedShift");
+        shift.lock();
+        assertEquals(3, shift.getNumberOfRegisters());
+        
+        for (Circuit c : new Circuit[]{ shift, unlockedShift }) {
+            c.setInputBits(true);
+            c.clock(1);
+            assertTrue(Arrays.equals(new boolean[]{ true, false, false }, 
+                                     c.getOutputBits()));
+            c.setInputBits(false);
+            c.clock(1);
+            assertTrue(Arrays.equals(new boolean[]{ false, true, false }, 
+                                     c.getOutputBits()));
+            c.clock(1);
+            assertTrue(Arrays.equals(new boolean[]{ false, false, true }, 
+                                     c.getOutputBits()));
+            assertTrue(c.getRegisterBit("ff2"));
+        }
+        
+        // A flip-flop toggling whenever the input pin is set.
+        Circuit toggle = new Circuit("toggle", 1, 1);
+        toggle.addDFlipFlop("t", true);
+        toggle.addNotGate("notT");
+        toggle.addNotGate("notEnable");
+        toggle.addAndGate("and1");
+        toggle.addAndGate("and2");
+        toggle.addOrGate("or");
+        toggle.connect("inputPin0").toFirstPinOf("and1");
+        toggle.connect("inputPin0").to("notEnable");
+        toggle.connect("t").to("notT");
+        toggle.connect("notT").toSecondPinOf("and1");
+        toggle.connect("notEnable").toFirstPinOf("and2");
+        toggle.connect("t").toSecondPinOf("and2");
+        toggle.connect("and1").toFirstPinOf("or");
+        toggle.connect("and2").toSecondPinOf("or");
+        toggle.connect("or").to("t");
+        toggle.connect("t").to("outputPin0");
+        Circuit flatToggle = toggle.flatten("flatToggle");
+        toggle.lock();
+        flatToggle.lock();
+        
+        // An evaluator returns only the output pins, not the next states.
+        CircuitEvaluator evaluator = toggle.newEvaluator();
+        assertTrue(Arrays.equals(new boolean[]{ true }, 
+                                 evaluator.doCycle(false)));
+        evaluator.setRegisterBit(0, false);
+        assertTrue(Arrays.equals(new boolean[]{ false }, 
+                                 evaluator.doCycle(true)));
+        
+        for (Circuit c : new Circuit[]{ toggle, flatToggle }) {
+            c.setInputBits(true);
+            c.clock(1_000_001);
+            assertFalse(c.getOutputBits()[0]);
+            c.setInputBits(false);
+            c.clock(10);
+            assertFalse(c.getRegisterBit("t"));
+            c.setInputBits(true);
+            c.clock(1);
+            assertTrue(c.getOutputBits()[0]);
+        }
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testSaveRequiresLock() throws IOException {
+        Circuit circuit = new Circuit("c", 1, 1);
+        circuit.connect("inputPin0").to("outputPin0");
+        circuit.save(Paths.get("unlocked.netlist"));
+    }
+    
+    @Test
+    public void testNetlistFile() throws IOException {
+        WordCircuit datapath = new WordCircuit("datapath");
+        datapath.addInputBus("a", 8);
+        datapath.addInputBus("b", 8);
+        datapath.addInputBus("select", 1);
+        datapath.addAdder("sum", "a", "b");
+        datapath.addXor("xor", "a", "b");
+        datapath.addMultiplexer("x", "select", "sum", "xor");
+        datapath.addLessThanComparator("less", "x", "b");
+        datapath.addOutputBus("x");
+        datapath.addOutputBus("less");
+        Circuit circuit = datapath.toCircuit("datapath");
+        circuit.lock();
+        Path path = Files.createTempFile("datapath", ".netlist");
+        
+        try {
+            circuit.save(path);
+            Circuit loaded = Circuit.load(path);
+            MappedCircuit mapped = MappedCircuit.map(path);
+            assertTrue(loaded.isLocked());
+            assertEquals("datapath", mapped.getName());
+            assertEquals(17, mapped.getNumberOfInputPins());
+            assertEquals(9, mapped.getNumberOfOutputPins());
+            assertEquals(circuit.getNumberOfCompiledGates(), 
+                         mapped.getNumberOfGates());
+            assertEquals(circuit.getNumberOfCompiledGates(), 
+                         loaded.getNumberOfCompiledGates());
+            Random random = new Random(23L);
+            boolean[] inputBits = new boolean[17];
+            boolean[] expectedBits = new boolean[9];
+            boolean[] outputBits = new boolean[9];
+            
+            for (int i = 0; i < 100; ++i) {
+                for (int j = 0; j < inputBits.length; ++j) {
+                    inputBits[j] = random.nextBoolean();
+                }
+                
+                circuit.doCycle(inputBits, expectedBits);
+                loaded.doCycle(inputBits, outputBits);
+                assertTrue(Arrays.equals(expectedBits, outputBits));
+                mapped.doCycle(inputBits, outputBits);
+                assertTrue(Arrays.equals(expectedBits, outputBits));
+            }
+            
+            long[] inputLanes = new long[17];
+            long[] expectedLanes = new long[9];
+            long[] outputLanes = new long[9];
+            
+            for (int i = 0; i < inputLanes.length; ++i) {
+                inputLanes[i] = random.nextLong();
+            }
+            
+            circuit.evaluateBatch(inputLanes, expectedLanes);
+            loaded.evaluateBatch(inputLanes, outputLanes);
+            assertTrue(Arrays.equals(expectedLanes, outputLanes));
+            mapped.evaluateBatch(inputLanes, outputLanes);
+            assertTrue(Arrays.equals(expectedLanes, outputLanes));
+            
+            // A shift register inside a subcircuit keeps the names and the 
+            // initial states of its flip-flops.
+            Circuit shift = new Circuit("shift", 1, 2);
+            shift.addDFlipFlop("ff0", true);
+            shift.addDFlipFlop("ff1");
+            shift.connect("inputPin0").to("ff0");
+            shift.connect("ff0").to("ff1");
+            shift.connect("ff0").to("outputPin0");
+            shift.connect("ff1").to("outputPin1");
+            Circuit outer = new Circuit("outer", 1, 2);
+            outer.addCircuit(shift);
+            outer.addNotGate("not");
+            outer.connect("inputPin0").to("not");
+            outer.connect("not").to("shift.inputPin0");
+            outer.connect("shift.outputPin0").to("outputPin0");
+            outer.connect("shift.outputPin1").to("outputPin1");
+            outer.lock();
+            outer.save(path);
+            loaded = Circuit.load(path);
+            mapped = MappedCircuit.map(path);
+            assertEquals(2, loaded.getNumberOfRegisters());
+            assertEquals("shift.ff1", mapped.getRegisterName(1));
+            assertTrue(loaded.getRegisterBit("shift.ff0"));
+            assertTrue(mapped.getRegisterBit(0));
+            
+            loaded.setInputBits(true);
+            loaded.clock(1);
+            mapped.setInputBits(true);
+            mapped.clock(1);
+            mapped.getOutputBits(outputBits);
+            assertTrue(Arrays.equals(new boolean[]{ false, true }, 
+                                     loaded.getOutputBits()));
+            assertTrue(!outputBits[0] && outputBits[1]);
+            assertFalse(loaded.getRegisterBit("shift.ff0"));
+            assertTrue(loaded.getRegisterBit("shift.ff1"));
+            
+            // Saving a loaded circuit reproduces the same file.
+            byte[] bytes = Files.readAllBytes(path);
+            Circuit.load(path).save(path);
+            assertTrue(Arrays.equals(bytes, Files.readAllBytes(path)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void testNetlistFileWithBadMagicNumber() throws IOException {
+        Path path = Files.createTempFile("bad", ".netlist");
+        
+        try {
+            Files.write(path, new byte[64]);
+            MappedCircuit.map(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+    
+    @Test
+    public void testAigerAndBlifFormats() throws IOException {
+        // The AND gates refer forward; the latch t is initialized to 1 and 
+        // its next state is !(x & !t) & !(x & t) = !x.
+        String aiger = "aag 5 1 1 2 3\n" +
+                       "2\n" +
+                       "4 10 1\n" +
+                       "6\n" +
+                       "11\n" +
+                       "10 9 7\n" +
+                       "8 2 5\n" +
+                       "6 2 4\n" +
+                       "l0 t\n" +
+                       "c\n" +
+                       "A comment.\n";
+        Circuit circuit = AigerFormat.read(
+                new ByteArrayInputStream(aiger.getBytes("UTF-8")), "aiger");
+        assertTrue(circuit.isLocked());
+        assertEquals(1, circuit.getNumberOfRegisters());
+        assertTrue(Arrays.equals(new boolean[]{ true, true }, 
+                                 circuit.doCycle(true)));
+        circuit.clock(1);
+        assertTrue(Arrays.equals(new boolean[]{ false, true }, 
+                                 circuit.getOutputBits()));
+        assertFalse(circuit.getRegisterBit("t"));
+        
+        String blif = "# A toggle flip-flop.\n" +
+                      ".model toggle\n" +
+                      ".inputs enable\n" +
+                      ".outputs q nq\n" +
+                      ".names q nq\n" +
+                      "0 1\n" +
+                      "\n" +
+                      ".latch next q 1\n" +
+                      ".names enable \\\n" +
+                      "    q next # The exclusive or.\n" +
+                      "10 1\n" +
+                      "01 1\n" +
+                      ".end\n";
+        Circuit toggle = BlifFormat.read(
+                new ByteArrayInputStream(blif.getBytes("UTF-8")));
+        assertEquals("toggle", toggle.getName());
+        assertTrue(Arrays.equals(new boolean[]{ true, false }, 
+                                 toggle.doCycle(false)));
+        toggle.setInputBits(true);
+        toggle.clock(1);
+        assertFalse(toggle.getRegisterBit("q"));
+        toggle.clock(3);
+        assertTrue(Arrays.equals(new boolean[]{ true, false }, 
+                                 toggle.getOutputBits()));
+        
+        // Both writers round-trip through the readers.
+        WordCircuit datapath = new WordCircuit("datapath");
+        datapath.addInputBus("a", 4);
+        datapath.addInputBus("b", 4);
+        datapath.addInputBus("select", 1);
+        datapath.addAdder("sum", "a", "b");
+        datapath.addXor("xor", "a", "b");
+        datapath.addMultiplexer("x", "select", "sum", "xor");
+        datapath.addOutputBus("x");
+        Circuit original = datapath.toCircuit("datapath");
+        original.lock();
+        
+        for (Circuit c : new Circuit[]{ original, toggle }) {
+            ByteArrayOutputStream aigerBytes = new ByteArrayOutputStream();
+            ByteArrayOutputStream blifBytes = new ByteArrayOutputStream();
+            AigerFormat.write(c, aigerBytes);
+            BlifFormat.write(c, blifBytes);
+            Circuit fromAiger = AigerFormat.read(
+                    new ByteArrayInputStream(aigerBytes.toByteArray()), "c");
+            Circuit fromBlif = BlifFormat.read(
+                    new ByteArrayInputStream(blifBytes.toByteArray()));
+            assertEquals(c.getName(), fromBlif.getName());
+            int numberOfInputPins = c.getNumberOfInputPins();
+            
+            for (int i = 0; i < (1 << numberOfInputPins); ++i) {
+                boolean[] inputBits = new boolean[numberOfInputPins];
+                
+                for (int j = 0; j < numberOfInputPins; ++j) {
+                    inputBits[j] = (i & (1 << j)) != 0;
+                }
+                
+                boolean[] expected = c.doCycle(inputBits);
+                assertTrue(Arrays.equals(expected, 
+                                         fromAiger.doCycle(inputBits)));
+                assertTrue(Arrays.equals(expected, 
+                                         fromBlif.doCycle(inputBits)));
+            }
+        }
+        
+        toggle.setInputBits(true);
+        toggle.clock(1);
+        ByteArrayOutputStream aigerBytes = new ByteArrayOutputStream();
+        AigerFormat.write(toggle, aigerBytes);
+        Circuit fromAiger = AigerFormat.read(
+                new ByteArrayInputStream(aigerBytes.toByteArray()), "c");
+        
+        // The initial states are written, not the current ones.
+        assertTrue(fromAiger.getRegisterBit("q"));
+        fromAiger.setInputBits(true);
+        fromAiger.clock(1);
+        assertFalse(fromAiger.getRegisterBit("q"));
+    }
+    
+    @Test(expected = IOException.class)
+    public void testBlifFormatRejectsCycles() throws IOException {
+        String blif = ".model cycle\n" +
+                      ".inputs a\n" +
+                      ".outputs b\n" +
+                      ".names a c b\n" +
+                      "11 1\n" +
+                      ".names b c\n" +
+                      "1 1\n" +
+                      ".end\n";
+        BlifFormat.read(new ByteArrayInputStream(blif.getBytes("UTF-8")));
+    }
+    
+    @Test
+    public void testCircuitBuilder() {
+        CircuitBuilder builder = new CircuitBuilder("built", 3, 4);
+        int a = builder.getInputPin(0);
+        int b = builder.getInputPin(1);
+        int c = builder.getInputPin(2);
+        int xor = builder.addXorGate("xor");
+        int and = builder.addAndGate("and", 3);
+        int mux = builder.addMuxGate("mux");
+        int flipFlop = builder.addDFlipFlop("flipFlop");
+        int not = builder.addNotGate("not");
+        builder.connect(a, xor, 0);
+        builder.connect(b, xor, 1);
+        builder.connect(xor, and, 0);
+        builder.connect(b, and, 1);
+        builder.connect(c, and, 2);
+        builder.connect(a, mux, 0);
+        builder.connect(xor, mux, 1);
+        builder.connect(c, mux, 2);
+        builder.connect(flipFlop, not);
+        builder.connect(not, flipFlop);
+        builder.connect(xor, builder.getOutputPin(0));
+        builder.connect(and, builder.getOutputPin(1));
+        builder.connect(mux, builder.getOutputPin(2));
+        builder.connect(flipFlop, builder.getOutputPin(3));
+        assertEquals(5, builder.getNumberOfGates());
+        Circuit built = builder.build();
+    
+        Circuit connected = new Circuit("connected", 3, 4);
+        connected.addXorGate("xor");
+        connected.addAndGate("and", 3);
+        connected.addMuxGate("mux");
+        connected.addDFlipFlop("flipFlop");
+        connected.addNotGate("not");
+        connected.connect("inputPin0").toFirstPinOf("xor");
+        connected.connect("inputPin1").toSecondPinOf("xor");
+        connected.connect("xor").toPinOf("and", 0);
+        connected.connect("inputPin1").toPinOf("and", 1);
+        connected.connect("inputPin2").toPinOf("and", 2);
+        connected.connect("inputPin0").toFirstPinOf("mux");
+        connected.connect("xor").toSecondPinOf("mux");
+        connected.connect("inputPin2").toSelectPinOf("mux");
+        connected.connect("flipFlop").to("not");
+        connected.connect("not").to("flipFlop");
+        connected.connect("xor").to("outputPin0");
+        connected.connect("and").to("outputPin1");
+        connected.connect("mux").to("outputPin2");
+        connected.connect("flipFlop").to("outputPin3");
+    
+        built.lock();
+        connected.lock();
+        assertEquals(connected.getNumberOfGates(), built.getNumberOfGates());
+    
+        for (int i = 0; i < 16; ++i) {
+            boolean[] bits = { (i & 1) != 0, (i & 2) != 0, (i & 4) != 0 };
+            assertTrue(Arrays.equals(connected.doCycle(bits), 
+                                     built.doCycle(bits)));
+            assertEquals(connected.getRegisterBit("flipFlop"), 
+                         built.getRegisterBit("flipFlop"));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testCircuitBuilderDuplicateGateName() {
+        CircuitBuilder builder = new CircuitBuilder("built", 1, 1);
+        builder.addNotGate("gate");
+        builder.addAndGate("gate");
+        builder.build();
+    }
+    
+    @Test
+    public void testDuplicateGateNameLeavesCircuitUnchanged() {
+        Circuit circuit = new Circuit("c", 1, 1);
+        circuit.addNotGate("gate");
+        int numberOfGates = circuit.getNumberOfGates();
+        AbstractCircuitComponent[][] batches = {
+            { new AndGate("and"), new OrGate("gate") },
+            { new AndGate("and"), new OrGate("or"), new OrGate("or") },
+        };
+        
+        for (AbstractCircuitComponent[] gates : batches) {
+            try {
+                circuit.addCheckedGates(gates, 0, gates.length);
+                fail("The duplicate gate name was not reported.");
+            } catch (IllegalArgumentException ex) {
+                assertEquals(numberOfGates, circuit.getNumberOfGates());
+            }
+        }
+        
+        // The names of the rejected batches are still free.
+        circuit.addAndGate("and");
+        circuit.addOrGate("or");
+        assertEquals(numberOfGates + 2, circuit.getNumberOfGates());
+    }
+    
+    @Test(expected = InputPinOccupiedException.class)
+    public void testCircuitBuilderPinOccupied() {
+        CircuitBuilder builder = new CircuitBuilder("built", 2, 1);
+        int or = builder.addOrGate("or");
+        builder.connect(builder.getInputPin(0), or, 1);
+        builder.connect(builder.getInputPin(1), or, 1);
+        builder.build();
+    }
+    
+    @Test
+    public void testMultipleInputGates() {
+        // A 3-to-8 decoder of 3-input AND gates.
+        Circuit decoder = new Circuit("decoder", 3, 8);
+        
+        for (int i = 0; i < 3; ++i) {
+            decoder.addNotGate("not" + i);
+            decoder.connect("inputPin" + i).to("not" + i);
+        }
+        
+        for (int output = 0; output < 8; ++output) {
+            decoder.addAndGate("and" + output, 3);
+            
+            for (int i = 0; i < 3; ++i) {
+                String source = ((output >>> i) & 1) != 0 ? 
+                                "inputPin" + i : 
+                                "not" + i;
+                decoder.connect(source).toPinOf("and" + output, i);
+            }
+            
+            decoder.connect("and" + output).to("outputPin" + output);
+        }
+        
+        Circuit unlockedDecoder = new Circuit(decoder, "unlockedDecoder");
+        Circuit flatDecoder = decoder.flatten("flatDecoder");
+        decoder.lock();
+        flatDecoder.lock();
+        assertEquals(11, decoder.getNumberOfGates());
+        
+        for (int input = 0; input < 8; ++input) {
+            boolean[] bits = { (input & 1) != 0,
+                               (input & 2) != 0, 
+                               (input & 4) != 0 };
+            
+            for (Circuit c : new Circuit[]{ decoder, 
+                                            unlockedDecoder, 
+                                            flatDecoder }) {
+                boolean[] outputBits = c.doCycle(bits);
+                
+                for (int output = 0; output < 8; ++output) {
+                    assertEquals(output == input, outputBits[output]);
+                }
+            }
+        }
+        
+        // 32-input AND and OR gates sharing their sources.
+        Circuit wide = new Circuit("wide", 32, 2);
+        wide.addAndGate("and", 32);
+        wide.addOrGate("or", 32);
+        
+        for (int i = 0; i < 32; ++i) {
+            wide.connect("inputPin" + i).toPinOf("and", i);
+            wide.connect("inputPin" + i).toPinOf("or", 31 - i);
+        }
+        
+        wide.connect("and").to("outputPin0");
+        wide.connect("or").to("outputPin1");
+        Circuit unlockedWide = new Circuit(wide, "unlockedWide");
+        wide.lock();
+        assertEquals(2, wide.getNumberOfGates());
+        assertEquals(62, wide.getNumberOfCompiledGates());
+        boolean[] bits = new boolean[32];
+        
+        for (Circuit c : new Circuit[]{ wide, unlockedWide }) {
+            Arrays.fill(bits, false);
+            assertTrue(Arrays.equals(new boolean[]{ false, false }, 
+                                     c.doCycle(bits)));
+            bits[17] = true;
+            assertTrue(Arrays.equals(new boolean[]{ false, true }, 
+                                     c.doCycle(bits)));
+            Arrays.fill(bits, true);
+            assertTrue(Arrays.equals(new boolean[]{ true, true }, 
+                                     c.doCycle(bits)));
+            bits[31] = false;
+            assertTrue(Arrays.equals(new boolean[]{ false, true }, 
+                                     c.doCycle(bits)));
+        }
+        
+        long[] inputLanes = new long[32];
+        Arrays.fill(inputLanes, -1L);
+        inputLanes[5] = 0xF0L;
+        long[] expected = new long[2];
+        long[] actual = new long[2];
+        wide.evaluateBatch(inputLanes, expected);
+        wide.generateLaneEvaluator().evaluate(inputLanes, actual);
+        assertEquals(0xF0L, expected[0]);
+        assertEquals(-1L, expected[1]);
+        assertTrue(Arrays.equals(expected, actual));
+    }
+    
+    @Test
+    public void testWordCircuit() {
+        WordCircuit datapath = new WordCircuit("datapath");
+        datapath.addInputBus("a", 16);
+        datapath.addInputBus("b", 16);
+        datapath.addInputBus("select", 1);
+        datapath.addInputBus("d", 4);
+        datapath.addConstant("mask", 16, 0x0FF0L);
+        datapath.addAdder("sum", "a", "b");
+        datapath.addSubtractor("difference", "a", "b");
+        datapath.addAnd("masked", "sum", "mask");
+        datapath.addNot("notB", "b");
+        datapath.addOr("or", "notB", "masked");
+        datapath.addXor("xor", "a", "difference");
+        datapath.addShiftLeft("shiftedLeft", "xor", 3);
+        datapath.addShiftRight("shiftedRight", "or", 5);
+        datapath.addShiftRight("highD", "d", 2);
+        datapath.addEqualityComparator("equal", "a", "b");
+        datapath.addLessThanComparator("less", "a", "b");
+        datapath.addMultiplexer("mux", "select", "shiftedLeft", "sum");
+        datapath.addOutputBus("mux");
+        datapath.addOutputBus("shiftedRight");
+        datapath.addOutputBus("equal");
+        datapath.addOutputBus("less");
+        datapath.addOutputBus("highD");
+        datapath.addOutputBus("difference");
+        
+        assertTrue(Arrays.equals(
+                new long[]{ 0L, 0x7FFL, 0L, 0L, 3L, 0xFFFEL }, 
+                datapath.evaluate(0xFFFFL, 0xFFFFL + 2, 1L, 0xFL)));
+        assertTrue(Arrays.equals(new long[]{ 0L, 0x7FFL, 1L, 0L, 0L, 0L }, 
+                                 datapath.evaluate()));
+        
+        Circuit unlocked = datapath.toCircuit("unlocked");
+        Circuit locked = datapath.toCircuit("locked");
+        locked.lock();
+        Random random = new Random(7L);
+        int[] inputWidths = { 16, 16, 1, 4 };
+        int[] outputWidths = { 16, 16, 1, 1, 4, 16 };
+        boolean[] inputBits = new boolean[37];
+        
+        for (int iteration = 0; iteration < 200; ++iteration) {
+            long[] inputWords = new long[4];
+            
+            for (int i = 0, pin = 0; i < inputWords.length; ++i) {
+                // Make the operands equal now and then.
+                inputWords[i] = i == 1 && iteration % 10 == 0 ? 
+                                inputWords[0] : 
+                                random.nextLong() & 
+                                ((1L << inputWidths[i]) - 1);
+                
+                for (int bit = 0; bit < inputWidths[i]; ++bit) {
+                    inputBits[pin++] = ((inputWords[i] >>> bit) & 1L) != 0;
+                }
+            }
+            
+            long[] outputWords = datapath.evaluate(inputWords);
+            
+            for (Circuit c : new Circuit[]{ unlocked, locked }) {
+                boolean[] outputBits = c.doCycle(inputBits);
+                
+                for (int i = 0, pin = 0; i < outputWords.length; ++i) {
+                    for (int bit = 0; bit < outputWidths[i]; ++bit) {
+                        assertEquals(((outputWords[i] >>> bit) & 1L) != 0,
+                                     outputBits[pin++]);
+                    }
+                }
+            }
+        }
+        
+        // Full 64-bit words.
+        WordCircuit adder = new WordCircuit("adder");
+        adder.addInputBus("a", 64);
+        adder.addInputBus("b", 64);
+        adder.addAdder("sum", "a", "b");
+        adder.addLessThanComparator("less", "a", "b");
+        adder.addOutputBus("sum");
+        adder.addOutputBus("less");
+        assertTrue(Arrays.equals(new long[]{ -2L, 0L }, 
+                                 adder.evaluate(-1L, -1L)));
+        assertTrue(Arrays.equals(new long[]{ 0L, 1L }, 
+                                 adder.evaluate(Long.MAX_VALUE, 
+                                                Long.MIN_VALUE + 1)));
+        Circuit lockedAdder = adder.toCircuit("lockedAdder");
+        lockedAdder.lock();
+        long[] inputLanes = new long[128];
+        long[] outputLanes = new long[65];
+        long[] a = new long[64];
+        long[] b = new long[64];
+        
+        for (int lane = 0; lane < 64; ++lane) {
+            a[lane] = random.nextLong();
+            b[lane] = random.nextLong();
+            
+            for (int bit = 0; bit < 64; ++bit) {
+                inputLanes[bit] |= ((a[lane] >>> bit) & 1L) << lane;
+                inputLanes[64 + bit] |= ((b[lane] >>> bit) & 1L) << lane;
+            }
+        }
+        
+        lockedAdder.evaluateBatch(inputLanes, outputLanes);
+        
+        for (int lane = 0; lane < 64; ++lane) {
+            long[] expected = adder.evaluate(a[lane], b[lane]);
+            
+            for (int bit = 0; bit < 64; ++bit) {
+                assertEquals((expected[0] >>> bit) & 1L, 
+                             (outputLanes[bit] >>> lane) & 1L);
+            }
+            
+            assertEquals(expected[1], (outputLanes[64] >>> lane) & 1L);
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testWordCircuitWidthMismatch() {
+        WordCircuit circuit = new WordCircuit("circuit");
+        circuit.addInputBus("a", 8);
+        circuit.addInputBus("b", 16);
+        circuit.addAdder("sum", "a", "b");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testWordCircuitOutputWordsTooShort() {
+        WordCircuit circuit = new WordCircuit("circuit");
+        circuit.addInputBus("a", 8);
+        circuit.addNot("notA", "a");
+        circuit.addOutputBus("a");
+        circuit.addOutputBus("notA");
+        circuit.evaluate(new long[1], new long[1]);
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testWordCircuitWithoutOutputBuses() {
+        WordCircuit circuit = new WordCircuit("circuit");
+        circuit.addInputBus("a", 8);
+        circuit.toCircuit("c");
+    }
+    
+    @Test(expected = InputPinOccupiedException.class)
+    public void testMultipleInputGatePinOccupied() {
+        Circuit circuit = new Circuit("circuit", 2, 1);
+        circuit.addOrGate("or", 4);
+        circuit.connect("inputPin0").toPinOf("or", 3);
+        circuit.connect("inputPin1").toPinOf("or", 3);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultipleInputGatePinOutOfRange() {
+        Circuit circuit = new Circuit("circuit", 1, 1);
+        circuit.addAndGate("and", 4);
+        circuit.connect("inputPin0").toPinOf("and", 4);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelectPinOfNonMultiplexer() {
+        Circuit circuit = new Circuit("circuit", 1, 1);
+        circuit.addXorGate("xor");
+        circuit.connect("inputPin0").toSelectPinOf("xor");
+    }
+    
+    @Test
+    public void testNativeGates() {
+        Circuit circuit = new Circuit("gates", 3, 7);
+        circuit.addXorGate("xor");
+        circuit.addXnorGate("xnor");
+        circuit.addNandGate("nand");
+        circuit.addNorGate("nor");
+        circuit.addMuxGate("mux");
+        circuit.addNotGate("not1");
+        circuit.addNotGate("not2");
+        
+        for (String gate : new String[]{ "xor", "xnor", "nand", "nor", 
+                                         "mux" }) {
+            circuit.connect("inputPin0").toFirstPinOf(gate);
+            circuit.connect("inputPin1").toSecondPinOf(gate);
+        }
+        
+        circuit.connect("inputPin2").toSelectPinOf("mux");
+        // Connect the same source twice via to().
+        circuit.connect("inputPin2").to("not1");
+        circuit.connect("inputPin2").to("not2");
+        circuit.connect("xor").to("outputPin0");
+        circuit.connect("xnor").to("outputPin1");
+        circuit.connect("nand").to("outputPin2");
+        circuit.connect("nor").to("outputPin3");
+        circuit.connect("mux").to("outputPin4");
+        circuit.connect("not1").to("outputPin5");
+        circuit.connect("not2").to("outputPin6");
+        
+        Circuit unlocked = new Circuit(circuit, "unlocked");
+        Circuit flat = circuit.flatten("flat");
+        circuit.lock();
+        flat.lock();
+        assertEquals(7, circuit.getNumberOfGates());
+        long[] inputLanes = new long[3];
+        long[] outputLanes = new long[7];
+        
+        for (int i = 0; i < 8; ++i) {
+            boolean a = (i & 1) != 0;
+            boolean b = (i & 2) != 0;
+            boolean c = (i & 4) != 0;
+            boolean[] expected = { a ^ b, a == b, !(a && b), !(a || b), 
+                                   c ? b : a, !c, !c };
+            
+            for (Circuit cc : new Circuit[]{ circuit, unlocked, flat }) {
+                assertTrue(Arrays.equals(expected, cc.doCycle(a, b, c)));
+            }
+            
+            inputLanes[0] |= (a ? 1L : 0L) << i;
+            inputLanes[1] |= (b ? 1L : 0L) << i;
+            inputLanes[2] |= (c ? 1L : 0L) << i;
+        }
+        
+        long[] expectedLanes = new long[7];
+        circuit.evaluateBatch(inputLanes, expectedLanes);
+        circuit.generateLaneEvaluator().evaluate(inputLanes, outputLanes);
+        assertTrue(Arrays.equals(expectedLanes, outputLanes));
+        
+        // The optimizer folds the gates with constant or equal inputs.
+        Circuit folded = new Circuit("folded", 1, 3);
+        folded.addConstantGate("one", true);
+        folded.addXorGate("xor");
+        folded.addNandGate("nand");
+        folded.addMuxGate("mux");
+        folded.connect("inputPin0").toFirstPinOf("xor");
+        folded.connect("one").toSecondPinOf("xor");
+        folded.connect("inputPin0").toFirstPinOf("nand");
+        folded.connect("inputPin0").toSecondPinOf("nand");
+        folded.connect("inputPin0").toFirstPinOf("mux");
+        folded.connect("inputPin0").toSecondPinOf("mux");
+        folded.connect("one").toSelectPinOf("mux");
+        folded.connect("xor").to("outputPin0");
+        folded.connect("nand").to("outputPin1");
+        folded.connect("mux").to("outputPin2");
+        folded.lock();
+        assertEquals(1, folded.getNumberOfCompiledGates());
+        assertTrue(Arrays.equals(new boolean[]{ true, true, false }, 
+                                 folded.doCycle(false)));
+        assertTrue(Arrays.equals(new boolean[]{ false, false, true }, 
+                                 folded.doCycle(true)));
+    }
+    
+    @Test
+    public void testAndInverterGraph() {
+        AndInverterGraph graph = new AndInverterGraph(3);
+        int a = graph.getInput(0);
+        int b = graph.getInput(1);
+        int c = graph.getInput(2);
+        
+        assertEquals(graph.and(a, b), graph.and(b, a));
+        assertEquals(AndInverterGraph.FALSE, 
+                     graph.and(a, AndInverterGraph.not(a)));
+        assertEquals(a, graph.and(a, AndInverterGraph.TRUE));
+        assertEquals(1, graph.getNumberOfAndNodes());
+        
+        graph.addOutput(graph.xor(graph.xor(a, b), c));
+        graph.addOutput(graph.or(graph.and(a, b), graph.and(b, c)));
+        
+        Circuit circuit = graph.toCircuit("c");
+        circuit.lock();
+        
+        // Convert back and forth once more.
+        AndInverterGraph graph2 = circuit.toAndInverterGraph();
+        Circuit circuit2 = graph2.toCircuit("c2");
+        circuit2.lock();
+        assertEquals(graph.getNumberOfAndNodes(), 
+                     graph2.getNumberOfAndNodes());
+        
+        for (int i = 0; i < 8; ++i) {
+            boolean b0 = (i & 1) != 0;
+            boolean b1 = (i & 2) != 0;
+            boolean b2 = (i & 4) != 0;
+            boolean[] expected = { b0 ^ b1 ^ b2, (b0 && b1) || (b1 && b2) };
+            assertTrue(Arrays.equals(expected, circuit.doCycle(b0, b1, b2)));
+            assertTrue(Arrays.equals(expected, circuit2.doCycle(b0, b1, b2)));
+        }
+    }
+    
+    @Test
+    public void testSatSolver() {
+        // Five pigeons do not fit into four holes.
+        SatSolver solver = new SatSolver();
+        int[][] variables = new int[5][4];
+        
+        for (int pigeon = 0; pigeon < 5; ++pigeon) {
+            int[] clause = new int[4];
+            
+            for (int hole = 0; hole < 4; ++hole) {
+                variables[pigeon][hole] = solver.newVariable();
+                clause[hole] = 2 * variables[pigeon][hole];
+            }
+            
+            solver.addClause(clause);
+        }
+        
+        for (int hole = 0; hole < 4; ++hole) {
+            for (int pigeon1 = 0; pigeon1 < 5; ++pigeon1) {
+                for (int pigeon2 = pigeon1 + 1; pigeon2 < 5; ++pigeon2) {
+                    solver.addClause(2 * variables[pigeon1][hole] + 1,
+                                     2 * variables[pigeon2][hole] + 1);
+                }
+            }
+        }
+        
+        assertNull(solver.solveWithinBudget(1));
+        assertFalse(solver.solve());
+        assertEquals(Boolean.FALSE, solver.solveWithinBudget(1));
+        
+        // x0 | x1, !x0 | x2, !x1 | !x2 under the assumption x2.
+        solver = new SatSolver();
+        int x0 = solver.newVariable();
+        int x1 = solver.newVariable();
+        int x2 = solver.newVariable();
+        solver.addClause(2 * x0, 2 * x1);
+        solver.addClause(2 * x0 + 1, 2 * x2);
+        solver.addClause(2 * x1 + 1, 2 * x2 + 1);
+        assertTrue(solver.solve(2 * x2));
+        assertTrue(solver.getValue(x0));
+        assertFalse(solver.getValue(x1));
+        assertFalse(solver.solve(2 * x2, 2 * x1));
+        assertTrue(solver.solve());
+    }
+    
+    @Test
+    public void testEquivalenceChecker() {
+        Circuit adder1 = createAdder(8, false, -1);
+        Circuit adder2 = createAdder(8, true, -1);
+        assertTrue(EquivalenceChecker.areEquivalent(adder1, adder2));
+        
+        // A broken carry of the bit 5.
+        Circuit adder3 = createAdder(8, true, 5);
+        boolean[] counterexample = 
+                new EquivalenceChecker(adder1, adder3).findCounterexample();
+        assertNotNull(counterexample);
+        assertFalse(Arrays.equals(adder1.doCycle(counterexample),
+                                  adder3.doCycle(counterexample)));
+    }
+    
+    @Test
+    public void testSatSweeper() {
+        AndInverterGraph graph = new AndInverterGraph(2);
+        int a = graph.getInput(0);
+        int b = graph.getInput(1);
+        graph.addOutput(graph.xor(a, b));
+        graph.addOutput(graph.and(graph.or(a, b),
+                                  AndInverterGraph.not(graph.and(a, b))));
+        graph.addOutput(graph.or(graph.and(a, b),
+                                 graph.and(AndInverterGraph.not(a),
+                                           AndInverterGraph.not(b))));
+        
+        SatSweeper sweeper = new SatSweeper(graph);
+        AndInverterGraph swept = sweeper.sweep();
+        assertEquals(swept.getOutput(0), swept.getOutput(1));
+        assertEquals(swept.getOutput(0),
+                     AndInverterGraph.not(swept.getOutput(2)));
+        assertTrue(sweeper.getNumberOfMerges() > 0);
+        
+        // Wide AND gates are rarely true, so the random simulation puts them
+        // all into the same class, and many counterexamples are buffered.
+        graph = new AndInverterGraph(32);
+        Random random = new Random(5L);
+        
+        for (int i = 0; i < 300; ++i) {
+            int literal = graph.getInput(random.nextInt(32));
+            
+            for (int j = 0; j < 9; ++j) {
+                int input = graph.getInput(random.nextInt(32));
+                literal = graph.and(literal,
+                                    random.nextBoolean() ? 
+                                            input : 
+                                            AndInverterGraph.not(input));
+            }
+            
+            graph.addOutput(literal);
+        }
+        
+        sweeper = new SatSweeper(graph);
+        swept = sweeper.sweep();
+        assertTrue(sweeper.getNumberOfRefutations() > Long.SIZE);
+        assertEquals(0, sweeper.getNumberOfUndecidedPairs());
+        long[] patterns = new long[32];
+        
+        for (int i = 0; i < patterns.length; ++i) {
+            patterns[i] = random.nextLong();
+        }
+        
+        long[] values = graph.simulate(patterns, 1);
+        long[] sweptValues = swept.simulate(patterns, 1);
+        
+        for (int output = 0; output < graph.getNumberOfOutputs(); ++output) {
+            int literal = graph.getOutput(output);
+            int sweptLiteral = swept.getOutput(output);
+            assertEquals(
+                    values[AndInverterGraph.getNode(literal)] ^
+                    (AndInverterGraph.isComplemented(literal) ? -1L : 0L),
+                    sweptValues[AndInverterGraph.getNode(sweptLiteral)] ^
+                    (AndInverterGraph.isComplemented(sweptLiteral) ? 
+                            -1L : 
+                            0L));
+        }
+    }
+    
+    @Test
+    public void testBdds() {
+        Circuit adder1 = createAdder(16, false, -1);
+        Circuit adder2 = createAdder(16, true, -1);
+        Circuit adder3 = createAdder(16, true, 5);
+        int[] variables = CircuitBdds.computeVariableOrder(adder1);
+        
+        // A tiny node table forces growing and garbage collection.
+        BddManager manager = new BddManager(32, 16);
+        int[] outputs1 = CircuitBdds.build(manager, adder1, variables);
+        int[] outputs2 = CircuitBdds.build(manager, adder2, variables);
+        int[] outputs3 = CircuitBdds.build(manager, adder3, variables);
+        assertTrue(manager.getNumberOfGarbageCollections() > 0);
+        assertTrue(Arrays.equals(outputs1, outputs2));
+        assertFalse(Arrays.equals(outputs1, outputs3));
+        
+        // Each sum bit is true for a half of the inputs.
+        BigInteger half = BigInteger.ONE.shiftLeft(31);
+        
+        for (int i = 0; i < 16; ++i) {
+            assertEquals(half, manager.satCount(outputs1[i]));
+        }
+        
+        // The sum bit 0 depends on a[0] and b[0] only.
+        int sum0 = outputs1[0];
+        assertEquals(sum0, manager.exists(sum0, variables[1]));
+        assertFalse(sum0 == manager.exists(sum0, variables[0]));
+        
+        boolean[] assignment = manager.anySat(outputs1[16]);
+        assertTrue(manager.evaluate(outputs1[16], assignment));
+        boolean[] input = new boolean[32];
+        
+        for (int i = 0; i < 32; ++i) {
+            input[i] = assignment[variables[i]];
+        }
+        
+        assertTrue(adder1.doCycle(input)[16]);
+    }
+    
+    @Test
+    public void testBddGarbageCollectionKeepsOperands() {
+        // A tiny node table collects the garbage between the operand calls.
+        BddManager manager = new BddManager(8, 8);
+        boolean[] assignment = new boolean[8];
+        Random random = new Random(17L);
+        
+        for (int round = 0; round < 100; ++round) {
+            for (int i = 0; i + 1 < 8; ++i) {
+                int x = manager.variable(i);
+                int y = manager.variable(i + 1);
+                int r = manager.and(x, y);
+                
+                // Unreferenced garbage filling the node table.
+                manager.ref(r);
+                manager.xor(r, manager.variable(random.nextInt(8)));
+                
+                for (int j = 0; j < 8; ++j) {
+                    assignment[j] = random.nextBoolean();
+                }
+                
+                assertEquals(assignment[i], manager.evaluate(x, assignment));
+                assertEquals(assignment[i] && assignment[i + 1],
+                             manager.evaluate(r, assignment));
+                manager.deref(r);
+            }
+        }
+        
+        assertTrue(manager.getNumberOfGarbageCollections() > 0);
+    }
+    
+    /**
+     * Builds an adder of two {@code n}-bit numbers. If {@code alternative} is
+     * set, the sum and the carry bits are expressed differently. The carry
+     * out of the bit {@code brokenBit} is computed incorrectly.
+     */
+    private static Circuit createAdder(int n, 
+                                       boolean alternative, 
+                                       int brokenBit) {
+        AndInverterGraph graph = new AndInverterGraph(2 * n);
+        int carry = AndInverterGraph.FALSE;
+        
+        for (int i = 0; i < n; ++i) {
+            int a = graph.getInput(i);
+            int b = graph.getInput(n + i);
+            
+            if (alternative) {
+                int sum = graph.xor(graph.xor(a, carry), b);
+                int majority = graph.or(graph.and(a, b), 
+                                        graph.and(carry, graph.or(a, b)));
+                graph.addOutput(sum);
+                carry = i == brokenBit ? graph.or(a, b) : majority;
+            } else {
+                int propagate = graph.xor(a, b);
+                graph.addOutput(graph.xor(propagate, carry));
+                carry = graph.or(graph.and(a, b), 
+                                 graph.and(propagate, carry));
+            }
+        }
+        
+        graph.addOutput(carry);
+        Circuit circuit = graph.toCircuit("adder");
+        circuit.lock();
+        return circuit;
+    }
 }